@@ -10,10 +10,16 @@ import java.util.List;
 import java.util.Set;
 
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.apex.ast.ASTMethod;
+import net.sourceforge.pmd.lang.apex.ast.ASTUserClassOrInterface;
 import net.sourceforge.pmd.lang.apex.ast.ApexParser;
+import net.sourceforge.pmd.lang.apex.ast.ApexQualifiableNode;
 import net.sourceforge.pmd.lang.apex.internal.ApexDesignerBindings;
 import net.sourceforge.pmd.lang.apex.metrics.ApexMetrics;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.NodeStream;
 import net.sourceforge.pmd.lang.ast.Parser;
+import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.metrics.LanguageMetricsProvider;
 import net.sourceforge.pmd.lang.metrics.Metric;
 import net.sourceforge.pmd.reporting.ViolationSuppressor;
@@ -55,5 +61,17 @@ class ApexLanguageHandler implements LanguageVersionHandler {
         public Set<Metric<?, ?>> getMetrics() {
             return metrics;
         }
+
+        @Override
+        public NodeStream<? extends Node> getExportedNodes(RootNode root) {
+            return root.descendants()
+                       .filter(it -> it instanceof ASTUserClassOrInterface
+                           || it instanceof ASTMethod && !((ASTMethod) it).isSynthetic());
+        }
+
+        @Override
+        public String getExportedName(Node node) {
+            return ((ApexQualifiableNode) node).getQualifiedName().toString();
+        }
     }
 }
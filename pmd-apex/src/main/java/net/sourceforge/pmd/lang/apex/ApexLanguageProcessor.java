@@ -7,14 +7,17 @@ package net.sourceforge.pmd.lang.apex;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.apex.metrics.internal.FusedMetricsVisitor;
 import net.sourceforge.pmd.lang.apex.multifile.ApexMultifileAnalysis;
 import net.sourceforge.pmd.lang.impl.BatchLanguageProcessor;
+import net.sourceforge.pmd.lang.metrics.FusedMetrics;
 
 public class ApexLanguageProcessor
     extends BatchLanguageProcessor<ApexLanguageProperties> {
 
     private final ApexMultifileAnalysis multifileAnalysis;
     private final ApexLanguageHandler services;
+    private final FusedMetrics fusedMetrics = FusedMetricsVisitor.newFusedMetrics();
 
     ApexLanguageProcessor(ApexLanguageProperties bundle) {
         super(bundle);
@@ -31,4 +34,12 @@ public class ApexLanguageProcessor
         return multifileAnalysis;
     }
 
+    /**
+     * Returns the object that computes the metrics of a whole file
+     * in a single traversal.
+     */
+    public FusedMetrics getFusedMetrics() {
+        return fusedMetrics;
+    }
+
 }
@@ -8,8 +8,11 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import net.sourceforge.pmd.internal.util.PredicateUtil;
+import net.sourceforge.pmd.lang.LanguageProcessor;
+import net.sourceforge.pmd.lang.apex.ApexLanguageProcessor;
 import net.sourceforge.pmd.lang.apex.ast.ASTMethod;
 import net.sourceforge.pmd.lang.apex.ast.ASTUserClass;
 import net.sourceforge.pmd.lang.apex.ast.ASTUserClassOrInterface;
@@ -18,6 +21,7 @@ import net.sourceforge.pmd.lang.apex.metrics.internal.CognitiveComplexityVisitor
 import net.sourceforge.pmd.lang.apex.metrics.internal.CognitiveComplexityVisitor.State;
 import net.sourceforge.pmd.lang.apex.metrics.internal.StandardCycloVisitor;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.metrics.FusedMetrics;
 import net.sourceforge.pmd.lang.metrics.Metric;
 import net.sourceforge.pmd.lang.metrics.MetricOptions;
 import net.sourceforge.pmd.lang.metrics.MetricsUtil;
@@ -122,13 +126,34 @@ public final class ApexMetrics {
         return n -> n.asStream().filterIs(klass).filter(pred).first();
     }
 
-    private static int computeCyclo(ApexNode<?> node, MetricOptions ignored) {
+    /**
+     * Computes the metric on all the nodes of the file of the node in a
+     * single traversal, if the file was not traversed yet. Returns null
+     * if the value must be computed on the node alone. See {@link FusedMetrics}.
+     */
+    private static <R extends Number> @Nullable R computeOnFile(Metric<ApexNode<?>, R> metric, ApexNode<?> node, MetricOptions options) {
+        LanguageProcessor processor = node.getAstInfo().getLanguageProcessor();
+        if (processor instanceof ApexLanguageProcessor) {
+            return ((ApexLanguageProcessor) processor).getFusedMetrics().computeOnFile(metric, node, options);
+        }
+        return null;
+    }
+
+    private static int computeCyclo(ApexNode<?> node, MetricOptions options) {
+        Integer fused = computeOnFile(CYCLO, node, options);
+        if (fused != null) {
+            return fused;
+        }
         MutableInt result = new MutableInt(1);
         node.acceptVisitor(new StandardCycloVisitor(), result);
         return result.getValue();
     }
 
-    private static int computeCognitiveComp(ApexNode<?> node, MetricOptions ignored) {
+    private static int computeCognitiveComp(ApexNode<?> node, MetricOptions options) {
+        Integer fused = computeOnFile(COGNITIVE_COMPLEXITY, node, options);
+        if (fused != null) {
+            return fused;
+        }
         State state = new State();
         node.acceptVisitor(CognitiveComplexityVisitor.INSTANCE, state);
         return state.getComplexity();
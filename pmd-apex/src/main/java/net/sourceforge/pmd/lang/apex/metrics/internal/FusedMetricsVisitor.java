@@ -0,0 +1,329 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.metrics.internal;
+
+import static net.sourceforge.pmd.util.CollectionUtil.setOf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sourceforge.pmd.lang.apex.ast.ASTApexFile;
+import net.sourceforge.pmd.lang.apex.ast.ASTBlockStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTBooleanExpression;
+import net.sourceforge.pmd.lang.apex.ast.ASTCatchBlockStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTDoLoopStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTForEachStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTForLoopStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTIfBlockStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTIfElseBlockStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTMethod;
+import net.sourceforge.pmd.lang.apex.ast.ASTMethodCallExpression;
+import net.sourceforge.pmd.lang.apex.ast.ASTPrefixExpression;
+import net.sourceforge.pmd.lang.apex.ast.ASTStandardCondition;
+import net.sourceforge.pmd.lang.apex.ast.ASTSwitchStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTTernaryExpression;
+import net.sourceforge.pmd.lang.apex.ast.ASTThrowStatement;
+import net.sourceforge.pmd.lang.apex.ast.ASTUserClassOrInterface;
+import net.sourceforge.pmd.lang.apex.ast.ASTWhileLoopStatement;
+import net.sourceforge.pmd.lang.apex.ast.ApexNode;
+import net.sourceforge.pmd.lang.apex.ast.ApexVisitorBase;
+import net.sourceforge.pmd.lang.apex.ast.BooleanOperator;
+import net.sourceforge.pmd.lang.apex.ast.PrefixOperator;
+import net.sourceforge.pmd.lang.apex.metrics.ApexMetrics;
+import net.sourceforge.pmd.lang.metrics.FusedMetrics;
+import net.sourceforge.pmd.lang.metrics.Metric;
+import net.sourceforge.pmd.lang.metrics.MetricOptions;
+
+/**
+ * Computes the Cyclo and Cognitive complexity metrics of all the methods
+ * and classes of a file in a single traversal. Each metric is computed
+ * exactly like {@link StandardCycloVisitor} and {@link CognitiveComplexityVisitor}
+ * would, when started on the method or class.
+ *
+ * <p>An open method or class has a {@link Frame}. Cyclo is additive,
+ * so it is only counted in the innermost frame, and added to the
+ * enclosing frame when the frame is closed. Cognitive complexity depends
+ * on the nesting level, so it is counted in every open frame.
+ */
+public final class FusedMetricsVisitor extends ApexVisitorBase<Void, Void> {
+
+    private static final Set<Metric<?, ?>> SUPPORTED_METRICS = setOf(
+        ApexMetrics.CYCLO,
+        ApexMetrics.COGNITIVE_COMPLEXITY
+    );
+
+    private final List<MetricOptions> cycloOptions;
+    private final List<MetricOptions> cognitiveOptions;
+
+    private final List<Frame> frames = new ArrayList<>();
+    /** Whether the current node is skipped by {@link CognitiveComplexityVisitor}. */
+    private boolean cognitiveSkipped;
+
+    private FusedMetricsVisitor(Map<Metric<?, ?>, Set<MetricOptions>> requests) {
+        cycloOptions = optionsOf(requests, ApexMetrics.CYCLO);
+        cognitiveOptions = optionsOf(requests, ApexMetrics.COGNITIVE_COMPLEXITY);
+    }
+
+    private static List<MetricOptions> optionsOf(Map<Metric<?, ?>, Set<MetricOptions>> requests, Metric<?, ?> metric) {
+        Set<MetricOptions> options = requests.get(metric);
+        return options == null ? Collections.emptyList() : new ArrayList<>(options);
+    }
+
+    /**
+     * Returns a new {@link FusedMetrics} that computes the Apex metrics
+     * with this visitor.
+     */
+    public static FusedMetrics newFusedMetrics() {
+        return new FusedMetrics(SUPPORTED_METRICS, (root, requests) -> {
+            ((ASTApexFile) root).acceptVisitor(new FusedMetricsVisitor(requests), null);
+        });
+    }
+
+
+    private Frame openFrame(ApexNode<?> node) {
+        Frame frame = new Frame(node);
+        frames.add(frame);
+        return frame;
+    }
+
+    private void closeFrame(Frame frame) {
+        frames.remove(frames.size() - 1);
+        if (!frames.isEmpty()) {
+            // the base complexity of 1 is only counted once
+            frames.get(frames.size() - 1).cyclo += frame.cyclo - 1;
+        }
+        for (MetricOptions options : cycloOptions) {
+            FusedMetrics.store(ApexMetrics.CYCLO, frame.node, options, frame.cyclo);
+        }
+        for (MetricOptions options : cognitiveOptions) {
+            FusedMetrics.store(ApexMetrics.COGNITIVE_COMPLEXITY, frame.node, options, frame.cognitive);
+        }
+    }
+
+    private void cyclo(int increment) {
+        if (!frames.isEmpty()) {
+            frames.get(frames.size() - 1).cyclo += increment;
+        }
+    }
+
+    private void conditionalCyclo(ApexNode<?> node) {
+        if (!frames.isEmpty() && !cycloOptions.isEmpty()) {
+            cyclo(1 + ApexMetricsHelper.booleanExpressionComplexity(node.descendants(ASTStandardCondition.class).first()));
+        }
+    }
+
+    private boolean countsCognitive() {
+        return !cognitiveSkipped && !cognitiveOptions.isEmpty();
+    }
+
+    private void structure() {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                frame.cognitive += 1 + frame.nesting;
+                frame.nesting++;
+            }
+        }
+    }
+
+    private void hybrid() {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                frame.cognitive++;
+                frame.nesting++;
+            }
+        }
+    }
+
+    private void decreaseNesting() {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                frame.nesting--;
+            }
+        }
+    }
+
+    private void booleanOperation(BooleanOperator op) {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                if (frame.booleanOp != op) {
+                    if (op != null) {
+                        frame.cognitive++;
+                    }
+                    frame.booleanOp = op;
+                }
+            }
+        }
+    }
+
+    private Void structural(ApexNode<?> node) {
+        structure();
+        visitChildren(node, null);
+        decreaseNesting();
+        return null;
+    }
+
+
+    @Override
+    public Void visitTypeDecl(ASTUserClassOrInterface<?> node, Void data) {
+        Frame frame = openFrame(node);
+        visitChildren(node, data);
+        closeFrame(frame);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTMethod node, Void data) {
+        Frame frame = node.isSynthetic() ? null : openFrame(node);
+        if (countsCognitive()) {
+            String name = node.getCanonicalName();
+            for (Frame f : frames) {
+                f.methodName = name;
+            }
+        }
+        visitChildren(node, data);
+        if (frame != null) {
+            closeFrame(frame);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTMethodCallExpression node, Void data) {
+        if (countsCognitive()) {
+            String name = node.getMethodName();
+            for (Frame frame : frames) {
+                if (name.equals(frame.methodName)) {
+                    // recursive call, see CognitiveComplexityVisitor
+                    frame.cognitive += 1 + frame.nesting;
+                    frame.nesting++;
+                }
+            }
+        }
+        return visitChildren(node, data);
+    }
+
+    @Override
+    public Void visit(ASTIfElseBlockStatement node, Void data) {
+        boolean hasElseStatement = node.hasElseStatement();
+        boolean outerSkipped = cognitiveSkipped;
+        for (ApexNode<?> child : node.children()) {
+            // If we don't have an else statement, we get an empty block statement which we shouldn't count
+            if (!hasElseStatement && child instanceof ASTBlockStatement) {
+                cognitiveSkipped = true;
+            }
+
+            if (child.getIndexInParent() == 0) {
+                // the first IfBlock is the first "if"
+                structure();
+            } else {
+                // any other IfBlocks are "else if"
+                hybrid();
+            }
+            child.acceptVisitor(this, data);
+            decreaseNesting();
+        }
+        cognitiveSkipped = outerSkipped;
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTIfBlockStatement node, Void data) {
+        conditionalCyclo(node);
+        return visitChildren(node, data);
+    }
+
+    @Override
+    public Void visit(ASTForLoopStatement node, Void data) {
+        conditionalCyclo(node);
+        return structural(node);
+    }
+
+    @Override
+    public Void visit(ASTWhileLoopStatement node, Void data) {
+        conditionalCyclo(node);
+        return structural(node);
+    }
+
+    @Override
+    public Void visit(ASTDoLoopStatement node, Void data) {
+        conditionalCyclo(node);
+        return structural(node);
+    }
+
+    @Override
+    public Void visit(ASTTernaryExpression node, Void data) {
+        conditionalCyclo(node);
+        return structural(node);
+    }
+
+    @Override
+    public Void visit(ASTForEachStatement node, Void data) {
+        cyclo(1);
+        return structural(node);
+    }
+
+    @Override
+    public Void visit(ASTCatchBlockStatement node, Void data) {
+        cyclo(1);
+        return structural(node);
+    }
+
+    @Override
+    public Void visit(ASTThrowStatement node, Void data) {
+        cyclo(1);
+        return visitChildren(node, data);
+    }
+
+    @Override
+    public Void visit(ASTSwitchStatement node, Void data) {
+        return structural(node);
+    }
+
+    @Override
+    public Void visit(ASTBooleanExpression node, Void data) {
+        BooleanOperator op = node.getOp();
+        if (op == BooleanOperator.LOGICAL_AND || op == BooleanOperator.LOGICAL_OR) {
+            booleanOperation(op);
+        }
+        return visitChildren(node, data);
+    }
+
+    @Override
+    public Void visit(ASTPrefixExpression node, Void data) {
+        if (node.getOp() == PrefixOperator.LOGICAL_NOT) {
+            booleanOperation(null);
+        }
+        return visitChildren(node, data);
+    }
+
+    @Override
+    public Void visit(ASTBlockStatement node, Void data) {
+        for (ApexNode<?> child : node.children()) {
+            // the current run of boolean operations is terminated by the end of a statement
+            booleanOperation(null);
+            child.acceptVisitor(this, data);
+        }
+        return null;
+    }
+
+    /** Metrics of an open method or class. */
+    private static final class Frame {
+
+        final ApexNode<?> node;
+        int cyclo = 1;
+
+        int cognitive;
+        int nesting;
+        BooleanOperator booleanOp;
+        String methodName;
+
+        Frame(ApexNode<?> node) {
+            this.node = node;
+        }
+    }
+}
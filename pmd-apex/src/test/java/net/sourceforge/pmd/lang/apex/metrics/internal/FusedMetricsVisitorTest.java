@@ -0,0 +1,90 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.metrics.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.internal.util.IOUtil;
+import net.sourceforge.pmd.lang.apex.ast.ASTApexFile;
+import net.sourceforge.pmd.lang.apex.ast.ASTMethod;
+import net.sourceforge.pmd.lang.apex.ast.ASTUserClassOrInterface;
+import net.sourceforge.pmd.lang.apex.ast.ApexNode;
+import net.sourceforge.pmd.lang.apex.ast.ApexParserTestBase;
+import net.sourceforge.pmd.lang.apex.metrics.ApexMetrics;
+import net.sourceforge.pmd.lang.apex.metrics.internal.CognitiveComplexityVisitor.State;
+import net.sourceforge.pmd.lang.metrics.FusedMetrics;
+import net.sourceforge.pmd.lang.metrics.MetricOptions;
+import net.sourceforge.pmd.lang.metrics.MetricsUtil;
+
+/**
+ * Checks that the metrics computed in a single traversal are the same
+ * as the ones computed by the visitors of each metric.
+ */
+class FusedMetricsVisitorTest extends ApexParserTestBase {
+
+    private static final Pattern CODE = Pattern.compile("<!\\[CDATA\\[(.*?)]]>", Pattern.DOTALL);
+
+    @Test
+    void testSameValuesAsVisitors() throws IOException {
+        FusedMetrics fusedMetrics = FusedMetricsVisitor.newFusedMetrics();
+        // record all the requests before the files are traversed
+        ASTUserClassOrInterface<?> dummy = parse("public class Dummy { }");
+        fusedMetrics.computeOnFile(ApexMetrics.CYCLO, dummy, MetricOptions.emptyOptions());
+        fusedMetrics.computeOnFile(ApexMetrics.COGNITIVE_COMPLEXITY, dummy, MetricOptions.emptyOptions());
+
+        for (String code : codeSamples("CycloTest", "CognitiveComplexityTest", "WmcTest")) {
+            ASTApexFile file = apex.parse(code);
+            fusedMetrics.computeOnFile(ApexMetrics.CYCLO, file, MetricOptions.emptyOptions());
+
+            List<ApexNode<?>> nodes = new ArrayList<>();
+            file.descendants(ASTUserClassOrInterface.class).forEach(nodes::add);
+            file.descendants(ASTMethod.class).filter(m -> !m.isSynthetic()).forEach(nodes::add);
+            for (ApexNode<?> node : nodes) {
+                // the value of the fused traversal is cached on the node
+                assertEquals(cyclo(node), MetricsUtil.computeMetric(ApexMetrics.CYCLO, node), () -> "Cyclo of " + node);
+                assertEquals(cognitive(node), MetricsUtil.computeMetric(ApexMetrics.COGNITIVE_COMPLEXITY, node), () -> "Cognitive of " + node);
+            }
+        }
+    }
+
+    private List<String> codeSamples(String... testFiles) throws IOException {
+        List<String> samples = new ArrayList<>();
+        for (String testFile : testFiles) {
+            String resource = "/net/sourceforge/pmd/lang/apex/metrics/impl/xml/" + testFile + ".xml";
+            String xml;
+            try (InputStream in = getClass().getResourceAsStream(resource)) {
+                xml = IOUtil.readToString(in, StandardCharsets.UTF_8);
+            }
+            Matcher matcher = CODE.matcher(xml);
+            while (matcher.find()) {
+                samples.add(matcher.group(1));
+            }
+        }
+        return samples;
+    }
+
+    private static int cyclo(ApexNode<?> node) {
+        MutableInt result = new MutableInt(1);
+        node.acceptVisitor(new StandardCycloVisitor(), result);
+        return result.getValue();
+    }
+
+    private static int cognitive(ApexNode<?> node) {
+        State state = new State();
+        node.acceptVisitor(CognitiveComplexityVisitor.INSTANCE, state);
+        return state.getComplexity();
+    }
+}
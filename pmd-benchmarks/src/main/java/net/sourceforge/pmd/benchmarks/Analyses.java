@@ -0,0 +1,64 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.List;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.util.log.MessageReporter;
+
+/**
+ * Helpers to run an analysis in a benchmark.
+ */
+final class Analyses {
+
+    /** Number of warmup and measurement iterations of the benchmarks. */
+    static final int ITERATIONS = 5;
+    /** Duration of an iteration, in seconds. */
+    static final int ITERATION_SECONDS = 2;
+
+    private Analyses() {
+        // utility class
+    }
+
+    static Language language(String id) {
+        Language language = LanguageRegistry.PMD.getLanguageById(id);
+        if (language == null) {
+            throw new IllegalArgumentException("Unknown language " + id);
+        }
+        return language;
+    }
+
+    /**
+     * A configuration that analyses the files on the benchmark thread,
+     * without analysis cache, and does not log.
+     */
+    static PMDConfiguration newConfiguration() {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setThreads(0);
+        configuration.setIgnoreIncrementalAnalysis(true);
+        configuration.setReporter(MessageReporter.quiet());
+        return configuration;
+    }
+
+    static List<RuleSet> loadRuleSets(PMDConfiguration configuration, List<String> paths) {
+        try (PmdAnalysis pmd = PmdAnalysis.create(configuration)) {
+            return pmd.newRuleSetLoader().loadFromResources(paths);
+        }
+    }
+
+    static Report run(PMDConfiguration configuration, Corpus corpus, List<RuleSet> ruleSets) {
+        try (PmdAnalysis pmd = PmdAnalysis.create(configuration)) {
+            corpus.addTo(pmd.files());
+            pmd.addRuleSets(ruleSets);
+            return pmd.performAnalysisAndCollectReport();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.cache.FileAnalysisCache;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.internal.RuleSets;
+
+/**
+ * Loads and persists an analysis cache that has the results of the
+ * whole Java corpus, as an incremental analysis does when no file changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Measurement(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Fork(1)
+public class AnalysisCacheBenchmark {
+
+    private Path tempDir;
+    private File cacheFile;
+    private RuleSets ruleSets;
+    private List<TextFile> files;
+    private List<TextDocument> documents;
+
+    @Setup
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("pmd-benchmarks");
+        cacheFile = tempDir.resolve("cache.bin").toFile();
+
+        PMDConfiguration configuration = Analyses.newConfiguration();
+        List<RuleSet> loaded = Analyses.loadRuleSets(configuration, Collections.singletonList("rulesets/java/quickstart.xml"));
+        ruleSets = new RuleSets(loaded);
+
+        // a first analysis writes the cache
+        configuration.setIgnoreIncrementalAnalysis(false);
+        configuration.setAnalysisCacheLocation(cacheFile.getPath());
+        Corpus corpus = Corpus.load(Analyses.language("java"));
+        try (PmdAnalysis pmd = PmdAnalysis.create(configuration)) {
+            corpus.addTo(pmd.files());
+            pmd.addRuleSets(loaded);
+            files = new ArrayList<>(pmd.files().getCollectedFiles());
+            pmd.performAnalysis();
+        }
+        documents = new ArrayList<>();
+        for (TextFile file : files) {
+            documents.add(TextDocument.create(file));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (TextDocument document : documents) {
+            document.close();
+        }
+        Files.deleteIfExists(cacheFile.toPath());
+        Files.deleteIfExists(tempDir);
+    }
+
+    @Benchmark
+    public FileAnalysisCache load() {
+        FileAnalysisCache cache = new FileAnalysisCache(cacheFile);
+        cache.checkValidity(ruleSets, getClass().getClassLoader(), files);
+        return cache;
+    }
+
+    @Benchmark
+    public void loadCheckAndPersist(Blackhole blackhole) {
+        FileAnalysisCache cache = new FileAnalysisCache(cacheFile);
+        cache.checkValidity(ruleSets, getClass().getClassLoader(), files);
+        for (TextDocument document : documents) {
+            blackhole.consume(cache.isUpToDate(document));
+        }
+        // every file is up to date, so this writes the same cache again
+        cache.persist();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares two JMH result files, written with {@code -rf json}, and fails
+ * if a benchmark regressed. This can gate a release on the results of the
+ * previous one:
+ *
+ * <pre>
+ * java -cp pmd-benchmarks/target/benchmarks.jar net.sourceforge.pmd.benchmarks.CompareResults \
+ *     baseline.json current.json [threshold-percent]
+ * </pre>
+ *
+ * <p>A benchmark regressed if its score is worse than the baseline by more
+ * than the threshold (10% by default), and by more than the sum of the
+ * error margins of both scores, so that noise is not reported. Lower scores
+ * are better, except for the throughput mode. Benchmarks are matched by
+ * name and parameters; the ones that are only in one of the files are
+ * listed but are not regressions.
+ *
+ * <p>The exit code is 0 if no benchmark regressed, 1 otherwise, and 2
+ * if the arguments are invalid.
+ */
+public final class CompareResults {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+    /** Index of the optional threshold in the arguments, after the two files. */
+    private static final int THRESHOLD_ARG = 2;
+    private static final double PERCENT = 100;
+
+    private CompareResults() {
+        // utility class
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < THRESHOLD_ARG || args.length > THRESHOLD_ARG + 1) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > THRESHOLD_ARG ? Double.parseDouble(args[THRESHOLD_ARG]) : DEFAULT_THRESHOLD_PERCENT;
+        int regressions;
+        try (Reader baseline = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+             Reader current = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            @SuppressWarnings("PMD.CloseResource") // do not close System.out
+            Writer out = new PrintWriter(System.out);
+            regressions = compare(baseline, current, threshold, out);
+        }
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    /**
+     * Compares the results, and writes a line per benchmark to the output.
+     *
+     * @return The number of benchmarks that regressed
+     */
+    static int compare(Reader baseline, Reader current, double thresholdPercent, Writer output) {
+        Map<String, Score> before = readScores(baseline);
+        Map<String, Score> after = readScores(current);
+        PrintWriter out = new PrintWriter(output);
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : after.entrySet()) {
+            Score newScore = entry.getValue();
+            Score oldScore = before.get(entry.getKey());
+            if (oldScore == null) {
+                out.printf(Locale.ROOT, "NEW        %s: %s%n", entry.getKey(), newScore);
+                continue;
+            }
+            // positive if worse
+            double delta = newScore.higherIsBetter ? oldScore.value - newScore.value : newScore.value - oldScore.value;
+            double percent = oldScore.value == 0 ? 0 : PERCENT * delta / oldScore.value;
+            boolean significant = Math.abs(delta) > oldScore.error + newScore.error;
+            String status;
+            if (significant && percent > thresholdPercent) {
+                status = "REGRESSED";
+                regressions++;
+            } else if (significant && percent < -thresholdPercent) {
+                status = "IMPROVED";
+            } else {
+                status = "OK";
+            }
+            out.printf(Locale.ROOT, "%-10s %s: %s -> %s (%+.1f%%)%n", status, entry.getKey(), oldScore, newScore,
+                       newScore.higherIsBetter ? -percent : percent);
+        }
+        for (String name : before.keySet()) {
+            if (!after.containsKey(name)) {
+                out.printf(Locale.ROOT, "MISSING    %s%n", name);
+            }
+        }
+        out.printf(Locale.ROOT, "%d benchmark(s) regressed by more than %.1f%%%n", regressions, thresholdPercent);
+        out.flush();
+        return regressions;
+    }
+
+    private static Map<String, Score> readScores(Reader reader) {
+        JsonArray results = JsonParser.parseReader(reader).getAsJsonArray();
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonElement element : results) {
+            JsonObject result = element.getAsJsonObject();
+            StringBuilder name = new StringBuilder(result.get("benchmark").getAsString());
+            JsonObject params = result.getAsJsonObject("params");
+            if (params != null) {
+                Map<String, String> sortedParams = new TreeMap<>();
+                for (Map.Entry<String, JsonElement> param : params.entrySet()) {
+                    sortedParams.put(param.getKey(), param.getValue().getAsString());
+                }
+                name.append(sortedParams);
+            }
+            JsonObject metric = result.getAsJsonObject("primaryMetric");
+            JsonElement error = metric.get("scoreError");
+            scores.put(name.toString(), new Score(metric.get("score").getAsDouble(),
+                                                  error == null || !isNumber(error) ? 0 : error.getAsDouble(),
+                                                  metric.get("scoreUnit").getAsString(),
+                                                  "thrpt".equals(result.get("mode").getAsString())));
+        }
+        return scores;
+    }
+
+    private static boolean isNumber(JsonElement element) {
+        // JMH writes "NaN" when there are not enough iterations to compute the error
+        return element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber();
+    }
+
+    private static final class Score {
+        private final double value;
+        private final double error;
+        private final String unit;
+        private final boolean higherIsBetter;
+
+        Score(double score, double scoreError, String scoreUnit, boolean throughput) {
+            this.value = score;
+            this.error = scoreError;
+            this.unit = scoreUnit;
+            this.higherIsBetter = throughput;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.3f +/- %.3f %s", value, error, unit);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.document.FileCollector;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextDocument;
+
+/**
+ * The source files a benchmark runs on. By default, these are the small
+ * samples bundled in the {@code corpus} resource directory. To benchmark
+ * a real codebase, set the system property {@value #CORPUS_PROPERTY} to
+ * a directory that has a subdirectory per language id, eg {@code java}.
+ * The subdirectories are explored recursively.
+ */
+final class Corpus {
+
+    static final String CORPUS_PROPERTY = "pmd.benchmarks.corpus";
+
+    private static final String LINE_TERMINATOR = "\n";
+
+    private final Language language;
+    private final Map<FileId, String> files;
+
+    private Corpus(Language lang, Map<FileId, String> sources) {
+        this.language = lang;
+        this.files = Collections.unmodifiableMap(sources);
+    }
+
+    /**
+     * Loads the corpus of a language.
+     */
+    static Corpus load(Language language) {
+        String root = System.getProperty(CORPUS_PROPERTY);
+        try {
+            Map<FileId, String> files = root == null ? loadBundled(language) : loadDirectory(language, Paths.get(root, language.getId()));
+            if (files.isEmpty()) {
+                throw new IllegalStateException("No " + language.getName() + " file in the corpus");
+            }
+            return new Corpus(language, files);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<FileId, String> loadBundled(Language language) throws IOException {
+        String dir = "corpus/" + language.getId() + "/";
+        Map<FileId, String> files = new LinkedHashMap<>();
+        for (String name : readLines(read(dir + "index.txt"))) {
+            files.put(FileId.fromPathLikeString(dir + name), read(dir + name));
+        }
+        return files;
+    }
+
+    private static Map<FileId, String> loadDirectory(Language language, Path dir) throws IOException {
+        Map<FileId, String> files = new LinkedHashMap<>();
+        List<Path> paths;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            paths = stream.filter(Files::isRegularFile)
+                          .filter(p -> language.hasExtension(extension(p)))
+                          .sorted()
+                          .collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            files.put(FileId.fromPath(path), new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        }
+        return files;
+    }
+
+    private static String extension(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1);
+    }
+
+    private static String read(String resource) throws IOException {
+        try (InputStream in = Corpus.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Missing corpus resource " + resource);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                return reader.lines().collect(Collectors.joining(LINE_TERMINATOR, "", LINE_TERMINATOR));
+            }
+        }
+    }
+
+    private static List<String> readLines(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.split(LINE_TERMINATOR)) {
+            if (!line.trim().isEmpty()) {
+                lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+
+    Language getLanguage() {
+        return language;
+    }
+
+    int size() {
+        return files.size();
+    }
+
+    /**
+     * Adds all the files to the file collector of an analysis.
+     */
+    void addTo(FileCollector collector) {
+        files.forEach(collector::addSourceFile);
+    }
+
+    /**
+     * Returns the files as text documents of the given language version.
+     */
+    List<TextDocument> documents(LanguageVersion version) {
+        List<TextDocument> documents = new ArrayList<>(files.size());
+        files.forEach((id, text) -> documents.add(TextDocument.readOnlyString(text, id, version)));
+        return documents;
+    }
+}
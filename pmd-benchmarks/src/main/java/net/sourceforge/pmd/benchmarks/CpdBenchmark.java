@@ -0,0 +1,85 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.cpd.CPDConfiguration;
+import net.sourceforge.pmd.cpd.CpdAnalysis;
+import net.sourceforge.pmd.cpd.CpdCapableLanguage;
+import net.sourceforge.pmd.cpd.CpdLexer;
+import net.sourceforge.pmd.cpd.Tokens;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.util.log.MessageReporter;
+
+/**
+ * Tokenizes the corpus of a language for CPD, and runs a whole CPD
+ * analysis, which also finds the duplicates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Measurement(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Fork(1)
+public class CpdBenchmark {
+
+    /** Id of the language whose corpus is tokenized. */
+    @Param({ "java", "ecmascript" })
+    public String language;
+
+    /** Minimum number of tokens of a duplicate. */
+    @Param("50")
+    public int minimumTileSize;
+
+    private CpdCapableLanguage lang;
+    private Corpus corpus;
+    private CpdLexer lexer;
+    private List<TextDocument> documents;
+
+    @Setup
+    public void setUp() {
+        lang = (CpdCapableLanguage) Analyses.language(language);
+        corpus = Corpus.load(lang);
+        lexer = lang.createCpdLexer(lang.newPropertyBundle());
+        documents = corpus.documents(lang.getDefaultVersion());
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole blackhole) throws IOException {
+        for (TextDocument document : documents) {
+            Tokens tokens = new Tokens();
+            CpdLexer.tokenize(lexer, document, tokens);
+            blackhole.consume(tokens);
+        }
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) throws IOException {
+        CPDConfiguration configuration = new CPDConfiguration();
+        configuration.setOnlyRecognizeLanguage(lang);
+        configuration.setMinimumTileSize(minimumTileSize);
+        configuration.setReporter(MessageReporter.quiet());
+        try (CpdAnalysis cpd = CpdAnalysis.create(configuration)) {
+            corpus.addTo(cpd.files());
+            cpd.performAnalysis(blackhole::consume);
+        }
+    }
+}
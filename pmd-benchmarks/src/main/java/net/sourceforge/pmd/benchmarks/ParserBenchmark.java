@@ -0,0 +1,75 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.lang.LanguageProcessor;
+import net.sourceforge.pmd.lang.LanguageProcessorRegistry;
+import net.sourceforge.pmd.lang.PmdCapableLanguage;
+import net.sourceforge.pmd.lang.ast.Parser;
+import net.sourceforge.pmd.lang.ast.Parser.ParserTask;
+import net.sourceforge.pmd.lang.ast.SemanticErrorReporter;
+import net.sourceforge.pmd.lang.document.TextDocument;
+
+/**
+ * Parses the corpus of a language. For Java, this includes the semantic
+ * passes that run after the parser, eg symbol and type resolution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Measurement(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Fork(1)
+public class ParserBenchmark {
+
+    /** Id of the language whose corpus is parsed. */
+    @Param({ "java", "apex", "ecmascript", "xml" })
+    public String language;
+
+    private LanguageProcessorRegistry processors;
+    private Parser parser;
+    private List<TextDocument> documents;
+
+    @Setup
+    public void setUp() {
+        PmdCapableLanguage lang = (PmdCapableLanguage) Analyses.language(language);
+        LanguageProcessor processor = lang.createProcessor(lang.newPropertyBundle());
+        processors = LanguageProcessorRegistry.singleton(processor);
+        parser = processor.services().getParser();
+        documents = Corpus.load(lang).documents(processor.getLanguageVersion());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (TextDocument document : documents) {
+            document.close();
+        }
+        processors.close();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (TextDocument document : documents) {
+            blackhole.consume(parser.parse(new ParserTask(document, SemanticErrorReporter.noop(), processors)));
+        }
+    }
+}
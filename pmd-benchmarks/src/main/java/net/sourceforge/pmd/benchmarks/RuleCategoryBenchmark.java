@@ -0,0 +1,59 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.reporting.Report;
+
+/**
+ * Analyses the Java corpus with each category of built-in rules. This
+ * includes the parser, so compare with {@link ParserBenchmark} to get
+ * the time spent in the rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Measurement(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Fork(1)
+public class RuleCategoryBenchmark {
+
+    /** Name of the category of built-in Java rules. */
+    @Param({ "bestpractices", "codestyle", "design", "documentation", "errorprone", "multithreading", "performance", "security" })
+    public String category;
+
+    private PMDConfiguration configuration;
+    private Corpus corpus;
+    private List<RuleSet> ruleSets;
+
+    @Setup
+    public void setUp() {
+        configuration = Analyses.newConfiguration();
+        corpus = Corpus.load(Analyses.language("java"));
+        ruleSets = Analyses.loadRuleSets(configuration, Collections.singletonList("category/java/" + category + ".xml"));
+    }
+
+    @Benchmark
+    public Report analyze() {
+        return Analyses.run(configuration, corpus, ruleSets);
+    }
+}
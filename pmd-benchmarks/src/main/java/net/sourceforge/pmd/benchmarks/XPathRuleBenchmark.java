@@ -0,0 +1,75 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.xpath.XPathRule;
+import net.sourceforge.pmd.reporting.Report;
+
+/**
+ * Analyses the Java corpus with all the built-in XPath rules, and no
+ * other rule, to measure the XPath engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Measurement(iterations = Analyses.ITERATIONS, time = Analyses.ITERATION_SECONDS)
+@Fork(1)
+public class XPathRuleBenchmark {
+
+    private static final List<String> CATEGORIES = Arrays.asList(
+        "bestpractices", "codestyle", "design", "documentation", "errorprone", "multithreading", "performance", "security");
+
+    private PMDConfiguration configuration;
+    private Corpus corpus;
+    private List<RuleSet> ruleSets;
+
+    @Setup
+    public void setUp() {
+        configuration = Analyses.newConfiguration();
+        corpus = Corpus.load(Analyses.language("java"));
+
+        List<String> paths = new ArrayList<>();
+        for (String category : CATEGORIES) {
+            paths.add("category/java/" + category + ".xml");
+        }
+        List<Rule> xpathRules = new ArrayList<>();
+        for (RuleSet ruleSet : Analyses.loadRuleSets(configuration, paths)) {
+            for (Rule rule : ruleSet.getRules()) {
+                if (rule instanceof XPathRule) {
+                    xpathRules.add(rule);
+                }
+            }
+        }
+        ruleSets = Collections.singletonList(
+            RuleSet.create("XPath rules", "All the built-in XPath rules for Java", "xpath-rules.xml",
+                           Collections.emptyList(), Collections.emptyList(), xpathRules));
+    }
+
+    @Benchmark
+    public Report analyze() {
+        return Analyses.run(configuration, corpus, ruleSets);
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+/**
+ * JMH benchmarks of the parsers, rules, CPD and analysis cache.
+ *
+ * @see net.sourceforge.pmd.benchmarks.CompareResults
+ */
+package net.sourceforge.pmd.benchmarks;
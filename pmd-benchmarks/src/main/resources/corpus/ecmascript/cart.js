@@ -0,0 +1,83 @@
+/*
+ * A shopping cart widget.
+ */
+(function (global) {
+    'use strict';
+
+    var TAX_RATE = 0.2;
+
+    function formatPrice(value) {
+        return (Math.round(value * 100) / 100).toFixed(2) + ' EUR';
+    }
+
+    function Cart(element, catalog) {
+        this.element = element;
+        this.catalog = catalog;
+        this.items = {};
+        this.listeners = [];
+    }
+
+    Cart.prototype.add = function (productId, quantity) {
+        if (!this.catalog[productId]) {
+            throw new Error('Unknown product ' + productId);
+        }
+        quantity = quantity || 1;
+        this.items[productId] = (this.items[productId] || 0) + quantity;
+        this.changed();
+    };
+
+    Cart.prototype.remove = function (productId) {
+        delete this.items[productId];
+        this.changed();
+    };
+
+    Cart.prototype.total = function () {
+        var total = 0;
+        for (var id in this.items) {
+            if (this.items.hasOwnProperty(id)) {
+                total += this.catalog[id].price * this.items[id];
+            }
+        }
+        return total * (1 + TAX_RATE);
+    };
+
+    Cart.prototype.onChange = function (listener) {
+        this.listeners.push(listener);
+    };
+
+    Cart.prototype.changed = function () {
+        var self = this;
+        this.render();
+        this.listeners.forEach(function (listener) {
+            listener(self);
+        });
+    };
+
+    Cart.prototype.render = function () {
+        var html = '<ul>';
+        for (var id in this.items) {
+            if (this.items.hasOwnProperty(id)) {
+                var product = this.catalog[id];
+                html += '<li data-id="' + id + '">' + product.name + ' x ' + this.items[id]
+                    + ' <span class="price">' + formatPrice(product.price * this.items[id]) + '</span></li>';
+            }
+        }
+        html += '</ul><p class="total">' + formatPrice(this.total()) + '</p>';
+        this.element.innerHTML = html;
+    };
+
+    Cart.load = function (element, url, callback) {
+        var request = new XMLHttpRequest();
+        request.open('GET', url);
+        request.onload = function () {
+            if (request.status === 200) {
+                callback(null, new Cart(element, JSON.parse(request.responseText)));
+            } else {
+                callback(new Error('Could not load the catalog: ' + request.status));
+            }
+        };
+        request.send();
+    };
+
+    global.Cart = Cart;
+}(this));
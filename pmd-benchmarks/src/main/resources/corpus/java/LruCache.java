@@ -0,0 +1,94 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package com.example.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache that evicts the least recently used entries.
+ *
+ * @param <K> Type of keys
+ * @param <V> Type of values
+ */
+public class LruCache<K, V> {
+
+    private final int capacity;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LinkedHashMap<K, V> entries;
+    private long hits;
+    private long misses;
+
+    public LruCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        lock.writeLock().lock();
+        try {
+            V value = entries.get(key);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+            value = loader.apply(key);
+            if (value != null) {
+                entries.put(key, value);
+            }
+            return value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double hitRate() {
+        lock.readLock().lock();
+        try {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            hits = 0;
+            misses = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LruCache[size=" + size() + ", capacity=" + capacity + ", hitRate=" + hitRate() + "]";
+    }
+}
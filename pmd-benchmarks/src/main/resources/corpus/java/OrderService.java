@@ -0,0 +1,225 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package com.example.shop;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Places and tracks orders.
+ */
+public class OrderService {
+
+    private static final BigDecimal FREE_SHIPPING_THRESHOLD = new BigDecimal("50.00");
+    private static final BigDecimal SHIPPING_COST = new BigDecimal("4.99");
+
+    private final Map<Long, Order> orders = new ConcurrentHashMap<>();
+    private final InventoryService inventory;
+    private final PriceCalculator prices;
+    private long nextId = 1;
+
+    public OrderService(InventoryService inventory, PriceCalculator prices) {
+        this.inventory = Objects.requireNonNull(inventory);
+        this.prices = Objects.requireNonNull(prices);
+    }
+
+    public synchronized Order placeOrder(Customer customer, List<OrderLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("An order needs at least one line");
+        }
+        for (OrderLine line : lines) {
+            if (!inventory.isAvailable(line.getProductId(), line.getQuantity())) {
+                throw new OutOfStockException(line.getProductId());
+            }
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderLine line : lines) {
+            BigDecimal price = prices.priceOf(line.getProductId(), customer);
+            total = total.add(price.multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        if (total.compareTo(FREE_SHIPPING_THRESHOLD) < 0) {
+            total = total.add(SHIPPING_COST);
+        }
+        Order order = new Order(nextId++, customer, new ArrayList<>(lines), total.setScale(2, RoundingMode.HALF_UP));
+        orders.put(order.getId(), order);
+        lines.forEach(l -> inventory.reserve(l.getProductId(), l.getQuantity()));
+        return order;
+    }
+
+    public Optional<Order> findOrder(long id) {
+        return Optional.ofNullable(orders.get(id));
+    }
+
+    public List<Order> findOrders(Predicate<? super Order> filter) {
+        return orders.values().stream()
+                     .filter(filter)
+                     .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                     .collect(Collectors.toList());
+    }
+
+    public Map<Customer, BigDecimal> totalsByCustomer() {
+        Map<Customer, BigDecimal> totals = new HashMap<>();
+        for (Order order : orders.values()) {
+            if (order.getStatus() == Status.CANCELLED) {
+                continue;
+            }
+            totals.merge(order.getCustomer(), order.getTotal(), BigDecimal::add);
+        }
+        return Collections.unmodifiableMap(totals);
+    }
+
+    public void cancel(long id) {
+        Order order = orders.get(id);
+        if (order == null) {
+            return;
+        }
+        switch (order.getStatus()) {
+        case NEW:
+        case PAID:
+            order.setStatus(Status.CANCELLED);
+            for (OrderLine line : order.getLines()) {
+                inventory.release(line.getProductId(), line.getQuantity());
+            }
+            break;
+        case SHIPPED:
+            throw new IllegalStateException("Order " + id + " was already shipped");
+        default:
+            break;
+        }
+    }
+
+    public String describe(Order order) {
+        String description = "Order #" + order.getId() + " for " + order.getCustomer().getName();
+        for (int i = 0; i < order.getLines().size(); i++) {
+            OrderLine line = order.getLines().get(i);
+            description += "\n  " + line.getQuantity() + " x " + line.getProductId();
+        }
+        return description + "\nTotal: " + order.getTotal();
+    }
+
+    public enum Status { NEW, PAID, SHIPPED, CANCELLED }
+
+    public static class Order {
+        private final long id;
+        private final Customer customer;
+        private final List<OrderLine> lines;
+        private final BigDecimal total;
+        private Status status = Status.NEW;
+
+        Order(long id, Customer customer, List<OrderLine> lines, BigDecimal total) {
+            this.id = id;
+            this.customer = customer;
+            this.lines = lines;
+            this.total = total;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public List<OrderLine> getLines() {
+            return lines;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        void setStatus(Status status) {
+            this.status = status;
+        }
+    }
+
+    public static class OutOfStockException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public OutOfStockException(String productId) {
+            super("Product " + productId + " is out of stock");
+        }
+    }
+
+    public interface InventoryService {
+        boolean isAvailable(String productId, int quantity);
+
+        void reserve(String productId, int quantity);
+
+        void release(String productId, int quantity);
+    }
+
+    public interface PriceCalculator {
+        BigDecimal priceOf(String productId, Customer customer);
+    }
+
+    public static final class Customer {
+        private final String name;
+        private final boolean premium;
+
+        public Customer(String name, boolean premium) {
+            this.name = name;
+            this.premium = premium;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isPremium() {
+            return premium;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Customer)) {
+                return false;
+            }
+            Customer customer = (Customer) o;
+            return premium == customer.premium && name.equals(customer.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, premium);
+        }
+    }
+
+    public static final class OrderLine {
+        private final String productId;
+        private final int quantity;
+
+        public OrderLine(String productId, int quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
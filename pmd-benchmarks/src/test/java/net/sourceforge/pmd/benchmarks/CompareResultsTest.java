@@ -0,0 +1,69 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+class CompareResultsTest {
+
+    private static final String PKG = "net.sourceforge.pmd.benchmarks.";
+
+    private static final String BASELINE = "["
+        + result("ParserBenchmark.parse", "avgt", "java", 10.0, 0.5) + ","
+        + result("ParserBenchmark.parse", "avgt", "apex", 4.0, 0.1) + ","
+        + result("ParserBenchmark.parse", "avgt", "xml", 2.0, 0.1) + ","
+        + result("CpdBenchmark.tokenize", "thrpt", "java", 100.0, 1.0)
+        + "]";
+
+    @Test
+    void testRegression() {
+        String current = "["
+            + result("ParserBenchmark.parse", "avgt", "java", 12.0, 0.5) + ","
+            + result("ParserBenchmark.parse", "avgt", "apex", 4.1, 0.1) + ","
+            + result("ParserBenchmark.parse", "avgt", "ecmascript", 3.0, 0.1) + ","
+            + result("CpdBenchmark.tokenize", "thrpt", "java", 80.0, 1.0)
+            + "]";
+        StringWriter out = new StringWriter();
+
+        assertEquals(2, CompareResults.compare(new StringReader(BASELINE), new StringReader(current), 10, out));
+        String text = out.toString();
+        assertTrue(text.contains("REGRESSED  " + PKG + "ParserBenchmark.parse{language=java}: "
+            + "10.000 +/- 0.500 ms/op -> 12.000 +/- 0.500 ms/op (+20.0%)"), text);
+        assertTrue(text.contains("OK         " + PKG + "ParserBenchmark.parse{language=apex}"), text);
+        assertTrue(text.contains("NEW        " + PKG + "ParserBenchmark.parse{language=ecmascript}"), text);
+        assertTrue(text.contains("MISSING    " + PKG + "ParserBenchmark.parse{language=xml}"), text);
+        // lower throughput is worse
+        assertTrue(text.contains("REGRESSED  " + PKG + "CpdBenchmark.tokenize{language=java}"), text);
+    }
+
+    @Test
+    void testNoiseIsNotARegression() {
+        String current = "[" + result("ParserBenchmark.parse", "avgt", "java", 11.5, 1.5) + "]";
+        assertEquals(0, CompareResults.compare(new StringReader(BASELINE), new StringReader(current), 10, new StringWriter()));
+    }
+
+    @Test
+    void testImprovement() {
+        String current = "[" + result("CpdBenchmark.tokenize", "thrpt", "java", 150.0, 1.0) + "]";
+        StringWriter out = new StringWriter();
+        assertEquals(0, CompareResults.compare(new StringReader(BASELINE), new StringReader(current), 10, out));
+        assertTrue(out.toString().contains("IMPROVED   " + PKG + "CpdBenchmark.tokenize{language=java}: "
+            + "100.000 +/- 1.000 ops/ms -> 150.000 +/- 1.000 ops/ms (+50.0%)"),
+                   out.toString());
+    }
+
+    private static String result(String benchmark, String mode, String language, double score, double error) {
+        return "{\"benchmark\": \"" + PKG + benchmark + "\", \"mode\": \"" + mode + "\","
+            + " \"params\": {\"language\": \"" + language + "\"},"
+            + " \"primaryMetric\": {\"score\": " + score + ", \"scoreError\": " + error + ","
+            + " \"scoreUnit\": \"" + ("thrpt".equals(mode) ? "ops/ms" : "ms/op") + "\"}}";
+    }
+}
@@ -42,6 +42,11 @@ public abstract class AbstractAnalysisPmdSubcommand<C extends AbstractConfigurat
                           + "One of --dir, --file-list or --uri must be provided.")
     protected URI uri;
     
+    @Option(names = "--use-ignore-files",
+            description = "Skip the files and directories matched by the .gitignore and .pmdignore files "
+                          + "found while exploring the source directories.")
+    protected boolean useIgnoreFiles;
+
     @Option(names = "--no-fail-on-violation",
             description = "By default PMD exits with status 4 if violations are found. "
                     + "Disable this option with '--no-fail-on-violation' to exit with 0 instead and just write the report.",
@@ -81,6 +81,10 @@ public class CpdCommand extends AbstractAnalysisPmdSubcommand<CPDConfiguration>
             defaultValue = CpdLanguageProperties.DEFAULT_SKIP_BLOCKS_PATTERN)
     private String skipBlocksPattern;
 
+    private int tokenMemoryBudget;
+
+    private int nearDuplicateThreshold;
+
     @Option(names = "--exclude", arity = "1..*", description = "Files to be excluded from the analysis")
     private List<Path> excludes = new ArrayList<>();
 
@@ -88,6 +92,28 @@ public class CpdCommand extends AbstractAnalysisPmdSubcommand<CPDConfiguration>
     private boolean nonRecursive;
 
 
+    @Option(names = "--token-memory-budget", paramLabel = "<megabytes>",
+            description = "Store tokens in temporary files instead of memory, and match them in partitions of about this many megabytes. "
+                          + "Use this for code bases that are too large to be processed in memory. 0 keeps all tokens in memory.",
+            defaultValue = "0")
+    public void setTokenMemoryBudget(final int tokenMemoryBudget) {
+        if (tokenMemoryBudget < 0) {
+            throw new ParameterException(spec.commandLine(), "Token memory budget should be a positive number or zero, found " + tokenMemoryBudget + " instead.");
+        }
+        this.tokenMemoryBudget = tokenMemoryBudget;
+    }
+
+    @Option(names = "--near-duplicates", paramLabel = "<percent>",
+            description = "Report pairs of files that share at least this percentage of their fingerprints, instead of exact duplicates. "
+                          + "This finds copies with small edits. 0 finds exact duplicates.",
+            defaultValue = "0")
+    public void setNearDuplicateThreshold(final int nearDuplicateThreshold) {
+        if (nearDuplicateThreshold < 0 || nearDuplicateThreshold > 100) {
+            throw new ParameterException(spec.commandLine(), "Near-duplicate threshold should be a percentage between 0 and 100, found " + nearDuplicateThreshold + " instead.");
+        }
+        this.nearDuplicateThreshold = nearDuplicateThreshold;
+    }
+
     /**
      * Converts these parameters into a configuration.
      *
@@ -115,6 +141,7 @@ public class CpdCommand extends AbstractAnalysisPmdSubcommand<CPDConfiguration>
         configuration.setOnlyRecognizeLanguage(language);
         configuration.setMinimumTileSize(minimumTokens);
         configuration.collectFilesRecursively(!nonRecursive);
+        configuration.setUseIgnoreFiles(useIgnoreFiles);
         configuration.setNoSkipBlocks(noSkipBlocks);
         configuration.setRendererName(rendererName);
         configuration.setSkipBlocksPattern(skipBlocksPattern);
@@ -122,6 +149,8 @@ public class CpdCommand extends AbstractAnalysisPmdSubcommand<CPDConfiguration>
         configuration.setSkipLexicalErrors(skipLexicalErrors);
         configuration.setSourceEncoding(encoding.getEncoding());
         configuration.setInputUri(uri);
+        configuration.setTokenMemoryBudget(tokenMemoryBudget * 1024L * 1024L);
+        configuration.setNearDuplicateThreshold(nearDuplicateThreshold / 100.0);
 
         return configuration;
     }
@@ -148,7 +177,7 @@ public class CpdCommand extends AbstractAnalysisPmdSubcommand<CPDConfiguration>
     /**
      * Provider of candidates for valid report formats.
      */
-    private static final class CpdSupportedReportFormatsCandidates implements Iterable<String> {
+    static final class CpdSupportedReportFormatsCandidates implements Iterable<String> {
 
         @Override
         public Iterator<String> iterator() {
@@ -0,0 +1,128 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli.commands.internal;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.cli.commands.typesupport.internal.PmdLanguageTypeSupport;
+import net.sourceforge.pmd.cli.internal.CliExitCode;
+import net.sourceforge.pmd.internal.util.IOUtil;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.metrics.internal.MetricsCsvWriter;
+import net.sourceforge.pmd.lang.metrics.internal.MetricsExportRule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.util.log.MessageReporter;
+import net.sourceforge.pmd.util.log.internal.SimpleMessageReporter;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+
+@Command(name = "metrics", showDefaultValues = true,
+         description = "Computes the metrics of the classes and operations of the source files, "
+                       + "and writes them as CSV, with one row per class or operation and metric.")
+public class MetricsCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration> {
+
+    @Option(names = { "--language", "-l" }, split = ",", arity = "1..*",
+            description = "The languages whose files are analyzed. Only some languages have metrics.%n"
+                    + "Valid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "apex,java",
+            completionCandidates = PmdLanguageTypeSupport.class, converter = PmdLanguageTypeSupport.class)
+    private List<Language> languages;
+
+    @Option(names = { "--metric", "-m" }, split = ",",
+            description = "Name of a metric to export, eg 'cyclo' or 'ncss'. The option can be repeated. "
+                    + "By default, all the metrics of each language are exported.")
+    private List<String> metrics = Collections.emptyList();
+
+    @Option(names = { "--report-file", "-r" },
+            description = "Path to a file to which the metrics are written. "
+                + "The file is created if it does not exist. "
+                + "If this option is not specified, the metrics are written to standard output.")
+    private Path reportFile;
+
+    @Option(names = "--aux-classpath",
+            description = "Specifies the classpath for libraries used by the source code. "
+                    + "This is used to resolve types in Java source files, which some metrics need.")
+    private String auxClasspath;
+
+    @Option(names = "--cache",
+            description = "Specify the location of the cache file for incremental analysis. "
+                    + "The metrics of the files that did not change since the previous run are read "
+                    + "from the cache, without parsing the files again.")
+    private Path cacheLocation;
+
+    @Option(names = "--no-cache", description = "Explicitly disable incremental analysis. The '--cache' option is ignored if this switch is present in the command line.")
+    private boolean noCache;
+
+    private int threads;
+
+    @Option(names = { "--threads", "-t" }, description = "Sets the number of threads used by PMD.",
+            defaultValue = "1")
+    public void setThreads(final int threads) {
+        if (threads < 0) {
+            throw new ParameterException(spec.commandLine(), "Thread count should be a positive number or zero, found " + threads + " instead.");
+        }
+
+        this.threads = threads;
+    }
+
+    @Override
+    protected PMDConfiguration toConfiguration() {
+        final PMDConfiguration configuration = new PMDConfiguration();
+        if (inputPaths != null) {
+            configuration.setInputPathList(new ArrayList<>(inputPaths));
+        }
+        configuration.setInputFilePath(fileListPath);
+        configuration.setUseIgnoreFiles(useIgnoreFiles);
+        configuration.setInputUri(uri);
+        configuration.setSourceEncoding(encoding.getEncoding());
+        if (relativizeRootPaths != null) {
+            configuration.addRelativizeRoots(relativizeRootPaths);
+        }
+        configuration.setThreads(threads);
+        configuration.setAnalysisCacheLocation(cacheLocation != null ? cacheLocation.toString() : null);
+        configuration.setIgnoreIncrementalAnalysis(noCache);
+        configuration.setReporter(new SimpleMessageReporter(LoggerFactory.getLogger(MetricsCommand.class)));
+
+        try {
+            configuration.prependAuxClasspath(auxClasspath);
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException(spec.commandLine(), "Invalid auxiliary classpath: " + e.getMessage(), e);
+        }
+        return configuration;
+    }
+
+    @Override
+    @NonNull
+    protected CliExitCode doExecute(PMDConfiguration configuration) {
+        final MessageReporter pmdReporter = configuration.getReporter();
+
+        try (PmdAnalysis pmd = PmdAnalysis.create(configuration)) {
+            // the metrics are reported as violations of these rules, so
+            // that they are stored in the analysis cache
+            for (Language language : languages) {
+                pmd.addRuleSet(RuleSet.forSingleRule(MetricsExportRule.forLanguage(language, metrics)));
+            }
+            final String reportPath = reportFile != null ? reportFile.toString() : null;
+            pmd.addListener(new MetricsCsvWriter(IOUtil.createWriter(Charset.defaultCharset(), reportPath), pmdReporter));
+
+            pmd.performAnalysis();
+        } catch (final Exception e) {
+            pmdReporter.errorEx("Exception while computing the metrics", e);
+            return CliExitCode.ERROR;
+        }
+        return pmdReporter.numErrors() > 0 ? CliExitCode.ERROR : CliExitCode.OK;
+    }
+}
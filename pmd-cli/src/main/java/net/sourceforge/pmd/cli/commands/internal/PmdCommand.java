@@ -7,11 +7,20 @@ package net.sourceforge.pmd.cli.commands.internal;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -20,6 +29,9 @@ import org.slf4j.LoggerFactory;
 
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.benchmark.CsvTimingReportRenderer;
+import net.sourceforge.pmd.benchmark.JsonTimingReportRenderer;
+import net.sourceforge.pmd.benchmark.PrometheusTimingReportRenderer;
 import net.sourceforge.pmd.benchmark.TextTimingReportRenderer;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimingReport;
@@ -29,7 +41,11 @@ import net.sourceforge.pmd.cli.commands.typesupport.internal.PmdLanguageVersionT
 import net.sourceforge.pmd.cli.commands.typesupport.internal.RulePriorityTypeSupport;
 import net.sourceforge.pmd.cli.internal.CliExitCode;
 import net.sourceforge.pmd.cli.internal.ProgressBarListener;
+import net.sourceforge.pmd.cpd.CPDConfiguration;
+import net.sourceforge.pmd.cpd.CPDReportRenderer;
+import net.sourceforge.pmd.cpd.CpdAnalysisListener;
 import net.sourceforge.pmd.internal.LogMessages;
+import net.sourceforge.pmd.internal.util.IOUtil;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.rule.RulePriority;
@@ -49,6 +65,7 @@ import picocli.CommandLine.ParameterException;
     description = "The PMD standard source code analyzer")
 public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration> {
     private static final Logger LOG = LoggerFactory.getLogger(PmdCommand.class);
+    private static final long BENCHMARK_SNAPSHOT_TIMEOUT_SECONDS = 60;
 
     static {
         final Properties emptyProps = new Properties();
@@ -84,8 +101,38 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
 
     private int threads;
 
+    private long fileTimeBudget;
+
+    private long ruleTimeBudget;
+
+    private int maxFileSize;
+
+    private int shardIndex;
+
+    private int shardCount = 1;
+
+    private boolean withCpd;
+
+    private int cpdMinimumTokens;
+
+    private String cpdFormat;
+
+    private Path cpdReportFile;
+
     private boolean benchmark;
 
+    private String benchmarkFormat;
+
+    private int benchmarkSlowest;
+
+    private Path benchmarkFile;
+
+    private boolean benchmarkResources;
+
+    private int benchmarkInterval;
+
+    private ScheduledExecutorService benchmarkSnapshots;
+
     private boolean showSuppressed;
 
     private String suppressMarker;
@@ -138,6 +185,53 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         this.benchmark = benchmark;
     }
 
+    @Option(names = "--benchmark-format",
+            description = "Format of the benchmark report.%nValid values: ${COMPLETION-CANDIDATES}",
+            defaultValue = "text", completionCandidates = BenchmarkFormatCandidates.class)
+    public void setBenchmarkFormat(final String benchmarkFormat) {
+        if (!BenchmarkFormatCandidates.FORMATS.contains(benchmarkFormat)) {
+            throw new ParameterException(spec.commandLine(),
+                    "Invalid value for option '--benchmark-format': " + benchmarkFormat + ", expected one of " + BenchmarkFormatCandidates.FORMATS);
+        }
+        this.benchmarkFormat = benchmarkFormat;
+    }
+
+    @Option(names = "--benchmark-slowest", paramLabel = "<n>",
+            description = "In benchmark mode, also record the time spent on each file, and report the n slowest files "
+                    + "and the n slowest rules on a single file.",
+            defaultValue = "0")
+    public void setBenchmarkSlowest(final int benchmarkSlowest) {
+        if (benchmarkSlowest < 0) {
+            throw new ParameterException(spec.commandLine(), "The value of '--benchmark-slowest' cannot be negative");
+        }
+        this.benchmarkSlowest = benchmarkSlowest;
+    }
+
+    @Option(names = "--benchmark-file",
+            description = "Path to a file to which the benchmark report is written. If this option is not specified, "
+                    + "the benchmark report is written to standard error.")
+    public void setBenchmarkFile(final Path benchmarkFile) {
+        this.benchmarkFile = benchmarkFile;
+    }
+
+    @Option(names = "--benchmark-resources",
+            description = "In benchmark mode, also record the CPU time and the bytes allocated by each rule, "
+                    + "parser and processing stage. This is more expensive than only measuring the time.")
+    public void setBenchmarkResources(final boolean benchmarkResources) {
+        this.benchmarkResources = benchmarkResources;
+    }
+
+    @Option(names = "--benchmark-interval", paramLabel = "<seconds>",
+            description = "In benchmark mode, also write the measures so far to the benchmark file at this interval, "
+                    + "so that they can be collected during a long analysis. Requires --benchmark-file.",
+            defaultValue = "0")
+    public void setBenchmarkInterval(final int benchmarkInterval) {
+        if (benchmarkInterval < 0) {
+            throw new ParameterException(spec.commandLine(), "The value of '--benchmark-interval' cannot be negative");
+        }
+        this.benchmarkInterval = benchmarkInterval;
+    }
+
     @Option(names = "--show-suppressed", description = "Report should show suppressed rule violations.")
     public void setShowSuppressed(final boolean showSuppressed) {
         this.showSuppressed = showSuppressed;
@@ -235,6 +329,96 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         this.threads = threads;
     }
 
+    @Option(names = "--file-time-budget",
+            description = "Maximum CPU time in milliseconds spent on a single file. When it is exceeded, "
+                    + "the remaining rules are skipped for this file and a processing error is reported. 0 means no limit.",
+            defaultValue = "0")
+    public void setFileTimeBudget(final long fileTimeBudget) {
+        if (fileTimeBudget < 0) {
+            throw new ParameterException(spec.commandLine(), "File time budget should be a positive number or zero, found " + fileTimeBudget + " instead.");
+        }
+
+        this.fileTimeBudget = fileTimeBudget;
+    }
+
+    @Option(names = "--rule-time-budget",
+            description = "Maximum CPU time in milliseconds spent by a rule on a single file. When it is exceeded, "
+                    + "the rule is skipped for the rest of the file and a processing error is reported. 0 means no limit.",
+            defaultValue = "0")
+    public void setRuleTimeBudget(final long ruleTimeBudget) {
+        if (ruleTimeBudget < 0) {
+            throw new ParameterException(spec.commandLine(), "Rule time budget should be a positive number or zero, found " + ruleTimeBudget + " instead.");
+        }
+
+        this.ruleTimeBudget = ruleTimeBudget;
+    }
+
+    @Option(names = "--max-file-size",
+            description = "Maximum size of a file in characters. Larger files are not parsed and a processing error is reported. 0 means no limit.",
+            defaultValue = "0")
+    public void setMaxFileSize(final int maxFileSize) {
+        if (maxFileSize < 0) {
+            throw new ParameterException(spec.commandLine(), "Maximum file size should be a positive number or zero, found " + maxFileSize + " instead.");
+        }
+
+        this.maxFileSize = maxFileSize;
+    }
+
+    @Option(names = "--shard", paramLabel = "<i>/<n>",
+            description = "Only analyze the i-th of n shards of the files, eg 2/12. Files are split deterministically "
+                    + "into shards of about the same total size, so that running every shard, eg on different machines, "
+                    + "analyzes every file once. Use the binary report format and 'pmd report' to merge the reports of the shards.")
+    public void setShard(final String shard) {
+        final String[] parts = shard.split("/", -1);
+        try {
+            if (parts.length == 2) {
+                final int index = Integer.parseInt(parts[0].trim());
+                final int count = Integer.parseInt(parts[1].trim());
+                if (count >= 1 && index >= 1 && index <= count) {
+                    this.shardIndex = index - 1;
+                    this.shardCount = count;
+                    return;
+                }
+            }
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new ParameterException(spec.commandLine(), "Expected a shard of the form <i>/<n> with 1 <= i <= n, found " + shard + " instead.");
+    }
+
+    @Option(names = "--with-cpd",
+            description = "Also run the copy-paste detector (CPD) on the analyzed files. Files are only read once, "
+                    + "and Java files are not tokenized again for CPD.")
+    public void setWithCpd(final boolean withCpd) {
+        this.withCpd = withCpd;
+    }
+
+    @Option(names = "--cpd-minimum-tokens",
+            description = "The minimum token length which should be reported as a duplicate by CPD. Only used with --with-cpd.",
+            defaultValue = "100")
+    public void setCpdMinimumTokens(final int cpdMinimumTokens) {
+        if (cpdMinimumTokens <= 0) {
+            throw new ParameterException(spec.commandLine(), "CPD minimum tokens should be a positive number, found " + cpdMinimumTokens + " instead.");
+        }
+
+        this.cpdMinimumTokens = cpdMinimumTokens;
+    }
+
+    @Option(names = "--cpd-format",
+            description = "CPD report format. Only used with --with-cpd.%nValid values: ${COMPLETION-CANDIDATES}%n"
+                        + "Alternatively, you can provide the fully qualified name of a custom CpdRenderer in the classpath.",
+            defaultValue = CPDConfiguration.DEFAULT_RENDERER, completionCandidates = CpdCommand.CpdSupportedReportFormatsCandidates.class)
+    public void setCpdFormat(final String cpdFormat) {
+        this.cpdFormat = cpdFormat;
+    }
+
+    @Option(names = "--cpd-report-file",
+            description = "Path to a file to which the CPD report is written. Only used with --with-cpd. "
+                    + "The report is written to the standard output if not specified.")
+    public void setCpdReportFile(final Path cpdReportFile) {
+        this.cpdReportFile = cpdReportFile;
+    }
+
     @Option(names = "--no-progress", negatable = true, defaultValue = "true",
             description = "Enables / disables progress bar indicator of live analysis progress.")
     public void setShowProgressBar(final boolean showProgressBar) {
@@ -256,6 +440,7 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         }
         configuration.setInputFilePath(fileListPath);
         configuration.setIgnoreFilePath(ignoreListPath);
+        configuration.setUseIgnoreFiles(useIgnoreFiles);
         configuration.setInputUri(uri);
         configuration.setReportFormat(format);
         configuration.setSourceEncoding(encoding.getEncoding());
@@ -269,6 +454,10 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         configuration.setShowSuppressedViolations(showSuppressed);
         configuration.setSuppressMarker(suppressMarker);
         configuration.setThreads(threads);
+        configuration.setFileTimeBudget(fileTimeBudget);
+        configuration.setRuleTimeBudget(ruleTimeBudget);
+        configuration.setMaxFileSize(maxFileSize);
+        configuration.setShard(shardIndex, shardCount);
         configuration.setFailOnViolation(failOnViolation);
         configuration.setAnalysisCacheLocation(cacheLocation != null ? cacheLocation.toString() : null);
         configuration.setIgnoreIncrementalAnalysis(noCache);
@@ -298,12 +487,13 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
     @Override
     @NonNull
     protected CliExitCode doExecute(PMDConfiguration configuration) {
+        final MessageReporter pmdReporter = configuration.getReporter();
+
         if (benchmark) {
-            TimeTracker.startGlobalTracking();
+            TimeTracker.startGlobalTracking(benchmarkSlowest, benchmarkResources);
+            startBenchmarkSnapshots(pmdReporter);
         }
 
-        final MessageReporter pmdReporter = configuration.getReporter();
-
         try {
             PmdAnalysis pmd = null;
             try {
@@ -326,11 +516,16 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
                     }
                 }
 
+                final AtomicBoolean duplicatesFound = new AtomicBoolean();
+                if (withCpd) {
+                    pmd.addListener(createCpdListener(configuration, duplicatesFound));
+                }
+
                 final ReportStats stats = pmd.runAndReturnStats();
                 if (pmdReporter.numErrors() > 0) {
                     // processing errors are ignored
                     return CliExitCode.ERROR;
-                } else if (stats.getNumViolations() > 0 && configuration.isFailOnViolation()) {
+                } else if ((stats.getNumViolations() > 0 || duplicatesFound.get()) && configuration.isFailOnViolation()) {
                     return CliExitCode.VIOLATIONS_FOUND;
                 } else {
                     return CliExitCode.OK;
@@ -350,6 +545,25 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         }
     }
 
+    private CpdAnalysisListener createCpdListener(PMDConfiguration configuration, AtomicBoolean duplicatesFound) {
+        final CPDConfiguration cpdConfiguration = new CPDConfiguration(configuration.getLanguageRegistry());
+        cpdConfiguration.setSourceEncoding(configuration.getSourceEncoding());
+        cpdConfiguration.setMinimumTileSize(cpdMinimumTokens);
+        cpdConfiguration.setRendererName(cpdFormat);
+        cpdConfiguration.setReporter(configuration.getReporter());
+
+        final CPDReportRenderer renderer = cpdConfiguration.getCPDReportRenderer();
+        final String cpdReportPath = cpdReportFile != null ? cpdReportFile.toString() : null;
+        return new CpdAnalysisListener(cpdConfiguration, report -> {
+            duplicatesFound.set(!report.getMatches().isEmpty());
+            try (Writer writer = IOUtil.createWriter(Charset.defaultCharset(), cpdReportPath)) {
+                renderer.render(report, writer);
+            } catch (IOException e) {
+                configuration.getReporter().errorEx("Error while writing the CPD report", e);
+            }
+        });
+    }
+
     private void printErrorDetected(MessageReporter reporter, int errors) {
         String msg = LogMessages.errorDetectedMessage(errors, "pmd");
         // note: using error level here increments the error count of the reporter,
@@ -357,24 +571,119 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         reporter.info(StringUtil.quoteMessageFormat(msg));
     }
 
+    private void startBenchmarkSnapshots(final MessageReporter pmdReporter) {
+        if (benchmarkInterval == 0) {
+            return;
+        }
+        if (benchmarkFile == null) {
+            pmdReporter.warn("Ignoring --benchmark-interval, which requires --benchmark-file");
+            return;
+        }
+        benchmarkSnapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PmdBenchmarkSnapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        benchmarkSnapshots.scheduleWithFixedDelay(() -> {
+            final TimingReport snapshot = TimeTracker.snapshot();
+            if (snapshot != null) {
+                try {
+                    writeBenchmarkFile(snapshot);
+                } catch (final IOException e) {
+                    pmdReporter.warnEx("Error writing benchmark snapshot", e);
+                }
+            }
+        }, benchmarkInterval, benchmarkInterval, TimeUnit.SECONDS);
+    }
+
     private void finishBenchmarker(final MessageReporter pmdReporter) {
         if (benchmark) {
+            if (benchmarkSnapshots != null) {
+                stopBenchmarkSnapshots(pmdReporter);
+            }
             final TimingReport timingReport = TimeTracker.stopGlobalTracking();
 
-            // TODO get specified report format from config
-            final TimingReportRenderer renderer = new TextTimingReportRenderer();
-
             try {
-                // No try-with-resources, do not want to close STDERR
-                @SuppressWarnings("PMD.CloseResource")
-                final Writer writer = new OutputStreamWriter(System.err);
-                renderer.render(timingReport, writer);
+                if (benchmarkFile != null) {
+                    writeBenchmarkFile(timingReport);
+                } else {
+                    // No try-with-resources, do not want to close STDERR
+                    @SuppressWarnings("PMD.CloseResource")
+                    final Writer writer = new OutputStreamWriter(System.err);
+                    createBenchmarkRenderer().render(timingReport, writer);
+                }
             } catch (final IOException e) {
                 pmdReporter.errorEx("Error producing benchmark report", e);
             }
         }
     }
 
+    /**
+     * Waits for a snapshot that is being written, so that it cannot
+     * overwrite the final report.
+     */
+    private void stopBenchmarkSnapshots(final MessageReporter pmdReporter) {
+        // the periodic task is cancelled, a running snapshot completes
+        benchmarkSnapshots.shutdown();
+        try {
+            if (!benchmarkSnapshots.awaitTermination(BENCHMARK_SNAPSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                pmdReporter.warn("Benchmark snapshot did not complete in time, cancelling it");
+                benchmarkSnapshots.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            benchmarkSnapshots.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes to a temporary file first, so that a reader of the benchmark
+     * file never sees a partial report. The temporary file is unique,
+     * and deleted if writing fails.
+     */
+    private void writeBenchmarkFile(final TimingReport timingReport) throws IOException {
+        final Path absolute = benchmarkFile.toAbsolutePath();
+        final Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                createBenchmarkRenderer().render(timingReport, writer);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private TimingReportRenderer createBenchmarkRenderer() {
+        switch (benchmarkFormat) {
+        case "json":
+            return new JsonTimingReportRenderer();
+        case "csv":
+            return new CsvTimingReportRenderer();
+        case "prometheus":
+            return new PrometheusTimingReportRenderer();
+        default:
+            return new TextTimingReportRenderer();
+        }
+    }
+
+    /**
+     * Provider of candidates for valid benchmark report formats.
+     */
+    private static final class BenchmarkFormatCandidates implements Iterable<String> {
+
+        static final List<String> FORMATS = Arrays.asList("text", "json", "csv", "prometheus");
+
+        @Override
+        public Iterator<String> iterator() {
+            return FORMATS.iterator();
+        }
+    }
+
     /**
      * Provider of candidates for valid report formats.
      */
@@ -16,7 +16,7 @@ import picocli.CommandLine.IVersionProvider;
     exitCodeList = { "0:Successful analysis, no violations found", "1:An unexpected error occurred during execution",
         "2:Usage error, please refer to the command help", "4:Successful analysis, at least 1 violation found" },
     subcommands = { PmdCommand.class, CpdCommand.class, DesignerCommand.class,
-        CpdGuiCommand.class, TreeExportCommand.class, GenerateCompletion.class })
+        CpdGuiCommand.class, TreeExportCommand.class, ReportCommand.class, MetricsCommand.class, GenerateCompletion.class })
 public class PmdRootCommand {
 
 }
@@ -0,0 +1,230 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli.commands.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.cli.commands.typesupport.internal.RulePriorityTypeSupport;
+import net.sourceforge.pmd.cli.internal.CliExitCode;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.rule.RulePriority;
+import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.renderers.RendererFactory;
+import net.sourceforge.pmd.renderers.internal.binary.BinaryReportReader;
+import net.sourceforge.pmd.renderers.internal.binary.ViolationBaseline;
+import net.sourceforge.pmd.reporting.ConfigurableFileNameRenderer;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.FileNameRenderer;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.ListenerInitializer;
+import net.sourceforge.pmd.reporting.Report.ConfigurationError;
+import net.sourceforge.pmd.reporting.Report.ProcessingError;
+import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import net.sourceforge.pmd.util.log.internal.SimpleMessageReporter;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "report",
+         description = "Merges, filters and converts binary reports written by 'pmd check --format binary', "
+                       + "without running the analysis again.")
+public class ReportCommand extends AbstractPmdSubcommand {
+
+    @Parameters(arity = "1..*", paramLabel = "REPORT",
+                description = "Binary reports to merge. The violations of all the reports are written to the output report.")
+    private List<Path> reports;
+
+    @Option(names = "--baseline",
+            description = "Binary report of a previous analysis. Only the violations that are not in the baseline "
+                          + "are written. Violations are matched by file, rule and message, not by line. "
+                          + "Files are matched by their path relative to --relativize-paths-with, "
+                          + "so the baseline may come from another checkout.")
+    private Path baseline;
+
+    @Option(names = { "--format", "-f" },
+            description = "Report format.%nValid values: ${COMPLETION-CANDIDATES}%n"
+                    + "Alternatively, you can provide the fully qualified name of a custom Renderer in the classpath.",
+            defaultValue = "text", completionCandidates = ReportFormatsCandidates.class)
+    private String format;
+
+    @Option(names = { "--property", "-P" }, description = "Key-value pair defining a property for the report format.")
+    private Properties properties = new Properties();
+
+    @Option(names = { "--report-file", "-r" },
+            description = "Path to a file to which report output is written. "
+                    + "The file is created if it does not exist. "
+                    + "If this option is not specified, the report is rendered to standard output.")
+    private Path reportFile;
+
+    @Option(names = "--show-suppressed", description = "Report should show suppressed rule violations.")
+    private boolean showSuppressed;
+
+    @Option(names = "--minimum-priority",
+            description = "Only write violations of rules with this priority or a higher one.%n"
+                    + "Valid values (case insensitive): ${COMPLETION-CANDIDATES}",
+            defaultValue = "Low",
+            completionCandidates = RulePriorityTypeSupport.class, converter = RulePriorityTypeSupport.class)
+    private RulePriority minimumPriority;
+
+    @Option(names = "--rule", split = ",",
+            description = "Only write violations of the rules with these names. The option can be repeated.")
+    private List<String> rules;
+
+    @Option(names = { "--relativize-paths-with", "-z"}, arity = "1..*", split = ",",
+            description = "Path relative to which directories are rendered in the report. "
+                    + "The option can be repeated, in which case the shortest relative path will be used.")
+    private List<Path> relativizeRootPaths = new ArrayList<>();
+
+    @Option(names = "--no-fail-on-violation",
+            description = "By default PMD exits with status 4 if violations are written to the report. "
+                    + "Disable this option with '--no-fail-on-violation' to exit with 0 instead and just write the report.",
+            defaultValue = "true", negatable = true)
+    private boolean failOnViolation;
+
+    @Override
+    protected void validate() throws ParameterException {
+        super.validate();
+
+        for (Path path : relativizeRootPaths) {
+            if (Files.isRegularFile(path)) {
+                throw new ParameterException(spec.commandLine(),
+                        "Expected a directory path for option '--relativize-paths-with', found a file: " + path);
+            }
+        }
+    }
+
+    @Override
+    protected CliExitCode execute() {
+        final SimpleMessageReporter reporter = new SimpleMessageReporter(LoggerFactory.getLogger(ReportCommand.class));
+        try {
+            ConfigurableFileNameRenderer fileNameRenderer = new ConfigurableFileNameRenderer();
+            relativizeRootPaths.forEach(fileNameRenderer::relativizeWith);
+            Predicate<RuleViolation> filter = createFilter(fileNameRenderer);
+            int numViolations = convert(filter, fileNameRenderer);
+            return numViolations > 0 && failOnViolation ? CliExitCode.VIOLATIONS_FOUND : CliExitCode.OK;
+        } catch (Exception e) {
+            reporter.errorEx("Could not convert the reports", e);
+            return CliExitCode.ERROR;
+        }
+    }
+
+    private Predicate<RuleViolation> createFilter(FileNameRenderer fileNameRenderer) throws IOException {
+        Predicate<RuleViolation> filter = rv -> rv.getRule().getPriority().compareTo(minimumPriority) <= 0;
+        if (rules != null) {
+            filter = filter.and(rv -> rules.contains(rv.getRule().getName()));
+        }
+        if (baseline != null) {
+            try (InputStream in = Files.newInputStream(baseline)) {
+                ViolationBaseline known = ViolationBaseline.read(in, fileNameRenderer);
+                // consume last, so that only the violations that pass the other filters use up the baseline
+                filter = filter.and(rv -> !known.consume(rv));
+            }
+        }
+        return filter;
+    }
+
+    private int convert(Predicate<RuleViolation> filter, FileNameRenderer fileNameRenderer) throws Exception {
+        Renderer renderer = RendererFactory.createRenderer(format, properties);
+        renderer.setShowSuppressedViolations(showSuppressed);
+        renderer.setReportFile(reportFile == null ? null : reportFile.toString());
+
+        AtomicInteger numViolations = new AtomicInteger();
+        try (GlobalAnalysisListener rendererListener = renderer.newListener()) {
+            try (ListenerInitializer initializer = rendererListener.initializer()) {
+                initializer.setFileNameRenderer(fileNameRenderer);
+            }
+            GlobalAnalysisListener listener = new FilteringListener(rendererListener, filter, numViolations);
+            for (Path report : reports) {
+                try (InputStream in = Files.newInputStream(report)) {
+                    new BinaryReportReader(in).replay(listener);
+                }
+            }
+        }
+        return numViolations.get();
+    }
+
+    /**
+     * Forwards the violations that match a filter, and counts them.
+     * Suppressed violations are filtered the same way.
+     */
+    private static final class FilteringListener implements GlobalAnalysisListener {
+
+        private final GlobalAnalysisListener delegate;
+        private final Predicate<RuleViolation> filter;
+        private final AtomicInteger numViolations;
+
+        FilteringListener(GlobalAnalysisListener delegate, Predicate<RuleViolation> filter, AtomicInteger numViolations) {
+            this.delegate = delegate;
+            this.filter = filter;
+            this.numViolations = numViolations;
+        }
+
+        @Override
+        public FileAnalysisListener startFileAnalysis(TextFile file) {
+            FileAnalysisListener fileListener = delegate.startFileAnalysis(file);
+            return new FileAnalysisListener() {
+                @Override
+                public void onRuleViolation(RuleViolation violation) {
+                    if (filter.test(violation)) {
+                        numViolations.incrementAndGet();
+                        fileListener.onRuleViolation(violation);
+                    }
+                }
+
+                @Override
+                public void onSuppressedRuleViolation(SuppressedViolation violation) {
+                    if (filter.test(violation.getRuleViolation())) {
+                        fileListener.onSuppressedRuleViolation(violation);
+                    }
+                }
+
+                @Override
+                public void onError(ProcessingError error) {
+                    fileListener.onError(error);
+                }
+
+                @Override
+                public void close() throws Exception {
+                    fileListener.close();
+                }
+            };
+        }
+
+        @Override
+        public void onConfigError(ConfigurationError error) {
+            delegate.onConfigError(error);
+        }
+
+        @Override
+        public void close() {
+            // the delegate is closed by the command
+        }
+    }
+
+    /**
+     * Provider of candidates for valid report formats.
+     */
+    private static final class ReportFormatsCandidates implements Iterable<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return RendererFactory.supportedRenderers().iterator();
+        }
+    }
+}
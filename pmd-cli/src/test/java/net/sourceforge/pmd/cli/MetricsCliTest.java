@@ -0,0 +1,71 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.sourceforge.pmd.cli.internal.CliExitCode;
+
+class MetricsCliTest extends BaseCliTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private Path srcDir;
+
+    @BeforeEach
+    void setup() throws Exception {
+        srcDir = Files.createDirectories(tempDir.resolve("src"));
+        Files.write(srcDir.resolve("a.dummy"), "(a(b)(c))".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteToStandardOutput() throws Exception {
+        CliExecutionResult result = runCliSuccessfully("-d", srcDir.toString(), "-z", srcDir.toString());
+        result.checkStdOut(equalTo("File,Language,Line,Name,Metric,Value\n"
+                                       + "a.dummy,dummy,1,a,Number of children,2\n"
+                                       + "a.dummy,dummy,1,b,Number of children,0\n"
+                                       + "a.dummy,dummy,1,c,Number of children,0\n"));
+    }
+
+    @Test
+    void testWriteToFileWithCache() throws Exception {
+        Path report = tempDir.resolve("metrics.csv");
+        Path cache = tempDir.resolve("metrics.cache");
+
+        runCliSuccessfully("-d", srcDir.toString(), "-m", "children", "-r", report.toString(), "--cache", cache.toString());
+        String firstRun = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        assertThat(firstRun, containsString("a.dummy,dummy,1,a,Number of children,2\n"));
+
+        runCliSuccessfully("-d", srcDir.toString(), "-m", "children", "-r", report.toString(), "--cache", cache.toString());
+        assertThat(new String(Files.readAllBytes(report), StandardCharsets.UTF_8), equalTo(firstRun));
+    }
+
+    @Test
+    void testUnknownLanguage() throws Exception {
+        runCli(CliExitCode.USAGE_ERROR, "-d", srcDir.toString(), "-l", "notalanguage");
+    }
+
+    @Override
+    protected List<String> cliStandardArgs() {
+        final List<String> argList = new ArrayList<>();
+        argList.add("metrics");
+        argList.add("-l");
+        argList.add("dummy");
+        return argList;
+    }
+}
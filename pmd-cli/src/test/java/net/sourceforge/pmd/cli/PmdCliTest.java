@@ -16,6 +16,7 @@ import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -32,6 +33,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -128,6 +131,21 @@ class PmdCliTest extends BaseCliTest {
         assertTrue(Files.exists(reportFile), "Report file should have been created");
     }
 
+    @Test
+    void testBenchmarkFileWithSnapshots() throws Exception {
+        Path benchmarkDir = Files.createDirectories(tempRoot().resolve("benchmark"));
+        Path benchmarkFile = benchmarkDir.resolve("benchmark.txt");
+
+        runCliSuccessfully("-d", srcDir.toString(), "-R", RULESET_NO_VIOLATIONS, "--benchmark",
+                           "--benchmark-file", benchmarkFile.toString(), "--benchmark-interval", "1");
+
+        assertThat(readString(benchmarkFile), containsString("Total"));
+        try (Stream<Path> files = Files.list(benchmarkDir)) {
+            // no temporary file is left behind
+            assertEquals(listOf(benchmarkFile), files.collect(Collectors.toList()));
+        }
+    }
+
     @Test
     void testFileCollectionWithUnknownFiles() throws Exception {
         Path reportFile = tempRoot().resolve("out/reportFile.txt");
@@ -47,6 +47,7 @@ public abstract class AbstractConfiguration {
     private Path ignoreFilePath;
     private List<Path> excludes = new ArrayList<>();
     private boolean collectRecursive = true;
+    private boolean useIgnoreFiles = false;
 
 
     protected AbstractConfiguration(LanguageRegistry languageRegistry, MessageReporter messageReporter) {
@@ -419,4 +420,23 @@ public abstract class AbstractConfiguration {
     public void collectFilesRecursively(boolean collectRecursive) {
         this.collectRecursive = collectRecursive;
     }
+
+    /**
+     * Returns whether the {@code .gitignore} and {@code .pmdignore} files
+     * found in the input directories are honored. The files and directories
+     * they match are not analyzed. Default is false.
+     */
+    public boolean isUseIgnoreFiles() {
+        return useIgnoreFiles;
+    }
+
+    /**
+     * Sets whether the {@code .gitignore} and {@code .pmdignore} files
+     * found in the input directories are honored.
+     *
+     * @param useIgnoreFiles Whether to honor ignore files
+     */
+    public void setUseIgnoreFiles(boolean useIgnoreFiles) {
+        this.useIgnoreFiles = useIgnoreFiles;
+    }
 }
@@ -100,6 +100,11 @@ public class PMDConfiguration extends AbstractConfiguration {
     // General behavior options
     private String suppressMarker = DEFAULT_SUPPRESS_MARKER;
     private int threads = Runtime.getRuntime().availableProcessors();
+    private long fileTimeBudget;
+    private long ruleTimeBudget;
+    private int maxFileSize;
+    private int shardIndex;
+    private int shardCount = 1;
     private ClassLoader classLoader = getClass().getClassLoader();
 
     // Rule and source file options
@@ -163,6 +168,127 @@ public class PMDConfiguration extends AbstractConfiguration {
         this.threads = threads;
     }
 
+    /**
+     * Get the CPU time PMD may spend on a single file, in milliseconds.
+     * Zero means no limit.
+     *
+     * @return The time budget of a file.
+     */
+    public long getFileTimeBudget() {
+        return fileTimeBudget;
+    }
+
+    /**
+     * Set the CPU time PMD may spend on a single file, in milliseconds.
+     * When it is exceeded, the remaining rules are not applied on the
+     * file, and a processing error is reported. The budget is checked
+     * between the analysis steps, so it may be exceeded by the duration
+     * of a single step, eg parsing. Zero means no limit, which is the default.
+     *
+     * @param fileTimeBudget
+     *            The time budget of a file, in milliseconds.
+     */
+    public void setFileTimeBudget(long fileTimeBudget) {
+        if (fileTimeBudget < 0) {
+            throw new IllegalArgumentException("Negative time budget: " + fileTimeBudget);
+        }
+        this.fileTimeBudget = fileTimeBudget;
+    }
+
+    /**
+     * Get the CPU time a rule may spend on a single file, in milliseconds.
+     * Zero means no limit.
+     *
+     * @return The time budget of a rule.
+     */
+    public long getRuleTimeBudget() {
+        return ruleTimeBudget;
+    }
+
+    /**
+     * Set the CPU time a rule may spend on a single file, in milliseconds.
+     * When it is exceeded, the rule is not applied on the rest of the file,
+     * and a processing error is reported. Zero means no limit, which is
+     * the default.
+     *
+     * @param ruleTimeBudget
+     *            The time budget of a rule, in milliseconds.
+     */
+    public void setRuleTimeBudget(long ruleTimeBudget) {
+        if (ruleTimeBudget < 0) {
+            throw new IllegalArgumentException("Negative time budget: " + ruleTimeBudget);
+        }
+        this.ruleTimeBudget = ruleTimeBudget;
+    }
+
+    /**
+     * Get the maximum size of a file, in characters. Zero means no limit.
+     *
+     * @return The maximum size of a file.
+     */
+    public int getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Set the maximum size of a file, in characters. Larger files are
+     * not parsed, and a processing error is reported for them. Zero means
+     * no limit, which is the default.
+     *
+     * @param maxFileSize
+     *            The maximum size of a file.
+     */
+    public void setMaxFileSize(int maxFileSize) {
+        if (maxFileSize < 0) {
+            throw new IllegalArgumentException("Negative file size: " + maxFileSize);
+        }
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Returns the index of the shard of files to analyze, in {@code [0, shardCount)}.
+     *
+     * @see #setShard(int, int)
+     */
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Returns the number of shards the files are split into. One,
+     * the default, means that all files are analyzed.
+     *
+     * @see #setShard(int, int)
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Only analyze a part of the files. The collected files are split
+     * into {@code shardCount} shards of about the same size, and only
+     * the files of the shard {@code shardIndex} are analyzed. The split
+     * is deterministic, so that running the analysis for every shard,
+     * eg on different machines, analyzes every file exactly once.
+     * The reports of the shards can be merged with the binary report
+     * format. Languages that index the files to resolve names across
+     * files still index all the collected files, so that the results
+     * do not depend on the shard.
+     *
+     * @param shardIndex Index of the shard, in {@code [0, shardCount)}
+     * @param shardCount Number of shards
+     *
+     * @throws IllegalArgumentException If the shard count is not positive,
+     *                                  or the index is out of range
+     */
+    public void setShard(int shardIndex, int shardCount) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardCount);
+        }
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
     /**
      * Get the ClassLoader being used by PMD when processing Rules.
      *
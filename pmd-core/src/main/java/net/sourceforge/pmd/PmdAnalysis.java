@@ -29,6 +29,7 @@ import net.sourceforge.pmd.cache.NoopAnalysisCache;
 import net.sourceforge.pmd.internal.LogMessages;
 import net.sourceforge.pmd.internal.util.ClasspathClassLoader;
 import net.sourceforge.pmd.internal.util.FileCollectionUtil;
+import net.sourceforge.pmd.internal.util.FileSharding;
 import net.sourceforge.pmd.internal.util.IOUtil;
 import net.sourceforge.pmd.lang.JvmLanguagePropertyBundle;
 import net.sourceforge.pmd.lang.Language;
@@ -44,6 +45,7 @@ import net.sourceforge.pmd.lang.document.TextFile;
 import net.sourceforge.pmd.lang.rule.Rule;
 import net.sourceforge.pmd.lang.rule.RuleSet;
 import net.sourceforge.pmd.lang.rule.RuleSetLoader;
+import net.sourceforge.pmd.lang.rule.internal.AnalysisBudget;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.reporting.ConfigurableFileNameRenderer;
@@ -372,11 +374,18 @@ public final class PmdAnalysis implements AutoCloseable {
     void performAnalysisImpl(List<? extends GlobalReportBuilderListener> extraListeners) {
         try (FileCollector files = collector) {
             files.filterLanguages(getApplicableLanguages(false));
-            performAnalysisImpl(extraListeners, files.getCollectedFiles());
+            List<TextFile> allFiles = files.getCollectedFiles();
+            List<TextFile> textFiles = allFiles;
+            if (configuration.getShardCount() > 1) {
+                textFiles = FileSharding.selectShard(allFiles, configuration.getShardIndex(), configuration.getShardCount());
+                reporter.log(Level.DEBUG, "Analyzing shard {0}/{1}: {2} of {3} files",
+                             configuration.getShardIndex() + 1, configuration.getShardCount(), textFiles.size(), allFiles.size());
+            }
+            performAnalysisImpl(extraListeners, textFiles, allFiles);
         }
     }
 
-    void performAnalysisImpl(List<? extends GlobalReportBuilderListener> extraListeners, List<TextFile> textFiles) {
+    void performAnalysisImpl(List<? extends GlobalReportBuilderListener> extraListeners, List<TextFile> textFiles, List<TextFile> allFiles) {
         RuleSets rulesets = new RuleSets(this.ruleSets);
 
         GlobalAnalysisListener listener;
@@ -428,8 +437,11 @@ public final class PmdAnalysis implements AutoCloseable {
                     configuration.getThreads(),
                     configuration.getAnalysisCache(),
                     reporter,
-                    lpRegistry
-                );
+                    lpRegistry,
+                    new AnalysisBudget(configuration.getFileTimeBudget(),
+                                       configuration.getRuleTimeBudget(),
+                                       configuration.getMaxFileSize())
+                ).withAllFiles(allFiles);
 
                 List<AutoCloseable> analyses = new ArrayList<>();
                 try {
@@ -0,0 +1,86 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.sourceforge.pmd.benchmark.TimeTracker.TimedResult;
+
+/**
+ * A CSV renderer for {@link TimingReport}, meant to be processed by tools.
+ * Times are in nanoseconds. Each row has a kind:
+ * <ul>
+ * <li>{@code measurement}: a category and label, as in the text report,
+ * <li>{@code file}: one of the slowest files, in the label column,
+ * <li>{@code rule-file}: one of the slowest rules on a single file.
+ * </ul>
+ * Columns that do not apply to the kind of a row are empty, as are the
+ * self CPU time and allocated bytes if they were not recorded.
+ */
+public class CsvTimingReportRenderer implements TimingReportRenderer {
+
+    private static final String HEADER = "kind,category,label,rule,total_nanos,self_nanos,calls,counter,"
+        + "parse_nanos,processing_nanos,rule_nanos,self_cpu_nanos,self_allocated_bytes";
+
+    @Override
+    public void render(final TimingReport report, final Writer writer0) throws IOException {
+        final PrintWriter writer = new PrintWriter(writer0);
+        writer.println(HEADER);
+        for (final TimedOperationCategory category : TimedOperationCategory.values()) {
+            final TimedResult unlabeled = report.getUnlabeledMeasurements(category);
+            if (unlabeled != null) {
+                renderMeasurement(writer, report, category, "", unlabeled);
+            }
+            for (Map.Entry<String, TimedResult> labeled : new TreeMap<>(report.getLabeledMeasurements(category)).entrySet()) {
+                renderMeasurement(writer, report, category, labeled.getKey(), labeled.getValue());
+            }
+        }
+        for (final FileTiming file : report.getSlowestFiles()) {
+            renderRow(writer, "file", "", file.getFileId().getOriginalPath(), "",
+                      Long.toString(file.getTotalNanos()), "", "", "",
+                      Long.toString(file.getParseNanos()),
+                      Long.toString(file.getProcessingNanos()),
+                      Long.toString(file.getRuleNanos()), "", "");
+        }
+        for (final RuleFileTiming rule : report.getSlowestRuleFilePairs()) {
+            renderRow(writer, "rule-file", "", rule.getFileId().getOriginalPath(), rule.getRuleName(),
+                      Long.toString(rule.getNanos()), "", "", "", "", "", "", "", "");
+        }
+        writer.flush();
+    }
+
+    private static void renderMeasurement(final PrintWriter writer, final TimingReport report, final TimedOperationCategory category,
+                                          final String label, final TimedResult result) {
+        renderRow(writer, "measurement", category.name(), label, "",
+                  Long.toString(result.totalTimeNanos.get()),
+                  Long.toString(result.selfTimeNanos.get()),
+                  Integer.toString(result.callCount.get()),
+                  Long.toString(result.extraDataCounter.get()),
+                  "", "", "",
+                  report.isCpuTimeTracked() ? Long.toString(result.selfCpuTimeNanos.get()) : "",
+                  report.isAllocationTracked() ? Long.toString(result.selfAllocatedBytes.get()) : "");
+    }
+
+    private static void renderRow(final PrintWriter writer, final String... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(quote(values[i]));
+        }
+        writer.println();
+    }
+
+    private static String quote(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import net.sourceforge.pmd.lang.document.FileId;
+
+/**
+ * The time spent on a single file, recorded when the slowest files are
+ * tracked (see {@link TimeTracker#startGlobalTracking(int)}). Times are
+ * self times: the time spent in the parser does not include the time
+ * spent in the language specific processing it triggers.
+ */
+public final class FileTiming {
+
+    private final FileId fileId;
+    private final long parseNanos;
+    private final long processingNanos;
+    private final long ruleNanos;
+
+    FileTiming(FileId fileId, long parseNanos, long processingNanos, long ruleNanos) {
+        this.fileId = fileId;
+        this.parseNanos = parseNanos;
+        this.processingNanos = processingNanos;
+        this.ruleNanos = ruleNanos;
+    }
+
+    public FileId getFileId() {
+        return fileId;
+    }
+
+    /** Time spent parsing the file. */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /** Time spent in language specific processing, eg the semantic passes of Java. */
+    public long getProcessingNanos() {
+        return processingNanos;
+    }
+
+    /** Time spent applying rules. */
+    public long getRuleNanos() {
+        return ruleNanos;
+    }
+
+    public long getTotalNanos() {
+        return parseNanos + processingNanos + ruleNanos;
+    }
+}
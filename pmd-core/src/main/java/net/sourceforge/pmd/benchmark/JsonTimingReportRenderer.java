@@ -0,0 +1,92 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.sourceforge.pmd.benchmark.TimeTracker.TimedResult;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A JSON renderer for {@link TimingReport}, meant to be processed by tools.
+ * Times are in nanoseconds. Measurements are listed by category, then by label;
+ * the unlabeled measurement of a category has a null label. The self CPU
+ * time and allocated bytes of the measurements are only present if they
+ * were recorded.
+ */
+public class JsonTimingReportRenderer implements TimingReportRenderer {
+
+    @Override
+    public void render(final TimingReport report, final Writer writer) throws IOException {
+        @SuppressWarnings("PMD.CloseResource") // the writer is not ours
+        final JsonWriter json = new JsonWriter(writer);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("wallClockMillis").value(report.getWallClockMillis());
+        json.name("cpuTimeTracked").value(report.isCpuTimeTracked());
+        json.name("allocationTracked").value(report.isAllocationTracked());
+
+        json.name("measurements").beginArray();
+        for (final TimedOperationCategory category : TimedOperationCategory.values()) {
+            final TimedResult unlabeled = report.getUnlabeledMeasurements(category);
+            if (unlabeled != null) {
+                renderMeasurement(json, report, category, null, unlabeled);
+            }
+            for (Map.Entry<String, TimedResult> labeled : new TreeMap<>(report.getLabeledMeasurements(category)).entrySet()) {
+                renderMeasurement(json, report, category, labeled.getKey(), labeled.getValue());
+            }
+        }
+        json.endArray();
+
+        json.name("slowestFiles").beginArray();
+        for (final FileTiming file : report.getSlowestFiles()) {
+            json.beginObject();
+            json.name("file").value(file.getFileId().getOriginalPath());
+            json.name("totalNanos").value(file.getTotalNanos());
+            json.name("parseNanos").value(file.getParseNanos());
+            json.name("processingNanos").value(file.getProcessingNanos());
+            json.name("ruleNanos").value(file.getRuleNanos());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("slowestRuleFilePairs").beginArray();
+        for (final RuleFileTiming rule : report.getSlowestRuleFilePairs()) {
+            json.beginObject();
+            json.name("file").value(rule.getFileId().getOriginalPath());
+            json.name("rule").value(rule.getRuleName());
+            json.name("nanos").value(rule.getNanos());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.endObject();
+        json.flush();
+        writer.write(System.lineSeparator());
+        writer.flush();
+    }
+
+    private static void renderMeasurement(final JsonWriter json, final TimingReport report, final TimedOperationCategory category,
+                                          final String label, final TimedResult result) throws IOException {
+        json.beginObject();
+        json.name("category").value(category.name());
+        json.name("label").value(label);
+        json.name("totalNanos").value(result.totalTimeNanos.get());
+        json.name("selfNanos").value(result.selfTimeNanos.get());
+        json.name("calls").value(result.callCount.get());
+        json.name("counter").value(result.extraDataCounter.get());
+        if (report.isCpuTimeTracked()) {
+            json.name("selfCpuNanos").value(result.selfCpuTimeNanos.get());
+        }
+        if (report.isAllocationTracked()) {
+            json.name("selfAllocatedBytes").value(result.selfAllocatedBytes.get());
+        }
+        json.endObject();
+    }
+}
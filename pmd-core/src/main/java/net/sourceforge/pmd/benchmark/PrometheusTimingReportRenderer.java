@@ -0,0 +1,124 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+
+import net.sourceforge.pmd.benchmark.TimeTracker.TimedResult;
+
+/**
+ * Renders a {@link TimingReport} in the Prometheus text exposition format,
+ * so that it can be collected by a monitoring system, eg with the textfile
+ * collector of the node exporter. Each measurement is labeled with its
+ * category and label, the unlabeled measurement of a category having an
+ * empty label. Times are in seconds.
+ */
+public class PrometheusTimingReportRenderer implements TimingReportRenderer {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    @Override
+    public void render(final TimingReport report, final Writer writer0) throws IOException {
+        final PrintWriter writer = new PrintWriter(writer0);
+        final List<Measurement> measurements = collectMeasurements(report);
+
+        renderFamily(writer, "pmd_analysis_wall_clock_seconds", "gauge", "Wall clock time of the analysis.");
+        writer.println("pmd_analysis_wall_clock_seconds " + report.getWallClockMillis() / 1000.0);
+
+        renderMeasurements(writer, measurements, "pmd_operation_seconds_total",
+                           "Time spent in the operation, including nested operations.",
+                           r -> r.totalTimeNanos.get() / NANOS_PER_SECOND);
+        renderMeasurements(writer, measurements, "pmd_operation_self_seconds_total",
+                           "Time spent in the operation, excluding nested operations.",
+                           r -> r.selfTimeNanos.get() / NANOS_PER_SECOND);
+        renderMeasurements(writer, measurements, "pmd_operation_calls_total",
+                           "Number of times the operation ran.",
+                           r -> r.callCount.get());
+        renderMeasurements(writer, measurements, "pmd_operation_counter_total",
+                           "Custom counter of the operation, eg the number of visited nodes.",
+                           r -> r.extraDataCounter.get());
+        if (report.isCpuTimeTracked()) {
+            renderMeasurements(writer, measurements, "pmd_operation_self_cpu_seconds_total",
+                               "CPU time spent in the operation, excluding nested operations.",
+                               r -> r.selfCpuTimeNanos.get() / NANOS_PER_SECOND);
+        }
+        if (report.isAllocationTracked()) {
+            renderMeasurements(writer, measurements, "pmd_operation_self_allocated_bytes_total",
+                               "Bytes allocated by the operation, excluding nested operations.",
+                               r -> r.selfAllocatedBytes.get());
+        }
+
+        if (!report.getSlowestFiles().isEmpty()) {
+            renderFamily(writer, "pmd_slowest_file_seconds", "gauge", "Time spent on the slowest files.");
+            for (final FileTiming file : report.getSlowestFiles()) {
+                writer.println("pmd_slowest_file_seconds{file=\"" + escape(file.getFileId().getOriginalPath()) + "\"} "
+                               + file.getTotalNanos() / NANOS_PER_SECOND);
+            }
+        }
+        if (!report.getSlowestRuleFilePairs().isEmpty()) {
+            renderFamily(writer, "pmd_slowest_rule_file_seconds", "gauge", "Time spent by the slowest rules on a single file.");
+            for (final RuleFileTiming rule : report.getSlowestRuleFilePairs()) {
+                writer.println("pmd_slowest_rule_file_seconds{file=\"" + escape(rule.getFileId().getOriginalPath())
+                               + "\",rule=\"" + escape(rule.getRuleName()) + "\"} " + rule.getNanos() / NANOS_PER_SECOND);
+            }
+        }
+        writer.flush();
+    }
+
+    private static List<Measurement> collectMeasurements(final TimingReport report) {
+        final List<Measurement> measurements = new ArrayList<>();
+        for (final TimedOperationCategory category : TimedOperationCategory.values()) {
+            final TimedResult unlabeled = report.getUnlabeledMeasurements(category);
+            if (unlabeled != null) {
+                measurements.add(new Measurement(category, "", unlabeled));
+            }
+            for (Map.Entry<String, TimedResult> labeled : new TreeMap<>(report.getLabeledMeasurements(category)).entrySet()) {
+                measurements.add(new Measurement(category, labeled.getKey(), labeled.getValue()));
+            }
+        }
+        return measurements;
+    }
+
+    private static void renderFamily(final PrintWriter writer, final String name, final String type, final String help) {
+        writer.println("# HELP " + name + " " + help);
+        writer.println("# TYPE " + name + " " + type);
+    }
+
+    private static void renderMeasurements(final PrintWriter writer, final List<Measurement> measurements,
+                                           final String name, final String help, final ToDoubleFunction<TimedResult> value) {
+        renderFamily(writer, name, "counter", help);
+        for (final Measurement measurement : measurements) {
+            writer.println(name + "{category=\"" + measurement.category.name() + "\",label=\"" + escape(measurement.label) + "\"} "
+                           + format(value.applyAsDouble(measurement.result)));
+        }
+    }
+
+    private static String format(final double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private static String escape(final String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Measurement {
+        private final TimedOperationCategory category;
+        private final String label;
+        private final TimedResult result;
+
+        Measurement(final TimedOperationCategory category, final String label, final TimedResult result) {
+            this.category = category;
+            this.label = label;
+            this.result = result;
+        }
+    }
+}
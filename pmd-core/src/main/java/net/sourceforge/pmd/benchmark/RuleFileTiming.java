@@ -0,0 +1,36 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import net.sourceforge.pmd.lang.document.FileId;
+
+/**
+ * The time spent by a rule on a single file, recorded when the slowest
+ * files are tracked (see {@link TimeTracker#startGlobalTracking(int)}).
+ */
+public final class RuleFileTiming {
+
+    private final FileId fileId;
+    private final String ruleName;
+    private final long nanos;
+
+    RuleFileTiming(FileId fileId, String ruleName, long nanos) {
+        this.fileId = fileId;
+        this.ruleName = ruleName;
+        this.nanos = nanos;
+    }
+
+    public FileId getFileId() {
+        return fileId;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
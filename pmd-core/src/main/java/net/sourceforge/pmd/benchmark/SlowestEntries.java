@@ -0,0 +1,65 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps the entries with the largest times among those that are offered,
+ * in a bounded heap, so that memory does not grow with the number of
+ * entries. Thread-safe.
+ */
+final class SlowestEntries<T> {
+
+    private final int capacity;
+    private final ToLongFunction<? super T> time;
+    private final PriorityQueue<T> heap;
+    /** Time of the fastest kept entry once the heap is full, read without locking. */
+    private volatile long threshold = Long.MIN_VALUE;
+
+    SlowestEntries(int capacity, ToLongFunction<? super T> time) {
+        this.capacity = capacity;
+        this.time = time;
+        this.heap = new PriorityQueue<>(Math.max(1, capacity), Comparator.comparingLong(time));
+    }
+
+    /**
+     * Returns true if an entry with this time would be kept. This is
+     * cheap, and avoids creating entries that would be discarded.
+     */
+    boolean accepts(long nanos) {
+        return capacity > 0 && nanos > threshold;
+    }
+
+    synchronized void offer(T entry) {
+        if (capacity == 0) {
+            return;
+        }
+        if (heap.size() < capacity) {
+            heap.add(entry);
+        } else if (time.applyAsLong(entry) > time.applyAsLong(heap.peek())) {
+            heap.poll();
+            heap.add(entry);
+        } else {
+            return;
+        }
+        if (heap.size() == capacity) {
+            threshold = time.applyAsLong(heap.peek());
+        }
+    }
+
+    /**
+     * Returns the kept entries, slowest first.
+     */
+    synchronized List<T> toList() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(Comparator.comparingLong(time).reversed());
+        return result;
+    }
+}
@@ -8,7 +8,10 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -25,6 +28,7 @@ import net.sourceforge.pmd.benchmark.TimeTracker.TimedResult;
 public class TextTimingReportRenderer implements TimingReportRenderer {
 
     private static final String TIME_FORMAT = "{0,number,0.0000}";
+    private static final String MEGABYTES_FORMAT = "{0,number,0.0}";
     private static final String CUSTOM_COUNTER_FORMAT = "{0,number,###,###,###}";
 
     private static final int LABEL_COLUMN_WIDTH = 50;
@@ -46,6 +50,16 @@ public class TextTimingReportRenderer implements TimingReportRenderer {
             }
         }
 
+        if (!report.getSlowestFiles().isEmpty()) {
+            renderSlowestFiles(report.getSlowestFiles(), writer);
+        }
+        if (!report.getSlowestRuleFilePairs().isEmpty()) {
+            renderSlowestRules(report.getSlowestRuleFilePairs(), writer);
+        }
+        if (report.isCpuTimeTracked() || report.isAllocationTracked()) {
+            renderResourceUsage(report, writer);
+        }
+
         renderHeader("Summary", writer);
 
         for (final TimedOperationCategory category : TimedOperationCategory.values()) {
@@ -106,7 +120,113 @@ public class TextTimingReportRenderer implements TimingReportRenderer {
         writer.println();
     }
 
+    private void renderSlowestFiles(final List<FileTiming> files, final PrintWriter writer) {
+        renderRuler("Slowest Files", writer);
+        writer.write(StringUtils.rightPad("File", LABEL_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Time (secs)", TIME_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Parser", TIME_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Processing", TIME_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Rules", TIME_COLUMN_WIDTH));
+        writer.println();
+        writer.println();
+
+        for (final FileTiming file : files) {
+            writer.write(StringUtils.rightPad(abbreviatePath(file.getFileId().getOriginalPath()), LABEL_COLUMN_WIDTH));
+            writer.write(StringUtils.leftPad(formatTime(file.getTotalNanos()), TIME_COLUMN_WIDTH));
+            writer.write(StringUtils.leftPad(formatTime(file.getParseNanos()), TIME_COLUMN_WIDTH));
+            writer.write(StringUtils.leftPad(formatTime(file.getProcessingNanos()), TIME_COLUMN_WIDTH));
+            writer.write(StringUtils.leftPad(formatTime(file.getRuleNanos()), TIME_COLUMN_WIDTH));
+            writer.println();
+        }
+        writer.println();
+    }
+
+    private void renderSlowestRules(final List<RuleFileTiming> rules, final PrintWriter writer) {
+        renderRuler("Slowest Rules Per File", writer);
+        writer.write(StringUtils.rightPad("File", LABEL_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Time (secs)", TIME_COLUMN_WIDTH));
+        writer.write("  Rule");
+        writer.println();
+        writer.println();
+
+        for (final RuleFileTiming rule : rules) {
+            writer.write(StringUtils.rightPad(abbreviatePath(rule.getFileId().getOriginalPath()), LABEL_COLUMN_WIDTH));
+            writer.write(StringUtils.leftPad(formatTime(rule.getNanos()), TIME_COLUMN_WIDTH));
+            writer.write("  ");
+            writer.write(rule.getRuleName());
+            writer.println();
+        }
+        writer.println();
+    }
+
+    private void renderResourceUsage(final TimingReport report, final PrintWriter writer) {
+        renderRuler("Resource Usage", writer);
+        writer.write(StringUtils.rightPad("Label", LABEL_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Self CPU (secs)", SELF_TIME_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Self Alloc (MB)", SELF_TIME_COLUMN_WIDTH));
+        writer.println();
+        writer.println();
+
+        final Map<String, TimedResult> measurements = new HashMap<>();
+        for (final TimedOperationCategory category : TimedOperationCategory.values()) {
+            final TimedResult unlabeled = report.getUnlabeledMeasurements(category);
+            if (unlabeled != null) {
+                measurements.put(category.displayName(), unlabeled);
+            }
+            for (final Map.Entry<String, TimedResult> entry : report.getLabeledMeasurements(category).entrySet()) {
+                measurements.put(category.displayName() + ": " + entry.getKey(), entry.getValue());
+            }
+        }
+
+        // like the other sections, the largest values come last
+        final Comparator<Entry<String, TimedResult>> order = report.isAllocationTracked()
+            ? Comparator.comparingLong(e -> e.getValue().selfAllocatedBytes.get())
+            : Comparator.comparingLong(e -> e.getValue().selfCpuTimeNanos.get());
+        final List<Entry<String, TimedResult>> sorted = new ArrayList<>(measurements.entrySet());
+        sorted.sort(order.thenComparing(Entry::getKey));
+
+        for (final Entry<String, TimedResult> entry : sorted) {
+            writer.write(StringUtils.rightPad(abbreviatePath(entry.getKey()), LABEL_COLUMN_WIDTH));
+            writer.write(StringUtils.leftPad(report.isCpuTimeTracked() ? formatTime(entry.getValue().selfCpuTimeNanos.get()) : "-",
+                                             SELF_TIME_COLUMN_WIDTH));
+            writer.write(StringUtils.leftPad(report.isAllocationTracked()
+                                             ? MessageFormat.format(MEGABYTES_FORMAT, entry.getValue().selfAllocatedBytes.get() / 1048576.0)
+                                             : "-",
+                                             SELF_TIME_COLUMN_WIDTH));
+            writer.println();
+        }
+        writer.println();
+    }
+
+    private static String formatTime(final long nanos) {
+        return MessageFormat.format(TIME_FORMAT, nanos / 1000000000.0);
+    }
+
+    /**
+     * Keeps the end of long paths or labels, which has the file name, so that they fit in the label column.
+     */
+    private static String abbreviatePath(final String path) {
+        final int maxLength = LABEL_COLUMN_WIDTH - 1;
+        if (path.length() <= maxLength) {
+            return path;
+        }
+        return "..." + path.substring(path.length() - maxLength + 3);
+    }
+
     private void renderHeader(final String displayName, final PrintWriter writer) throws IOException {
+        renderRuler(displayName, writer);
+
+        // Write table titles
+        writer.write(StringUtils.rightPad("Label", LABEL_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Time (secs)", TIME_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Self Time (secs)", SELF_TIME_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("# Calls", CALL_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad("Counter", COUNTER_COLUMN_WIDTH));
+        writer.println();
+        writer.println();
+    }
+
+    private void renderRuler(final String displayName, final PrintWriter writer) {
         final StringBuilder sb = new StringBuilder(COLUMNS)
                 .append(displayName);
 
@@ -125,15 +245,6 @@ public class TextTimingReportRenderer implements TimingReportRenderer {
 
         writer.write(sb.toString());
         writer.println();
-
-        // Write table titles
-        writer.write(StringUtils.rightPad("Label", LABEL_COLUMN_WIDTH));
-        writer.write(StringUtils.leftPad("Time (secs)", TIME_COLUMN_WIDTH));
-        writer.write(StringUtils.leftPad("Self Time (secs)", SELF_TIME_COLUMN_WIDTH));
-        writer.write(StringUtils.leftPad("# Calls", CALL_COLUMN_WIDTH));
-        writer.write(StringUtils.leftPad("Counter", COUNTER_COLUMN_WIDTH));
-        writer.println();
-        writer.println();
     }
 
 }
@@ -0,0 +1,58 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the CPU time and the allocated bytes of the current thread.
+ * These are not available on every JVM, in which case zero is returned.
+ */
+final class ThreadResources {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+                                                      && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+    private static final com.sun.management.ThreadMXBean ALLOCATION_MX_BEAN = allocationMxBean();
+
+    private ThreadResources() {
+        // utility class
+    }
+
+    private static com.sun.management.ThreadMXBean allocationMxBean() {
+        try {
+            if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+                if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                    return bean;
+                }
+            }
+        } catch (LinkageError e) {
+            // not a HotSpot based JVM
+        }
+        return null;
+    }
+
+    /** Returns true if the allocated bytes of a thread can be measured. */
+    static boolean isAllocationSupported() {
+        return ALLOCATION_MX_BEAN != null;
+    }
+
+    /** Returns true if the CPU time of a thread can be measured. */
+    static boolean isCpuTimeSupported() {
+        return CPU_TIME_SUPPORTED;
+    }
+
+    /** CPU time of the current thread, in nanoseconds. */
+    static long cpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    /** Bytes allocated by the current thread so far. */
+    static long allocatedBytes() {
+        return ALLOCATION_MX_BEAN != null ? ALLOCATION_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+}
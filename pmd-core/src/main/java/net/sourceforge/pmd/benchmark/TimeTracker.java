@@ -4,28 +4,64 @@
 
 package net.sourceforge.pmd.benchmark;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
+import net.sourceforge.pmd.lang.document.FileId;
+
 /**
  * A time tracker class to measure time spent on different sections of PMD analysis.
  * The class is thread-aware, allowing to differentiate CPU and wall clock time.
  *
+ * <p>Optionally, the time spent on each file is recorded as well, to
+ * find the slowest files and the slowest rules on a given file. Only
+ * the slowest ones are kept, so memory use does not depend on the number
+ * of files.
+ *
+ * <p>Tracking an operation is cheap, so that it does not distort the
+ * measures of the hot paths it is used in: each operation (a category
+ * and a label) is given an integer id the first time it is used, and
+ * each thread accumulates its measures into its own arrays, indexed by
+ * these ids. The measures of all threads are only merged when tracking
+ * stops. Starting and finishing an operation does not allocate.
+ *
+ * <p>Optionally, the CPU time and the bytes allocated by the thread are
+ * sampled around each operation as well. This is more expensive than
+ * measuring the wall clock time only, but it shows for instance which
+ * rules allocate the most.
+ *
  * @author Juan Martín Sotuyo Dodero
  */
 public final class TimeTracker {
 
-    private static boolean trackTime = false;
+    private static volatile boolean trackTime = false;
     private static long wallClockStartMillis = -1;
-    private static final ThreadLocal<Queue<TimerEntry>> TIMER_ENTRIES;
-    private static final ConcurrentMap<TimedOperationKey, TimedResult> ACCUMULATED_RESULTS = new ConcurrentHashMap<>();
+    private static int slowestCount = 0;
+    private static boolean trackResources = false;
+    /** Incremented each time tracking starts, to discard the timers of the threads of a previous run. */
+    private static volatile int generation = 0;
+    private static final ThreadLocal<ThreadTimer> THREAD_TIMER = new ThreadLocal<>();
+    /** Timers of all the threads that tracked an operation since tracking started. */
+    private static final Queue<ThreadTimer> THREAD_TIMERS = new ConcurrentLinkedQueue<>();
+
+    /** Operations by id. The unlabeled operation of each category has the ordinal of the category as id. */
+    private static volatile TimedOperationKey[] operations;
+    /** Ids of the labeled operations, for each category. */
+    private static final Map<TimedOperationCategory, ConcurrentMap<String, Integer>> LABELED_OPERATION_IDS =
+        new EnumMap<>(TimedOperationCategory.class);
+
+    private static SlowestEntries<FileTiming> slowestFiles = new SlowestEntries<>(0, FileTiming::getTotalNanos);
+    private static SlowestEntries<RuleFileTiming> slowestRules = new SlowestEntries<>(0, RuleFileTiming::getNanos);
     private static final TimedOperation NOOP_TIMED_OPERATION = new TimedOperation() {
 
         @Override
@@ -40,7 +76,12 @@ public final class TimeTracker {
     };
 
     static {
-        TIMER_ENTRIES = ThreadLocal.withInitial(() -> Collections.asLifoQueue(new LinkedList<>()));
+        final TimedOperationCategory[] categories = TimedOperationCategory.values();
+        operations = new TimedOperationKey[categories.length];
+        for (final TimedOperationCategory category : categories) {
+            operations[category.ordinal()] = new TimedOperationKey(category, null);
+            LABELED_OPERATION_IDS.put(category, new ConcurrentHashMap<>());
+        }
     }
 
     private TimeTracker() {
@@ -52,14 +93,51 @@ public final class TimeTracker {
      * Must be called once PMD starts if tracking is desired, no tracking will be performed otherwise.
      */
     public static void startGlobalTracking() {
+        startGlobalTracking(0);
+    }
+
+    /**
+     * Starts global tracking, and records the time spent on each file.
+     * The report then contains the given number of slowest files, and
+     * of slowest rules on a single file.
+     *
+     * @param slowestCount Number of slowest files and rule/file pairs to report,
+     *                     zero to not record the time spent on each file
+     */
+    public static void startGlobalTracking(int slowestCount) {
+        startGlobalTracking(slowestCount, false);
+    }
+
+    /**
+     * Starts global tracking, and optionally records the time spent on
+     * each file, and the CPU time and bytes allocated by each operation.
+     *
+     * @param slowestCount   Number of slowest files and rule/file pairs to report,
+     *                       zero to not record the time spent on each file
+     * @param trackResources Whether to record the CPU time and the allocated bytes
+     *                       of each operation, in addition to its wall clock time.
+     *                       This is ignored for the measures that the JVM does not support.
+     */
+    public static void startGlobalTracking(int slowestCount, boolean trackResources) {
+        if (slowestCount < 0) {
+            throw new IllegalArgumentException("Negative count: " + slowestCount);
+        }
         wallClockStartMillis = System.currentTimeMillis();
+        TimeTracker.slowestCount = slowestCount;
+        TimeTracker.trackResources = trackResources;
+        slowestFiles = new SlowestEntries<>(slowestCount, FileTiming::getTotalNanos);
+        slowestRules = new SlowestEntries<>(slowestCount, RuleFileTiming::getNanos);
+        THREAD_TIMERS.clear(); // just in case
+        generation++;
         trackTime = true;
-        ACCUMULATED_RESULTS.clear(); // just in case
         initThread(); // init main thread
     }
 
     /**
      * Stops global tracking. Stops the wall clock. All further operations will be treated as NOOP.
+     * The measures of the other threads must be complete, ie the threads
+     * that analysed files must have finished.
+     *
      * @return The timed data obtained through the run.
      */
     public static TimingReport stopGlobalTracking() {
@@ -70,13 +148,44 @@ public final class TimeTracker {
         finishThread(); // finish the main thread
         trackTime = false;
 
+        final TimingReport report = createReport();
+        THREAD_TIMERS.clear();
+        return report;
+    }
+
+    /**
+     * Returns the measures so far, without stopping tracking. This can be
+     * used to export metrics during a long analysis. The operations that
+     * are still running are not included, and the latest measures of the
+     * other threads may be missing.
+     *
+     * @return The timed data obtained so far, or null if tracking is not started.
+     */
+    public static TimingReport snapshot() {
+        if (!trackTime) {
+            return null;
+        }
+        return createReport();
+    }
+
+    private static TimingReport createReport() {
+        final TimedOperationKey[] keys = operations;
+        final Map<TimedOperationKey, TimedResult> results = new HashMap<>();
+        for (final ThreadTimer timer : THREAD_TIMERS) {
+            timer.addTo(keys, results);
+        }
+
         // Fix UNACCOUNTED metric (total time is meaningless as is call count)
-        final TimedResult unaccountedResult = ACCUMULATED_RESULTS.get(
-                new TimedOperationKey(TimedOperationCategory.UNACCOUNTED, null));
-        unaccountedResult.totalTimeNanos.set(unaccountedResult.selfTimeNanos.get());
-        unaccountedResult.callCount.set(0);
+        final TimedResult unaccountedResult = results.get(keys[TimedOperationCategory.UNACCOUNTED.ordinal()]);
+        if (unaccountedResult != null) {
+            unaccountedResult.totalTimeNanos.set(unaccountedResult.selfTimeNanos.get());
+            unaccountedResult.callCount.set(0);
+        }
 
-        return new TimingReport(System.currentTimeMillis() - wallClockStartMillis, ACCUMULATED_RESULTS);
+        return new TimingReport(System.currentTimeMillis() - wallClockStartMillis, results,
+                                slowestFiles.toList(), slowestRules.toList(),
+                                trackResources && ThreadResources.isCpuTimeSupported(),
+                                trackResources && ThreadResources.isAllocationSupported());
     }
 
     /**
@@ -98,11 +207,31 @@ public final class TimeTracker {
             return;
         }
 
-        finishOperation(0);
+        // the timer of the thread is kept, it is reused by the next file analysed on this thread
+        currentTimer().finish(0);
+    }
 
-        // clean up thread-locals in multithread analysis
-        if (TIMER_ENTRIES.get().isEmpty()) {
-            TIMER_ENTRIES.remove();
+    /**
+     * Starts recording the time spent on a file by the current thread,
+     * if the slowest files are tracked.
+     * @param fileId The file that is about to be processed
+     */
+    public static void startFile(final FileId fileId) {
+        if (!trackTime || slowestCount == 0) {
+            return;
+        }
+
+        currentTimer().fileTimer.start(fileId);
+    }
+
+    /**
+     * Finishes recording the time spent on the current file of this
+     * thread, and keeps it if it is among the slowest ones.
+     */
+    public static void finishFile() {
+        final ThreadTimer timer = THREAD_TIMER.get();
+        if (timer != null) {
+            timer.fileTimer.finish();
         }
     }
 
@@ -126,66 +255,292 @@ public final class TimeTracker {
             return NOOP_TIMED_OPERATION;
         }
 
-        TIMER_ENTRIES.get().add(new TimerEntry(category, label));
-        return new TimedOperationImpl();
+        return currentTimer().start(operationId(category, label));
     }
 
-    /**
-     * Finishes tracking an operation.
-     * @param extraDataCounter An optional additional data counter to track along the measurements.
-     *                         Users are free to track any extra value they want (ie: number of analyzed nodes,
-     *                         iterations in a loop, etc.)
-     */
-    /* default */ static void finishOperation(final long extraDataCounter) {
-        if (!trackTime) {
-            return;
+    public static void bench(String label, Runnable runnable) {
+        try (TimedOperation ignored = startOperation(TimedOperationCategory.LANGUAGE_SPECIFIC_PROCESSING, label)) {
+            runnable.run();
         }
+    }
 
-        final Queue<TimerEntry> queue = TIMER_ENTRIES.get();
-        final TimerEntry timerEntry = queue.remove();
+    public static <T> T bench(String label, Supplier<T> runnable) {
+        try (TimedOperation ignored = startOperation(TimedOperationCategory.LANGUAGE_SPECIFIC_PROCESSING, label)) {
+            return runnable.get();
+        }
+    }
 
-        // Compute if absent
-        TimedResult result = ACCUMULATED_RESULTS.get(timerEntry.operation);
-        if (result == null) {
-            ACCUMULATED_RESULTS.putIfAbsent(timerEntry.operation, new TimedResult());
-            result = ACCUMULATED_RESULTS.get(timerEntry.operation);
+    private static int operationId(final TimedOperationCategory category, final String label) {
+        if (label == null) {
+            return category.ordinal();
         }
+        final Integer id = LABELED_OPERATION_IDS.get(category).get(label);
+        return id != null ? id : registerOperation(category, label);
+    }
 
-        // Update counters and let next element on the stack ignore the time we spent
-        final long delta = result.accumulate(timerEntry, extraDataCounter);
-        if (!queue.isEmpty()) {
-            queue.peek().inNestedOperationsNanos += delta;
+    private static synchronized int registerOperation(final TimedOperationCategory category, final String label) {
+        final ConcurrentMap<String, Integer> ids = LABELED_OPERATION_IDS.get(category);
+        final Integer existing = ids.get(label);
+        if (existing != null) {
+            return existing;
         }
+        final TimedOperationKey[] keys = Arrays.copyOf(operations, operations.length + 1);
+        final int id = keys.length - 1;
+        keys[id] = new TimedOperationKey(category, label);
+        // publish the key before the id, so that a thread that sees the id also sees the key
+        operations = keys;
+        ids.put(label, id);
+        return id;
     }
 
-    public static void bench(String label, Runnable runnable) {
-        try (TimedOperation ignored = startOperation(TimedOperationCategory.LANGUAGE_SPECIFIC_PROCESSING, label)) {
-            runnable.run();
+    private static ThreadTimer currentTimer() {
+        ThreadTimer timer = THREAD_TIMER.get();
+        if (timer == null || timer.generation != generation) {
+            timer = new ThreadTimer(generation, trackResources);
+            THREAD_TIMER.set(timer);
+            THREAD_TIMERS.add(timer);
         }
+        return timer;
     }
 
-    public static <T> T bench(String label, Supplier<T> runnable) {
-        try (TimedOperation ignored = startOperation(TimedOperationCategory.LANGUAGE_SPECIFIC_PROCESSING, label)) {
-            return runnable.get();
+    /**
+     * The open operations and the measures of a thread. The open operations
+     * are a stack of parallel arrays, and the measures are arrays indexed by
+     * operation id. Only the owning thread writes to it. The CPU time and
+     * allocation arrays are only created if resources are tracked.
+     */
+    private static final class ThreadTimer {
+        private static final int INITIAL_DEPTH = 16;
+
+        private final int generation;
+        private final boolean trackResources;
+        private final FileTimer fileTimer = new FileTimer();
+
+        private int depth = 0;
+        private int[] openIds = new int[INITIAL_DEPTH];
+        private long[] openStarts = new long[INITIAL_DEPTH];
+        private long[] openNestedNanos = new long[INITIAL_DEPTH];
+        private TimedOperationImpl[] handles = new TimedOperationImpl[INITIAL_DEPTH];
+        private long[] openCpuStarts;
+        private long[] openNestedCpuNanos;
+        private long[] openAllocStarts;
+        private long[] openNestedAllocBytes;
+
+        private long[] totalNanos;
+        private long[] selfNanos;
+        private int[] callCount;
+        private long[] extraData;
+        private long[] selfCpuNanos;
+        private long[] selfAllocatedBytes;
+
+        ThreadTimer(final int generation, final boolean trackResources) {
+            this.generation = generation;
+            this.trackResources = trackResources;
+            final int size = operations.length;
+            totalNanos = new long[size];
+            selfNanos = new long[size];
+            callCount = new int[size];
+            extraData = new long[size];
+            if (trackResources) {
+                openCpuStarts = new long[INITIAL_DEPTH];
+                openNestedCpuNanos = new long[INITIAL_DEPTH];
+                openAllocStarts = new long[INITIAL_DEPTH];
+                openNestedAllocBytes = new long[INITIAL_DEPTH];
+                selfCpuNanos = new long[size];
+                selfAllocatedBytes = new long[size];
+            }
+        }
+
+        TimedOperation start(final int id) {
+            if (depth == openIds.length) {
+                final int newDepth = depth * 2;
+                openIds = Arrays.copyOf(openIds, newDepth);
+                openStarts = Arrays.copyOf(openStarts, newDepth);
+                openNestedNanos = Arrays.copyOf(openNestedNanos, newDepth);
+                handles = Arrays.copyOf(handles, newDepth);
+                if (trackResources) {
+                    openCpuStarts = Arrays.copyOf(openCpuStarts, newDepth);
+                    openNestedCpuNanos = Arrays.copyOf(openNestedCpuNanos, newDepth);
+                    openAllocStarts = Arrays.copyOf(openAllocStarts, newDepth);
+                    openNestedAllocBytes = Arrays.copyOf(openNestedAllocBytes, newDepth);
+                }
+            }
+            TimedOperationImpl handle = handles[depth];
+            if (handle == null) {
+                handle = new TimedOperationImpl(this);
+                handles[depth] = handle;
+            }
+            handle.closed = false;
+            openIds[depth] = id;
+            openNestedNanos[depth] = 0;
+            if (trackResources) {
+                openNestedCpuNanos[depth] = 0;
+                openNestedAllocBytes[depth] = 0;
+                openAllocStarts[depth] = ThreadResources.allocatedBytes();
+                openCpuStarts[depth] = ThreadResources.cpuTime();
+            }
+            openStarts[depth] = System.nanoTime();
+            depth++;
+            return handle;
+        }
+
+        void finish(final long extraDataCounter) {
+            final long end = System.nanoTime();
+            if (depth == 0) {
+                return;
+            }
+            if (trackResources) {
+                finishResources();
+            }
+            depth--;
+            final int id = openIds[depth];
+            final long delta = end - openStarts[depth];
+            final long self = delta - openNestedNanos[depth];
+
+            if (id >= callCount.length) {
+                final int size = operations.length;
+                totalNanos = Arrays.copyOf(totalNanos, size);
+                selfNanos = Arrays.copyOf(selfNanos, size);
+                callCount = Arrays.copyOf(callCount, size);
+                extraData = Arrays.copyOf(extraData, size);
+                if (trackResources) {
+                    selfCpuNanos = Arrays.copyOf(selfCpuNanos, size);
+                    selfAllocatedBytes = Arrays.copyOf(selfAllocatedBytes, size);
+                }
+            }
+            totalNanos[id] += delta;
+            selfNanos[id] += self;
+            callCount[id]++;
+            extraData[id] += extraDataCounter;
+
+            // let the enclosing operation ignore the time we spent
+            if (depth > 0) {
+                openNestedNanos[depth - 1] += delta;
+            }
+            if (fileTimer.fileId != null) {
+                fileTimer.add(id, self);
+            }
+        }
+
+        /**
+         * Records the resources used by the innermost open operation. This
+         * is called before the operation is popped from the stack.
+         */
+        private void finishResources() {
+            final long cpu = ThreadResources.cpuTime();
+            final long allocated = ThreadResources.allocatedBytes();
+            final int top = depth - 1;
+            final int id = openIds[top];
+            final long cpuDelta = cpu - openCpuStarts[top];
+            final long allocDelta = allocated - openAllocStarts[top];
+
+            if (id >= selfCpuNanos.length) {
+                final int size = operations.length;
+                selfCpuNanos = Arrays.copyOf(selfCpuNanos, size);
+                selfAllocatedBytes = Arrays.copyOf(selfAllocatedBytes, size);
+            }
+            selfCpuNanos[id] += cpuDelta - openNestedCpuNanos[top];
+            selfAllocatedBytes[id] += allocDelta - openNestedAllocBytes[top];
+            if (top > 0) {
+                openNestedCpuNanos[top - 1] += cpuDelta;
+                openNestedAllocBytes[top - 1] += allocDelta;
+            }
+        }
+
+        /**
+         * Adds the measures of this thread to the results. This may be
+         * called by another thread during the analysis, so the arrays are
+         * read once, and may have different lengths if they just grew.
+         */
+        void addTo(final TimedOperationKey[] keys, final Map<TimedOperationKey, TimedResult> results) {
+            final long[] total = totalNanos;
+            final long[] self = selfNanos;
+            final int[] calls = callCount;
+            final long[] extra = extraData;
+            final long[] cpu = selfCpuNanos;
+            final long[] allocated = selfAllocatedBytes;
+            int length = Math.min(Math.min(total.length, self.length), Math.min(calls.length, extra.length));
+            if (trackResources) {
+                length = Math.min(length, Math.min(cpu.length, allocated.length));
+            }
+            length = Math.min(length, keys.length);
+
+            for (int id = 0; id < length; id++) {
+                if (calls[id] > 0) {
+                    final TimedResult result = results.computeIfAbsent(keys[id], k -> new TimedResult());
+                    result.add(total[id], self[id], calls[id], extra[id]);
+                    if (trackResources) {
+                        result.addResources(cpu[id], allocated[id]);
+                    }
+                }
+            }
         }
     }
 
     /**
-     * An entry in the open timers queue. Defines an operation that has started and hasn't finished yet.
+     * Self times of the operations of the current file of a thread.
      */
-    private static class TimerEntry {
-        /* package */ final TimedOperationKey operation;
-        /* package */ final long start;
-        /* package */ long inNestedOperationsNanos = 0;
+    private static final class FileTimer {
+        private FileId fileId;
+        private long parseNanos;
+        private long processingNanos;
+        /** Self time of each rule, indexed by operation id. */
+        private long[] ruleNanos = new long[0];
+        /** Ids of the rules that ran on the file, so that only them are reset. */
+        private int[] ruleIds = new int[16];
+        private int ruleCount;
+
+        void start(final FileId fileId) {
+            this.fileId = fileId;
+            parseNanos = 0;
+            processingNanos = 0;
+        }
 
-        /* package */ TimerEntry(final TimedOperationCategory category, final String label) {
-            this.operation = new TimedOperationKey(category, label);
-            this.start = System.nanoTime();
+        void add(final int id, final long selfNanos) {
+            switch (operations[id].category) {
+            case PARSER:
+                parseNanos += selfNanos;
+                break;
+            case LANGUAGE_SPECIFIC_PROCESSING:
+                processingNanos += selfNanos;
+                break;
+            case RULE:
+                if (id >= ruleNanos.length) {
+                    ruleNanos = Arrays.copyOf(ruleNanos, operations.length);
+                }
+                if (ruleNanos[id] == 0) {
+                    if (ruleCount == ruleIds.length) {
+                        ruleIds = Arrays.copyOf(ruleIds, ruleCount * 2);
+                    }
+                    ruleIds[ruleCount++] = id;
+                }
+                // never zero once recorded, so that the rule is not listed twice
+                ruleNanos[id] += Math.max(1, selfNanos);
+                break;
+            default:
+                break;
+            }
         }
 
-        @Override
-        public String toString() {
-            return "TimerEntry for " + operation;
+        void finish() {
+            if (fileId == null) {
+                return;
+            }
+            long totalRuleNanos = 0;
+            for (int i = 0; i < ruleCount; i++) {
+                final int id = ruleIds[i];
+                final long nanos = ruleNanos[id];
+                ruleNanos[id] = 0;
+                totalRuleNanos += nanos;
+                if (slowestRules.accepts(nanos)) {
+                    slowestRules.offer(new RuleFileTiming(fileId, operations[id].label, nanos));
+                }
+            }
+            ruleCount = 0;
+            if (slowestFiles.accepts(parseNanos + processingNanos + totalRuleNanos)) {
+                slowestFiles.offer(new FileTiming(fileId, parseNanos, processingNanos, totalRuleNanos));
+            }
+            fileId = null;
         }
     }
 
@@ -197,31 +552,36 @@ public final class TimeTracker {
         /* package */ AtomicLong selfTimeNanos = new AtomicLong();
         /* package */ AtomicInteger callCount = new AtomicInteger();
         /* package */ AtomicLong extraDataCounter = new AtomicLong();
+        /* package */ AtomicLong selfCpuTimeNanos = new AtomicLong();
+        /* package */ AtomicLong selfAllocatedBytes = new AtomicLong();
 
         /**
-         * Adds a new {@link TimerEntry} to the results.
-         * @param timerEntry The entry to be added
-         * @param extraData Any extra data counter to be added
-         * @return The delta time transcurred since the {@link TimerEntry} began in nanos.
+         * Adds the measures of a thread to the results.
          */
-        /* package */ long accumulate(final TimerEntry timerEntry, final long extraData) {
-            final long delta = System.nanoTime() - timerEntry.start;
-
-            totalTimeNanos.getAndAdd(delta);
-            selfTimeNanos.getAndAdd(delta - timerEntry.inNestedOperationsNanos);
-            callCount.getAndIncrement();
+        /* package */ void add(final long totalNanos, final long selfNanos, final int calls, final long extraData) {
+            totalTimeNanos.getAndAdd(totalNanos);
+            selfTimeNanos.getAndAdd(selfNanos);
+            callCount.getAndAdd(calls);
             extraDataCounter.getAndAdd(extraData);
+        }
 
-            return delta;
+        /**
+         * Adds the CPU time and allocations of a thread to the results.
+         */
+        /* package */ void addResources(final long cpuNanos, final long allocatedBytes) {
+            selfCpuTimeNanos.getAndAdd(cpuNanos);
+            selfAllocatedBytes.getAndAdd(allocatedBytes);
         }
 
         /**
-         * Merges the times (and only the times) from another {@link TimedResult} into self.
+         * Merges the times and resources (but not the counts) from another {@link TimedResult} into self.
          * @param timedResult The {@link TimedResult} to merge
          */
         /* package */ void mergeTimes(final TimedResult timedResult) {
             totalTimeNanos.getAndAdd(timedResult.totalTimeNanos.get());
             selfTimeNanos.getAndAdd(timedResult.selfTimeNanos.get());
+            selfCpuTimeNanos.getAndAdd(timedResult.selfCpuTimeNanos.get());
+            selfAllocatedBytes.getAndAdd(timedResult.selfAllocatedBytes.get());
         }
     }
 
@@ -268,10 +628,17 @@ public final class TimeTracker {
     }
 
     /**
-     * A standard timed operation implementation.
+     * A standard timed operation implementation. There is one per depth of
+     * the stack of open operations of a thread, which is reused by all the
+     * operations opened at that depth.
      */
     private static final class TimedOperationImpl implements TimedOperation {
-        private boolean closed = false;
+        private final ThreadTimer timer;
+        private boolean closed = true;
+
+        TimedOperationImpl(final ThreadTimer timer) {
+            this.timer = timer;
+        }
 
         @Override
         public void close() {
@@ -285,7 +652,9 @@ public final class TimeTracker {
             }
 
             closed = true;
-            TimeTracker.finishOperation(extraDataCounter);
+            if (trackTime) {
+                timer.finish(extraDataCounter);
+            }
         }
     }
 }
@@ -4,7 +4,9 @@
 
 package net.sourceforge.pmd.benchmark;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.sourceforge.pmd.benchmark.TimeTracker.TimedOperationKey;
@@ -18,10 +20,20 @@ public class TimingReport {
 
     private final long wallClockMillis;
     private final Map<TimedOperationKey, TimedResult> results;
+    private final List<FileTiming> slowestFiles;
+    private final List<RuleFileTiming> slowestRules;
+    private final boolean cpuTimeTracked;
+    private final boolean allocationTracked;
 
-    /* package */ TimingReport(final long wallClockMillis, final Map<TimedOperationKey, TimedResult> accumulatedResults) {
+    /* package */ TimingReport(final long wallClockMillis, final Map<TimedOperationKey, TimedResult> accumulatedResults,
+                               final List<FileTiming> slowestFiles, final List<RuleFileTiming> slowestRules,
+                               final boolean cpuTimeTracked, final boolean allocationTracked) {
         this.wallClockMillis = wallClockMillis;
         results = accumulatedResults;
+        this.slowestFiles = Collections.unmodifiableList(slowestFiles);
+        this.slowestRules = Collections.unmodifiableList(slowestRules);
+        this.cpuTimeTracked = cpuTimeTracked;
+        this.allocationTracked = allocationTracked;
     }
 
     public Map<String, TimedResult> getLabeledMeasurements(final TimedOperationCategory category) {
@@ -51,4 +63,43 @@ public class TimingReport {
     public long getWallClockMillis() {
         return wallClockMillis;
     }
+
+    /**
+     * Returns the slowest files, slowest first. This is empty unless
+     * the time spent on each file was recorded.
+     *
+     * @see TimeTracker#startGlobalTracking(int)
+     */
+    public List<FileTiming> getSlowestFiles() {
+        return slowestFiles;
+    }
+
+    /**
+     * Returns the slowest rules on a single file, slowest first. This is
+     * empty unless the time spent on each file was recorded.
+     *
+     * @see TimeTracker#startGlobalTracking(int)
+     */
+    public List<RuleFileTiming> getSlowestRuleFilePairs() {
+        return slowestRules;
+    }
+
+    /**
+     * Returns true if the self CPU time of each operation was recorded.
+     *
+     * @see TimeTracker#startGlobalTracking(int, boolean)
+     */
+    public boolean isCpuTimeTracked() {
+        return cpuTimeTracked;
+    }
+
+    /**
+     * Returns true if the bytes allocated by each operation, excluding
+     * nested operations, were recorded.
+     *
+     * @see TimeTracker#startGlobalTracking(int, boolean)
+     */
+    public boolean isAllocationTracked() {
+        return allocationTracked;
+    }
 }
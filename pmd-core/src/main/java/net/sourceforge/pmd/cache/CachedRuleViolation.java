@@ -82,28 +82,35 @@ public final class CachedRuleViolation implements RuleViolation {
      * @param stream     The stream from which to load the violation.
      * @param fileFileId The name of the file on which this rule was reported.
      * @param mapper     The mapper to be used to obtain rule instances from the active rulesets.
+     * @param strings    Strings that were already loaded, used to share
+     *                   the rule names between violations
      *
      * @return The loaded rule violation.
      */
     /* package */
     static CachedRuleViolation loadFromStream(
         DataInputStream stream,
-        FileId fileFileId, CachedRuleMapper mapper) throws IOException {
+        FileId fileFileId, CachedRuleMapper mapper, Map<String, String> strings) throws IOException {
 
         String description = stream.readUTF();
-        String ruleClassName = stream.readUTF();
-        String ruleName = stream.readUTF();
-        String ruleTargetLanguage = stream.readUTF();
+        String ruleClassName = share(strings, stream.readUTF());
+        String ruleName = share(strings, stream.readUTF());
+        String ruleTargetLanguage = share(strings, stream.readUTF());
         int beginLine = stream.readInt();
         int beginColumn = stream.readInt();
         int endLine = stream.readInt();
         int endColumn = stream.readInt();
-        Map<String, String> additionalInfo = readAdditionalInfo(stream);
+        Map<String, String> additionalInfo = readAdditionalInfo(stream, strings);
         return new CachedRuleViolation(mapper, description, fileFileId, ruleClassName, ruleName, ruleTargetLanguage,
                                        beginLine, beginColumn, endLine, endColumn, additionalInfo);
     }
 
-    private static @NonNull Map<String, String> readAdditionalInfo(DataInputStream stream) throws IOException {
+    private static String share(Map<String, String> strings, String string) {
+        String existing = strings.putIfAbsent(string, string);
+        return existing != null ? existing : string;
+    }
+
+    private static @NonNull Map<String, String> readAdditionalInfo(DataInputStream stream, Map<String, String> strings) throws IOException {
         int numAdditionalInfoKeyValuePairs = stream.readInt();
         if (numAdditionalInfoKeyValuePairs == 0) {
             return Collections.emptyMap();
@@ -111,7 +118,7 @@ public final class CachedRuleViolation implements RuleViolation {
 
         Map<String, String> additionalInfo = new LinkedHashMap<>();
         while (numAdditionalInfoKeyValuePairs-- > 0) {
-            final String key = stream.readUTF();
+            final String key = share(strings, stream.readUTF());
             final String value = stream.readUTF();
             additionalInfo.put(key, value);
         }
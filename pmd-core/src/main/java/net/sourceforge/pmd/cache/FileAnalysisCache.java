@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -82,6 +83,7 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
                         executionClassPathChecksum = inputStream.readLong();
 
                         // Cached results
+                        final Map<String, String> strings = new HashMap<>();
                         while (inputStream.available() > 0) {
                             final String filePathId = inputStream.readUTF();
                             FileId fileId = idMap.get(filePathId);
@@ -95,7 +97,7 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
                             final int countViolations = inputStream.readInt();
                             final List<RuleViolation> violations = new ArrayList<>(countViolations);
                             for (int i = 0; i < countViolations; i++) {
-                                violations.add(CachedRuleViolation.loadFromStream(inputStream, fileId, ruleMapper));
+                                violations.add(CachedRuleViolation.loadFromStream(inputStream, fileId, ruleMapper, strings));
                             }
 
                             fileResultsCache.put(fileId, new AnalysisResult(checksum, violations));
@@ -74,6 +74,10 @@ public class CPDConfiguration extends AbstractConfiguration {
 
     private boolean failOnViolation = true;
 
+    private long tokenMemoryBudget = 0;
+
+    private double nearDuplicateThreshold = 0;
+
 
     public CPDConfiguration() {
         this(LanguageRegistry.CPD);
@@ -267,4 +271,64 @@ public class CPDConfiguration extends AbstractConfiguration {
         this.failOnViolation = failOnViolation;
     }
 
+    /**
+     * Returns the memory budget of the match algorithm in bytes. If this
+     * is zero (the default), all tokens are kept in memory.
+     *
+     * @see #setTokenMemoryBudget(long)
+     */
+    public long getTokenMemoryBudget() {
+        return tokenMemoryBudget;
+    }
+
+    /**
+     * Sets the memory budget of the match algorithm in bytes. If this is
+     * positive, tokens are stored in temporary files instead of the heap,
+     * and are grouped by hash in partitions that fit in about this many
+     * bytes. Only the tokens of duplicates are then loaded into memory.
+     * This is slower, but allows processing code bases whose tokens do
+     * not fit in the heap. Zero means that all tokens are kept in memory.
+     *
+     * @param tokenMemoryBudget Memory budget in bytes, or zero
+     *
+     * @throws IllegalArgumentException If the budget is negative
+     */
+    public void setTokenMemoryBudget(long tokenMemoryBudget) {
+        if (tokenMemoryBudget < 0) {
+            throw new IllegalArgumentException("Negative memory budget: " + tokenMemoryBudget);
+        }
+        this.tokenMemoryBudget = tokenMemoryBudget;
+    }
+
+    /**
+     * Returns the similarity threshold of near-duplicate detection. If
+     * this is zero (the default), CPD finds exact duplicates.
+     *
+     * @see #setNearDuplicateThreshold(double)
+     */
+    public double getNearDuplicateThreshold() {
+        return nearDuplicateThreshold;
+    }
+
+    /**
+     * Sets the similarity threshold of near-duplicate detection. If this
+     * is positive, CPD reports pairs of files that share at least this
+     * fraction of their fingerprints instead of exact duplicates. The
+     * fingerprints are relative to the smaller file of the pair, and are
+     * computed over the tokens, so they respect options like
+     * {@link #setIgnoreLiterals(boolean)}. Any sequence of identical
+     * tokens that is at least {@linkplain #setMinimumTileSize(int) minimum tile size}
+     * tokens long yields a common fingerprint.
+     *
+     * @param nearDuplicateThreshold A fraction between 0 and 1
+     *
+     * @throws IllegalArgumentException If the threshold is not between 0 and 1
+     */
+    public void setNearDuplicateThreshold(double nearDuplicateThreshold) {
+        if (!(nearDuplicateThreshold >= 0 && nearDuplicateThreshold <= 1)) {
+            throw new IllegalArgumentException("Threshold should be between 0 and 1: " + nearDuplicateThreshold);
+        }
+        this.nearDuplicateThreshold = nearDuplicateThreshold;
+    }
+
 }
@@ -110,7 +110,7 @@ public final class CpdAnalysis implements AutoCloseable {
         }
     }
 
-    private void setLanguageProperties(Language language, CPDConfiguration configuration) {
+    static void setLanguageProperties(Language language, CPDConfiguration configuration) {
         LanguagePropertyBundle props = configuration.getLanguageProperties(language);
 
         setPropertyIfMissing(CpdLanguageProperties.CPD_ANONYMIZE_LITERALS, props, configuration.isIgnoreLiterals());
@@ -151,7 +151,9 @@ public final class CpdAnalysis implements AutoCloseable {
     @SuppressWarnings("PMD.CloseResource")
     public void performAnalysis(Consumer<CPDReport> consumer) {
 
-        try (SourceManager sourceManager = new SourceManager(files.getCollectedFiles())) {
+        long memoryBudget = configuration.getTokenMemoryBudget();
+        try (SourceManager sourceManager = new SourceManager(files.getCollectedFiles());
+             SpilledTokens spilledTokens = memoryBudget > 0 ? SpilledTokens.create() : null) {
             Map<Language, CpdLexer> tokenizers =
                 sourceManager.getTextFiles().stream()
                              .map(it -> it.getLanguageVersion().getLanguage())
@@ -179,6 +181,10 @@ public final class CpdAnalysis implements AutoCloseable {
                     hasErrors = true;
                     savedState.restore(tokens);
                 }
+                if (spilledTokens != null) {
+                    // only the tokens of the current file are kept in memory
+                    spilledTokens.addFile(tokens);
+                }
             }
             if (hasErrors && !configuration.isSkipLexicalErrors()) {
                 // will be caught by CPD command
@@ -186,8 +192,23 @@ public final class CpdAnalysis implements AutoCloseable {
             }
 
             LOGGER.debug("Running match algorithm on {} files...", sourceManager.size());
-            MatchAlgorithm matchAlgorithm = new MatchAlgorithm(tokens, configuration.getMinimumTileSize());
-            List<Match> matches = matchAlgorithm.findMatches(listener, sourceManager);
+            int minTileSize = configuration.getMinimumTileSize();
+            double nearDuplicateThreshold = configuration.getNearDuplicateThreshold();
+            if (spilledTokens != null) {
+                spilledTokens.map();
+            }
+            List<Match> matches;
+            if (nearDuplicateThreshold > 0) {
+                NearDuplicateAlgorithm algorithm = spilledTokens != null
+                    ? new NearDuplicateAlgorithm(spilledTokens, minTileSize, nearDuplicateThreshold)
+                    : new NearDuplicateAlgorithm(tokens, minTileSize, nearDuplicateThreshold);
+                matches = algorithm.findMatches(listener);
+            } else {
+                MatchAlgorithm matchAlgorithm = spilledTokens != null
+                    ? new MatchAlgorithm(spilledTokens, minTileSize, memoryBudget)
+                    : new MatchAlgorithm(tokens, minTileSize);
+                matches = matchAlgorithm.findMatches(listener, sourceManager);
+            }
             tokens = null; // NOPMD null it out before rendering
             LOGGER.debug("Finished: {} duplicates found", matches.size());
 
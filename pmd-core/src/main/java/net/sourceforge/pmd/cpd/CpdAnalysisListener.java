@@ -0,0 +1,188 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.cpd.impl.CpdLexerBase;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * Runs CPD on the files analyzed by PMD, so that both can run together
+ * and each file is only read once. Add this listener to a {@link net.sourceforge.pmd.PmdAnalysis}.
+ *
+ * <p>Files parsed by PMD are tokenized from their AST if the CPD lexer of the
+ * language supports it (see {@link CpdLexerBase#tokenize(RootNode, TokenFactory)}),
+ * so they are not lexed twice. Other files are tokenized from the text read
+ * by PMD. When the listener is closed, at the end of the PMD analysis,
+ * duplicates are searched, and the report is passed to the given consumer.
+ *
+ * <p>Only the files analyzed by PMD are considered, that is, the files
+ * of languages for which there are rules. The text of the files is kept
+ * in memory until the end of the analysis, as PMD closes the files once
+ * they are processed, so the token memory budget of the configuration
+ * is not supported.
+ */
+@Experimental
+public final class CpdAnalysisListener implements GlobalAnalysisListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CpdAnalysisListener.class);
+
+    private final CPDConfiguration configuration;
+    private final Consumer<? super CPDReport> reportConsumer;
+    private final Map<FileId, FileTokens> tokensByFile = new ConcurrentHashMap<>();
+    private boolean closed;
+
+    /**
+     * Create a new listener.
+     *
+     * @param configuration  CPD configuration. Only the options that affect
+     *                       tokenization and the match algorithm are used,
+     *                       the files are those analyzed by PMD.
+     * @param reportConsumer Receives the CPD report at the end of the analysis
+     */
+    public CpdAnalysisListener(CPDConfiguration configuration, Consumer<? super CPDReport> reportConsumer) {
+        this.configuration = configuration;
+        this.reportConsumer = reportConsumer;
+        for (Language language : configuration.getLanguageRegistry()) {
+            CpdAnalysis.setLanguageProperties(language, configuration);
+        }
+    }
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        return new FileListener(file);
+    }
+
+    @Override
+    public void close() throws Exception {
+        // PmdAnalysis closes its listeners again when it is closed
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        List<FileTokens> files = new ArrayList<>(tokensByFile.values());
+        files.sort(Comparator.comparing(f -> f.document.getFileId().getAbsolutePath()));
+
+        Tokens tokens = new Tokens();
+        Map<FileId, Integer> numberOfTokensPerFile = new HashMap<>();
+        List<TextDocument> documents = new ArrayList<>(files.size());
+        for (FileTokens file : files) {
+            tokens.addAll(file.tokens);
+            numberOfTokensPerFile.put(file.document.getFileId(), file.tokens.size() - 1 /* EOF */);
+            documents.add(file.document);
+        }
+        tokensByFile.clear();
+
+        LOGGER.debug("Running match algorithm on {} files...", documents.size());
+        try (SourceManager sourceManager = SourceManager.forDocuments(documents)) {
+            int minTileSize = configuration.getMinimumTileSize();
+            double nearDuplicateThreshold = configuration.getNearDuplicateThreshold();
+            List<Match> matches;
+            if (nearDuplicateThreshold > 0) {
+                matches = new NearDuplicateAlgorithm(tokens, minTileSize, nearDuplicateThreshold)
+                    .findMatches(new CPDNullListener());
+            } else {
+                matches = new MatchAlgorithm(tokens, minTileSize).findMatches(new CPDNullListener(), sourceManager);
+            }
+            tokens = null; // NOPMD null it out before rendering
+            LOGGER.debug("Finished: {} duplicates found", matches.size());
+
+            reportConsumer.accept(new CPDReport(sourceManager, matches, numberOfTokensPerFile));
+        }
+    }
+
+    private void tokenize(TextDocument document, @Nullable RootNode rootNode) {
+        Language language = document.getLanguageVersion().getLanguage();
+        if (!(language instanceof CpdCapableLanguage)) {
+            return;
+        }
+        CpdLexer cpdLexer = ((CpdCapableLanguage) language).createCpdLexer(configuration.getLanguageProperties(language));
+        Tokens tokens = new Tokens();
+        try (TokenFactory tf = Tokens.factoryForFile(document, tokens)) {
+            boolean reused = rootNode != null
+                && cpdLexer instanceof CpdLexerBase
+                && ((CpdLexerBase<?>) cpdLexer).tokenize(rootNode, tf);
+            if (!reused) {
+                LOGGER.trace("Tokenizing {}", document.getFileId().getAbsolutePath());
+                cpdLexer.tokenize(document, tf);
+            }
+        } catch (IOException | RuntimeException e) {
+            configuration.getReporter().errorEx("Skipping file " + document.getFileId().getAbsolutePath() + " for CPD", e);
+            return;
+        }
+        tokensByFile.put(document.getFileId(), new FileTokens(document, tokens));
+    }
+
+    private final class FileListener implements FileAnalysisListener {
+
+        private final TextFile file;
+        private boolean tokenized;
+
+        FileListener(TextFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public void onRuleViolation(RuleViolation violation) {
+            // do nothing
+        }
+
+        @Override
+        public void onDocumentAnalyzed(TextDocument document, @Nullable RootNode rootNode) {
+            tokenize(document, rootNode);
+            tokenized = true;
+        }
+
+        @Override
+        @SuppressWarnings("PMD.CloseResource")
+        public void close() {
+            if (!tokenized) {
+                // No rule applies to the file, so PMD did not read it.
+                // The document is not closed, because that would close
+                // the file, which is closed by the file collector instead.
+                TextDocument document;
+                try {
+                    document = TextDocument.create(file);
+                } catch (IOException e) {
+                    configuration.getReporter().errorEx("Skipping file " + file.getFileId().getAbsolutePath() + " for CPD", e);
+                    return;
+                }
+                tokenize(document, null);
+            }
+        }
+    }
+
+    private static final class FileTokens {
+
+        final TextDocument document;
+        final Tokens tokens;
+
+        FileTokens(TextDocument document, Tokens tokens) {
+            this.document = document;
+            this.tokens = tokens;
+        }
+    }
+}
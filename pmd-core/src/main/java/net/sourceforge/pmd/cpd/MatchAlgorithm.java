@@ -4,36 +4,65 @@
 
 package net.sourceforge.pmd.cpd;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 class MatchAlgorithm {
 
     private static final int MOD = 37;
     private int lastMod = 1;
 
-    private final Tokens tokens;
-    private final List<TokenEntry> code;
+    private final int numTokens;
+    private final IntUnaryOperator identifiers;
+    private final IntFunction<TokenEntry> entries;
     private final int minTileSize;
+    private final @Nullable SpilledTokens spilledTokens;
+    private final long memoryBudget;
 
     MatchAlgorithm(Tokens tokens, int minTileSize) {
-        this.tokens = tokens;
-        this.code = tokens.getTokens();
+        this(tokens.size(), i -> tokens.getTokens().get(i).getIdentifier(), tokens.getTokens()::get, minTileSize, null, 0);
+    }
+
+    /**
+     * Create an algorithm that works on tokens stored on disk. Tokens
+     * are grouped by hash in partitions, so that only about the given
+     * number of bytes of heap are used at a time.
+     */
+    MatchAlgorithm(SpilledTokens tokens, int minTileSize, long memoryBudget) {
+        this(tokens.size(), tokens::getIdentifier, tokens::getEntry, minTileSize, tokens, memoryBudget);
+    }
+
+    private MatchAlgorithm(int numTokens, IntUnaryOperator identifiers, IntFunction<TokenEntry> entries, int minTileSize,
+                           @Nullable SpilledTokens spilledTokens, long memoryBudget) {
+        this.numTokens = numTokens;
+        this.identifiers = identifiers;
+        this.entries = entries;
         this.minTileSize = minTileSize;
+        this.spilledTokens = spilledTokens;
+        this.memoryBudget = memoryBudget;
         for (int i = 0; i < minTileSize; i++) {
             lastMod *= MOD;
         }
     }
 
 
-    public TokenEntry tokenAt(int offset, TokenEntry m) {
-        return code.get(offset + m.getIndex());
+    /**
+     * Returns the identifier of the token at the given offset from the
+     * mark, or 0 if that is an EOF token.
+     */
+    int identifierAt(int offset, TokenEntry m) {
+        return identifiers.applyAsInt(offset + m.getIndex());
     }
 
     public int getMinimumTileSize() {
@@ -42,8 +71,8 @@ class MatchAlgorithm {
 
     public List<Match> findMatches(@NonNull CPDListener cpdListener, SourceManager sourceManager) {
         MatchCollector matchCollector = new MatchCollector(this);
-        {
-            cpdListener.phaseUpdate(CPDListener.HASH);
+        cpdListener.phaseUpdate(CPDListener.HASH);
+        if (spilledTokens == null) {
             Map<TokenEntry, Object> markGroups = hash();
 
             cpdListener.phaseUpdate(CPDListener.MATCH);
@@ -57,6 +86,8 @@ class MatchAlgorithm {
                           matchCollector.collect(l);
                       });
             // put markGroups out of scope
+        } else {
+            hashInPartitions(cpdListener, matchCollector);
         }
 
         cpdListener.phaseUpdate(CPDListener.GROUPING);
@@ -66,7 +97,7 @@ class MatchAlgorithm {
         for (Match match : matches) {
             for (Mark mark : match) {
                 TokenEntry token = mark.getToken();
-                TokenEntry endToken = tokens.getEndToken(token, match);
+                TokenEntry endToken = entries.apply(token.getIndex() + match.getTokenCount() - 1);
 
                 mark.setEndToken(endToken);
             }
@@ -75,44 +106,85 @@ class MatchAlgorithm {
         return matches;
     }
 
-    @SuppressWarnings("PMD.JumbledIncrementer")
     private Map<TokenEntry, Object> hash() {
-        int lastHash = 0;
-        Map<TokenEntry, Object> markGroups = new HashMap<>(tokens.size());
-        for (int i = code.size() - 1; i >= 0; i--) {
-            TokenEntry token = code.get(i);
-            if (!token.isEof()) {
-                int last = tokenAt(minTileSize, token).getIdentifier();
-                lastHash = MOD * lastHash + token.getIdentifier() - lastMod * last;
-                token.setHashCode(lastHash);
-                Object o = markGroups.get(token);
-
-                // Note that this insertion method is worthwhile since the vast
-                // majority
-                // markGroup keys will have only one value.
-                if (o == null) {
-                    markGroups.put(token, token);
-                } else if (o instanceof TokenEntry) {
-                    List<TokenEntry> l = new ArrayList<>();
-                    l.add((TokenEntry) o);
-                    l.add(token);
-                    markGroups.put(token, l);
-                } else {
-                    @SuppressWarnings("unchecked")
-                    List<TokenEntry> l = (List<TokenEntry>) o;
-                    l.add(token);
+        Map<TokenEntry, Object> markGroups = new HashMap<>(numTokens);
+        computeHashes((hash, i) -> {
+            TokenEntry token = entries.apply(i);
+            token.setHashCode(hash);
+            Object o = markGroups.get(token);
+
+            // Note that this insertion method is worthwhile since the vast
+            // majority
+            // markGroup keys will have only one value.
+            if (o == null) {
+                markGroups.put(token, token);
+            } else if (o instanceof TokenEntry) {
+                List<TokenEntry> l = new ArrayList<>();
+                l.add((TokenEntry) o);
+                l.add(token);
+                markGroups.put(token, l);
+            } else {
+                @SuppressWarnings("unchecked")
+                List<TokenEntry> l = (List<TokenEntry>) o;
+                l.add(token);
+            }
+        });
+        return markGroups;
+    }
+
+    /**
+     * Groups tokens by hash without keeping all hashes in memory. The
+     * hashes are written to partition files, and each partition is then
+     * sorted to find groups of tokens with the same hash. Token entries
+     * are only created for the tokens of these groups.
+     */
+    private void hashInPartitions(CPDListener cpdListener, MatchCollector matchCollector) {
+        try (SpilledTokens.HashPartitions partitions = spilledTokens.newHashPartitions(numTokens, memoryBudget)) {
+            computeHashes(partitions::add);
+
+            cpdListener.phaseUpdate(CPDListener.MATCH);
+            partitions.forEachGroup(group -> {
+                List<TokenEntry> marks = new ArrayList<>(group.length);
+                for (int i : group) {
+                    TokenEntry token = entries.apply(i);
+                    marks.add(token);
                 }
+                matchCollector.collect(marks);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Computes the hash of the tile that starts at each token that is
+     * not EOF, from the last token to the first.
+     */
+    @SuppressWarnings("PMD.JumbledIncrementer")
+    private void computeHashes(HashSink sink) {
+        int lastHash = 0;
+        for (int i = numTokens - 1; i >= 0; i--) {
+            int identifier = identifiers.applyAsInt(i);
+            if (identifier != 0) {
+                int last = identifiers.applyAsInt(i + minTileSize);
+                lastHash = MOD * lastHash + identifier - lastMod * last;
+                sink.add(lastHash, i);
             } else {
                 lastHash = 0;
                 for (int end = Math.max(0, i - minTileSize + 1); i > end; i--) {
-                    token = code.get(i - 1);
-                    lastHash = MOD * lastHash + token.getIdentifier();
-                    if (token.isEof()) {
+                    identifier = identifiers.applyAsInt(i - 1);
+                    lastHash = MOD * lastHash + identifier;
+                    if (identifier == 0) {
                         break;
                     }
                 }
             }
         }
-        return markGroups;
+    }
+
+    @FunctionalInterface
+    private interface HashSink {
+
+        void add(int hash, int tokenIndex);
     }
 }
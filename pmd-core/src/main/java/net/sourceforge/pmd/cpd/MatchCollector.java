@@ -82,20 +82,21 @@ class MatchCollector {
     }
 
     private boolean hasPreviousDupe(TokenEntry mark1, TokenEntry mark2) {
-        return mark1.getIndex() != 0 && !matchEnded(ma.tokenAt(-1, mark1), ma.tokenAt(-1, mark2));
+        return mark1.getIndex() != 0 && !matchEnded(ma.identifierAt(-1, mark1), ma.identifierAt(-1, mark2));
     }
 
     private int countDuplicateTokens(TokenEntry mark1, TokenEntry mark2) {
         int index = 0;
-        while (!matchEnded(ma.tokenAt(index, mark1), ma.tokenAt(index, mark2))) {
+        while (!matchEnded(ma.identifierAt(index, mark1), ma.identifierAt(index, mark2))) {
             index++;
         }
         return index;
     }
 
-    private boolean matchEnded(TokenEntry token1, TokenEntry token2) {
-        return token1.getIdentifier() != token2.getIdentifier()
-                || token1.isEof()
-                || token2.isEof();
+    private boolean matchEnded(int identifier1, int identifier2) {
+        // the identifier of EOF tokens is 0
+        return identifier1 != identifier2
+                || identifier1 == 0
+                || identifier2 == 0;
     }
 }
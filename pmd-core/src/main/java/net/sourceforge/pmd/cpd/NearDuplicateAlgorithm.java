@@ -0,0 +1,260 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Finds pairs of files that are near-duplicates, ie share most of their
+ * code, but maybe not a long enough sequence of identical tokens to be
+ * found by the {@link MatchAlgorithm}. This uses winnowing, as described
+ * in <a href="https://theory.stanford.edu/~aiken/publications/papers/sigmod03.pdf">Winnowing:
+ * Local Algorithms for Document Fingerprinting</a> (Schleimer, Wilkerson, Aiken).
+ *
+ * <p>The fingerprints of a file are a subset of the hashes of its k-grams
+ * of tokens, selected so that any sequence of identical tokens that is
+ * at least as long as the minimum tile size yields a common fingerprint.
+ * Fingerprints are indexed by file, and two files are reported as
+ * a match if the number of their common fingerprints, relative to the
+ * number of fingerprints of the smaller file, reaches the threshold.
+ * The marks of a match span the common fingerprints in each file, and
+ * its token count is the number of tokens covered by the k-grams of the
+ * common fingerprints in the file where it is the smallest, which may
+ * be much less than the length of the marks.
+ */
+class NearDuplicateAlgorithm {
+
+    private static final int MOD = 37;
+    /** Maximum size of k-grams. */
+    private static final int MAX_K = 12;
+    /**
+     * Fingerprints that occur in more files than this are ignored, as they
+     * are very likely to be boilerplate. This also bounds the cost of
+     * finding candidate pairs of files.
+     */
+    private static final int MAX_FILES_PER_FINGERPRINT = 1000;
+
+    private final int numTokens;
+    private final IntUnaryOperator identifiers;
+    private final IntFunction<TokenEntry> entries;
+    private final int k;
+    private final int window;
+    private final double threshold;
+
+    NearDuplicateAlgorithm(Tokens tokens, int minTileSize, double threshold) {
+        this(tokens.size(), i -> tokens.getTokens().get(i).getIdentifier(), tokens.getTokens()::get, minTileSize, threshold);
+    }
+
+    NearDuplicateAlgorithm(SpilledTokens tokens, int minTileSize, double threshold) {
+        this(tokens.size(), tokens::getIdentifier, tokens::getEntry, minTileSize, threshold);
+    }
+
+    private NearDuplicateAlgorithm(int numTokens, IntUnaryOperator identifiers, IntFunction<TokenEntry> entries,
+                                   int minTileSize, double threshold) {
+        this.numTokens = numTokens;
+        this.identifiers = identifiers;
+        this.entries = entries;
+        this.k = Math.max(1, Math.min(minTileSize, MAX_K));
+        // any match of minTileSize tokens contains a whole window of k-grams
+        this.window = Math.max(1, minTileSize - k + 1);
+        this.threshold = threshold;
+    }
+
+    public List<Match> findMatches(@NonNull CPDListener cpdListener) {
+        cpdListener.phaseUpdate(CPDListener.HASH);
+        List<Fingerprints> files = fingerprintFiles();
+
+        cpdListener.phaseUpdate(CPDListener.MATCH);
+        List<Match> matches = new ArrayList<>();
+        Map<Integer, List<Fingerprints>> index = new HashMap<>();
+        for (Fingerprints file : files) {
+            Map<Fingerprints, Integer> sharedCounts = new HashMap<>();
+            for (int hash : file.distinctHashes) {
+                List<Fingerprints> postings = index.computeIfAbsent(hash, h -> new ArrayList<>());
+                if (postings.size() < MAX_FILES_PER_FINGERPRINT) {
+                    for (Fingerprints other : postings) {
+                        sharedCounts.merge(other, 1, Integer::sum);
+                    }
+                    postings.add(file);
+                }
+            }
+            sharedCounts.forEach((other, shared) -> {
+                int smaller = Math.min(file.distinctHashes.length, other.distinctHashes.length);
+                if (shared >= threshold * smaller) {
+                    matches.add(makeMatch(other, file));
+                }
+            });
+        }
+
+        cpdListener.phaseUpdate(CPDListener.GROUPING);
+        matches.sort(Comparator.naturalOrder());
+        cpdListener.phaseUpdate(CPDListener.DONE);
+        return matches;
+    }
+
+    private Match makeMatch(Fingerprints file1, Fingerprints file2) {
+        int[] shared = intersection(file1.distinctHashes, file2.distinctHashes);
+        Mark mark1 = file1.markSpanning(shared);
+        Mark mark2 = file2.markSpanning(shared);
+        int tokenCount = Math.min(file1.countCoveredTokens(shared), file2.countCoveredTokens(shared));
+        return new Match(tokenCount, mark1, mark2);
+    }
+
+    private static int[] intersection(int[] sorted1, int[] sorted2) {
+        int[] result = new int[Math.min(sorted1.length, sorted2.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < sorted1.length && j < sorted2.length) {
+            if (sorted1[i] < sorted2[j]) {
+                i++;
+            } else if (sorted1[i] > sorted2[j]) {
+                j++;
+            } else {
+                result[size++] = sorted1[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Splits the tokens into files, which end with an EOF token, and
+     * computes the fingerprints of each file.
+     */
+    private List<Fingerprints> fingerprintFiles() {
+        List<Fingerprints> files = new ArrayList<>();
+        int fileStart = 0;
+        for (int i = 0; i < numTokens; i++) {
+            if (identifiers.applyAsInt(i) == 0) {
+                if (i - fileStart >= k) {
+                    files.add(winnow(fileStart, i));
+                }
+                fileStart = i + 1;
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Selects the fingerprints of the tokens between the given indices,
+     * with robust winnowing: in each window of consecutive k-gram hashes,
+     * the minimum hash is selected, the rightmost one if there are
+     * several, unless the hash at that position was already selected.
+     */
+    private Fingerprints winnow(int start, int end) {
+        int numGrams = end - start - k + 1;
+        int[] gramHashes = new int[numGrams];
+        int lastMod = 1;
+        for (int i = 0; i < k; i++) {
+            lastMod *= MOD;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = MOD * hash + identifiers.applyAsInt(i);
+            if (i - start >= k) {
+                hash -= lastMod * identifiers.applyAsInt(i - k);
+            }
+            if (i - start >= k - 1) {
+                gramHashes[i - start - k + 1] = hash;
+            }
+        }
+
+        int[] hashes = new int[numGrams];
+        int[] positions = new int[numGrams];
+        int count = 0;
+        int selected = -1;
+        int w = Math.min(window, numGrams);
+        // indices of increasing hashes, the first is the minimum of the window
+        int[] deque = new int[numGrams];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < numGrams; i++) {
+            while (tail > head && gramHashes[deque[tail - 1]] >= gramHashes[i]) {
+                tail--;
+            }
+            deque[tail++] = i;
+            if (deque[head] <= i - w) {
+                head++;
+            }
+            if (i >= w - 1 && deque[head] != selected) {
+                selected = deque[head];
+                hashes[count] = gramHashes[selected];
+                positions[count] = start + selected;
+                count++;
+            }
+        }
+        return new Fingerprints(Arrays.copyOf(hashes, count), Arrays.copyOf(positions, count));
+    }
+
+    private final class Fingerprints {
+
+        /** Fingerprints in the order of the file. */
+        private final int[] hashes;
+        /** Index of the first token of the k-gram of each fingerprint. */
+        private final int[] positions;
+        private final int[] distinctHashes;
+
+        Fingerprints(int[] hashes, int[] positions) {
+            this.hashes = hashes;
+            this.positions = positions;
+            this.distinctHashes = Arrays.stream(hashes).sorted().distinct().toArray();
+        }
+
+        /**
+         * Returns a mark that spans all the k-grams of this file whose
+         * hash is one of the given sorted hashes.
+         */
+        Mark markSpanning(int[] sortedHashes) {
+            int first = Integer.MAX_VALUE;
+            int last = -1;
+            for (int i = 0; i < hashes.length; i++) {
+                if (Arrays.binarySearch(sortedHashes, hashes[i]) >= 0) {
+                    first = Math.min(first, positions[i]);
+                    last = Math.max(last, positions[i]);
+                }
+            }
+            Mark mark = new Mark(entries.apply(first));
+            mark.setEndToken(entries.apply(last + k - 1));
+            return mark;
+        }
+
+        /**
+         * Returns the number of tokens of this file that are covered by
+         * the k-grams whose hash is one of the given sorted hashes. As
+         * winnowing selects a fingerprint in every window of k-grams, the
+         * tokens between two of these k-grams that are at most a window
+         * apart are considered covered too.
+         */
+        int countCoveredTokens(int[] sortedHashes) {
+            int count = 0;
+            int last = -1;
+            int coveredEnd = -1;
+            for (int i = 0; i < hashes.length; i++) {
+                if (Arrays.binarySearch(sortedHashes, hashes[i]) >= 0) {
+                    int start = positions[i];
+                    if (last >= 0 && start - last <= window) {
+                        start = last;
+                    }
+                    int end = positions[i] + k;
+                    count += end - Math.max(start, coveredEnd);
+                    coveredEnd = end;
+                    last = positions[i];
+                }
+            }
+            return count;
+        }
+    }
+}
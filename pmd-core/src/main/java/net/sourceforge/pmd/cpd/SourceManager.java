@@ -8,6 +8,8 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,9 +35,27 @@ class SourceManager implements AutoCloseable {
     private final List<TextFile> textFiles;
     private FileNameRenderer fileNameRenderer = FileId::getAbsolutePath;
 
+    // Documents whose file is already closed, which cannot be loaded again
+    private final Map<FileId, TextDocument> pinnedDocuments;
+
     SourceManager(List<? extends TextFile> files) {
+        this(files, Collections.emptyMap());
+    }
+
+    private SourceManager(List<? extends TextFile> files, Map<FileId, TextDocument> pinnedDocuments) {
         textFiles = new ArrayList<>(files);
         files.forEach(f -> fileByPathId.put(f.getFileId(), f));
+        this.pinnedDocuments = pinnedDocuments;
+    }
+
+    /**
+     * Returns a source manager for documents that were already read,
+     * and whose file may be closed. The documents are kept in memory.
+     */
+    static SourceManager forDocuments(Collection<TextDocument> documents) {
+        Map<FileId, TextDocument> byId = new HashMap<>();
+        documents.forEach(doc -> byId.put(doc.getFileId(), doc));
+        return new SourceManager(Collections.emptyList(), byId);
     }
 
 
@@ -63,7 +83,7 @@ class SourceManager implements AutoCloseable {
     }
 
     public int size() {
-        return files.size();
+        return files.size() + pinnedDocuments.size();
     }
 
 
@@ -77,10 +97,13 @@ class SourceManager implements AutoCloseable {
 
     @SuppressWarnings("PMD.CloseResource")
     public Chars getSlice(Mark mark) {
-        TextFile textFile = fileByPathId.get(mark.getToken().getFileId());
-        assert textFile != null : "No such file " + mark.getToken().getFileId();
-        TextDocument doc = get(textFile);
-        assert doc != null;
+        TextDocument doc = pinnedDocuments.get(mark.getToken().getFileId());
+        if (doc == null) {
+            TextFile textFile = fileByPathId.get(mark.getToken().getFileId());
+            assert textFile != null : "No such file " + mark.getToken().getFileId();
+            doc = get(textFile);
+            assert doc != null;
+        }
         FileLocation loc = mark.getLocation();
         TextRegion lineRange = doc.createLineRange(loc.getStartLine(), loc.getEndLine());
         return doc.sliceOriginalText(lineRange);
@@ -0,0 +1,369 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import net.sourceforge.pmd.lang.document.FileId;
+
+/**
+ * Stores the tokens of a CPD run in temporary files instead of the heap.
+ * Tokens are appended file by file while lexing, then the files are
+ * memory-mapped for the match algorithm, which only materializes
+ * {@link TokenEntry} instances for the tokens it reports.
+ *
+ * <p>Identifiers and coordinates are stored in separate files, as the
+ * match algorithm mostly reads identifiers.
+ */
+final class SpilledTokens implements Closeable {
+
+    /** Number of ints in a mapped segment. */
+    private static final int SEGMENT_INTS = 1 << 26;
+    /** Number of ints stored for the coordinates of a token. */
+    private static final int COORDS = 5;
+    private static final int WRITE_BUFFER_INTS = 1 << 14;
+
+    private final Path directory;
+    private final FileChannel identifiers;
+    private final FileChannel coordinates;
+    private final ByteBuffer identifierBuffer = ByteBuffer.allocate(WRITE_BUFFER_INTS * Integer.BYTES);
+    private final ByteBuffer coordinateBuffer = ByteBuffer.allocate(WRITE_BUFFER_INTS * COORDS * Integer.BYTES);
+    private final List<FileId> fileIds = new ArrayList<>();
+    private int size;
+
+    private IntBuffer[] identifierSegments;
+    private IntBuffer[] coordinateSegments;
+
+    private SpilledTokens(Path directory) throws IOException {
+        this.directory = directory;
+        this.identifiers = FileChannel.open(directory.resolve("identifiers"), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.coordinates = FileChannel.open(directory.resolve("coordinates"), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Create a new instance, whose files are placed in a new temporary
+     * directory. The directory is deleted by {@link #close()}.
+     */
+    static SpilledTokens create() throws IOException {
+        return new SpilledTokens(Files.createTempDirectory("pmd-cpd-"));
+    }
+
+    /**
+     * Moves the tokens of a file from the given token collector to
+     * the files. The collector is left empty, but keeps its images.
+     */
+    void addFile(Tokens tokens) throws IOException {
+        assert identifierSegments == null : "Tokens have already been mapped";
+        List<TokenEntry> entries = tokens.getTokens();
+        if (entries.isEmpty()) {
+            return;
+        }
+        int fileIndex = fileIds.size();
+        fileIds.add(entries.get(0).getFileId());
+        for (TokenEntry entry : entries) {
+            if (!identifierBuffer.hasRemaining()) {
+                flush();
+            }
+            identifierBuffer.putInt(entry.getIdentifier());
+            coordinateBuffer.putInt(fileIndex)
+                            .putInt(entry.getBeginLine())
+                            .putInt(entry.getBeginColumn())
+                            .putInt(entry.getEndLine())
+                            .putInt(entry.getEndColumn());
+        }
+        size += entries.size();
+        entries.clear();
+    }
+
+    private void flush() throws IOException {
+        writeFully(identifiers, identifierBuffer);
+        writeFully(coordinates, coordinateBuffer);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Finishes writing and maps the files into memory. No more tokens
+     * may be added after this.
+     */
+    void map() throws IOException {
+        flush();
+        identifierSegments = mapSegments(identifiers, size);
+        coordinateSegments = mapSegments(coordinates, (long) size * COORDS);
+    }
+
+    private static IntBuffer[] mapSegments(FileChannel channel, long numInts) throws IOException {
+        int numSegments = (int) ((numInts + SEGMENT_INTS - 1) / SEGMENT_INTS);
+        IntBuffer[] segments = new IntBuffer[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            long start = (long) i * SEGMENT_INTS;
+            long length = Math.min(SEGMENT_INTS, numInts - start);
+            MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, start * Integer.BYTES, length * Integer.BYTES);
+            segments[i] = mapped.asIntBuffer();
+        }
+        return segments;
+    }
+
+    private static int intAt(IntBuffer[] segments, long index) {
+        return segments[(int) (index / SEGMENT_INTS)].get((int) (index % SEGMENT_INTS));
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getIdentifier(int index) {
+        return intAt(identifierSegments, index);
+    }
+
+    /**
+     * Returns a new token entry for the token at the given index.
+     */
+    TokenEntry getEntry(int index) {
+        long base = (long) index * COORDS;
+        FileId fileId = fileIds.get(intAt(coordinateSegments, base));
+        int beginLine = intAt(coordinateSegments, base + 1);
+        int beginColumn = intAt(coordinateSegments, base + 2);
+        int endLine = intAt(coordinateSegments, base + 3);
+        int endColumn = intAt(coordinateSegments, base + 4);
+        int identifier = getIdentifier(index);
+        if (identifier == 0) {
+            return new TokenEntry(fileId, beginLine, beginColumn);
+        }
+        return new TokenEntry(identifier, fileId, beginLine, beginColumn, endLine, endColumn, index);
+    }
+
+    /**
+     * Creates a new sink for the hashes of the tokens, which groups them
+     * in partitions that take at most about the given number of bytes
+     * of heap each.
+     *
+     * @param numHashes   Upper bound of the number of hashes that will be added
+     * @param memoryBudget Memory budget in bytes
+     */
+    HashPartitions newHashPartitions(int numHashes, long memoryBudget) throws IOException {
+        return new HashPartitions(Files.createTempDirectory(directory, "hashes"), numHashes, memoryBudget);
+    }
+
+    @Override
+    public void close() throws IOException {
+        identifierSegments = null;
+        coordinateSegments = null;
+        try {
+            identifiers.close();
+            coordinates.close();
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // may happen on Windows while the file is still mapped
+                    file.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the indices of tokens by the hash of the tile that starts
+     * at the token. Pairs of hash and index are written to partition files
+     * by hash, so that each partition can then be sorted in memory.
+     *
+     * <p>At most {@link #MAX_OPEN_PARTITIONS} partition files are written
+     * at the same time. Partitions that are still larger than the memory
+     * budget are split again by the next bits of the hash before they
+     * are sorted.
+     */
+    static final class HashPartitions implements Closeable {
+
+        static final int MAX_OPEN_PARTITIONS = 64;
+        /** Partitions are not split below this size, as sorting them is cheap. */
+        private static final long MIN_PARTITION_BYTES = 1 << 16;
+        private static final int MIN_BUFFER_SIZE = 1 << 9;
+        private static final int MAX_BUFFER_SIZE = 1 << 13;
+
+        private final Path directory;
+        private final long memoryBudget;
+        private final int bufferSize;
+        private final Partitioning first;
+        private int numFiles;
+
+        private HashPartitions(Path directory, int numHashes, long memoryBudget) throws IOException {
+            this.directory = directory;
+            this.memoryBudget = Math.max(MIN_PARTITION_BYTES, memoryBudget);
+            this.bufferSize = (int) Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, memoryBudget / MAX_OPEN_PARTITIONS));
+            this.first = new Partitioning(numHashes, 0);
+        }
+
+        /** Returns the directory of the partition files, for tests. */
+        Path getDirectory() {
+            return directory;
+        }
+
+        void add(int hash, int index) {
+            try {
+                first.add((long) hash << 32 | index);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Calls the action on each group of at least two token indices
+         * that have the same hash. Indices are sorted in each group.
+         */
+        void forEachGroup(Consumer<int[]> action) throws IOException {
+            first.finish();
+            for (int p = 0; p < first.files.length; p++) {
+                processPartition(first, p, action);
+            }
+        }
+
+        private void processPartition(Partitioning partitioning, int p, Consumer<int[]> action) throws IOException {
+            Path file = partitioning.files[p];
+            int size = partitioning.sizes[p];
+            int shift = partitioning.shift + Integer.numberOfTrailingZeros(partitioning.files.length);
+            if ((long) size * Long.BYTES > memoryBudget && shift < Integer.SIZE) {
+                try (Partitioning split = new Partitioning(size, shift)) {
+                    try (DataInputStream input = openPartition(file)) {
+                        for (int i = 0; i < size; i++) {
+                            split.add(input.readLong());
+                        }
+                    }
+                    Files.delete(file);
+                    split.finish();
+                    for (int q = 0; q < split.files.length; q++) {
+                        processPartition(split, q, action);
+                    }
+                }
+                return;
+            }
+
+            long[] entries = new long[size];
+            try (DataInputStream input = openPartition(file)) {
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i] = input.readLong();
+                }
+            }
+            Files.delete(file);
+            Arrays.sort(entries);
+
+            int groupStart = 0;
+            for (int i = 1; i <= entries.length; i++) {
+                if (i == entries.length || entries[i] >>> 32 != entries[groupStart] >>> 32) {
+                    if (i - groupStart > 1) {
+                        int[] group = new int[i - groupStart];
+                        for (int j = 0; j < group.length; j++) {
+                            group[j] = (int) entries[groupStart + j];
+                        }
+                        action.accept(group);
+                    }
+                    groupStart = i;
+                }
+            }
+        }
+
+        private DataInputStream openPartition(Path file) throws IOException {
+            return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), bufferSize));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                first.close();
+            } finally {
+                deleteRecursively(directory);
+            }
+        }
+
+        /**
+         * One pass of partitioning, which splits entries by the bits of
+         * their hash that start at the given shift.
+         */
+        private final class Partitioning implements Closeable {
+
+            private final int shift;
+            private final Path[] files;
+            private final DataOutputStream[] outputs;
+            private final int[] sizes;
+
+            Partitioning(int numEntries, int shift) throws IOException {
+                long bytes = (long) numEntries * Long.BYTES;
+                int numPartitions = 1;
+                while (numPartitions < MAX_OPEN_PARTITIONS && bytes / numPartitions > memoryBudget) {
+                    numPartitions <<= 1;
+                }
+                this.shift = shift;
+                this.files = new Path[numPartitions];
+                this.outputs = new DataOutputStream[numPartitions];
+                this.sizes = new int[numPartitions];
+                try {
+                    for (int i = 0; i < numPartitions; i++) {
+                        files[i] = directory.resolve(Integer.toString(numFiles++));
+                        outputs[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[i]), bufferSize));
+                    }
+                } catch (IOException e) {
+                    close();
+                    throw e;
+                }
+            }
+
+            void add(long entry) throws IOException {
+                int hash = (int) (entry >>> 32);
+                // hashes that only differ in their high bits still end up in different partitions
+                int partition = (hash ^ hash >>> 16) >>> shift & (outputs.length - 1);
+                outputs[partition].writeLong(entry);
+                sizes[partition]++;
+            }
+
+            void finish() throws IOException {
+                for (DataOutputStream output : outputs) {
+                    output.close();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                for (DataOutputStream output : outputs) {
+                    if (output != null) {
+                        output.close();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -73,10 +73,6 @@ public class Tokens {
         return tokens.size();
     }
 
-    TokenEntry getEndToken(TokenEntry mark, Match match) {
-        return getToken(mark.getIndex() + match.getTokenCount() - 1);
-    }
-
     public List<TokenEntry> getTokens() {
         return tokens;
     }
@@ -87,6 +83,26 @@ public class Tokens {
         return newToken;
     }
 
+    /**
+     * Append the tokens of another instance, which were usually recorded
+     * for a single file, possibly in another thread. The identifiers of
+     * the images are translated to those of this instance.
+     *
+     * @param other Tokens to copy
+     */
+    void addAll(Tokens other) {
+        String[] imagesById = new String[other.curImageId];
+        other.images.forEach((image, id) -> imagesById[id] = image);
+        for (TokenEntry entry : other.tokens) {
+            if (entry.isEof()) {
+                addEof(entry.getFileId(), entry.getBeginLine(), entry.getBeginColumn());
+            } else {
+                addToken(imagesById[entry.getIdentifier()], entry.getFileId(),
+                         entry.getBeginLine(), entry.getBeginColumn(), entry.getEndLine(), entry.getEndColumn());
+            }
+        }
+    }
+
     State savePoint() {
         return new State(this);
     }
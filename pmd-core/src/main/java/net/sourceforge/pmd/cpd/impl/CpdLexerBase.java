@@ -6,10 +6,14 @@ package net.sourceforge.pmd.cpd.impl;
 
 import java.io.IOException;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.cpd.CpdLexer;
 import net.sourceforge.pmd.cpd.TokenFactory;
 import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.GenericToken;
+import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.document.TextDocument;
 
 /**
@@ -31,9 +35,46 @@ public abstract class CpdLexerBase<T extends GenericToken<T>> implements CpdLexe
         return token.getImage();
     }
 
+    /**
+     * Returns the tokens of a file that was already parsed by the PMD
+     * parser of the language, if they are the same as the tokens produced
+     * by {@link #makeLexerImpl(TextDocument)}. When CPD runs alongside
+     * PMD, this avoids lexing the file twice. By default this returns
+     * null, in which case the file is lexed again.
+     *
+     * @param root Root of the AST of the file
+     */
+    protected @Nullable TokenManager<T> tokensOfParsedFile(RootNode root) {
+        return null;
+    }
+
+    /**
+     * Tokenize a file that was already parsed by the PMD parser of the
+     * language, reusing the tokens of the AST if possible. If this returns
+     * false, then no token was recorded, and the file must be tokenized
+     * with {@link #tokenize(TextDocument, TokenFactory)}.
+     *
+     * @param root   Root of the AST of the file
+     * @param tokens Token factory
+     *
+     * @return True if the tokens of the AST could be used
+     */
+    @Experimental
+    public final boolean tokenize(RootNode root, TokenFactory tokens) {
+        TokenManager<T> parsedTokens = tokensOfParsedFile(root);
+        if (parsedTokens == null) {
+            return false;
+        }
+        tokenize(filterTokenStream(parsedTokens), tokens);
+        return true;
+    }
+
     @Override
     public final void tokenize(TextDocument document, TokenFactory tokens) throws IOException {
-        TokenManager<T> tokenManager = filterTokenStream(makeLexerImpl(document));
+        tokenize(filterTokenStream(makeLexerImpl(document)), tokens);
+    }
+
+    private void tokenize(TokenManager<T> tokenManager, TokenFactory tokens) {
         T currentToken = tokenManager.getNextToken();
         while (currentToken != null) {
             processToken(tokens, currentToken);
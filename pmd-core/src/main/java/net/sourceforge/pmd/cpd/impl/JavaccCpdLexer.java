@@ -5,11 +5,43 @@
 package net.sourceforge.pmd.cpd.impl;
 
 import net.sourceforge.pmd.cpd.CpdLexer;
+import net.sourceforge.pmd.lang.TokenManager;
+import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.ast.impl.javacc.JavaccToken;
+import net.sourceforge.pmd.lang.ast.impl.javacc.JjtreeNode;
 
 /**
  * Base class for a {@link CpdLexer} for a language implemented by a JavaCC tokenizer.
  */
 public abstract class JavaccCpdLexer extends CpdLexerBase<JavaccToken> {
 
+    /**
+     * Returns a token manager that replays the tokens of an AST produced
+     * by a JavaCC parser, from its first token to the EOF token. Implicit
+     * tokens, which were not produced by the lexer, are skipped. This may
+     * be used to implement {@link #tokensOfParsedFile(RootNode)}, if the
+     * parser uses the same lexer as {@link #makeLexerImpl(net.sourceforge.pmd.lang.document.TextDocument)}.
+     *
+     * @param root Root of the AST
+     */
+    protected static TokenManager<JavaccToken> replayTokens(JjtreeNode<?> root) {
+        return new TokenManager<JavaccToken>() {
+            private JavaccToken next = root.getFirstToken();
+
+            @Override
+            public JavaccToken getNextToken() {
+                while (next.isImplicit()) {
+                    next = next.getNext();
+                }
+                JavaccToken token = next;
+                if (!token.isEof()) {
+                    next = token.getNext();
+                    if (next == null) {
+                        throw new IllegalStateException("The tokens of the AST end before EOF, after " + token);
+                    }
+                }
+                return token;
+            }
+        };
+    }
 }
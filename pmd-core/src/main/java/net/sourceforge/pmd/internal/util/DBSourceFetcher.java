@@ -0,0 +1,289 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.internal.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.document.TextFileContent;
+import net.sourceforge.pmd.util.database.DBMSMetadata;
+import net.sourceforge.pmd.util.database.SourceObject;
+
+/**
+ * Fetches the source code of database objects for the text files created
+ * by {@link #newTextFile(SourceObject, FileId, LanguageVersion)}. Sources
+ * are fetched on demand, when the file is read, and are prefetched in the
+ * background in the order the files are given to the analysis, using a
+ * bounded number of connections.
+ *
+ * <p>Prefetching starts when the first file is read, so that files that
+ * are excluded from the analysis before, and closed, are never fetched.
+ * At most {@code prefetchLimit} sources are held in memory before they are
+ * read. A file that has not been prefetched when it is read is fetched
+ * by the reading thread, so the analysis never waits for the prefetchers.
+ */
+final class DBSourceFetcher implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DBSourceFetcher.class);
+
+    private final MetadataFactory factory;
+    private final int maxConnections;
+    private final BlockingQueue<DBMSMetadata> idleConnections = new LinkedBlockingQueue<>();
+    private final List<DBMSMetadata> openConnections = new ArrayList<>(); // guarded by this
+
+    private final List<SourceObjectFile> files = new ArrayList<>();
+    private final AtomicInteger nextToPrefetch = new AtomicInteger();
+    private final Semaphore prefetchPermits;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private ExecutorService prefetchers; // guarded by this
+    private boolean closed; // guarded by this
+
+    /**
+     * Creates a new fetcher. The given metadata is used as the first
+     * connection, further ones are opened with the factory as needed.
+     */
+    DBSourceFetcher(DBMSMetadata firstConnection, MetadataFactory factory, int maxConnections, int prefetchLimit) {
+        this.factory = factory;
+        this.maxConnections = maxConnections;
+        this.prefetchPermits = new Semaphore(prefetchLimit);
+        openConnections.add(firstConnection);
+        idleConnections.add(firstConnection);
+    }
+
+    /**
+     * Returns a text file whose contents are the source of the given
+     * object. Files are prefetched in the order they are created.
+     */
+    TextFile newTextFile(SourceObject sourceObject, FileId fileId, LanguageVersion languageVersion) {
+        if (started.get()) {
+            throw new IllegalStateException("Fetching has already started");
+        }
+        SourceObjectFile file = new SourceObjectFile(sourceObject, fileId, languageVersion);
+        files.add(file);
+        return file;
+    }
+
+    private void startPrefetching() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            int numThreads = Math.min(maxConnections, files.size());
+            if (numThreads == 0) {
+                return;
+            }
+            LOG.debug("Prefetching {} database source objects with {} threads", files.size(), numThreads);
+            prefetchers = Executors.newFixedThreadPool(numThreads, r -> {
+                Thread thread = new Thread(r, "PmdDbSourcePrefetcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < numThreads; i++) {
+                prefetchers.execute(this::prefetch);
+            }
+        }
+    }
+
+    private void prefetch() {
+        try {
+            int i;
+            while ((i = nextToPrefetch.getAndIncrement()) < files.size()) {
+                SourceObjectFile file = files.get(i);
+                // read before the state changes, a reader drops it afterwards
+                CompletableFuture<String> future = file.prefetched;
+                prefetchPermits.acquire();
+                if (!file.state.compareAndSet(SourceObjectFile.NEW, SourceObjectFile.PREFETCHING)) {
+                    // already read or closed
+                    prefetchPermits.release();
+                    continue;
+                }
+                try {
+                    future.complete(fetch(file.sourceObject));
+                } catch (IOException | SQLException | ClassNotFoundException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                } catch (InterruptedException e) {
+                    future.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String fetch(SourceObject sourceObject) throws IOException, SQLException, ClassNotFoundException, InterruptedException {
+        LOG.trace("Fetching database source object {}", sourceObject.getPseudoFileName());
+        DBMSMetadata metadata = borrowConnection();
+        try (Reader sourceCode = metadata.getSourceCode(sourceObject)) {
+            return IOUtil.readToString(sourceCode);
+        } finally {
+            idleConnections.add(metadata);
+        }
+    }
+
+    private DBMSMetadata borrowConnection() throws SQLException, ClassNotFoundException, InterruptedException {
+        DBMSMetadata metadata = idleConnections.poll();
+        if (metadata != null) {
+            return metadata;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("Connections are closed");
+            }
+            if (openConnections.size() < maxConnections) {
+                metadata = factory.open();
+                openConnections.add(metadata);
+                return metadata;
+            }
+        }
+        return idleConnections.take();
+    }
+
+    private String read(SourceObjectFile file) throws IOException {
+        startPrefetching();
+        if (!file.state.compareAndSet(SourceObjectFile.NEW, SourceObjectFile.CONSUMED)
+            && file.state.compareAndSet(SourceObjectFile.PREFETCHING, SourceObjectFile.CONSUMED)) {
+            CompletableFuture<String> prefetched = file.prefetched;
+            file.prefetched = null;
+            try {
+                return prefetched.get();
+            } catch (ExecutionException e) {
+                throw new IOException("Cannot get source code of " + file.fileId.getOriginalPath(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } finally {
+                prefetchPermits.release();
+            }
+        }
+        // not prefetched yet, or read a second time
+        try {
+            return fetch(file.sourceObject);
+        } catch (SQLException | ClassNotFoundException e) {
+            throw new IOException("Cannot get source code of " + file.fileId.getOriginalPath(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void release(SourceObjectFile file) {
+        if (!file.state.compareAndSet(SourceObjectFile.NEW, SourceObjectFile.CONSUMED)
+            && file.state.compareAndSet(SourceObjectFile.PREFETCHING, SourceObjectFile.CONSUMED)) {
+            file.prefetched = null;
+            prefetchPermits.release();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<DBMSMetadata> toClose;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (prefetchers != null) {
+                prefetchers.shutdownNow();
+            }
+            toClose = new ArrayList<>(openConnections);
+            openConnections.clear();
+        }
+        List<AutoCloseable> connections = new ArrayList<>();
+        for (DBMSMetadata metadata : toClose) {
+            try {
+                Connection connection = metadata.getConnection();
+                if (connection != null) {
+                    connections.add(connection);
+                }
+            } catch (SQLException e) {
+                LOG.debug("Cannot get connection to close", e);
+            }
+        }
+        Exception exception = IOUtil.closeAll(connections);
+        if (exception != null) {
+            throw new IOException("Cannot close database connections", exception);
+        }
+    }
+
+    /**
+     * Opens a new connection to the database.
+     */
+    @FunctionalInterface
+    interface MetadataFactory {
+
+        DBMSMetadata open() throws SQLException, ClassNotFoundException;
+    }
+
+    private final class SourceObjectFile implements TextFile {
+
+        static final int NEW = 0;
+        static final int PREFETCHING = 1;
+        static final int CONSUMED = 2;
+
+        private final SourceObject sourceObject;
+        private final FileId fileId;
+        private final LanguageVersion languageVersion;
+        private final AtomicInteger state = new AtomicInteger(NEW);
+        // dropped once read, so that the source may be garbage collected
+        private volatile CompletableFuture<String> prefetched = new CompletableFuture<>();
+
+        SourceObjectFile(SourceObject sourceObject, FileId fileId, LanguageVersion languageVersion) {
+            this.sourceObject = sourceObject;
+            this.fileId = fileId;
+            this.languageVersion = languageVersion;
+        }
+
+        @Override
+        public @NonNull LanguageVersion getLanguageVersion() {
+            return languageVersion;
+        }
+
+        @Override
+        public FileId getFileId() {
+            return fileId;
+        }
+
+        @Override
+        public TextFileContent readContents() throws IOException {
+            return TextFileContent.fromCharSeq(read(this));
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+
+        @Override
+        public String toString() {
+            return "SourceObjectFile[" + fileId.getOriginalPath() + "]";
+        }
+    }
+}
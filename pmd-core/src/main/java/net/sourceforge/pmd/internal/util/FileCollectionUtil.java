@@ -5,17 +5,18 @@
 package net.sourceforge.pmd.internal.util;
 
 import java.io.IOException;
-import java.io.Reader;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sourceforge.pmd.AbstractConfiguration;
+import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.document.FileCollector;
 import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.util.database.DBMSMetadata;
@@ -31,6 +32,11 @@ public final class FileCollectionUtil {
 
     private static final Logger LOG = LoggerFactory.getLogger(FileCollectionUtil.class);
 
+    /** Maximum number of connections used to fetch sources from a database. */
+    private static final int DB_MAX_CONNECTIONS = 4;
+    /** Maximum number of database sources fetched ahead of the analysis. */
+    private static final int DB_PREFETCH_LIMIT = 64;
+
     private FileCollectionUtil() {
 
     }
@@ -40,6 +46,9 @@ public final class FileCollectionUtil {
             collector.setCharset(configuration.getSourceEncoding());
             collector.setRecursive(configuration.collectFilesRecursively());
         }
+        collector.setUseIgnoreFiles(configuration.isUseIgnoreFiles());
+        // don't explore excluded directories
+        collector.setExcludedPaths(configuration.getExcludes());
 
 
         collectFiles(collector, configuration.getInputPathList());
@@ -64,8 +73,16 @@ public final class FileCollectionUtil {
                     // todo better reporting of *where* exactly the path is
                     collectFileList(excludeCollector, configuration.getIgnoreFile());
                 }
-                collectFiles(excludeCollector, configuration.getExcludes());
+                // excluded directories were not explored, only remove the
+                // files given explicitly that are located in them
+                List<Path> excludedFiles = new ArrayList<>();
+                List<Path> excludedDirs = new ArrayList<>();
+                for (Path exclude : configuration.getExcludes()) {
+                    (Files.isDirectory(exclude) ? excludedDirs : excludedFiles).add(exclude);
+                }
+                collectFiles(excludeCollector, excludedFiles);
                 collector.exclude(excludeCollector);
+                collector.excludeDirectories(excludedDirs);
             }
         }
     }
@@ -118,6 +135,12 @@ public final class FileCollectionUtil {
         }
     }
 
+    /**
+     * Adds the source objects found in the database to the collector.
+     * Their source code is fetched lazily, when the files are read,
+     * and prefetched in the background with a bounded number of
+     * connections. The connections are closed with the collector.
+     */
     public static void collectDB(FileCollector collector, URI uri) {
         try {
             LOG.debug("Connecting to {}", uri);
@@ -126,18 +149,24 @@ public final class FileCollectionUtil {
             LOG.trace("DBMSMetadata retrieved");
             List<SourceObject> sourceObjectList = dbmsMetadata.getSourceObjectList();
             LOG.trace("Located {} database source objects", sourceObjectList.size());
-            for (SourceObject sourceObject : sourceObjectList) {
-                String falseFilePath = sourceObject.getPseudoFileName();
-                LOG.trace("Adding database source object {}", falseFilePath);
-
-                try (Reader sourceCode = dbmsMetadata.getSourceCode(sourceObject)) {
-                    String source = IOUtil.readToString(sourceCode);
-                    collector.addSourceFile(FileId.fromPathLikeString(falseFilePath), source);
-                } catch (SQLException ex) {
-                    collector.getReporter().warnEx("Cannot get SourceCode for {}  - skipping ...",
-                                                   new Object[] { falseFilePath },
-                                                   ex);
+
+            @SuppressWarnings("PMD.CloseResource") // closed with the collector
+            DBSourceFetcher fetcher = new DBSourceFetcher(dbmsMetadata, () -> new DBMSMetadata(dbUri),
+                                                          DB_MAX_CONNECTIONS, DB_PREFETCH_LIMIT);
+            collector.addResourceToClose(fetcher);
+
+            // prefetch in the order in which the files will be analyzed
+            List<SourceObject> sourceObjects = new ArrayList<>(sourceObjectList);
+            sourceObjects.sort(Comparator.comparing(FileCollectionUtil::dbFileId));
+            for (SourceObject sourceObject : sourceObjects) {
+                FileId fileId = dbFileId(sourceObject);
+                LanguageVersion languageVersion = collector.discoverLanguageVersion(fileId);
+                if (languageVersion == null) {
+                    LOG.trace("Database source object {} matches no known language, ignoring", fileId);
+                    continue;
                 }
+                LOG.trace("Adding database source object {}", fileId);
+                collector.addFile(fetcher.newTextFile(sourceObject, fileId, languageVersion));
             }
         } catch (ClassNotFoundException e) {
             collector.getReporter().errorEx("Cannot get files from DB - probably missing database JDBC driver", e);
@@ -145,4 +174,8 @@ public final class FileCollectionUtil {
             collector.getReporter().errorEx("Cannot get files from DB - ''{}''", new Object[] { uri }, e);
         }
     }
+
+    private static FileId dbFileId(SourceObject sourceObject) {
+        return FileId.fromPathLikeString(sourceObject.getPseudoFileName());
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.internal.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+
+/**
+ * Splits the files of an analysis into shards, so that the analysis can
+ * be distributed over several machines. Each machine computes the same
+ * partition, and keeps the files of its own shard.
+ *
+ * <p>The partition only depends on the list of files and on their
+ * weights, so that it is the same on every machine. Files are assigned
+ * from the heaviest to the lightest, each to the shard that has the
+ * least weight so far. The weight of a file is its size in bytes, plus
+ * a fixed cost for the work that does not depend on the size.
+ */
+public final class FileSharding {
+
+    /** Weight added to each file, which accounts for the fixed cost of analysing a file. */
+    static final long FILE_OVERHEAD = 4096;
+
+    private FileSharding() {
+        // utility class
+    }
+
+    /**
+     * Returns the files of the given shard, in the same order as the input list.
+     *
+     * @param files      All files of the analysis, in a deterministic order
+     * @param shardIndex Index of the shard, in {@code [0, shardCount)}
+     * @param shardCount Number of shards
+     */
+    public static List<TextFile> selectShard(List<TextFile> files, int shardIndex, int shardCount) {
+        return selectShard(files, shardIndex, shardCount, FileSharding::weight);
+    }
+
+    static List<TextFile> selectShard(List<TextFile> files, int shardIndex, int shardCount, ToLongFunction<TextFile> weight) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardCount);
+        }
+        if (shardCount == 1) {
+            return files;
+        }
+
+        long[] weights = new long[files.size()];
+        List<Integer> order = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            weights[i] = weight.applyAsLong(files.get(i));
+            order.add(i);
+        }
+        // heaviest first; the sort is stable, so ties keep the order of the input
+        order.sort(Comparator.comparingLong((Integer i) -> weights[i]).reversed());
+
+        long[] loads = new long[shardCount];
+        boolean[] selected = new boolean[files.size()];
+        for (int i : order) {
+            int lightest = 0;
+            for (int s = 1; s < shardCount; s++) {
+                if (loads[s] < loads[lightest]) {
+                    lightest = s;
+                }
+            }
+            loads[lightest] += weights[i];
+            selected[i] = lightest == shardIndex;
+        }
+
+        List<TextFile> shard = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (selected[i]) {
+                shard.add(files.get(i));
+            }
+        }
+        return Collections.unmodifiableList(shard);
+    }
+
+    private static long weight(TextFile file) {
+        FileId id = file.getFileId();
+        if (id.getParentFsPath() != null) {
+            // the file is in an archive, its size is not known
+            return FILE_OVERHEAD;
+        }
+        try {
+            Path path = Paths.get(id.getAbsolutePath());
+            return FILE_OVERHEAD + (Files.isRegularFile(path) ? Files.size(path) : 0);
+        } catch (IOException | InvalidPathException e) {
+            return FILE_OVERHEAD;
+        }
+    }
+}
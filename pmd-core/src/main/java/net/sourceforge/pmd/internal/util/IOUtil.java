@@ -112,7 +112,30 @@ public final class IOUtil {
     public static Writer createWriter(Charset charset, String reportFile) {
         try {
             if (StringUtils.isBlank(reportFile)) {
-                return new OutputStreamWriter(new FilterOutputStream(System.out) {
+                return new OutputStreamWriter(createOutputStream(reportFile), charset);
+            }
+            Path path = new File(reportFile).toPath().toAbsolutePath();
+            Files.createDirectories(path.getParent()); // ensure parent dir exists
+            // this will create the file if it doesn't exist
+            return Files.newBufferedWriter(path, charset);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Creates an output stream that writes to the given file or to stdout.
+     * The file is created if it does not exist. Closing the stream
+     * does not close stdout.
+     *
+     * @param reportFile the file name (optional)
+     *
+     * @return the output stream, never null
+     */
+    public static OutputStream createOutputStream(String reportFile) {
+        try {
+            if (StringUtils.isBlank(reportFile)) {
+                return new FilterOutputStream(System.out) {
                     @Override
                     public void close() {
                         // avoid closing stdout, simply flush
@@ -131,12 +154,12 @@ public final class IOUtil {
                          */
                         out.write(b, off, len);
                     }
-                }, charset);
+                };
             }
             Path path = new File(reportFile).toPath().toAbsolutePath();
             Files.createDirectories(path.getParent()); // ensure parent dir exists
             // this will create the file if it doesn't exist
-            return Files.newBufferedWriter(path, charset);
+            return Files.newOutputStream(path);
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
         }
@@ -12,6 +12,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.cache.AnalysisCache;
 import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.rule.internal.AnalysisBudget;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
 import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
 import net.sourceforge.pmd.util.log.MessageReporter;
@@ -62,12 +63,13 @@ public interface LanguageProcessor extends AutoCloseable {
 
         private final RuleSets rulesets;
         private final List<TextFile> files;
+        private final List<TextFile> allFiles;
         private final GlobalAnalysisListener listener;
         private final int threadCount;
         private final AnalysisCache analysisCache;
         private final MessageReporter messageReporter;
         private final LanguageProcessorRegistry lpRegistry;
-
+        private final AnalysisBudget budget;
 
         /**
          * Create a new task. This constructor is internal and will be
@@ -81,13 +83,43 @@ public interface LanguageProcessor extends AutoCloseable {
                             AnalysisCache analysisCache,
                             MessageReporter messageReporter,
                             LanguageProcessorRegistry lpRegistry) {
+            this(rulesets, files, listener, threadCount, analysisCache, messageReporter, lpRegistry, AnalysisBudget.UNLIMITED);
+        }
+
+        /**
+         * Create a new task. This constructor is internal and will be
+         * called by PMD.
+         */
+        @InternalApi
+        public AnalysisTask(RuleSets rulesets,
+                            List<TextFile> files,
+                            GlobalAnalysisListener listener,
+                            int threadCount,
+                            AnalysisCache analysisCache,
+                            MessageReporter messageReporter,
+                            LanguageProcessorRegistry lpRegistry,
+                            AnalysisBudget budget) {
+            this(rulesets, files, files, listener, threadCount, analysisCache, messageReporter, lpRegistry, budget);
+        }
+
+        private AnalysisTask(RuleSets rulesets,
+                             List<TextFile> files,
+                             List<TextFile> allFiles,
+                             GlobalAnalysisListener listener,
+                             int threadCount,
+                             AnalysisCache analysisCache,
+                             MessageReporter messageReporter,
+                             LanguageProcessorRegistry lpRegistry,
+                             AnalysisBudget budget) {
             this.rulesets = rulesets;
             this.files = files;
+            this.allFiles = allFiles;
             this.listener = listener;
             this.threadCount = threadCount;
             this.analysisCache = analysisCache;
             this.messageReporter = messageReporter;
             this.lpRegistry = lpRegistry;
+            this.budget = budget;
         }
 
         public RuleSets getRulesets() {
@@ -98,6 +130,17 @@ public interface LanguageProcessor extends AutoCloseable {
             return Collections.unmodifiableList(files);
         }
 
+        /**
+         * Returns all the files of the analysis. These are the same as
+         * {@link #getFiles()}, unless the analysis is split into shards,
+         * and only the files of one shard are analyzed. Processors that
+         * index the files, to resolve names across files, should index
+         * all of them, so that the results do not depend on the shard.
+         */
+        public List<TextFile> getAllFiles() {
+            return Collections.unmodifiableList(allFiles);
+        }
+
         public GlobalAnalysisListener getListener() {
             return listener;
         }
@@ -118,6 +161,14 @@ public interface LanguageProcessor extends AutoCloseable {
             return lpRegistry;
         }
 
+        /**
+         * Returns the limits on the work spent on each file.
+         */
+        @InternalApi
+        public AnalysisBudget getBudget() {
+            return budget;
+        }
+
         /**
          * Produce a new analysis task with just different files.
          */
@@ -125,11 +176,34 @@ public interface LanguageProcessor extends AutoCloseable {
             return new AnalysisTask(
                 rulesets,
                 newFiles,
+                allFiles,
+                listener,
+                threadCount,
+                analysisCache,
+                messageReporter,
+                lpRegistry,
+                budget
+            );
+        }
+
+        /**
+         * Produce a new analysis task with the same files to analyze,
+         * which are part of the given list of all the files.
+         *
+         * @see #getAllFiles()
+         */
+        @InternalApi
+        public AnalysisTask withAllFiles(List<TextFile> newAllFiles) {
+            return new AnalysisTask(
+                rulesets,
+                files,
+                newAllFiles,
                 listener,
                 threadCount,
                 analysisCache,
                 messageReporter,
-                lpRegistry
+                lpRegistry,
+                budget
             );
         }
     }
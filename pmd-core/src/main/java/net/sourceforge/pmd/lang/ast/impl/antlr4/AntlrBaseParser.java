@@ -4,9 +4,17 @@
 
 package net.sourceforge.pmd.lang.ast.impl.antlr4;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 import net.sourceforge.pmd.lang.ast.ParseException;
 import net.sourceforge.pmd.lang.ast.Parser;
@@ -26,11 +34,51 @@ public abstract class AntlrBaseParser<
 
     @Override
     public R parse(ParserTask task) throws ParseException {
-        CharStream cs = CharStreams.fromString(task.getSourceText(), task.getTextDocument().getFileId().getAbsolutePath());
+        CharStream cs = AntlrCharStreams.fromDocument(task.getTextDocument());
         return parse(getLexer(cs), task);
     }
 
     protected abstract R parse(Lexer parser, ParserTask task);
 
     protected abstract Lexer getLexer(CharStream source);
+
+    /**
+     * Invokes the start rule of the parser with the two-stage strategy
+     * recommended by Antlr. The input is first parsed with the SLL prediction
+     * mode, which is much faster, and the parse is abandoned on the first
+     * syntax error. Only then is the input parsed again with full LL prediction,
+     * with the original error listeners and error strategy of the parser.
+     * If the first stage succeeds, the tree is the same as with LL prediction.
+     *
+     * @param parser    A parser, whose token stream is at the start of the input
+     * @param startRule Invokes the start rule on the parser
+     * @param <P>       Type of the generated parser
+     * @param <T>       Type of the root node
+     *
+     * @return The root node
+     */
+    protected static <P extends org.antlr.v4.runtime.Parser, T> T parseSllFirst(P parser, Function<? super P, ? extends T> startRule) {
+        ANTLRErrorStrategy errorStrategy = parser.getErrorHandler();
+        List<? extends ANTLRErrorListener> errorListeners = new ArrayList<>(parser.getErrorListeners());
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        T root;
+        try {
+            root = startRule.apply(parser);
+        } catch (ParseCancellationException e) {
+            root = null;
+        }
+
+        parser.setErrorHandler(errorStrategy);
+        errorListeners.forEach(parser::addErrorListener);
+        if (root == null) {
+            // The tokens have already been fetched, only the parser is rewound.
+            parser.reset();
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            root = startRule.apply(parser);
+        }
+        return root;
+    }
 }
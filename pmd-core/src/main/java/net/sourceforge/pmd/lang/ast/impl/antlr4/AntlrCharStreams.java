@@ -0,0 +1,140 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast.impl.antlr4;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import net.sourceforge.pmd.lang.document.Chars;
+import net.sourceforge.pmd.lang.document.TextDocument;
+
+/**
+ * Creates Antlr {@link CharStream}s for text documents.
+ *
+ * @since 7.0.0
+ */
+public final class AntlrCharStreams {
+
+    private AntlrCharStreams() {
+        // utility class
+    }
+
+    /**
+     * Returns a char stream over the text of the document. Antlr char
+     * streams index their input by code points. If the text only contains
+     * characters of the basic multilingual plane, code point indices are
+     * the same as char offsets, and the returned stream reads the text of
+     * the document directly, without copying it. Otherwise the text is
+     * copied into a code point buffer, like {@link CharStreams#fromString(String, String)}.
+     *
+     * @param document A text document
+     *
+     * @return A char stream
+     */
+    public static CharStream fromDocument(TextDocument document) {
+        Chars text = document.getText();
+        String sourceName = document.getFileId().getAbsolutePath();
+        if (hasSupplementaryChars(text)) {
+            return CharStreams.fromString(text.toString(), sourceName);
+        }
+        return new BmpCharStream(text, sourceName);
+    }
+
+    private static boolean hasSupplementaryChars(Chars text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isSurrogate(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A char stream over text that contains no surrogate chars. This
+     * behaves like Antlr's {@code CodePointCharStream}.
+     */
+    private static final class BmpCharStream implements CharStream {
+
+        private final Chars text;
+        private final String sourceName;
+        private int position;
+
+        BmpCharStream(Chars text, String sourceName) {
+            this.text = text;
+            this.sourceName = sourceName;
+        }
+
+        @Override
+        public void consume() {
+            if (position >= text.length()) {
+                throw new IllegalStateException("cannot consume EOF");
+            }
+            position++;
+        }
+
+        @Override
+        public int LA(int i) {
+            int offset;
+            if (i > 0) {
+                offset = position + i - 1;
+            } else if (i < 0) {
+                offset = position + i;
+            } else {
+                return 0; // undefined
+            }
+            if (offset < 0 || offset >= text.length()) {
+                return IntStream.EOF;
+            }
+            return text.charAt(offset);
+        }
+
+        @Override
+        public int mark() {
+            return -1;
+        }
+
+        @Override
+        public void release(int marker) {
+            // the whole text is available
+        }
+
+        @Override
+        public int index() {
+            return position;
+        }
+
+        @Override
+        public void seek(int index) {
+            position = index;
+        }
+
+        @Override
+        public int size() {
+            return text.length();
+        }
+
+        @Override
+        public String getSourceName() {
+            return sourceName == null || sourceName.isEmpty() ? UNKNOWN_SOURCE_NAME : sourceName;
+        }
+
+        @Override
+        public String getText(Interval interval) {
+            int start = Math.min(interval.a, text.length());
+            int length = Math.min(interval.b - interval.a + 1, text.length() - start);
+            if (length <= 0) {
+                return "";
+            }
+            return text.substring(start, start + length);
+        }
+
+        @Override
+        public String toString() {
+            return getText(Interval.of(0, text.length() - 1));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.LanguageVersion;
+
+/**
+ * Explores a directory tree to find the files to analyze. Subdirectories
+ * are explored in parallel, as fork-join tasks. Whole subtrees are skipped
+ * if they are excluded, or ignored by a {@code .gitignore} or {@code .pmdignore}
+ * file (see {@link IgnoreRules}). The language of a file is determined
+ * from its name, before any {@link TextFile} is created, and is cached
+ * per file extension.
+ *
+ * <p>Symbolic links are followed, like {@link Files#walkFileTree(Path, Set, int, java.nio.file.FileVisitor)}
+ * does with {@link java.nio.file.FileVisitOption#FOLLOW_LINKS}. A link to
+ * one of its parent directories makes the walk fail with a {@link FileSystemLoopException}.
+ */
+final class DirectoryWalker {
+
+    private final Function<String, @Nullable LanguageVersion> languageDiscoverer;
+    private final ConcurrentMap<String, Optional<LanguageVersion>> languageByExtension = new ConcurrentHashMap<>();
+    private final Set<Path> excludedPaths;
+    private final boolean useIgnoreFiles;
+
+    /**
+     * @param languageDiscoverer Returns the language version of a file given its name,
+     *                           only depending on its extension
+     * @param excludedPaths      Absolute, normalized paths of files or directories to skip
+     * @param useIgnoreFiles     Whether to honor ignore files
+     */
+    DirectoryWalker(Function<String, @Nullable LanguageVersion> languageDiscoverer,
+                    Set<Path> excludedPaths,
+                    boolean useIgnoreFiles) {
+        this.languageDiscoverer = languageDiscoverer;
+        this.excludedPaths = excludedPaths;
+        this.useIgnoreFiles = useIgnoreFiles;
+    }
+
+    /**
+     * Returns the files found in the given directory, that match a
+     * language, sorted by path.
+     *
+     * @param dir     Directory to explore
+     * @param recurse Whether to explore subdirectories
+     */
+    List<FoundFile> walk(Path dir, boolean recurse) throws IOException {
+        List<FoundFile> result;
+        try {
+            IgnoreRules rules = useIgnoreFiles ? IgnoreRules.NONE.forDirectory(dir) : IgnoreRules.NONE;
+            result = new WalkTask(dir, rules, recurse, Collections.singletonList(fileKey(dir))).invoke();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        result.sort((a, b) -> a.path.compareTo(b.path));
+        return result;
+    }
+
+    private static Object fileKey(Path dir) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class);
+        return attrs.fileKey() != null ? attrs.fileKey() : dir.toRealPath();
+    }
+
+    private @Nullable LanguageVersion discoverLanguage(Path file) {
+        String fileName = file.getFileName().toString();
+        String extension = StringUtils.substringAfterLast(fileName, ".");
+        return languageByExtension.computeIfAbsent(extension, e -> Optional.ofNullable(languageDiscoverer.apply(fileName)))
+                                  .orElse(null);
+    }
+
+    private boolean isExcluded(Path path) {
+        return !excludedPaths.isEmpty() && excludedPaths.contains(path.toAbsolutePath().normalize());
+    }
+
+    private final class WalkTask extends RecursiveTask<List<FoundFile>> {
+
+        private final Path dir;
+        private final IgnoreRules rules;
+        private final boolean recurse;
+        private final List<Object> ancestorKeys;
+
+        WalkTask(Path dir, IgnoreRules rules, boolean recurse, List<Object> ancestorKeys) {
+            this.dir = dir;
+            this.rules = rules;
+            this.recurse = recurse;
+            this.ancestorKeys = ancestorKeys;
+        }
+
+        @Override
+        protected List<FoundFile> compute() {
+            try {
+                return walkDir();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<FoundFile> walkDir() throws IOException {
+            List<FoundFile> files = new ArrayList<>();
+            List<WalkTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs = readAttributes(entry);
+                    if (attrs == null || isExcluded(entry)) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        if (recurse && !isIgnoredDirectory(entry)) {
+                            subtasks.add(newSubtask(entry, attrs));
+                        }
+                    } else if (attrs.isRegularFile() && !rules.isIgnored(entry, false)) {
+                        LanguageVersion language = discoverLanguage(entry);
+                        if (language != null) {
+                            files.add(new FoundFile(entry, language));
+                        }
+                    }
+                }
+            }
+            invokeAll(subtasks);
+            for (WalkTask subtask : subtasks) {
+                files.addAll(subtask.join());
+            }
+            return files;
+        }
+
+        private boolean isIgnoredDirectory(Path subdir) {
+            return useIgnoreFiles && (".git".equals(subdir.getFileName().toString()) || rules.isIgnored(subdir, true));
+        }
+
+        private WalkTask newSubtask(Path subdir, BasicFileAttributes attrs) throws IOException {
+            Object key = attrs.fileKey() != null ? attrs.fileKey() : subdir.toRealPath();
+            if (ancestorKeys.contains(key)) {
+                throw new FileSystemLoopException(subdir.toString());
+            }
+            List<Object> keys = new ArrayList<>(ancestorKeys.size() + 1);
+            keys.addAll(ancestorKeys);
+            keys.add(key);
+            IgnoreRules subdirRules = useIgnoreFiles ? rules.forDirectory(subdir) : rules;
+            return new WalkTask(subdir, subdirRules, true, keys);
+        }
+
+        private @Nullable BasicFileAttributes readAttributes(Path entry) throws IOException {
+            try {
+                return Files.readAttributes(entry, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // a broken link is not a regular file, and is skipped
+                if (Files.isSymbolicLink(entry)) {
+                    return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                }
+                throw e;
+            }
+        }
+    }
+
+    static final class FoundFile {
+
+        final Path path;
+        final LanguageVersion languageVersion;
+
+        FoundFile(Path path, LanguageVersion languageVersion) {
+            this.path = Objects.requireNonNull(path);
+            this.languageVersion = Objects.requireNonNull(languageVersion);
+        }
+    }
+}
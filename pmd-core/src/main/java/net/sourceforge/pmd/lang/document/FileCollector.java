@@ -13,17 +13,13 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystemAlreadyExistsException;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.ProviderNotFoundException;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -31,6 +27,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,6 +60,8 @@ public final class FileCollector implements AutoCloseable {
     private final FileId outerFsPath;
     private boolean closed;
     private boolean recursive = true;
+    private boolean useIgnoreFiles;
+    private Set<Path> excludedPaths = Collections.emptySet();
 
     // construction
 
@@ -77,6 +76,30 @@ public final class FileCollector implements AutoCloseable {
         this.recursive = collectFilesRecursively;
     }
 
+    /**
+     * Sets whether the {@code .gitignore} and {@code .pmdignore} files
+     * found while exploring a directory are honored. The files and
+     * directories they match are then skipped. This is false by default.
+     */
+    public void setUseIgnoreFiles(boolean useIgnoreFiles) {
+        this.useIgnoreFiles = useIgnoreFiles;
+    }
+
+    /**
+     * Sets paths of files and directories to skip when exploring a
+     * directory. This allows not exploring excluded directories at all.
+     * It does not remove files that were already collected, see
+     * {@link #exclude(FileCollector)}.
+     */
+    @InternalApi
+    public void setExcludedPaths(Collection<Path> excludedPaths) {
+        Set<Path> paths = new HashSet<>();
+        for (Path path : excludedPaths) {
+            paths.add(path.toAbsolutePath().normalize());
+        }
+        this.excludedPaths = paths;
+    }
+
     /**
      * Internal API: please use {@link PmdAnalysis#files()} instead of
      * creating a collector yourself.
@@ -93,6 +116,7 @@ public final class FileCollector implements AutoCloseable {
     public FileCollector newCollector(MessageReporter logger) {
         FileCollector fileCollector = new FileCollector(discoverer, logger, null);
         fileCollector.charset = this.charset;
+        fileCollector.useIgnoreFiles = this.useIgnoreFiles;
         return fileCollector;
     }
 
@@ -122,6 +146,16 @@ public final class FileCollector implements AutoCloseable {
         return reporter;
     }
 
+    /**
+     * Registers a resource to close with this collector, at the end of
+     * the analysis, eg a connection the collected files read from.
+     */
+    @InternalApi
+    public void addResourceToClose(Closeable resource) {
+        AssertionUtil.requireParamNotNull("resource", resource);
+        resourcesToClose.add(resource);
+    }
+
     /**
      * Close registered resources like zip files.
      */
@@ -221,6 +255,16 @@ public final class FileCollector implements AutoCloseable {
         return false;
     }
 
+    /**
+     * Returns the language version with which a file with the given id
+     * would be added by {@link #addSourceFile(FileId, String)}, or null
+     * if it matches no language.
+     */
+    @InternalApi
+    public @Nullable LanguageVersion discoverLanguageVersion(FileId fileId) {
+        return discoverLanguage(fileId.getFileName());
+    }
+
     private LanguageVersion discoverLanguage(String file) {
         if (discoverer.getForcedVersion() != null) {
             return discoverer.getForcedVersion();
@@ -261,8 +305,10 @@ public final class FileCollector implements AutoCloseable {
 
 
     /**
-     * Add a directory recursively using {@link #addFile(Path)} on
-     * all regular files.
+     * Add a directory recursively, with all regular files that match
+     * a language. Subdirectories are explored in parallel. Excluded
+     * directories, and directories matched by an ignore file if enabled
+     * (see {@link #setUseIgnoreFiles(boolean)}), are not explored.
      *
      * @param dir Directory path
      *
@@ -277,16 +323,12 @@ public final class FileCollector implements AutoCloseable {
             reporter.error("Not a directory {0}", dir);
             return false;
         }
-        int maxDepth = recurse ? Integer.MAX_VALUE : 1;
-        Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                if (attrs.isRegularFile()) {
-                    FileCollector.this.addFile(file);
-                }
-                return super.visitFile(file, attrs);
-            }
-        });
+        DirectoryWalker walker = new DirectoryWalker(this::discoverLanguage, excludedPaths, useIgnoreFiles);
+        for (DirectoryWalker.FoundFile file : walker.walk(dir, recurse)) {
+            addFileImpl(TextFile.builderForPath(file.path, charset, file.languageVersion)
+                                .setParentFsPath(outerFsPath)
+                                .build());
+        }
         return true;
     }
 
@@ -412,6 +454,7 @@ public final class FileCollector implements AutoCloseable {
 
     /**
      * Remove all files collected by the given collector from this one.
+     * The removed files are closed.
      */
     public void exclude(FileCollector excludeCollector) {
         Set<TextFile> toExclude = new HashSet<>(excludeCollector.allFilesToProcess);
@@ -420,6 +463,7 @@ public final class FileCollector implements AutoCloseable {
             if (toExclude.contains(file)) {
                 LOG.trace("Excluding file {}", file.getFileId());
                 iterator.remove();
+                IOUtil.closeQuietly(file);
             }
         }
     }
@@ -435,9 +479,40 @@ public final class FileCollector implements AutoCloseable {
         otherCollector.resourcesToClose.clear();
     }
 
+    /**
+     * Remove all files located in one of the given directories, or in a
+     * zip file located there. The removed files are closed. Unlike
+     * {@link #exclude(FileCollector)}, this does not need to explore
+     * the directories.
+     */
+    @InternalApi
+    public void excludeDirectories(Collection<Path> directories) {
+        if (directories.isEmpty()) {
+            return;
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (Path dir : directories) {
+            Path absDir = dir.toAbsolutePath().normalize();
+            prefixes.add(absDir.toString() + absDir.getFileSystem().getSeparator());
+        }
+        for (Iterator<TextFile> iterator = allFilesToProcess.iterator(); iterator.hasNext();) {
+            TextFile file = iterator.next();
+            FileId outermost = file.getFileId();
+            while (outermost.getParentFsPath() != null) {
+                outermost = outermost.getParentFsPath();
+            }
+            String path = outermost.getAbsolutePath();
+            if (prefixes.stream().anyMatch(path::startsWith)) {
+                LOG.trace("Excluding file {}", file.getFileId());
+                iterator.remove();
+                IOUtil.closeQuietly(file);
+            }
+        }
+    }
+
     /**
      * Exclude all collected files whose language is not part of the given
-     * collection.
+     * collection. The excluded files are closed.
      */
     public void filterLanguages(Set<Language> languages) {
         for (Iterator<TextFile> iterator = allFilesToProcess.iterator(); iterator.hasNext();) {
@@ -446,6 +521,7 @@ public final class FileCollector implements AutoCloseable {
             if (!languages.contains(lang)) {
                 LOG.trace("Filtering out {}, no rules for language {}", file.getFileId(), lang);
                 iterator.remove();
+                IOUtil.closeQuietly(file);
             }
         }
     }
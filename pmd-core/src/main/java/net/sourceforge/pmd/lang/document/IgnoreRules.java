@@ -0,0 +1,178 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.document;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The rules of the {@code .gitignore} and {@code .pmdignore} files found
+ * while exploring a directory tree. The files use the syntax of
+ * {@code .gitignore} files: a pattern without a slash matches a file name
+ * in any subdirectory, other patterns are relative to the directory of
+ * the ignore file. Patterns ending with a slash only match directories,
+ * and patterns starting with {@code !} re-include files. The rules of the
+ * ignore files in subdirectories take precedence, as do the later rules
+ * of a file.
+ */
+final class IgnoreRules {
+
+    static final IgnoreRules NONE = new IgnoreRules(null, null, Collections.emptyList());
+
+    private static final String[] IGNORE_FILE_NAMES = {".gitignore", ".pmdignore"};
+
+    private final @Nullable IgnoreRules parent;
+    private final Path baseDir;
+    private final List<IgnoreRule> rules;
+
+    private IgnoreRules(@Nullable IgnoreRules parent, Path baseDir, List<IgnoreRule> rules) {
+        this.parent = parent;
+        this.baseDir = baseDir;
+        this.rules = rules;
+    }
+
+    /**
+     * Returns the rules that apply in the given directory, which is a
+     * subdirectory of the directory of these rules.
+     */
+    IgnoreRules forDirectory(Path dir) throws IOException {
+        List<IgnoreRule> dirRules = new ArrayList<>();
+        for (String name : IGNORE_FILE_NAMES) {
+            Path ignoreFile = dir.resolve(name);
+            if (Files.isRegularFile(ignoreFile)) {
+                for (String line : Files.readAllLines(ignoreFile, StandardCharsets.UTF_8)) {
+                    IgnoreRule rule = IgnoreRule.parse(line);
+                    if (rule != null) {
+                        dirRules.add(rule);
+                    }
+                }
+            }
+        }
+        return dirRules.isEmpty() ? this : new IgnoreRules(this, dir, dirRules);
+    }
+
+    /**
+     * Returns true if the given file or directory is ignored.
+     */
+    boolean isIgnored(Path path, boolean isDirectory) {
+        String fileName = path.getFileName().toString();
+        for (IgnoreRules scope = this; scope != null && scope.baseDir != null; scope = scope.parent) {
+            String relativePath = null;
+            for (int i = scope.rules.size() - 1; i >= 0; i--) {
+                IgnoreRule rule = scope.rules.get(i);
+                if (rule.dirOnly && !isDirectory) {
+                    continue;
+                }
+                String toMatch;
+                if (rule.anchored) {
+                    if (relativePath == null) {
+                        relativePath = scope.baseDir.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+                    }
+                    toMatch = relativePath;
+                } else {
+                    toMatch = fileName;
+                }
+                if (rule.pattern.matcher(toMatch).matches()) {
+                    return !rule.negated;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final class IgnoreRule {
+
+        final Pattern pattern;
+        final boolean negated;
+        final boolean dirOnly;
+        final boolean anchored;
+
+        private IgnoreRule(Pattern pattern, boolean negated, boolean dirOnly, boolean anchored) {
+            this.pattern = pattern;
+            this.negated = negated;
+            this.dirOnly = dirOnly;
+            this.anchored = anchored;
+        }
+
+        static @Nullable IgnoreRule parse(String line) {
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                return null;
+            }
+            int end = line.length();
+            // trailing spaces are ignored, unless escaped
+            while (end > 0 && line.charAt(end - 1) == ' ' && (end < 2 || line.charAt(end - 2) != '\\')) {
+                end--;
+            }
+            String glob = line.substring(0, end);
+            boolean negated = glob.startsWith("!");
+            if (negated) {
+                glob = glob.substring(1);
+            }
+            boolean dirOnly = glob.endsWith("/");
+            if (dirOnly) {
+                glob = glob.substring(0, glob.length() - 1);
+            }
+            boolean anchored = glob.indexOf('/') >= 0;
+            if (glob.startsWith("/")) {
+                glob = glob.substring(1);
+            }
+            if (glob.isEmpty()) {
+                return null;
+            }
+            return new IgnoreRule(Pattern.compile(globToRegex(glob)), negated, dirOnly, anchored);
+        }
+
+        private static String globToRegex(String glob) {
+            StringBuilder regex = new StringBuilder(glob.length() + 16);
+            int len = glob.length();
+            int i = 0;
+            while (i < len) {
+                char c = glob.charAt(i);
+                boolean atSegmentStart = i == 0 || glob.charAt(i - 1) == '/';
+                if (glob.startsWith("**", i) && atSegmentStart && i + 2 == len) {
+                    // trailing "**" matches everything inside
+                    regex.append(".*");
+                    i += 2;
+                } else if (glob.startsWith("**/", i) && atSegmentStart) {
+                    // "**/" matches zero or more directories
+                    regex.append("(?:.*/)?");
+                    i += 3;
+                } else if (c == '*') {
+                    regex.append("[^/]*");
+                    i++;
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                    i++;
+                } else if (c == '[' && glob.indexOf(']', i + 2) >= 0) {
+                    int close = glob.indexOf(']', i + 2);
+                    String content = glob.substring(i + 1, close);
+                    if (content.startsWith("!")) {
+                        content = "^" + content.substring(1);
+                    }
+                    regex.append('[').append(content.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+                    i = close + 1;
+                } else {
+                    if (c == '\\' && i + 1 < len) {
+                        c = glob.charAt(++i);
+                    }
+                    if (!Character.isLetterOrDigit(c)) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                    i++;
+                }
+            }
+            return regex.toString();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import net.sourceforge.pmd.lang.ast.SemanticErrorReporter;
 import net.sourceforge.pmd.lang.ast.SemanticException;
 import net.sourceforge.pmd.lang.document.TextDocument;
 import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.rule.internal.AnalysisBudget;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
 import net.sourceforge.pmd.reporting.FileAnalysisListener;
 import net.sourceforge.pmd.reporting.Report;
@@ -54,6 +55,8 @@ abstract class PmdRunnable implements Runnable {
     @Override
     public void run() throws FileAnalysisException {
         TimeTracker.initThread();
+        TimeTracker.startFile(textFile.getFileId());
+        task.getBudget().startFile(textFile.getFileId());
 
         try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.FILE_PROCESSING);
              FileAnalysisListener listener = task.getListener().startFileAnalysis(textFile)) {
@@ -69,6 +72,7 @@ abstract class PmdRunnable implements Runnable {
                     @SuppressWarnings("PMD.CloseResource")
                     FileAnalysisListener completeListener = FileAnalysisListener.tee(listOf(listener, cacheListener));
 
+                    RootNode rootNode = null;
                     if (analysisCache.isUpToDate(textDocument)) {
                         LOG.trace("Skipping file (lang: {}) because it was found in the cache: {}", textFile.getLanguageVersion(), textFile.getFileId().getAbsolutePath());
                         // note: no cache listener here
@@ -77,7 +81,8 @@ abstract class PmdRunnable implements Runnable {
                     } else {
                         LOG.trace("Processing file (lang: {}): {}", textFile.getLanguageVersion(), textFile.getFileId().getAbsolutePath());
                         try {
-                            processSource(completeListener, textDocument, ruleSets);
+                            rootNode = parseSource(textDocument);
+                            ruleSets.apply(rootNode, completeListener);
                         } catch (Exception | StackOverflowError | AssertionError e) {
                             if (e instanceof Error && !SystemProps.isErrorRecoveryMode()) { // NOPMD:
                                 throw e;
@@ -88,6 +93,7 @@ abstract class PmdRunnable implements Runnable {
                             completeListener.onError(new Report.ProcessingError(e, textFile.getFileId()));
                         }
                     }
+                    listener.onDocumentAnalyzed(textDocument, rootNode);
                 }
             } else {
                 LOG.trace("Skipping file (lang: {}) because no rule applies: {}", textFile.getLanguageVersion(), textFile.getFileId());
@@ -96,6 +102,9 @@ abstract class PmdRunnable implements Runnable {
             throw e; // bubble managed exceptions, they were already reported
         } catch (Exception e) {
             throw FileAnalysisException.wrap(textFile.getFileId(), "An unknown exception occurred", e);
+        } finally {
+            AnalysisBudget.finishFile();
+            TimeTracker.finishFile();
         }
 
         TimeTracker.finishThread();
@@ -114,9 +123,10 @@ abstract class PmdRunnable implements Runnable {
     }
 
 
-    private void processSource(FileAnalysisListener listener,
-                               TextDocument textDocument,
-                               RuleSets ruleSets) throws FileAnalysisException {
+    private RootNode parseSource(TextDocument textDocument) throws FileAnalysisException {
+
+        // cheap gate, before spending time on parsing
+        task.getBudget().checkFileSize(textDocument);
 
         SemanticErrorReporter reporter = SemanticErrorReporter.reportToLogger(task.getMessageReporter());
         @SuppressWarnings("PMD.CloseResource")
@@ -136,8 +146,7 @@ abstract class PmdRunnable implements Runnable {
             // cause a processing error to be reported and rule analysis to be skipped
             throw semanticError;
         }
-
-        ruleSets.apply(rootNode, listener);
+        return rootNode;
     }
 
 }
@@ -0,0 +1,116 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.util.DataMap;
+import net.sourceforge.pmd.util.DataMap.SimpleDataKey;
+
+/**
+ * Computes several metrics on all the nodes of a file in a single
+ * traversal, instead of one traversal per metric and per node. A language
+ * module holds an instance per language processor, and its metrics call
+ * {@link #computeOnFile(Metric, Node, MetricOptions) computeOnFile} before
+ * computing their value on a single node.
+ *
+ * <p>The metrics and options that are computed are recorded. The first
+ * time one of them is computed on a node of a file, all the recorded
+ * metrics are computed on the whole file, and their values are cached on
+ * the nodes like {@link MetricsUtil#computeMetric(Metric, Node, MetricOptions)}
+ * does. The later calls to {@code computeMetric} then find the value in the
+ * cache.
+ *
+ * @since 7.0.0
+ */
+@Experimental
+public final class FusedMetrics {
+
+    private final SimpleDataKey<Boolean> traversedKey = DataMap.simpleDataKey("metrics.traversed");
+    private final ConcurrentMap<Metric<?, ?>, Set<MetricOptions>> requests = new ConcurrentHashMap<>();
+    private final Map<Metric<?, ?>, Set<MetricOptions>> requestsView = Collections.unmodifiableMap(requests);
+    private final Set<? extends Metric<?, ?>> supportedMetrics;
+    private final Traversal traversal;
+
+    /**
+     * Create a new instance.
+     *
+     * @param supportedMetrics The metrics that the traversal can compute
+     * @param traversal        Computes the requested metrics on a file
+     */
+    public FusedMetrics(Set<? extends Metric<?, ?>> supportedMetrics, Traversal traversal) {
+        this.supportedMetrics = supportedMetrics;
+        this.traversal = traversal;
+    }
+
+    /**
+     * Records that the metric is used, and computes the recorded metrics
+     * on the file of the node if this was not done yet. Returns the value
+     * of the metric on the node if it was computed by this call. Returns
+     * null otherwise, eg if the file was already traversed, or if the
+     * traversal does not compute the metric on this node. The caller should
+     * then compute the metric on the node itself.
+     *
+     * @param metric  The metric
+     * @param node    The node
+     * @param options The options of the metric
+     *
+     * @return The value of the metric, or null
+     */
+    public <N extends Node, R extends Number> @Nullable R computeOnFile(Metric<? super N, R> metric, N node, MetricOptions options) {
+        if (!supportedMetrics.contains(metric)) {
+            return null;
+        }
+        requests.computeIfAbsent(metric, k -> ConcurrentHashMap.newKeySet()).add(options);
+
+        RootNode root = node.getRoot();
+        if (root.getUserMap().isSet(traversedKey)) {
+            return null;
+        }
+        root.getUserMap().set(traversedKey, true);
+        traversal.computeAll(root, requestsView);
+        return node.getUserMap().get(ParameterizedMetricKey.getInstance(metric, options));
+    }
+
+    /**
+     * Caches the value of a metric on a node, as if it had been computed
+     * by {@link MetricsUtil#computeMetric(Metric, Node, MetricOptions)}.
+     * The metric must support the node.
+     *
+     * @param metric  The metric
+     * @param node    The node
+     * @param options The options of the metric
+     * @param value   The value of the metric
+     */
+    public static <N extends Node, R extends Number> void store(Metric<? super N, R> metric, N node, MetricOptions options, R value) {
+        node.getUserMap().set(ParameterizedMetricKey.getInstance(metric, options), value);
+    }
+
+    /**
+     * Computes metrics on all the nodes of a file that support them, and
+     * {@linkplain #store(Metric, Node, MetricOptions, Number) stores} their values.
+     */
+    @FunctionalInterface
+    public interface Traversal {
+
+        /**
+         * Computes the requested metrics on the file.
+         *
+         * @param root     The root of the file
+         * @param requests The options with which each metric is requested.
+         *                 Only supported metrics are present.
+         */
+        void computeAll(RootNode root, Map<Metric<?, ?>, Set<MetricOptions>> requests);
+    }
+}
@@ -10,8 +10,11 @@ import java.util.Set;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.NodeStream;
+import net.sourceforge.pmd.lang.ast.RootNode;
 
 
 /**
@@ -60,4 +63,31 @@ public interface LanguageMetricsProvider {
         }
         return results;
     }
+
+    /**
+     * Returns the nodes of the file whose metrics are exported by the
+     * {@code pmd metrics} command, usually the classes and operations.
+     * The default implementation returns no node.
+     *
+     * @param root Root of a file of this language
+     *
+     * @return The exported nodes, in document order
+     */
+    @Experimental
+    default NodeStream<? extends Node> getExportedNodes(RootNode root) {
+        return NodeStream.empty();
+    }
+
+    /**
+     * Returns the name with which the metrics of the node are exported,
+     * eg the qualified name of a class or the signature of an operation.
+     * The node is one of the {@linkplain #getExportedNodes(RootNode) exported nodes}.
+     * The default implementation returns the XPath name of the node.
+     *
+     * @param node An exported node
+     */
+    @Experimental
+    default String getExportedName(Node node) {
+        return node.getXPathNodeName();
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.metrics.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.FileNameRenderer;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.ListenerInitializer;
+import net.sourceforge.pmd.reporting.Report.ProcessingError;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import net.sourceforge.pmd.util.log.MessageReporter;
+
+/**
+ * Writes the metrics reported by {@link MetricsExportRule} as CSV, with
+ * one row per node and metric. This "long" layout is used because the
+ * languages have different metrics, and the metrics of the analysis are
+ * not known when the header is written. The rows of a file are buffered
+ * and written when the file is done, so the output is streamed while
+ * the files are analyzed in parallel.
+ */
+public final class MetricsCsvWriter implements GlobalAnalysisListener {
+
+    private static final String[] HEADER = {"File", "Language", "Line", "Name", "Metric", "Value"};
+
+    private final Writer writer;
+    private final MessageReporter reporter;
+    private FileNameRenderer fileNameRenderer = fileId -> fileId.getOriginalPath();
+    private int numRows;
+
+    /**
+     * Create a new writer and write the header.
+     *
+     * @param writer   Destination of the rows, closed with this listener
+     * @param reporter Reporter for the files whose metrics could not be computed
+     *
+     * @throws IOException If the header cannot be written
+     */
+    public MetricsCsvWriter(Writer writer, MessageReporter reporter) throws IOException {
+        this.writer = writer;
+        this.reporter = reporter;
+        StringBuilder header = new StringBuilder();
+        appendRow(header, HEADER);
+        writer.write(header.toString());
+    }
+
+    @Override
+    public ListenerInitializer initializer() {
+        return new ListenerInitializer() {
+            @Override
+            public void setFileNameRenderer(FileNameRenderer renderer) {
+                fileNameRenderer = renderer;
+            }
+        };
+    }
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        String fileName = fileNameRenderer.getDisplayName(file);
+        StringBuilder rows = new StringBuilder();
+        return new FileAnalysisListener() {
+            private int fileRows;
+
+            @Override
+            public void onRuleViolation(RuleViolation violation) {
+                if (!(violation.getRule() instanceof MetricsExportRule)) {
+                    return;
+                }
+                Map<String, String> info = violation.getAdditionalInfo();
+                String language = violation.getRule().getLanguage().getId();
+                String line = Integer.toString(violation.getBeginLine());
+                String name = info.get(MetricsExportRule.NAME_KEY);
+                for (Entry<String, String> entry : info.entrySet()) {
+                    if (entry.getKey().startsWith(MetricsExportRule.METRIC_PREFIX)) {
+                        String metric = entry.getKey().substring(MetricsExportRule.METRIC_PREFIX.length());
+                        appendRow(rows, fileName, language, line, name, metric, entry.getValue());
+                        fileRows++;
+                    }
+                }
+            }
+
+            @Override
+            public void onError(ProcessingError error) {
+                reporter.warn("Could not compute the metrics of {0}: {1}", fileName, error.getMsg());
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (rows.length() > 0) {
+                    synchronized (writer) {
+                        writer.write(rows.toString());
+                        numRows += fileRows;
+                    }
+                }
+            }
+        };
+    }
+
+    /** Returns the number of rows written so far, not counting the header. */
+    public int getNumRows() {
+        synchronized (writer) {
+            return numRows;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static void appendRow(StringBuilder sb, String... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendValue(sb, values[i]);
+        }
+        sb.append('\n');
+    }
+
+    private static void appendValue(StringBuilder sb, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            sb.append(value);
+        } else {
+            sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
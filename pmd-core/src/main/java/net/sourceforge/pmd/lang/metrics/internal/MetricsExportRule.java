@@ -0,0 +1,116 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.metrics.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.metrics.LanguageMetricsProvider;
+import net.sourceforge.pmd.lang.metrics.Metric;
+import net.sourceforge.pmd.lang.metrics.MetricOptions;
+import net.sourceforge.pmd.lang.metrics.MetricsUtil;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+import net.sourceforge.pmd.properties.PropertyFactory;
+import net.sourceforge.pmd.reporting.ParametricRuleViolation;
+import net.sourceforge.pmd.reporting.RuleContext;
+
+/**
+ * Computes the metrics of the {@linkplain LanguageMetricsProvider#getExportedNodes(RootNode) exported nodes}
+ * of a file, and reports them as one violation per node. The name of the
+ * node and the value of each metric are stored in the additional info of
+ * the violation. Since violations are stored in the analysis cache, the
+ * metrics of unchanged files are replayed from the cache without parsing
+ * the files again. See {@link MetricsCsvWriter}.
+ */
+public final class MetricsExportRule extends AbstractRule {
+
+    /** Key of the exported name of the node in the additional info. */
+    public static final String NAME_KEY = "metricsExportName";
+    /** Prefix of the keys of the metric values in the additional info. */
+    public static final String METRIC_PREFIX = "metric:";
+
+    private static final PropertyDescriptor<List<String>> METRICS =
+        PropertyFactory.stringListProperty("metrics")
+                       .desc("Names of the exported metrics. If empty, all the metrics of the language are exported.")
+                       .emptyDefaultValue()
+                       .build();
+
+    public MetricsExportRule() {
+        definePropertyDescriptor(METRICS);
+    }
+
+    /**
+     * Returns a rule that exports the given metrics of the files of the
+     * language.
+     *
+     * @param language    The language
+     * @param metricNames Names or aliases of the metrics. Names that are not
+     *                    metrics of the language are ignored. If empty,
+     *                    all the metrics of the language are exported.
+     */
+    public static MetricsExportRule forLanguage(Language language, List<String> metricNames) {
+        MetricsExportRule rule = new MetricsExportRule();
+        rule.setLanguage(language);
+        rule.setName("MetricsExport");
+        rule.setMessage("Metrics");
+        rule.setProperty(METRICS, metricNames);
+        return rule;
+    }
+
+    @Override
+    public void apply(Node target, RuleContext ctx) {
+        LanguageMetricsProvider provider = target.getAstInfo().getLanguageProcessor().services().getLanguageMetricsProvider();
+        if (provider == null) {
+            return;
+        }
+        List<Metric<?, ?>> metrics = selectMetrics(provider);
+        provider.getExportedNodes((RootNode) target).forEach(node -> {
+            Map<String, String> info = new LinkedHashMap<>();
+            for (Metric<?, ?> metric : metrics) {
+                Number value = computeIfSupported(metric, node);
+                if (value != null && !(value instanceof Double && ((Double) value).isNaN())) {
+                    info.put(METRIC_PREFIX + metric.displayName(), value.toString());
+                }
+            }
+            if (!info.isEmpty()) {
+                String name = provider.getExportedName(node);
+                info.put(NAME_KEY, name);
+                ctx.addViolationNoSuppress(new ParametricRuleViolation(this, node, "Metrics of " + name, info));
+            }
+        });
+    }
+
+    private List<Metric<?, ?>> selectMetrics(LanguageMetricsProvider provider) {
+        List<String> names = getProperty(METRICS);
+        if (names.isEmpty()) {
+            return new ArrayList<>(provider.getMetrics());
+        }
+        List<Metric<?, ?>> metrics = new ArrayList<>();
+        for (String name : names) {
+            Metric<?, ?> metric = provider.getMetricWithName(name);
+            if (metric != null && !metrics.contains(metric)) {
+                metrics.add(metric);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Goes through {@link MetricsUtil}, so that values that were
+     * computed for the whole file at once are reused.
+     */
+    private static <N extends Node, R extends Number> @Nullable R computeIfSupported(Metric<N, R> metric, Node node) {
+        N n = metric.castIfSupported(node);
+        return n == null ? null : MetricsUtil.computeMetric(metric, n, MetricOptions.emptyOptions());
+    }
+}
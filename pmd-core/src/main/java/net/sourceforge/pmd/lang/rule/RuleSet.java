@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -28,6 +29,7 @@ import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.document.TextFile;
 import net.sourceforge.pmd.lang.rule.internal.RuleSetReference;
 import net.sourceforge.pmd.lang.rule.xpath.XPathRule;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
 
 /**
  * This class represents a collection of rules along with some optional filter
@@ -107,8 +109,16 @@ public class RuleSet implements ChecksumAware {
         if (rule instanceof XPathRule) {
             checksum = ((XPathRule) rule).getXPathExpression().hashCode();
         } else {
-            // TODO : Is this good enough? all properties' values + rule name
-            checksum = rule.getPropertiesByPropertyDescriptor().values().hashCode() * 31 + rule.getName().hashCode();
+            // all properties' values + rule name. The values are hashed as strings, as
+            // the hash code of eg java.util.regex.Pattern is not stable across runs.
+            long valuesChecksum = 0;
+            for (Map.Entry<PropertyDescriptor<?>, Object> entry : rule.getPropertiesByPropertyDescriptor().entrySet()) {
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                String valueString = ((PropertyDescriptor) entry.getKey()).serializer().toString(entry.getValue());
+                // summed, as the order of the properties is unspecified
+                valuesChecksum += (entry.getKey().name() + "=" + valueString).hashCode();
+            }
+            checksum = valuesChecksum * 31 + rule.getName().hashCode();
         }
 
         final RuleSetBuilder builder =
@@ -0,0 +1,239 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextDocument;
+
+/**
+ * Limits on the work spent on a single file, so that a pathological
+ * file (eg a minified or generated one) cannot stall the analysis:
+ * <ul>
+ * <li>a maximum file size, checked before parsing;
+ * <li>a CPU-time budget for the whole processing of a file;
+ * <li>a CPU-time budget for each rule applied to a file.
+ * </ul>
+ *
+ * <p>Time budgets are enforced cooperatively. The {@link RuleApplicator}
+ * checks them between target nodes, and expensive passes call {@link #checkpoint()}
+ * regularly. When a budget is exceeded, {@link #checkpoint()} throws a
+ * {@link BudgetExceededException}, and the remaining work is skipped:
+ * the remaining target nodes of the rule, or the remaining rules when
+ * the budget of the file is exceeded.
+ *
+ * <p>The budget of the file being processed is tracked in a thread-local,
+ * like {@link net.sourceforge.pmd.benchmark.TimeTracker} does. Checkpoints
+ * are cheap: the CPU time of the thread is only queried once enough
+ * wall-clock time has elapsed for a budget to possibly be exceeded.
+ */
+public final class AnalysisBudget {
+
+    /** No limit at all. */
+    public static final AnalysisBudget UNLIMITED = new AnalysisBudget(0, 0, 0);
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean USE_CPU_TIME = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+                                                && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+    private static final ThreadLocal<Tracker> TRACKER = new ThreadLocal<>();
+
+    private final long fileBudgetNanos;
+    private final long ruleBudgetNanos;
+    private final int maxFileSize;
+
+    /**
+     * Create a new budget. A value of zero means no limit.
+     *
+     * @param fileBudgetMillis CPU time allowed for the processing of a file, in milliseconds
+     * @param ruleBudgetMillis CPU time allowed for each rule on a file, in milliseconds
+     * @param maxFileSize      Maximum number of characters of a file
+     */
+    public AnalysisBudget(long fileBudgetMillis, long ruleBudgetMillis, int maxFileSize) {
+        if (fileBudgetMillis < 0 || ruleBudgetMillis < 0 || maxFileSize < 0) {
+            throw new IllegalArgumentException("Budgets must be positive or zero");
+        }
+        this.fileBudgetNanos = TimeUnit.MILLISECONDS.toNanos(fileBudgetMillis);
+        this.ruleBudgetNanos = TimeUnit.MILLISECONDS.toNanos(ruleBudgetMillis);
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Check that the given document does not exceed the maximum file size.
+     * This is cheaper than parsing it.
+     *
+     * @throws BudgetExceededException If the document is too large
+     */
+    public void checkFileSize(TextDocument document) {
+        int length = document.getLength();
+        if (maxFileSize > 0 && length > maxFileSize) {
+            throw new BudgetExceededException(
+                "File " + document.getFileId().getAbsolutePath() + " has " + length
+                    + " characters, more than the maximum of " + maxFileSize + ", skipping it",
+                true);
+        }
+    }
+
+    /** Returns the maximum number of characters of a file, zero if there is no limit. */
+    public int getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Start tracking the time spent on the given file on the current
+     * thread. This must be followed by a call to {@link #finishFile()}.
+     */
+    public void startFile(FileId fileId) {
+        if (fileBudgetNanos > 0 || ruleBudgetNanos > 0) {
+            TRACKER.set(new Tracker(this, fileId));
+        }
+    }
+
+    /** Stop tracking the time spent on the current file. */
+    public static void finishFile() {
+        TRACKER.remove();
+    }
+
+    /**
+     * Check that the budgets of the current file and rule are not exceeded.
+     * This does nothing if no budget is tracked on the current thread.
+     *
+     * @throws BudgetExceededException If a budget is exceeded
+     */
+    public static void checkpoint() {
+        Tracker tracker = TRACKER.get();
+        if (tracker != null) {
+            tracker.check();
+        }
+    }
+
+    static void startRule(String ruleName) {
+        Tracker tracker = TRACKER.get();
+        if (tracker != null) {
+            tracker.ruleName = ruleName;
+            if (tracker.budget.ruleBudgetNanos > 0) {
+                tracker.rule = new Deadline(tracker.budget.ruleBudgetNanos);
+            }
+        }
+    }
+
+    static void finishRule() {
+        Tracker tracker = TRACKER.get();
+        if (tracker != null) {
+            tracker.ruleName = null;
+            tracker.rule = null;
+        }
+    }
+
+    /**
+     * Returns true if the budget of the current file was exceeded, in
+     * which case no more rules should be applied.
+     */
+    static boolean isFileBudgetExceeded() {
+        Tracker tracker = TRACKER.get();
+        return tracker != null && tracker.fileExceeded;
+    }
+
+    private static long cpuTime() {
+        return USE_CPU_TIME ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class Tracker {
+
+        private final AnalysisBudget budget;
+        private final FileId fileId;
+        private final @Nullable Deadline file;
+        private @Nullable Deadline rule;
+        private @Nullable String ruleName;
+        private boolean fileExceeded;
+
+        Tracker(AnalysisBudget budget, FileId fileId) {
+            this.budget = budget;
+            this.fileId = fileId;
+            this.file = budget.fileBudgetNanos > 0 ? new Deadline(budget.fileBudgetNanos) : null;
+        }
+
+        void check() {
+            if (file != null && file.isExceeded()) {
+                fileExceeded = true;
+                throw new BudgetExceededException(
+                    "Time budget of " + toMillis(budget.fileBudgetNanos) + " ms for file " + fileId.getAbsolutePath()
+                        + " exceeded after " + toMillis(file.spent()) + " ms"
+                        + (ruleName != null ? " while applying rule " + ruleName : "")
+                        + ", skipping remaining rules",
+                    true);
+            }
+            if (rule != null && rule.isExceeded()) {
+                throw new BudgetExceededException(
+                    "Time budget of " + toMillis(budget.ruleBudgetNanos) + " ms for rule " + ruleName
+                        + " exceeded after " + toMillis(rule.spent()) + " ms on file " + fileId.getAbsolutePath()
+                        + ", skipping the rest of the file for this rule",
+                    false);
+            }
+        }
+    }
+
+    private static final class Deadline {
+
+        private final long cpuStart = cpuTime();
+        private final long budgetNanos;
+        // The CPU time of a thread grows at most as fast as the wall-clock
+        // time, so it only needs to be queried after this instant.
+        private long nextCheck;
+
+        Deadline(long budgetNanos) {
+            this.budgetNanos = budgetNanos;
+            this.nextCheck = System.nanoTime() + budgetNanos;
+        }
+
+        long spent() {
+            return cpuTime() - cpuStart;
+        }
+
+        boolean isExceeded() {
+            long now = System.nanoTime();
+            if (now - nextCheck < 0) {
+                return false;
+            }
+            long spent = spent();
+            if (spent >= budgetNanos) {
+                return true;
+            }
+            nextCheck = now + budgetNanos - spent;
+            return false;
+        }
+    }
+
+    /**
+     * Thrown by {@link #checkpoint()} when a budget is exceeded.
+     */
+    public static final class BudgetExceededException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean fileBudget;
+
+        BudgetExceededException(String message, boolean fileBudget) {
+            super(message);
+            this.fileBudget = fileBudget;
+        }
+
+        /**
+         * Returns true if the budget of the whole file was exceeded,
+         * false if only the budget of the current rule was.
+         */
+        public boolean isFileBudget() {
+            return fileBudget;
+        }
+    }
+}
@@ -6,8 +6,10 @@ package net.sourceforge.pmd.lang.rule.internal;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.apache.commons.lang3.exception.ExceptionContext;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,9 +22,11 @@ import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.rule.Rule;
 import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.internal.AnalysisBudget.BudgetExceededException;
 import net.sourceforge.pmd.reporting.FileAnalysisListener;
 import net.sourceforge.pmd.reporting.Report.ProcessingError;
 import net.sourceforge.pmd.reporting.RuleContext;
+import net.sourceforge.pmd.reporting.ViolationSuppressor;
 import net.sourceforge.pmd.util.AssertionUtil;
 import net.sourceforge.pmd.util.StringUtil;
 
@@ -52,17 +56,31 @@ public class RuleApplicator {
     }
 
     public void apply(Collection<? extends Rule> rules, FileAnalysisListener listener) {
-        applyOnIndex(idx, rules, listener);
+        applyOnIndex(idx, rules, listener, null);
     }
 
-    private void applyOnIndex(TreeIndex idx, Collection<? extends Rule> rules, FileAnalysisListener listener) {
+    /**
+     * Apply the rules, using the given suppressors for their violationSuppressXPath
+     * property. Rules that are not in the map don't have that property.
+     */
+    public void apply(Collection<? extends Rule> rules, FileAnalysisListener listener, Map<Rule, ViolationSuppressor> xpathSuppressors) {
+        applyOnIndex(idx, rules, listener, xpathSuppressors);
+    }
+
+    private void applyOnIndex(TreeIndex idx, Collection<? extends Rule> rules, FileAnalysisListener listener,
+                              @Nullable Map<Rule, ViolationSuppressor> xpathSuppressors) {
         for (Rule rule : rules) {
             if (!RuleSet.applies(rule, currentLangVer)) {
                 continue; // No point in even trying to apply the rule
             }
-            
-            RuleContext ctx = RuleContext.create(listener, rule);
+            if (AnalysisBudget.isFileBudgetExceeded()) {
+                return; // already reported
+            }
+
+            RuleContext ctx = xpathSuppressors == null ? RuleContext.create(listener, rule)
+                                                       : RuleContext.create(listener, rule, xpathSuppressors.get(rule));
             rule.start(ctx);
+            AnalysisBudget.startRule(rule.getName());
             try (TimedOperation rcto = TimeTracker.startOperation(TimedOperationCategory.RULE, rule.getName())) {
 
                 int nodeCounter = 0;
@@ -71,8 +89,12 @@ public class RuleApplicator {
                     Node node = targets.next();
 
                     try {
+                        AnalysisBudget.checkpoint();
                         nodeCounter++;
                         rule.apply(node, ctx);
+                    } catch (BudgetExceededException e) {
+                        reportBudgetExceeded(listener, rule, node, e, nodeCounter);
+                        break;
                     } catch (RuntimeException e) {
                         reportOrRethrow(listener, rule, node, AssertionUtil.contexted(e), true);
                     } catch (StackOverflowError e) {
@@ -84,6 +106,7 @@ public class RuleApplicator {
                 
                 rcto.close(nodeCounter);
             } finally {
+                AnalysisBudget.finishRule();
                 rule.end(ctx);
             }
         }
@@ -115,6 +138,12 @@ public class RuleApplicator {
     }
 
 
+    private void reportBudgetExceeded(FileAnalysisListener listener, Rule rule, Node node, BudgetExceededException e, int nodeCounter) {
+        listener.onError(new ProcessingError(e, node.getTextDocument().getFileId()));
+        LOG.warn("{} (rule {} was applied on {} target nodes)", e.getMessage(), rule.getName(), nodeCounter);
+    }
+
+
     private void indexTree(Node top, TreeIndex idx) {
         idx.indexNode(top);
         for (Node child : top.children()) {
@@ -0,0 +1,213 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+
+/**
+ * Decides which rulesets of a {@link RuleSets} apply to a file, given
+ * their file inclusion and exclusion patterns, with the same semantics
+ * as {@link RuleSet#applies(FileId)}. This is meant to be faster when
+ * there are many rulesets and patterns:
+ * <ul>
+ * <li>The path of the file is normalized once, not once per ruleset.
+ * <li>Patterns shared by several rulesets, eg when they are defined in
+ * a common ruleset that is referenced, are only matched once per file.
+ * <li>Patterns that contain a literal substring, which every match must
+ * contain, are only matched if the path contains that substring.
+ * </ul>
+ *
+ * <p>Instances are immutable.
+ */
+final class RuleSetFileFilter {
+
+    private final FilePattern[] patterns;
+    private final int[][] excludes;
+    private final int[][] includes;
+
+    private RuleSetFileFilter(FilePattern[] patterns, int[][] excludes, int[][] includes) {
+        this.patterns = patterns;
+        this.excludes = excludes;
+        this.includes = includes;
+    }
+
+    static RuleSetFileFilter create(List<RuleSet> ruleSets) {
+        Map<String, Integer> indexByPattern = new HashMap<>();
+        List<FilePattern> patterns = new ArrayList<>();
+        int[][] excludes = new int[ruleSets.size()][];
+        int[][] includes = new int[ruleSets.size()][];
+        for (int i = 0; i < ruleSets.size(); i++) {
+            excludes[i] = indexPatterns(ruleSets.get(i).getFileExclusions(), indexByPattern, patterns);
+            includes[i] = indexPatterns(ruleSets.get(i).getFileInclusions(), indexByPattern, patterns);
+        }
+        return new RuleSetFileFilter(patterns.toArray(new FilePattern[0]), excludes, includes);
+    }
+
+    private static int[] indexPatterns(List<Pattern> regexes, Map<String, Integer> indexByPattern, List<FilePattern> patterns) {
+        int[] result = new int[regexes.size()];
+        for (int i = 0; i < result.length; i++) {
+            Pattern regex = regexes.get(i);
+            // patterns are equal if they have the same source and flags
+            result[i] = indexByPattern.computeIfAbsent(regex.flags() + ":" + regex.pattern(), k -> {
+                patterns.add(new FilePattern(regex));
+                return patterns.size() - 1;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Returns an array whose i-th element is true if the i-th ruleset
+     * applies to the given file.
+     */
+    boolean[] applicableRuleSets(FileId fileId) {
+        String path = fileId.getAbsolutePath().replace('\\', '/');
+        // 0: not matched yet, 1: matches, 2: does not match
+        byte[] matches = new byte[patterns.length];
+        boolean[] result = new boolean[excludes.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = !anyMatches(excludes[i], path, matches) || anyMatches(includes[i], path, matches);
+        }
+        return result;
+    }
+
+    private boolean anyMatches(int[] patternIndices, String path, byte[] matches) {
+        for (int index : patternIndices) {
+            if (matches[index] == 0) {
+                matches[index] = patterns[index].matches(path) ? (byte) 1 : (byte) 2;
+            }
+            if (matches[index] == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the longest literal that any string matching the regex
+     * must contain, or null if there is none, or if it cannot be found
+     * with certainty. Only the top level of the regex is considered,
+     * which is enough for typical exclusion patterns like {@code .*&#47;generated&#47;.*}.
+     */
+    static @Nullable String findRequiredLiteral(Pattern regex) {
+        String source = regex.pattern();
+        if (regex.flags() != 0 || source.contains("(?") || source.contains("\\Q")) {
+            // flags may change the meaning of literals
+            return null;
+        }
+        String longest = "";
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            char literal = 0;
+            int next = i + 1;
+            if (c == '\\' && next < source.length()) {
+                char escaped = source.charAt(next);
+                next++;
+                if (Character.isDigit(escaped) || "xuckpPN".indexOf(escaped) >= 0) {
+                    // the escape has an argument, eg \x41, \cM or \p{Alpha},
+                    // which must not be taken as a literal
+                    return null;
+                } else if (!Character.isLetter(escaped)) {
+                    literal = escaped;
+                }
+            } else if (c == '[') {
+                // skip the character class
+                next = skipCharClass(source, i);
+                if (next < 0) {
+                    return null;
+                }
+            } else if (c == '{') {
+                // skip the whole {n,m} quantifier, its digits are not literals
+                next = source.indexOf('}', i) + 1;
+                if (next == 0) {
+                    return null;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|') {
+                if (depth == 0) {
+                    // top-level alternation, nothing is required
+                    return null;
+                }
+            } else if (".^$*+?".indexOf(c) < 0) {
+                literal = c;
+            }
+
+            char quantifier = next < source.length() ? source.charAt(next) : 0;
+            boolean optional = quantifier == '?' || quantifier == '*' || quantifier == '{';
+            if (literal != 0 && depth == 0 && !optional) {
+                run.append(literal);
+                if (quantifier == '+') {
+                    // the next characters need not follow this one
+                    longest = longer(longest, run);
+                    run.setLength(0);
+                }
+            } else {
+                longest = longer(longest, run);
+                run.setLength(0);
+            }
+            i = next;
+        }
+        longest = longer(longest, run);
+        return longest.length() >= 2 ? longest : null;
+    }
+
+    private static String longer(String longest, CharSequence run) {
+        return run.length() > longest.length() ? run.toString() : longest;
+    }
+
+    private static int skipCharClass(String source, int start) {
+        int i = start + 1;
+        if (i < source.length() && source.charAt(i) == '^') {
+            i++;
+        }
+        if (i < source.length() && source.charAt(i) == ']') {
+            i++;
+        }
+        int depth = 1;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static final class FilePattern {
+
+        private final Pattern regex;
+        private final @Nullable String requiredLiteral;
+
+        FilePattern(Pattern regex) {
+            this.regex = regex;
+            this.requiredLiteral = findRequiredLiteral(regex);
+        }
+
+        boolean matches(String path) {
+            return (requiredLiteral == null || path.contains(requiredLiteral))
+                && regex.matcher(path).matches();
+        }
+    }
+}
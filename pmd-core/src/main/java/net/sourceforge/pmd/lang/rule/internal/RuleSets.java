@@ -8,19 +8,25 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.lang.LanguageProcessor;
 import net.sourceforge.pmd.lang.LanguageProcessorRegistry;
 import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.document.TextFile;
 import net.sourceforge.pmd.lang.rule.Rule;
 import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.xpath.internal.XPathViolationSuppressor;
 import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.ViolationSuppressor;
 import net.sourceforge.pmd.util.log.MessageReporter;
 
 /**
@@ -34,6 +40,21 @@ public class RuleSets {
 
     private RuleApplicator ruleApplicator;
 
+    /**
+     * Compiled violationSuppressXPath of the rules that have one. This is
+     * null until {@link #initializeRules} has been called, in which case
+     * the expressions are compiled for each violation.
+     */
+    private Map<Rule, ViolationSuppressor> xpathSuppressors;
+
+    private RuleSetFileFilter fileFilter;
+    /**
+     * The rulesets that apply to the last file that was checked, so that
+     * {@link #apply(RootNode, FileAnalysisListener)} does not match the
+     * file patterns again after {@link #applies(TextFile)}.
+     */
+    private ApplicableRuleSets lastApplicable;
+
     /**
      * Copy constructor. Deep copies RuleSets.
      *
@@ -62,11 +83,17 @@ public class RuleSets {
 
     public void initializeRules(LanguageProcessorRegistry lpReg, MessageReporter reporter) {
         // this is abusing the mutability of RuleSet, will go away eventually.
+        xpathSuppressors = new IdentityHashMap<>();
         for (RuleSet rset : ruleSets) {
             for (Iterator<Rule> iterator = rset.getRules().iterator(); iterator.hasNext();) {
                 Rule rule = iterator.next();
                 try {
-                    rule.initialize(lpReg.getProcessor(rule.getLanguage()));
+                    LanguageProcessor processor = lpReg.getProcessor(rule.getLanguage());
+                    rule.initialize(processor);
+                    XPathViolationSuppressor xpathSuppressor = XPathViolationSuppressor.compile(rule, processor);
+                    if (xpathSuppressor != null) {
+                        xpathSuppressors.put(rule, xpathSuppressor);
+                    }
                 } catch (Exception e) {
                     reporter.errorEx(
                         "Exception while initializing rule " + rule.getName() + ", the rule will not be run", e);
@@ -120,14 +147,27 @@ public class RuleSets {
      *         <code>false</code> otherwise
      */
     public boolean applies(TextFile file) {
-        for (RuleSet ruleSet : ruleSets) {
-            if (ruleSet.applies(file)) {
+        for (boolean applies : applicableRuleSets(file.getFileId())) {
+            if (applies) {
                 return true;
             }
         }
         return false;
     }
 
+    private boolean[] applicableRuleSets(FileId fileId) {
+        ApplicableRuleSets last = lastApplicable;
+        if (last != null && last.fileId.equals(fileId)) {
+            return last.ruleSets;
+        }
+        if (fileFilter == null) {
+            fileFilter = RuleSetFileFilter.create(ruleSets);
+        }
+        boolean[] result = fileFilter.applicableRuleSets(fileId);
+        lastApplicable = new ApplicableRuleSets(fileId, result);
+        return result;
+    }
+
     /**
      * Apply all applicable rules to the compilation units. Applicable means the
      * language of the rules must match the language of the source (@see
@@ -149,9 +189,15 @@ public class RuleSets {
             ruleApplicator.index(root);
         }
 
-        for (RuleSet ruleSet : ruleSets) {
-            if (ruleSet.applies(root.getTextDocument().getFileId())) {
-                ruleApplicator.apply(ruleSet.getRules(), listener);
+        boolean[] applicable = applicableRuleSets(root.getTextDocument().getFileId());
+        for (int i = 0; i < applicable.length; i++) {
+            if (applicable[i]) {
+                RuleSet ruleSet = ruleSets.get(i);
+                if (xpathSuppressors != null) {
+                    ruleApplicator.apply(ruleSet.getRules(), listener, xpathSuppressors);
+                } else {
+                    ruleApplicator.apply(ruleSet.getRules(), listener);
+                }
             }
         }
     }
@@ -213,4 +259,15 @@ public class RuleSets {
         }
         return checksum;
     }
+
+    private static final class ApplicableRuleSets {
+
+        final FileId fileId;
+        final boolean[] ruleSets;
+
+        ApplicableRuleSets(FileId fileId, boolean[] ruleSets) {
+            this.fileId = fileId;
+            this.ruleSets = ruleSets;
+        }
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.xpath.internal;
+
+import java.util.Optional;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.LanguageProcessor;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.xpath.PmdXPathException;
+import net.sourceforge.pmd.lang.rule.xpath.XPathVersion;
+import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import net.sourceforge.pmd.reporting.ViolationSuppressor;
+import net.sourceforge.pmd.util.DataMap;
+import net.sourceforge.pmd.util.DataMap.SimpleDataKey;
+
+/**
+ * Suppressor for the violationSuppressXPath property of a single rule.
+ * Contrary to {@link ViolationSuppressor#XPATH_SUPPRESSOR}, the XPath
+ * query is compiled only once, when the rule is initialized. Like the
+ * rule itself, an instance must only be used by one thread.
+ */
+public final class XPathViolationSuppressor implements ViolationSuppressor {
+
+    private final String xpath;
+    private final SaxonXPathRuleQuery query;
+
+    // violations are often reported several times on the same node. The
+    // result is stored on the node, so that it is released with the AST.
+    private final SimpleDataKey<Boolean> suppressedKey = DataMap.simpleDataKey("violationSuppressXPath");
+
+    private XPathViolationSuppressor(String xpath, SaxonXPathRuleQuery query) {
+        this.xpath = xpath;
+        this.query = query;
+    }
+
+    /**
+     * Compiles the violationSuppressXPath property of the given rule.
+     * Returns null if the rule doesn't have this property.
+     *
+     * @param rule      An initialized rule
+     * @param processor Language processor of the rule
+     *
+     * @throws PmdXPathException If the XPath expression is invalid
+     */
+    public static @Nullable XPathViolationSuppressor compile(Rule rule, LanguageProcessor processor) {
+        if (!rule.hasDescriptor(Rule.VIOLATION_SUPPRESS_XPATH_DESCRIPTOR)) {
+            return null;
+        }
+        Optional<String> xpath = rule.getProperty(Rule.VIOLATION_SUPPRESS_XPATH_DESCRIPTOR);
+        if (!xpath.isPresent()) {
+            return null;
+        }
+        SaxonXPathRuleQuery query = new SaxonXPathRuleQuery(
+            xpath.get(),
+            XPathVersion.DEFAULT,
+            rule.getPropertiesByPropertyDescriptor(),
+            processor.services().getXPathHandler(),
+            DeprecatedAttrLogger.createForSuppression(rule)
+        );
+        return new XPathViolationSuppressor(xpath.get(), query);
+    }
+
+    @Override
+    public String getId() {
+        return ViolationSuppressor.XPATH_SUPPRESSOR.getId();
+    }
+
+    @Override
+    public @Nullable SuppressedViolation suppressOrNull(RuleViolation rv, @NonNull Node node) {
+        boolean suppressed = node.getUserMap().computeIfAbsent(suppressedKey, () -> !query.evaluate(node).isEmpty());
+        return suppressed ? new SuppressedViolation(rv, this, xpath) : null;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.reporting.Report;
+
+/**
+ * Renders the reports of files on a dedicated thread, so that the
+ * analysis threads don't wait for each other to render their reports.
+ * Reports are handed over through a bounded queue, so that analysis
+ * threads are only slowed down if the renderer cannot keep up with them.
+ * Since reports are rendered by a single thread,
+ * {@link Renderer#renderFileReport(Report)} need not be thread-safe.
+ *
+ * <p>If rendering fails, the remaining reports are dropped, and the
+ * failure is rethrown by {@link #close()}. If the writer thread dies,
+ * the reports submitted afterwards are dropped too, instead of blocking
+ * on the full queue.
+ */
+final class AsyncReportWriter implements AutoCloseable {
+
+    private static final int CAPACITY = 256;
+    private static final long POLL_MILLIS = 100;
+    private static final Object END = new Object();
+
+    private final Renderer renderer;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread writerThread;
+    private volatile Throwable failure;
+
+    AsyncReportWriter(Renderer renderer) {
+        this.renderer = renderer;
+        this.writerThread = new Thread(this::drain, "PmdReportWriter-" + renderer.getName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queue the report of a file for rendering. This blocks if the queue is full.
+     */
+    void submit(Report report) throws InterruptedException {
+        if (failure == null) {
+            put(report);
+        }
+    }
+
+    /**
+     * Put an element in the queue, giving up if the writer thread is dead,
+     * since then nobody will ever take it.
+     */
+    private void put(Object element) throws InterruptedException {
+        while (!queue.offer(element, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!writerThread.isAlive()) {
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Object next = queue.take();
+            while (next != END) { // NOPMD CompareObjectsWithEquals
+                if (failure == null) {
+                    render((Report) next);
+                }
+                next = queue.take();
+            }
+        } catch (InterruptedException e) {
+            failure = e;
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+    }
+
+    private void render(Report report) {
+        try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
+            renderer.renderFileReport(report);
+        } catch (Exception | Error e) {
+            // the reports still in the queue are dropped by drain
+            failure = e;
+        }
+    }
+
+    /**
+     * Wait until all submitted reports are rendered.
+     *
+     * @throws Exception If rendering failed
+     */
+    @Override
+    public void close() throws Exception {
+        put(END);
+        writerThread.join();
+        Throwable t = failure;
+        if (t instanceof Exception) {
+            throw (Exception) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import net.sourceforge.pmd.internal.util.IOUtil;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.renderers.internal.binary.BinaryReportReader;
+import net.sourceforge.pmd.renderers.internal.binary.BinaryReportWriter;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.Report.ConfigurationError;
+import net.sourceforge.pmd.reporting.Report.ProcessingError;
+
+/**
+ * Renders a compact binary report, meant to be read back by PMD rather
+ * than by people. Binary reports are cheap to write and to read, and
+ * can be merged, filtered and converted to the other formats with the
+ * {@code pmd report} command, eg to combine the reports of an analysis
+ * that was split across several machines. See {@link BinaryReportReader}.
+ *
+ * <p>Suppressed violations are always written, so that they can be shown
+ * when the report is converted.
+ *
+ * <p>The report is a sequence of bytes. {@link #setReportFile(String)}
+ * writes them directly to the file. A writer given to {@link #setWriter(Writer)}
+ * receives each byte as one char, so it must encode chars with ISO-8859-1,
+ * other writers are rejected.
+ */
+public class BinaryRenderer extends AbstractRenderer {
+
+    public static final String NAME = "binary";
+
+    private OutputStream out;
+    private BinaryReportWriter reportWriter;
+
+    public BinaryRenderer() {
+        super(NAME, "Compact binary format, to be converted with the pmd report command.");
+    }
+
+    @Override
+    public String defaultFileExtension() {
+        return "pmdr";
+    }
+
+    @Override
+    public void setReportFile(String reportFilename) {
+        this.writer = null;
+        this.out = IOUtil.createOutputStream(reportFilename);
+    }
+
+    /**
+     * Sets the writer of the report. The writer must be an {@link OutputStreamWriter}
+     * that encodes chars with ISO-8859-1, as any other charset would corrupt
+     * the bytes of the report.
+     *
+     * @throws IllegalArgumentException If the writer doesn't use ISO-8859-1
+     */
+    @Override
+    public void setWriter(Writer writer) {
+        if (!(writer instanceof OutputStreamWriter)
+            || !StandardCharsets.ISO_8859_1.equals(Charset.forName(((OutputStreamWriter) writer).getEncoding()))) {
+            throw new IllegalArgumentException("The binary report must be written to a report file, "
+                                               + "or to an OutputStreamWriter with the charset ISO-8859-1");
+        }
+        super.setWriter(writer);
+        this.out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                BinaryRenderer.this.writer.write(b & 0xFF);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                char[] chars = new char[len];
+                for (int i = 0; i < len; i++) {
+                    chars[i] = (char) (b[off + i] & 0xFF);
+                }
+                BinaryRenderer.this.writer.write(chars);
+            }
+
+            @Override
+            public void close() {
+                BinaryRenderer.this.writer.close();
+            }
+        };
+    }
+
+    @Override
+    public void start() throws IOException {
+        reportWriter = new BinaryReportWriter(out);
+    }
+
+    @Override
+    public void startFileAnalysis(TextFile dataSource) {
+        // nothing to do
+    }
+
+    @Override
+    public void renderFileReport(Report report) throws IOException {
+        reportWriter.writeViolations(report.getViolations());
+        reportWriter.writeSuppressedViolations(report.getSuppressedViolations());
+        for (ProcessingError error : report.getProcessingErrors()) {
+            reportWriter.writeProcessingError(error);
+        }
+        for (ConfigurationError error : report.getConfigurationErrors()) {
+            reportWriter.writeConfigurationError(error);
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        reportWriter.finish();
+    }
+
+    @Override
+    public void flush() {
+        if (out != null) {
+            IOUtil.closeQuietly(out);
+        }
+    }
+}
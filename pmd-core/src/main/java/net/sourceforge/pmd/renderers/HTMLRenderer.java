@@ -72,6 +72,16 @@ public class HTMLRenderer extends AbstractIncrementingRenderer {
      * Write the body of the main body of the HTML content.
      */
     public void renderBody(PrintWriter writer, Report report) throws IOException {
+        startBody(writer);
+        setWriter(writer);
+        renderFileReport(report);
+        endBody(writer, errors, suppressed, configErrors);
+    }
+
+    /**
+     * Write the start of the body, up to the header of the table of violations.
+     */
+    void startBody(PrintWriter writer) {
         linkPrefix = getProperty(LINK_PREFIX);
         linePrefix = getProperty(LINE_PREFIX).orElse(null);
         replaceHtmlExtension = getProperty(HTML_EXTENSION);
@@ -80,8 +90,21 @@ public class HTMLRenderer extends AbstractIncrementingRenderer {
         writer.write("<center><h3>Problems found</h3></center>");
         writer.println("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\"><tr>");
         writer.println("<th>#</th><th>File</th><th>Line</th><th>Problem</th></tr>");
-        setWriter(writer);
-        renderFileReport(report);
+    }
+
+    /**
+     * Write the rows of the table of violations for the given violations,
+     * numbered from the given number. Returns the number of the next row.
+     */
+    int renderViolationRows(Writer writer, Iterator<RuleViolation> violations, int firstNumber) throws IOException {
+        return glomRuleViolations(writer, violations, firstNumber);
+    }
+
+    /**
+     * Write the end of the body, from the end of the table of violations.
+     */
+    void endBody(PrintWriter writer, List<Report.ProcessingError> errors, List<Report.SuppressedViolation> suppressed,
+                 List<ConfigurationError> configErrors) throws IOException {
         writer.write("</table>");
         glomProcessingErrors(writer, errors);
         if (showSuppressedViolations) {
@@ -92,35 +115,23 @@ public class HTMLRenderer extends AbstractIncrementingRenderer {
 
     @Override
     public void start() throws IOException {
-        linkPrefix = getProperty(LINK_PREFIX);
-        linePrefix = getProperty(LINE_PREFIX).orElse(null);
-        replaceHtmlExtension = getProperty(HTML_EXTENSION);
-
         writer.println("<html><head><title>PMD</title></head><body>");
-        writer.write("<center><h3>PMD report</h3></center>");
-        writer.write("<center><h3>Problems found</h3></center>");
-        writer.println("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\"><tr>");
-        writer.println("<th>#</th><th>File</th><th>Line</th><th>Problem</th></tr>");
+        startBody(writer);
     }
 
     @Override
     public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
-        glomRuleViolations(writer, violations);
+        glomRuleViolations(writer, violations, 1);
     }
 
     @Override
     public void end() throws IOException {
-        writer.write("</table>");
-        glomProcessingErrors(writer, errors);
-        if (showSuppressedViolations) {
-            glomSuppressions(writer, suppressed);
-        }
-        glomConfigurationErrors(writer, configErrors);
+        endBody(writer, errors, suppressed, configErrors);
         writer.println("</body></html>");
     }
 
-    private void glomRuleViolations(Writer writer, Iterator<RuleViolation> violations) throws IOException {
-        int violationCount = 1;
+    private int glomRuleViolations(Writer writer, Iterator<RuleViolation> violations, int firstNumber) throws IOException {
+        int violationCount = firstNumber;
 
         StringBuilder buf = new StringBuilder(500);
 
@@ -155,6 +166,7 @@ public class HTMLRenderer extends AbstractIncrementingRenderer {
             writer.write(buf.toString());
             violationCount++;
         }
+        return violationCount;
     }
 
     private String renderFileName(FileId fileId, int beginLine) {
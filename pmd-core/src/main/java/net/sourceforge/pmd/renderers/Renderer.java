@@ -196,6 +196,8 @@ public interface Renderer extends PropertySource {
     //  ie violations are batched by file and forwarded to the renderer
     //  when the file is done. Many renderers could directly handle
     //  violations as they come though.
+    //  Reports are rendered on a dedicated thread, in the order in which
+    //  files are done, so renderFileReport need not be thread-safe.
     default GlobalAnalysisListener newListener() throws IOException {
         try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
             this.start();
@@ -203,8 +205,8 @@ public interface Renderer extends PropertySource {
 
         return new GlobalAnalysisListener() {
 
-            // guard for the close routine
-            final Object reportMergeLock = new Object();
+            // renders the reports of files on its own thread
+            final AsyncReportWriter reportWriter = new AsyncReportWriter(Renderer.this);
 
             final GlobalReportBuilderListener configErrorReport = new GlobalReportBuilderListener();
 
@@ -249,12 +251,7 @@ public interface Renderer extends PropertySource {
                     @Override
                     public void close() throws Exception {
                         reportBuilder.close();
-                        synchronized (reportMergeLock) {
-                            // TODO renderFileReport should be thread-safe instead
-                            try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
-                                renderer.renderFileReport(reportBuilder.getResult());
-                            }
-                        }
+                        reportWriter.submit(reportBuilder.getResult());
                     }
 
                     @Override
@@ -266,6 +263,7 @@ public interface Renderer extends PropertySource {
 
             @Override
             public void close() throws Exception {
+                reportWriter.close();
                 configErrorReport.close();
                 Renderer.this.renderFileReport(configErrorReport.getResult());
                 try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
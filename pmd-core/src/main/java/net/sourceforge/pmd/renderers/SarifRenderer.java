@@ -9,8 +9,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 
 import net.sourceforge.pmd.internal.util.IOUtil;
-import net.sourceforge.pmd.renderers.internal.sarif.SarifLog;
-import net.sourceforge.pmd.renderers.internal.sarif.SarifLogBuilder;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLogWriter;
 import net.sourceforge.pmd.reporting.Report;
 import net.sourceforge.pmd.reporting.RuleViolation;
 
@@ -27,7 +26,7 @@ public class SarifRenderer extends AbstractIncrementingRenderer {
             .setPrettyPrinting()
             .create();
 
-    private SarifLogBuilder sarifLogBuilder;
+    private SarifLogWriter sarifLogWriter;
 
     public SarifRenderer() {
         super(NAME, DEFAULT_DESCRIPTION);
@@ -40,14 +39,15 @@ public class SarifRenderer extends AbstractIncrementingRenderer {
 
     @Override
     public void start() throws IOException {
-        sarifLogBuilder = SarifLogBuilder.sarifLogBuilder();
+        // results are written as they come, so that they are not kept in memory
+        sarifLogWriter = new SarifLogWriter(gson, writer);
     }
 
     @Override
     public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
         while (violations.hasNext()) {
             final RuleViolation violation = violations.next();
-            sarifLogBuilder.add(violation);
+            sarifLogWriter.add(violation);
         }
     }
 
@@ -59,18 +59,16 @@ public class SarifRenderer extends AbstractIncrementingRenderer {
 
     private void addErrors() {
         for (Report.ProcessingError error : this.errors) {
-            sarifLogBuilder.addRunTimeError(error);
+            sarifLogWriter.addRunTimeError(error);
         }
 
         for (Report.ConfigurationError error: this.configErrors) {
-            sarifLogBuilder.addConfigurationError(error);
+            sarifLogWriter.addConfigurationError(error);
         }
     }
 
     private void writeLog() throws IOException {
-        final SarifLog sarifLog = sarifLogBuilder.build();
-        final String json = gson.toJson(sarifLog);
-        writer.write(json);
+        sarifLogWriter.finish();
         writer.println();
     }
 
@@ -5,22 +5,41 @@
 package net.sourceforge.pmd.renderers;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.commons.lang3.mutable.MutableInt;
 
-import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.internal.util.IOUtil;
 import net.sourceforge.pmd.reporting.RuleViolation;
 
 /**
  * Renderer to a summarized HTML format.
+ *
+ * <p>The summary comes before the details in the output, but is only known
+ * at the end of the analysis. So that violations are not kept in memory,
+ * the details are written to a temporary file as violations come, and
+ * copied to the output after the summary.
  */
-public class SummaryHTMLRenderer extends AbstractAccumulatingRenderer {
+public class SummaryHTMLRenderer extends AbstractIncrementingRenderer {
 
     public static final String NAME = "summaryhtml";
 
+    private final Map<String, MutableInt> summary = new LinkedHashMap<>();
+    private HTMLRenderer htmlRenderer;
+    private Path detailsFile;
+    private PrintWriter detailsWriter;
+    private int nextViolationNumber;
+
     public SummaryHTMLRenderer() {
         super(NAME, "Summary HTML format.");
 
@@ -38,30 +57,58 @@ public class SummaryHTMLRenderer extends AbstractAccumulatingRenderer {
     }
 
     @Override
-    public void outputReport(Report report) throws IOException {
-        writer.println("<html><head><title>PMD</title></head><body>");
-        renderSummary(report);
-        writer.write("<center><h2>Detail</h2></center>");
-        writer.println("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\"><tr>");
-
-        HTMLRenderer htmlRenderer = new HTMLRenderer();
+    public void start() throws IOException {
+        htmlRenderer = new HTMLRenderer();
         htmlRenderer.setProperty(HTMLRenderer.LINK_PREFIX, getProperty(HTMLRenderer.LINK_PREFIX));
         htmlRenderer.setProperty(HTMLRenderer.LINE_PREFIX, getProperty(HTMLRenderer.LINE_PREFIX));
         htmlRenderer.setProperty(HTMLRenderer.HTML_EXTENSION, getProperty(HTMLRenderer.HTML_EXTENSION));
         htmlRenderer.setShowSuppressedViolations(showSuppressedViolations);
-        htmlRenderer.renderBody(writer, report);
 
-        writer.println("</tr></table></body></html>");
+        summary.clear();
+        nextViolationNumber = 1;
+        detailsFile = Files.createTempFile("pmd-summaryhtml-", ".html");
+        detailsWriter = new PrintWriter(Files.newBufferedWriter(detailsFile, StandardCharsets.UTF_8));
+        htmlRenderer.startBody(detailsWriter);
+    }
+
+    @Override
+    public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
+        List<RuleViolation> fileViolations = new ArrayList<>();
+        while (violations.hasNext()) {
+            RuleViolation rv = violations.next();
+            summary.computeIfAbsent(rv.getRule().getName(), k -> new MutableInt(0)).increment();
+            fileViolations.add(rv);
+        }
+        nextViolationNumber = htmlRenderer.renderViolationRows(detailsWriter, fileViolations.iterator(), nextViolationNumber);
+    }
+
+    @Override
+    public void end() throws IOException {
+        try {
+            htmlRenderer.endBody(detailsWriter, errors, suppressed, configErrors);
+            detailsWriter.close();
+
+            writer.println("<html><head><title>PMD</title></head><body>");
+            renderSummary();
+            writer.write("<center><h2>Detail</h2></center>");
+            writer.println("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\"><tr>");
+            try (Reader details = Files.newBufferedReader(detailsFile, StandardCharsets.UTF_8)) {
+                IOUtil.copy(details, writer);
+            }
+            writer.println("</tr></table></body></html>");
+        } finally {
+            detailsWriter.close();
+            Files.deleteIfExists(detailsFile);
+        }
     }
 
     /**
      * Write a Summary HTML table.
      */
-    private void renderSummary(Report report) throws IOException {
+    private void renderSummary() throws IOException {
         writer.println("<center><h2>Summary</h2></center>");
         writer.println("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\">");
         writer.println("<tr><th>Rule name</th><th>Number of violations</th></tr>");
-        Map<String, MutableInt> summary = getSummary(report);
         for (Entry<String, MutableInt> entry : summary.entrySet()) {
             String ruleName = entry.getKey();
             writer.write("<tr><td>");
@@ -73,18 +120,4 @@ public class SummaryHTMLRenderer extends AbstractAccumulatingRenderer {
         writer.println("</table>");
     }
 
-    private static Map<String, MutableInt> getSummary(Report report) {
-        Map<String, MutableInt> summary = new LinkedHashMap<>();
-        for (RuleViolation rv : report.getViolations()) {
-            String name = rv.getRule().getName();
-            MutableInt count = summary.get(name);
-            if (count == null) {
-                count = new MutableInt(0);
-                summary.put(name, count);
-            }
-            count.increment();
-        }
-        return summary;
-    }
-
 }
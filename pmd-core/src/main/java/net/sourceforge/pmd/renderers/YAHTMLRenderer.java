@@ -9,8 +9,15 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.LinkedList;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -18,14 +25,17 @@ import org.apache.commons.lang3.StringUtils;
 
 import net.sourceforge.pmd.properties.PropertyDescriptor;
 import net.sourceforge.pmd.properties.PropertyFactory;
-import net.sourceforge.pmd.reporting.Report;
 import net.sourceforge.pmd.reporting.RuleViolation;
 import net.sourceforge.pmd.util.StringUtil;
 
 /**
  * Renderer to another HTML format.
+ *
+ * <p>The violations of each class are appended to the page of the class
+ * as they come, so that they are not kept in memory. Only the violation
+ * counts of packages and classes are kept until the end of the analysis.
  */
-public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
+public class YAHTMLRenderer extends AbstractIncrementingRenderer {
 
     public static final String NAME = "yahtml";
     // TODO 7.0.0 use PropertyDescriptor<Optional<File>> with a constraint that the file is an existing directory
@@ -35,7 +45,8 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
                        .defaultValue(".")
                        .build();
 
-    private SortedMap<String, ReportNode> reportNodesByPackage = new TreeMap<>();
+    private final SortedMap<String, ReportNode> reportNodesByPackage = new TreeMap<>();
+    private final Set<String> startedPages = new LinkedHashSet<>();
 
     public YAHTMLRenderer() {
         // YA = Yet Another?
@@ -48,7 +59,7 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
         return "html";
     }
 
-    private void addViolation(RuleViolation violation) {
+    private ReportNode addViolation(RuleViolation violation) {
         String packageName = violation.getAdditionalInfo().getOrDefault(RuleViolation.PACKAGE_NAME, "");
         String className = violation.getAdditionalInfo().getOrDefault(RuleViolation.CLASS_NAME, "");
 
@@ -78,7 +89,7 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
             classNode = new ReportNode(packageName, className);
             reportNodesByPackage.put(fqClassName, classNode);
         }
-        classNode.addRuleViolation(violation);
+        classNode.addRuleViolation();
 
         // count the overall violations in the root node
         ReportNode rootNode = reportNodesByPackage.get(ReportNode.ROOT_NODE_NAME);
@@ -87,18 +98,36 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
             reportNodesByPackage.put(ReportNode.ROOT_NODE_NAME, rootNode);
         }
         rootNode.incrementViolations();
+        return classNode;
     }
 
     @Override
-    public void outputReport(Report report) throws IOException {
+    public void start() throws IOException {
+        reportNodesByPackage.clear();
+        startedPages.clear();
+    }
+
+    @Override
+    public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
         String outputDir = getProperty(OUTPUT_DIR);
 
-        for (RuleViolation ruleViolation : report.getViolations()) {
-            addViolation(ruleViolation);
+        Map<ReportNode, List<RuleViolation>> violationsByClass = new LinkedHashMap<>();
+        while (violations.hasNext()) {
+            RuleViolation violation = violations.next();
+            violationsByClass.computeIfAbsent(addViolation(violation), k -> new ArrayList<>()).add(violation);
         }
 
+        for (Map.Entry<ReportNode, List<RuleViolation>> entry : violationsByClass.entrySet()) {
+            renderClassViolations(outputDir, entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        String outputDir = getProperty(OUTPUT_DIR);
+
         renderIndex(outputDir);
-        renderClasses(outputDir);
+        finishClasses(outputDir);
 
         writer.println("<h3 align=\"center\">The HTML files are located "
                 + (outputDir == null ? "above the project directory" : "in '" + outputDir + '\'') + ".</h3>");
@@ -143,57 +172,71 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
         }
     }
 
-    private void renderClasses(String outputDir) throws IOException {
-        for (ReportNode node : reportNodesByPackage.values()) {
-            if (node.hasViolations()) {
-                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(new File(outputDir, node.getClassName() + ".html").toPath(), StandardCharsets.UTF_8))) {
-                    out.println("<!DOCTYPE html>");
-                    out.println("<html>");
-                    out.println("    <head>");
-                    out.println("        <meta charset=\"UTF-8\">");
-                    out.print("        <title>PMD - ");
-                    out.print(node.getClassName());
-                    out.println("</title>");
-                    out.println("    </head>");
-                    out.println("    <body>");
-                    out.println("        <h2>Class View</h2>");
-                    out.print("        <h3 align=\"center\">Class: ");
-                    out.print(node.getClassName());
-                    out.println("</h3>");
-                    out.println("        <table border=\"\" align=\"center\" cellspacing=\"0\" cellpadding=\"3\">");
-                    out.println("        <tr><th>Method</th><th>Violation</th></tr>");
-                    for (RuleViolation violation : node.getViolations()) {
-                        out.print("        <tr><td>");
-                        String methodName = violation.getAdditionalInfo().get(RuleViolation.METHOD_NAME);
-                        out.print(StringUtil.nullToEmpty(methodName));
-                        out.print("</td><td>");
-                        out.print("<table border=\"0\">");
-
-                        out.print(renderViolationRow("Rule:", violation.getRule().getName()));
-                        out.print(renderViolationRow("Description:", violation.getDescription()));
-
-                        String variableName = violation.getAdditionalInfo().get(RuleViolation.VARIABLE_NAME);
-                        if (StringUtils.isNotBlank(variableName)) {
-                            out.print(renderViolationRow("Variable:", variableName));
-                        }
-
-                        out.print(renderViolationRow("Line:", violation.getEndLine() > 0
-                                ? violation.getBeginLine() + " and " + violation.getEndLine()
-                                : String.valueOf(violation.getBeginLine())));
-
-                        out.print("</table>");
-
-                        out.print("</td></tr>");
-                        out.println();
-                    }
-                    out.println("        </table>");
-                    out.println("    </body>");
-                    out.println("</html>");
+    private void renderClassViolations(String outputDir, ReportNode node, List<RuleViolation> violations) throws IOException {
+        // classes with the same name in different packages share a page
+        boolean newPage = startedPages.add(node.getClassName());
+        StandardOpenOption mode = newPage ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(classPage(outputDir, node.getClassName()), StandardCharsets.UTF_8,
+                                                                       StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode))) {
+            if (newPage) {
+                out.println("<!DOCTYPE html>");
+                out.println("<html>");
+                out.println("    <head>");
+                out.println("        <meta charset=\"UTF-8\">");
+                out.print("        <title>PMD - ");
+                out.print(node.getClassName());
+                out.println("</title>");
+                out.println("    </head>");
+                out.println("    <body>");
+                out.println("        <h2>Class View</h2>");
+                out.print("        <h3 align=\"center\">Class: ");
+                out.print(node.getClassName());
+                out.println("</h3>");
+                out.println("        <table border=\"\" align=\"center\" cellspacing=\"0\" cellpadding=\"3\">");
+                out.println("        <tr><th>Method</th><th>Violation</th></tr>");
+            }
+            for (RuleViolation violation : violations) {
+                out.print("        <tr><td>");
+                String methodName = violation.getAdditionalInfo().get(RuleViolation.METHOD_NAME);
+                out.print(StringUtil.nullToEmpty(methodName));
+                out.print("</td><td>");
+                out.print("<table border=\"0\">");
+
+                out.print(renderViolationRow("Rule:", violation.getRule().getName()));
+                out.print(renderViolationRow("Description:", violation.getDescription()));
+
+                String variableName = violation.getAdditionalInfo().get(RuleViolation.VARIABLE_NAME);
+                if (StringUtils.isNotBlank(variableName)) {
+                    out.print(renderViolationRow("Variable:", variableName));
                 }
+
+                out.print(renderViolationRow("Line:", violation.getEndLine() > 0
+                        ? violation.getBeginLine() + " and " + violation.getEndLine()
+                        : String.valueOf(violation.getBeginLine())));
+
+                out.print("</table>");
+
+                out.print("</td></tr>");
+                out.println();
+            }
+        }
+    }
+
+    private void finishClasses(String outputDir) throws IOException {
+        for (String className : startedPages) {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(classPage(outputDir, className), StandardCharsets.UTF_8,
+                                                                           StandardOpenOption.APPEND))) {
+                out.println("        </table>");
+                out.println("    </body>");
+                out.println("</html>");
             }
         }
     }
 
+    private static Path classPage(String outputDir, String className) {
+        return new File(outputDir, className + ".html").toPath();
+    }
+
     private String renderViolationRow(String name, String value) {
         return "<tr><td><b>"
             + name
@@ -210,7 +253,7 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
         private final String packageName;
         private final String className;
         private int violationCount;
-        private final List<RuleViolation> violations = new LinkedList<>();
+        private int classViolationCount;
 
         ReportNode(String packageName) {
             this.packageName = packageName;
@@ -226,8 +269,8 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
             violationCount++;
         }
 
-        public void addRuleViolation(RuleViolation violation) {
-            violations.add(violation);
+        public void addRuleViolation() {
+            classViolationCount++;
         }
 
         public String getPackageName() {
@@ -239,15 +282,11 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
         }
 
         public int getViolationCount() {
-            return violationCount + violations.size();
-        }
-
-        public List<RuleViolation> getViolations() {
-            return violations;
+            return violationCount + classViolationCount;
         }
 
         public boolean hasViolations() {
-            return !violations.isEmpty();
+            return classViolationCount > 0;
         }
 
         @Override
@@ -255,7 +294,7 @@ public class YAHTMLRenderer extends AbstractAccumulatingRenderer {
             return "ReportNode[packageName=" + packageName
                 + ",className=" + className
                 + ",violationCount=" + violationCount
-                + ",violations=" + violations.size()
+                + ",violations=" + classViolationCount
                 + "]";
         }
     }
@@ -0,0 +1,85 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.binary;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Constants and primitive encodings of the binary report format.
+ *
+ * <p>A report starts with the {@link #MAGIC} bytes, the format version
+ * and the PMD version that wrote it. It is followed by a sequence of
+ * records, each introduced by a tag, and ends with the {@link #END} tag.
+ *
+ * <ul>
+ * <li>Strings, files and rules are defined once, by a {@link #STRING},
+ * {@link #FILE} or {@link #RULE} record, and then referred to by their
+ * index. Indices are implicit: they start at 1 and are incremented
+ * by each definition of the same kind. The string index 0 stands for null.
+ * <li>Violations are written in blocks ({@link #VIOLATIONS} and
+ * {@link #SUPPRESSED}). A block stores its violations column by column,
+ * so that similar values are next to each other: file indices are
+ * run-length encoded, and begin lines are delta encoded.
+ * <li>Processing errors and configuration errors are written one by one
+ * ({@link #ERROR} and {@link #CONFIG_ERROR}).
+ * </ul>
+ *
+ * <p>All integers are written as unsigned LEB128 varints. Signed deltas
+ * are zigzag encoded first. Strings are written as their UTF-8 length
+ * and bytes.
+ */
+final class BinaryReportFormat {
+
+    static final byte[] MAGIC = {'P', 'M', 'D', 'R'};
+    static final int VERSION = 1;
+
+    static final int END = 0;
+    static final int STRING = 1;
+    static final int FILE = 2;
+    static final int RULE = 3;
+    static final int VIOLATIONS = 4;
+    static final int SUPPRESSED = 5;
+    static final int ERROR = 6;
+    static final int CONFIG_ERROR = 7;
+
+    private BinaryReportFormat() {
+        // utility class
+    }
+
+    static void writeVarInt(OutputStream out, int value) throws IOException {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    static int readVarInt(InputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated binary report");
+            }
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in binary report");
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.binary;
+
+import static net.sourceforge.pmd.renderers.internal.binary.BinaryReportFormat.readVarInt;
+import static net.sourceforge.pmd.renderers.internal.binary.BinaryReportFormat.unzigzag;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.PlainTextLanguage;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.FileLocation;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.document.TextRange2d;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RulePriority;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.ParametricRuleViolation;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.Report.ConfigurationError;
+import net.sourceforge.pmd.reporting.Report.GlobalReportBuilderListener;
+import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import net.sourceforge.pmd.reporting.ViolationSuppressor;
+
+/**
+ * Reads a report written by {@link BinaryReportWriter}. The records of
+ * the report are replayed as events on a {@link GlobalAnalysisListener},
+ * so a report can be rendered with any renderer, or merged with other
+ * reports, without being loaded in memory.
+ *
+ * <p>The rules of the violations only have the attributes stored in
+ * the report: rule properties and examples are not available. Processing errors only have
+ * their message and detail, not the original exception.
+ */
+public final class BinaryReportReader {
+
+    private final DataInputStream in;
+    private final String pmdVersion;
+    private final LanguageVersion plainText = PlainTextLanguage.getInstance().getDefaultVersion();
+
+    private final List<String> strings = new ArrayList<>();
+    private final List<FileId> files = new ArrayList<>();
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<String, ViolationSuppressor> suppressors = new HashMap<>();
+
+    private FileId currentFile;
+    private FileAnalysisListener currentListener;
+
+    /**
+     * Reads the header of a report. The stream is not closed by this class.
+     *
+     * @throws IOException If the stream is not a binary report, or if its
+     *                     version of the format is not supported
+     */
+    public BinaryReportReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        byte[] magic = new byte[BinaryReportFormat.MAGIC.length];
+        try {
+            this.in.readFully(magic);
+        } catch (EOFException e) {
+            throw new IOException("Not a binary PMD report", e);
+        }
+        if (!Arrays.equals(magic, BinaryReportFormat.MAGIC)) {
+            throw new IOException("Not a binary PMD report");
+        }
+        int version = readVarInt(this.in);
+        if (version != BinaryReportFormat.VERSION) {
+            throw new IOException("Unsupported binary report version " + version);
+        }
+        this.pmdVersion = readRawString();
+
+        strings.add(null);
+        files.add(null);
+        rules.add(null);
+    }
+
+    /**
+     * Returns the version of PMD that wrote the report.
+     */
+    public String getPmdVersion() {
+        return pmdVersion;
+    }
+
+    /**
+     * Reads the rest of the report, and sends its violations and errors
+     * to the listener. Consecutive records of the same file are sent
+     * to the same {@link FileAnalysisListener}. The listener is not closed.
+     *
+     * @throws IOException If the report is malformed
+     * @throws Exception   If the listener fails
+     */
+    public void replay(GlobalAnalysisListener listener) throws Exception {
+        try {
+            int tag = readVarInt(in);
+            while (tag != BinaryReportFormat.END) {
+                switch (tag) {
+                case BinaryReportFormat.STRING:
+                    strings.add(readRawString());
+                    break;
+                case BinaryReportFormat.FILE:
+                    files.add(readFile());
+                    break;
+                case BinaryReportFormat.RULE:
+                    rules.add(readRule());
+                    break;
+                case BinaryReportFormat.VIOLATIONS:
+                    for (RuleViolation rv : readViolations()) {
+                        listenerFor(listener, rv.getFileId()).onRuleViolation(rv);
+                    }
+                    break;
+                case BinaryReportFormat.SUPPRESSED:
+                    readSuppressed(listener);
+                    break;
+                case BinaryReportFormat.ERROR:
+                    FileId file = file(readVarInt(in));
+                    String msg = string(readVarInt(in));
+                    String detail = string(readVarInt(in));
+                    listenerFor(listener, file).onError(new ReportedProcessingError(file, msg, detail));
+                    break;
+                case BinaryReportFormat.CONFIG_ERROR:
+                    Rule rule = rule(readVarInt(in));
+                    listener.onConfigError(new ConfigurationError(rule, string(readVarInt(in))));
+                    break;
+                default:
+                    throw new IOException("Unknown record " + tag + " in binary report");
+                }
+                tag = readVarInt(in);
+            }
+        } finally {
+            if (currentListener != null) {
+                currentListener.close();
+                currentListener = null;
+                currentFile = null;
+            }
+        }
+    }
+
+    /**
+     * Reads a whole report in memory.
+     */
+    public static Report readReport(InputStream in) throws IOException {
+        GlobalReportBuilderListener builder = new GlobalReportBuilderListener();
+        try {
+            new BinaryReportReader(in).replay(builder);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            // the report builder does not throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+        builder.close();
+        return builder.getResult();
+    }
+
+    private FileAnalysisListener listenerFor(GlobalAnalysisListener listener, FileId file) throws Exception {
+        if (!file.equals(currentFile)) {
+            if (currentListener != null) {
+                currentListener.close();
+            }
+            currentFile = file;
+            currentListener = listener.startFileAnalysis(TextFile.forCharSeq("", file, plainText));
+        }
+        return currentListener;
+    }
+
+    private void readSuppressed(GlobalAnalysisListener listener) throws Exception {
+        List<RuleViolation> violations = readViolations();
+        String[] suppressorIds = new String[violations.size()];
+        for (int i = 0; i < suppressorIds.length; i++) {
+            suppressorIds[i] = string(readVarInt(in));
+        }
+        for (int i = 0; i < suppressorIds.length; i++) {
+            RuleViolation rv = violations.get(i);
+            ViolationSuppressor suppressor = suppressors.computeIfAbsent(suppressorIds[i], ReportedSuppressor::new);
+            String userMessage = string(readVarInt(in));
+            listenerFor(listener, rv.getFileId()).onSuppressedRuleViolation(new SuppressedViolation(rv, suppressor, userMessage));
+        }
+    }
+
+    private List<RuleViolation> readViolations() throws IOException {
+        int size = readVarInt(in);
+        FileId[] fileColumn = new FileId[size];
+        int i = 0;
+        while (i < size) {
+            FileId file = file(readVarInt(in));
+            int run = readVarInt(in);
+            if (run <= 0 || i + run > size) {
+                throw new IOException("Malformed violation block in binary report");
+            }
+            Arrays.fill(fileColumn, i, i + run, file);
+            i += run;
+        }
+        Rule[] ruleColumn = new Rule[size];
+        for (i = 0; i < size; i++) {
+            ruleColumn[i] = rule(readVarInt(in));
+        }
+        int[] beginLines = readColumn(size);
+        int[] beginColumns = readColumn(size);
+        int[] lineSpans = readColumn(size);
+        int[] endColumns = readColumn(size);
+        int[] descriptions = readColumn(size);
+        int[] infoCounts = readColumn(size);
+
+        List<RuleViolation> violations = new ArrayList<>(size);
+        int line = 0;
+        for (i = 0; i < size; i++) {
+            line += unzigzag(beginLines[i]);
+            TextRange2d range = TextRange2d.range2d(line, beginColumns[i], line + unzigzag(lineSpans[i]), endColumns[i]);
+            Map<String, String> additionalInfo = Collections.emptyMap();
+            if (infoCounts[i] > 0) {
+                additionalInfo = new LinkedHashMap<>();
+                for (int j = 0; j < infoCounts[i]; j++) {
+                    String key = string(readVarInt(in));
+                    additionalInfo.put(key, string(readVarInt(in)));
+                }
+            }
+            violations.add(new ParametricRuleViolation(ruleColumn[i],
+                                                       FileLocation.range(fileColumn[i], range),
+                                                       string(descriptions[i]),
+                                                       additionalInfo));
+        }
+        return violations;
+    }
+
+    private FileId readFile() throws IOException {
+        String uri = string(readVarInt(in));
+        String fileName = string(readVarInt(in));
+        String originalPath = string(readVarInt(in));
+        String absolutePath = string(readVarInt(in));
+        int parent = readVarInt(in);
+        return new ReportedFileId(Objects.requireNonNull(uri), fileName, originalPath, absolutePath,
+                                  parent == 0 ? null : file(parent));
+    }
+
+    private Rule readRule() throws IOException {
+        ReportedRule rule = new ReportedRule();
+        rule.setName(string(readVarInt(in)));
+        rule.setRuleSetName(string(readVarInt(in)));
+        rule.setLanguage(LanguageRegistry.PMD.getLanguageById(string(readVarInt(in))));
+        rule.setSince(string(readVarInt(in)));
+        rule.setMessage(string(readVarInt(in)));
+        rule.setDescription(string(readVarInt(in)));
+        rule.setExternalInfoUrl(string(readVarInt(in)));
+        rule.setPriority(RulePriority.valueOf(readVarInt(in)));
+        return rule;
+    }
+
+    private int[] readColumn(int size) throws IOException {
+        int[] column = new int[size];
+        for (int i = 0; i < size; i++) {
+            column[i] = readVarInt(in);
+        }
+        return column;
+    }
+
+    private String readRawString() throws IOException {
+        int length = readVarInt(in);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String string(int id) throws IOException {
+        return lookup(strings, id, 0, "string");
+    }
+
+    private FileId file(int id) throws IOException {
+        return lookup(files, id, 1, "file");
+    }
+
+    private Rule rule(int id) throws IOException {
+        return lookup(rules, id, 1, "rule");
+    }
+
+    private static <T> T lookup(List<T> table, int id, int minId, String kind) throws IOException {
+        if (id < minId || id >= table.size()) {
+            throw new IOException("Undefined " + kind + " " + id + " in binary report");
+        }
+        return table.get(id);
+    }
+}
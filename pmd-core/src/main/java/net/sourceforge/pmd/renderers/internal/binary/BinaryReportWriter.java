@@ -0,0 +1,270 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.binary;
+
+import static net.sourceforge.pmd.renderers.internal.binary.BinaryReportFormat.writeVarInt;
+import static net.sourceforge.pmd.renderers.internal.binary.BinaryReportFormat.zigzag;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.reporting.Report.ConfigurationError;
+import net.sourceforge.pmd.reporting.Report.ProcessingError;
+import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * Writes a report in the binary format described by {@link BinaryReportFormat}.
+ * Records are written as they are added, only the tables of strings,
+ * files and rules are kept in memory. Call {@link #finish()} to end
+ * the report. The underlying stream is not closed by this class.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class BinaryReportWriter {
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<FileId, Integer> files = new HashMap<>();
+    private final Map<String, Integer> rules = new HashMap<>();
+
+    /**
+     * Starts a new report by writing its header.
+     */
+    public BinaryReportWriter(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out);
+        this.out.write(BinaryReportFormat.MAGIC);
+        writeVarInt(this.out, BinaryReportFormat.VERSION);
+        writeRawString(this.out, PMDVersion.VERSION);
+    }
+
+    /**
+     * Writes a block of violations. Violations of the same file should
+     * be next to each other, so that their file index is only written once.
+     */
+    public void writeViolations(List<? extends RuleViolation> violations) throws IOException {
+        if (violations.isEmpty()) {
+            return;
+        }
+        // definitions are written before the block
+        ViolationColumns columns = new ViolationColumns(violations);
+        block.reset();
+        columns.writeTo(block);
+        writeBlock(BinaryReportFormat.VIOLATIONS);
+    }
+
+    /**
+     * Writes a block of suppressed violations.
+     */
+    public void writeSuppressedViolations(List<SuppressedViolation> suppressed) throws IOException {
+        if (suppressed.isEmpty()) {
+            return;
+        }
+        List<RuleViolation> violations = new ArrayList<>(suppressed.size());
+        int[] suppressors = new int[suppressed.size()];
+        int[] messages = new int[suppressed.size()];
+        for (int i = 0; i < suppressed.size(); i++) {
+            SuppressedViolation sv = suppressed.get(i);
+            violations.add(sv.getRuleViolation());
+            suppressors[i] = stringId(sv.getSuppressor().getId());
+            messages[i] = stringId(sv.getUserMessage());
+        }
+        ViolationColumns columns = new ViolationColumns(violations);
+        block.reset();
+        columns.writeTo(block);
+        writeColumn(block, suppressors);
+        writeColumn(block, messages);
+        writeBlock(BinaryReportFormat.SUPPRESSED);
+    }
+
+    public void writeProcessingError(ProcessingError error) throws IOException {
+        int file = fileId(error.getFileId());
+        int msg = stringId(error.getMsg());
+        int detail = stringId(error.getDetail());
+        writeVarInt(out, BinaryReportFormat.ERROR);
+        writeVarInt(out, file);
+        writeVarInt(out, msg);
+        writeVarInt(out, detail);
+    }
+
+    public void writeConfigurationError(ConfigurationError error) throws IOException {
+        int rule = ruleId(error.rule());
+        int issue = stringId(error.issue());
+        writeVarInt(out, BinaryReportFormat.CONFIG_ERROR);
+        writeVarInt(out, rule);
+        writeVarInt(out, issue);
+    }
+
+    /**
+     * Ends the report and flushes the underlying stream.
+     */
+    public void finish() throws IOException {
+        writeVarInt(out, BinaryReportFormat.END);
+        out.flush();
+    }
+
+    private void writeBlock(int tag) throws IOException {
+        writeVarInt(out, tag);
+        block.writeTo(out);
+    }
+
+    private int stringId(String str) throws IOException {
+        if (str == null) {
+            return 0;
+        }
+        Integer id = strings.get(str);
+        if (id == null) {
+            id = strings.size() + 1;
+            strings.put(str, id);
+            writeVarInt(out, BinaryReportFormat.STRING);
+            writeRawString(out, str);
+        }
+        return id;
+    }
+
+    private int fileId(FileId file) throws IOException {
+        Integer id = files.get(file);
+        if (id == null) {
+            int parent = file.getParentFsPath() == null ? 0 : fileId(file.getParentFsPath());
+            int uri = stringId(file.getUriString());
+            int fileName = stringId(file.getFileName());
+            int originalPath = stringId(file.getOriginalPath());
+            int absolutePath = stringId(file.getAbsolutePath());
+
+            id = files.size() + 1;
+            files.put(file, id);
+            writeVarInt(out, BinaryReportFormat.FILE);
+            writeVarInt(out, uri);
+            writeVarInt(out, fileName);
+            writeVarInt(out, originalPath);
+            writeVarInt(out, absolutePath);
+            writeVarInt(out, parent);
+        }
+        return id;
+    }
+
+    private int ruleId(Rule rule) throws IOException {
+        String key = rule.getRuleSetName() + '\0' + rule.getName();
+        Integer id = rules.get(key);
+        if (id == null) {
+            int[] fields = {
+                stringId(rule.getName()),
+                stringId(rule.getRuleSetName()),
+                stringId(rule.getLanguage() == null ? null : rule.getLanguage().getId()),
+                stringId(rule.getSince()),
+                stringId(rule.getMessage()),
+                stringId(rule.getDescription()),
+                stringId(rule.getExternalInfoUrl()),
+                rule.getPriority().getPriority(),
+            };
+
+            id = rules.size() + 1;
+            rules.put(key, id);
+            writeVarInt(out, BinaryReportFormat.RULE);
+            for (int field : fields) {
+                writeVarInt(out, field);
+            }
+        }
+        return id;
+    }
+
+    private static void writeColumn(OutputStream out, int[] column) throws IOException {
+        for (int value : column) {
+            writeVarInt(out, value);
+        }
+    }
+
+    private static void writeRawString(OutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * The columns of a block of violations. Building this writes the
+     * definitions of the strings, files and rules that are not yet defined.
+     */
+    private final class ViolationColumns {
+
+        private final int size;
+        private final int[] files;
+        private final int[] rules;
+        private final int[] beginLines;
+        private final int[] beginColumns;
+        private final int[] lineSpans;
+        private final int[] endColumns;
+        private final int[] descriptions;
+        private final int[] infoCounts;
+        private final List<Integer> infos = new ArrayList<>();
+
+        ViolationColumns(List<? extends RuleViolation> violations) throws IOException {
+            size = violations.size();
+            files = new int[size];
+            rules = new int[size];
+            beginLines = new int[size];
+            beginColumns = new int[size];
+            lineSpans = new int[size];
+            endColumns = new int[size];
+            descriptions = new int[size];
+            infoCounts = new int[size];
+
+            int prevLine = 0;
+            for (int i = 0; i < size; i++) {
+                RuleViolation rv = violations.get(i);
+                files[i] = fileId(rv.getFileId());
+                rules[i] = ruleId(rv.getRule());
+                beginLines[i] = zigzag(rv.getBeginLine() - prevLine);
+                beginColumns[i] = rv.getBeginColumn();
+                lineSpans[i] = zigzag(rv.getEndLine() - rv.getBeginLine());
+                endColumns[i] = rv.getEndColumn();
+                descriptions[i] = stringId(rv.getDescription());
+                prevLine = rv.getBeginLine();
+
+                Map<String, String> additionalInfo = rv.getAdditionalInfo();
+                infoCounts[i] = additionalInfo.size();
+                for (Map.Entry<String, String> info : additionalInfo.entrySet()) {
+                    infos.add(stringId(info.getKey()));
+                    infos.add(stringId(info.getValue()));
+                }
+            }
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            writeVarInt(out, size);
+            // file indices are run-length encoded
+            int i = 0;
+            while (i < size) {
+                int run = 1;
+                while (i + run < size && files[i + run] == files[i]) {
+                    run++;
+                }
+                writeVarInt(out, files[i]);
+                writeVarInt(out, run);
+                i += run;
+            }
+            writeColumn(out, rules);
+            writeColumn(out, beginLines);
+            writeColumn(out, beginColumns);
+            writeColumn(out, lineSpans);
+            writeColumn(out, endColumns);
+            writeColumn(out, descriptions);
+            writeColumn(out, infoCounts);
+            for (int info : infos) {
+                writeVarInt(out, info);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.binary;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.document.FileId;
+
+/**
+ * A file id read from a binary report. It has the same names as the
+ * file id that was written, and is equal to it.
+ */
+final class ReportedFileId implements FileId {
+
+    private final String uri;
+    private final String fileName;
+    private final String originalPath;
+    private final String absolutePath;
+    private final @Nullable FileId parentFsPath;
+
+    ReportedFileId(String uri, String fileName, String originalPath, String absolutePath, @Nullable FileId parentFsPath) {
+        this.uri = uri;
+        this.fileName = fileName;
+        this.originalPath = originalPath;
+        this.absolutePath = absolutePath;
+        this.parentFsPath = parentFsPath;
+    }
+
+    @Override
+    public String getFileName() {
+        return fileName;
+    }
+
+    @Override
+    public String getOriginalPath() {
+        return originalPath;
+    }
+
+    @Override
+    public String getAbsolutePath() {
+        return absolutePath;
+    }
+
+    @Override
+    public String getUriString() {
+        return uri;
+    }
+
+    @Override
+    public @Nullable FileId getParentFsPath() {
+        return parentFsPath;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FileId && ((FileId) o).getUriString().equals(uri);
+    }
+
+    @Override
+    public int hashCode() {
+        return uri.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ReportedFileId(" + uri + ")";
+    }
+}
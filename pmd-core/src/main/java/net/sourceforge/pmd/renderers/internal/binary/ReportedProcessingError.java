@@ -0,0 +1,34 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.binary;
+
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.reporting.Report.ProcessingError;
+
+/**
+ * A processing error read from a binary report. The original exception
+ * is not available, only its message and detail are.
+ */
+final class ReportedProcessingError extends ProcessingError {
+
+    private final String msg;
+    private final String detail;
+
+    ReportedProcessingError(FileId file, String msg, String detail) {
+        super(new RuntimeException(msg), file);
+        this.msg = msg;
+        this.detail = detail;
+    }
+
+    @Override
+    public String getMsg() {
+        return msg;
+    }
+
+    @Override
+    public String getDetail() {
+        return detail;
+    }
+}
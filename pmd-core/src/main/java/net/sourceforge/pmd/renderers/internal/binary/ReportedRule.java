@@ -0,0 +1,21 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.binary;
+
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+import net.sourceforge.pmd.reporting.RuleContext;
+
+/**
+ * A rule read from a binary report. It only has the attributes that
+ * the report stores, and cannot be applied.
+ */
+final class ReportedRule extends AbstractRule {
+
+    @Override
+    public void apply(Node target, RuleContext ctx) {
+        throw new UnsupportedOperationException("Rule " + getName() + " was read from a report and cannot be applied");
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.binary;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import net.sourceforge.pmd.reporting.ViolationSuppressor;
+
+/**
+ * The suppressor of a suppressed violation read from a binary report.
+ * Only its id is known, it does not suppress anything.
+ */
+final class ReportedSuppressor implements ViolationSuppressor {
+
+    private final String id;
+
+    ReportedSuppressor(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public @Nullable SuppressedViolation suppressOrNull(RuleViolation rv, @NonNull Node node) {
+        return null;
+    }
+}
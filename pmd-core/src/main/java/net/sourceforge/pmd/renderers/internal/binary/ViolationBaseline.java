@@ -0,0 +1,94 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.FileNameRenderer;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * The violations of a baseline report, used to find the violations
+ * of another report that are new. Violations are matched by file,
+ * rule and message, but not by location, so that violations which
+ * only moved because lines were added or removed above them still
+ * match. If the baseline has a violation several times, it matches
+ * as many violations of the other report.
+ *
+ * <p>Files are matched by their display name, so that a baseline
+ * written in another checkout or workspace still matches, if the
+ * paths are relativized against the root of each tree.
+ */
+public final class ViolationBaseline {
+
+    private final Map<List<String>, MutableInt> counts = new HashMap<>();
+    private final FileNameRenderer fileNameRenderer;
+
+    private ViolationBaseline(FileNameRenderer fileNameRenderer) {
+        this.fileNameRenderer = fileNameRenderer;
+    }
+
+    /**
+     * Reads the violations of a binary report. Only a key of each
+     * violation is kept in memory.
+     *
+     * @param in               Binary report
+     * @param fileNameRenderer Renders the file names that are compared,
+     *                         for the baseline and for the violations
+     *                         passed to {@link #consume(RuleViolation)}
+     */
+    public static ViolationBaseline read(InputStream in, FileNameRenderer fileNameRenderer) throws IOException {
+        ViolationBaseline baseline = new ViolationBaseline(fileNameRenderer);
+        try {
+            new BinaryReportReader(in).replay(new GlobalAnalysisListener() {
+                @Override
+                public FileAnalysisListener startFileAnalysis(TextFile file) {
+                    return violation -> baseline.counts.computeIfAbsent(baseline.key(violation), k -> new MutableInt()).increment();
+                }
+
+                @Override
+                public void close() {
+                    // nothing to do
+                }
+            });
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            // the listener does not throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+        return baseline;
+    }
+
+    /**
+     * Returns true if the violation is in the baseline, and removes
+     * one occurrence of it from the baseline. Returns false if the
+     * violation is new.
+     */
+    public boolean consume(RuleViolation violation) {
+        MutableInt count = counts.get(key(violation));
+        if (count == null || count.intValue() == 0) {
+            return false;
+        }
+        count.decrement();
+        return true;
+    }
+
+    private List<String> key(RuleViolation violation) {
+        return Arrays.asList(fileNameRenderer.getDisplayName(violation.getFileId()),
+                             violation.getRule().getName(),
+                             violation.getDescription());
+    }
+}
@@ -7,8 +7,10 @@ package net.sourceforge.pmd.renderers.internal.sarif;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ArtifactLocation;
@@ -33,6 +35,7 @@ import net.sourceforge.pmd.reporting.RuleViolation;
 
 public class SarifLogBuilder {
     private final List<ReportingDescriptor> rules = new ArrayList<>();
+    private final Map<ReportingDescriptor, Integer> ruleIndices = new HashMap<>();
     private final List<Result> results = new ArrayList<>();
     private final List<ToolConfigurationNotification> toolConfigurationNotifications = new ArrayList<>();
     private final List<ToolExecutionNotification> toolExecutionNotifications = new ArrayList<>();
@@ -42,21 +45,50 @@ public class SarifLogBuilder {
     }
 
     public SarifLogBuilder add(RuleViolation violation) {
+        results.add(resultFrom(violation, rules, ruleIndices));
+        return this;
+    }
+
+    public SarifLogBuilder addRunTimeError(Report.ProcessingError error) {
+        toolExecutionNotifications.add(executionNotification(error));
+        return this;
+    }
+
+    public SarifLogBuilder addConfigurationError(Report.ConfigurationError error) {
+        toolConfigurationNotifications.add(configurationNotification(error));
+        return this;
+    }
+
+    public SarifLog build() {
+        final Run run = Run.builder()
+                .tool(tool(rules))
+                .results(results)
+                .invocations(Collections.singletonList(invocation(toolExecutionNotifications, toolConfigurationNotifications)))
+                .build();
+
+        List<Run> runs = Collections.singletonList(run);
+
+        return SarifLog.builder().runs(runs).build();
+    }
+
+    /**
+     * Creates the result for a violation. The descriptor of its rule is
+     * added to the list of rules if it is not there yet.
+     */
+    static Result resultFrom(RuleViolation violation, List<ReportingDescriptor> rules, Map<ReportingDescriptor, Integer> ruleIndices) {
         final ReportingDescriptor ruleDescriptor = getReportingDescriptor(violation);
-        int ruleIndex = rules.indexOf(ruleDescriptor);
-        if (ruleIndex == -1) {
+        Integer ruleIndex = ruleIndices.get(ruleDescriptor);
+        if (ruleIndex == null) {
+            ruleIndex = rules.size();
             rules.add(ruleDescriptor);
-            ruleIndex = rules.size() - 1;
+            ruleIndices.put(ruleDescriptor, ruleIndex);
         }
 
         final Location location = getRuleViolationLocation(violation);
-        final Result result = resultFrom(ruleDescriptor, ruleIndex, location);
-        results.add(result);
-
-        return this;
+        return resultFrom(ruleDescriptor, ruleIndex, location);
     }
 
-    public SarifLogBuilder addRunTimeError(Report.ProcessingError error) {
+    static ToolExecutionNotification executionNotification(Report.ProcessingError error) {
         ArtifactLocation artifactLocation = ArtifactLocation.builder()
                 .uri(error.getFileId().getUriString())
                 .build();
@@ -78,58 +110,41 @@ public class SarifLogBuilder {
                 .message(error.getDetail())
                 .build();
 
-        ToolExecutionNotification toolExecutionNotification = ToolExecutionNotification.builder()
+        return ToolExecutionNotification.builder()
                 .locations(Collections.singletonList(location))
                 .message(message)
                 .exception(exception)
                 .build();
-
-        toolExecutionNotifications.add(toolExecutionNotification);
-
-        return this;
     }
 
-    public SarifLogBuilder addConfigurationError(Report.ConfigurationError error) {
+    static ToolConfigurationNotification configurationNotification(Report.ConfigurationError error) {
         AssociatedRule associatedRule = AssociatedRule.builder()
                 .id(error.rule().getName())
                 .build();
 
         Message message = Message.builder().text(error.issue()).build();
 
-        ToolConfigurationNotification toolConfigurationNotification = ToolConfigurationNotification.builder()
+        return ToolConfigurationNotification.builder()
                 .associatedRule(associatedRule)
                 .message(message)
                 .build();
-
-        toolConfigurationNotifications.add(toolConfigurationNotification);
-
-        return this;
     }
 
-    public SarifLog build() {
+    static Tool tool(List<ReportingDescriptor> rules) {
         final Component driver = getDriverComponent().toBuilder().rules(rules).build();
-        final Tool tool = Tool.builder().driver(driver).build();
-        final Invocation invocation = Invocation.builder()
+        return Tool.builder().driver(driver).build();
+    }
+
+    static Invocation invocation(List<ToolExecutionNotification> toolExecutionNotifications,
+                                 List<ToolConfigurationNotification> toolConfigurationNotifications) {
+        return Invocation.builder()
                 .toolExecutionNotifications(toolExecutionNotifications)
                 .toolConfigurationNotifications(toolConfigurationNotifications)
-                .executionSuccessful(isExecutionSuccessful())
+                .executionSuccessful(toolExecutionNotifications.isEmpty() && toolConfigurationNotifications.isEmpty())
                 .build();
-        final Run run = Run.builder()
-                .tool(tool)
-                .results(results)
-                .invocations(Collections.singletonList(invocation))
-                .build();
-
-        List<Run> runs = Collections.singletonList(run);
-
-        return SarifLog.builder().runs(runs).build();
-    }
-
-    private boolean isExecutionSuccessful() {
-        return toolExecutionNotifications.isEmpty() && toolConfigurationNotifications.isEmpty();
     }
 
-    private Result resultFrom(ReportingDescriptor rule, Integer ruleIndex, Location location) {
+    private static Result resultFrom(ReportingDescriptor rule, Integer ruleIndex, Location location) {
         final Result result = Result.builder()
                 .ruleId(rule.getId())
                 .ruleIndex(ruleIndex)
@@ -145,7 +160,7 @@ public class SarifLogBuilder {
         return result;
     }
 
-    private Location getRuleViolationLocation(RuleViolation rv) {
+    private static Location getRuleViolationLocation(RuleViolation rv) {
         ArtifactLocation artifactLocation = ArtifactLocation.builder()
                 .uri(rv.getFileId().getUriString())
                 .build();
@@ -167,7 +182,7 @@ public class SarifLogBuilder {
             .build();
     }
 
-    private ReportingDescriptor getReportingDescriptor(RuleViolation rv) {
+    private static ReportingDescriptor getReportingDescriptor(RuleViolation rv) {
         return ReportingDescriptor.builder()
             .id(rv.getRule().getName())
             .shortDescription(new MultiformatMessage(rv.getDescription()))
@@ -178,7 +193,7 @@ public class SarifLogBuilder {
             .build();
     }
 
-    private PropertyBag getRuleProperties(RuleViolation rv) {
+    private static PropertyBag getRuleProperties(RuleViolation rv) {
         return PropertyBag.builder()
                 .ruleset(rv.getRule().getRuleSetName())
                 .priority(rv.getRule().getPriority().getPriority())
@@ -186,7 +201,7 @@ public class SarifLogBuilder {
                 .build();
     }
 
-    private Component getDriverComponent() {
+    private static Component getDriverComponent() {
         return Component.builder()
                 .name("PMD")
                 .version(PMDVersion.VERSION)
@@ -0,0 +1,87 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.sarif;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ReportingDescriptor;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ToolConfigurationNotification;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ToolExecutionNotification;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes a SARIF log incrementally, unlike {@link SarifLogBuilder}, which
+ * builds the whole log in memory. Results are written as they are added.
+ * Only the rule descriptors and the notifications are kept in memory,
+ * and they are written at the end of the run, after the results.
+ * The log has the same content as the one built by {@link SarifLogBuilder},
+ * only the order of the properties of the run differs.
+ */
+public class SarifLogWriter {
+
+    private final Gson gson;
+    private final JsonWriter out;
+    private final List<ReportingDescriptor> rules = new ArrayList<>();
+    private final Map<ReportingDescriptor, Integer> ruleIndices = new HashMap<>();
+    private final List<ToolConfigurationNotification> toolConfigurationNotifications = new ArrayList<>();
+    private final List<ToolExecutionNotification> toolExecutionNotifications = new ArrayList<>();
+
+    /**
+     * Starts a new log. The writer is not closed by this class.
+     */
+    public SarifLogWriter(Gson gson, Writer writer) throws IOException {
+        this.gson = gson;
+        this.out = gson.newJsonWriter(writer);
+
+        SarifLog header = SarifLog.builder().build();
+        out.beginObject();
+        out.name("$schema").value(header.getSchema());
+        out.name("version").value(header.getVersion());
+        out.name("runs").beginArray();
+        out.beginObject();
+        out.name("results").beginArray();
+    }
+
+    public SarifLogWriter add(RuleViolation violation) throws IOException {
+        gson.toJson(SarifLogBuilder.resultFrom(violation, rules, ruleIndices), SarifLog.Result.class, out);
+        return this;
+    }
+
+    public SarifLogWriter addRunTimeError(Report.ProcessingError error) {
+        toolExecutionNotifications.add(SarifLogBuilder.executionNotification(error));
+        return this;
+    }
+
+    public SarifLogWriter addConfigurationError(Report.ConfigurationError error) {
+        toolConfigurationNotifications.add(SarifLogBuilder.configurationNotification(error));
+        return this;
+    }
+
+    /**
+     * Writes the rules and notifications, and ends the log.
+     */
+    public void finish() throws IOException {
+        out.endArray(); // results
+        out.name("tool");
+        gson.toJson(SarifLogBuilder.tool(rules), SarifLog.Tool.class, out);
+        out.name("invocations").beginArray();
+        gson.toJson(SarifLogBuilder.invocation(toolExecutionNotifications, toolConfigurationNotifications),
+                    SarifLog.Invocation.class, out);
+        out.endArray();
+        out.endObject(); // run
+        out.endArray(); // runs
+        out.endObject();
+        out.flush();
+    }
+}
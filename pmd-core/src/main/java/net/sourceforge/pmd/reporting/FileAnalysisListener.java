@@ -8,7 +8,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.internal.util.IOUtil;
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.document.TextDocument;
 import net.sourceforge.pmd.reporting.Report.ProcessingError;
 import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
 import net.sourceforge.pmd.util.AssertionUtil;
@@ -49,6 +54,27 @@ public interface FileAnalysisListener extends AutoCloseable {
     }
 
 
+    /**
+     * Handle the text of the file, after the rules have been applied.
+     * The root node is the AST of the file, or null if the file was not
+     * parsed, eg because its violations were found in the analysis cache,
+     * or because of a parse error. This allows tools that need the text
+     * or the tokens of the file, like CPD, to reuse them instead of reading
+     * and lexing the file again. This is not called if no rule applies to
+     * the file, as the file is not read then.
+     *
+     * <p>The document and the AST should not be used after this method
+     * returns, except for the text of the document.
+     *
+     * @param document The text of the file
+     * @param rootNode The AST of the file, if it was parsed
+     */
+    @Experimental
+    default void onDocumentAnalyzed(TextDocument document, @Nullable RootNode rootNode) {
+        // by default do nothing
+    }
+
+
     /**
      * Signals the end of the analysis: no further calls will be made
      * to this listener. This is run in the thread the listener has
@@ -121,6 +147,13 @@ public interface FileAnalysisListener extends AutoCloseable {
                 }
             }
 
+            @Override
+            public void onDocumentAnalyzed(TextDocument document, @Nullable RootNode rootNode) {
+                for (FileAnalysisListener it : list) {
+                    it.onDocumentAnalyzed(document, rootNode);
+                }
+            }
+
             @Override
             public void close() throws Exception {
                 Exception composed = IOUtil.closeAll(list);
@@ -0,0 +1,155 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.reporting;
+
+import java.text.MessageFormat;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.document.FileLocation;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+
+/**
+ * A violation whose description and additional info are only computed
+ * when they are first needed. This allows {@link RuleContext} to run
+ * the violation suppressors before the message is formatted, as most
+ * of them only look at the node and the location of the violation.
+ *
+ * <p>The node is not retained after {@link #releaseNode()}, which the
+ * rule context calls before passing the violation to a listener, so that
+ * the AST of a file may be garbage collected while its violations are
+ * kept in a report. The message is still formatted lazily after that,
+ * so listeners that never look at it, eg to only count violations, don't
+ * pay for it.
+ */
+final class LazyRuleViolation implements RuleViolation {
+
+    private final Rule rule;
+    private final FileLocation location;
+
+    // cleared by releaseNode
+    private Node node;
+    private ViolationDecorator decorator;
+    // cleared when the description is computed
+    private String message;
+    private Object[] formatArgs;
+
+    // guarded by this, as reports may be shared between threads
+    private String description;
+    private Map<String, String> additionalInfo;
+
+    LazyRuleViolation(Rule rule, FileLocation location, Node node, ViolationDecorator decorator,
+                      String message, Object[] formatArgs) {
+        this.rule = rule;
+        this.location = location;
+        this.node = node;
+        this.decorator = decorator;
+        this.message = message;
+        this.formatArgs = formatArgs;
+    }
+
+    /**
+     * Computes everything that depends on the node, and drops the
+     * reference to the node. The description is also computed now if
+     * it refers to additional info, or if the format arguments are not
+     * simple values, as they might reference the AST. This is done for
+     * suppressed violations too, as they are also reported.
+     */
+    void releaseNode() {
+        if (description == null && (message.contains("${") || !areSimpleValues(formatArgs))) {
+            getDescription();
+        }
+        getAdditionalInfo();
+        node = null;
+        decorator = null;
+    }
+
+    private static boolean areSimpleValues(Object[] args) {
+        for (Object arg : args) {
+            if (!(arg == null || arg instanceof String || arg instanceof Number
+                || arg instanceof Character || arg instanceof Boolean)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Rule getRule() {
+        return rule;
+    }
+
+    @Override
+    public FileLocation getLocation() {
+        return location;
+    }
+
+    @Override
+    public Map<String, String> getAdditionalInfo() {
+        if (additionalInfo == null) {
+            additionalInfo = ViolationDecorator.apply(decorator, node);
+        }
+        return additionalInfo;
+    }
+
+    @Override
+    public synchronized String getDescription() {
+        if (description == null) {
+            description = makeMessage(message, formatArgs);
+            message = null;
+            formatArgs = null;
+        }
+        return description;
+    }
+
+    private String makeMessage(@NonNull String message, Object[] args) {
+        // Escape PMD specific variable message format, specifically the {
+        // in the ${, so MessageFormat doesn't bitch.
+        final String escapedMessage = StringUtils.replace(message, "${", "$'{'");
+        String formatted = args.length == 0 && escapedMessage.indexOf('\'') < 0 && escapedMessage.indexOf('{') < 0
+                           ? escapedMessage
+                           : MessageFormat.format(escapedMessage, args);
+        return expandVariables(formatted);
+    }
+
+    private String expandVariables(String message) {
+
+        if (!message.contains("${")) {
+            return message;
+        }
+
+        StringBuilder buf = new StringBuilder(message);
+        int startIndex = -1;
+        while ((startIndex = buf.indexOf("${", startIndex + 1)) >= 0) {
+            final int endIndex = buf.indexOf("}", startIndex);
+            if (endIndex >= 0) {
+                final String name = buf.substring(startIndex + 2, endIndex);
+                String variableValue = getVariableValue(name);
+                if (variableValue != null) {
+                    buf.replace(startIndex, endIndex + 1, variableValue);
+                }
+            }
+        }
+        return buf.toString();
+    }
+
+    private String getVariableValue(String name) {
+        String value = getAdditionalInfo().get(name);
+        if (value != null) {
+            return value;
+        }
+        final PropertyDescriptor<?> propertyDescriptor = rule.getPropertyDescriptor(name);
+        return propertyDescriptor == null ? null : String.valueOf(rule.getProperty(propertyDescriptor));
+    }
+
+    @Override
+    public String toString() {
+        return getLocation().startPosToStringWithFile() + ':' + getRule() + ':' + getDescription();
+    }
+}
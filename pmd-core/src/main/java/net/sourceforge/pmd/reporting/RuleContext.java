@@ -8,11 +8,8 @@ import static net.sourceforge.pmd.util.CollectionUtil.listOf;
 
 import java.text.MessageFormat;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
-import org.apache.commons.lang3.StringUtils;
-import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import net.sourceforge.pmd.annotation.InternalApi;
@@ -22,7 +19,6 @@ import net.sourceforge.pmd.lang.document.FileLocation;
 import net.sourceforge.pmd.lang.document.TextRange2d;
 import net.sourceforge.pmd.lang.rule.AbstractRule;
 import net.sourceforge.pmd.lang.rule.Rule;
-import net.sourceforge.pmd.properties.PropertyDescriptor;
 import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
 
 /**
@@ -43,15 +39,19 @@ public final class RuleContext {
     private static final List<ViolationSuppressor> DEFAULT_SUPPRESSORS = listOf(ViolationSuppressor.NOPMD_COMMENT_SUPPRESSOR,
                                                                                 ViolationSuppressor.REGEX_SUPPRESSOR,
                                                                                 ViolationSuppressor.XPATH_SUPPRESSOR);
+    private static final List<ViolationSuppressor> NO_XPATH_SUPPRESSORS = listOf(ViolationSuppressor.NOPMD_COMMENT_SUPPRESSOR,
+                                                                                 ViolationSuppressor.REGEX_SUPPRESSOR);
 
     private final FileAnalysisListener listener;
     private final Rule rule;
+    private final List<ViolationSuppressor> suppressors;
 
-    private RuleContext(FileAnalysisListener listener, Rule rule) {
+    private RuleContext(FileAnalysisListener listener, Rule rule, List<ViolationSuppressor> suppressors) {
         Objects.requireNonNull(listener, "Listener was null");
         Objects.requireNonNull(rule, "Rule was null");
         this.listener = listener;
         this.rule = rule;
+        this.suppressors = suppressors;
     }
 
     /**
@@ -140,11 +140,12 @@ public final class RuleContext {
             location = FileLocation.range(location.getFileId(), TextRange2d.range2d(beginLine, 1, endLine, 1));
         }
 
-        final Map<String, String> extraVariables = ViolationDecorator.apply(handler.getViolationDecorator(), node);
-        final String description = makeMessage(message, formatArgs, extraVariables);
-        final RuleViolation violation = new ParametricRuleViolation(rule, location, description, extraVariables);
+        // suppressors mostly look at the node, the message is only formatted if needed
+        final LazyRuleViolation violation = new LazyRuleViolation(rule, location, node, handler.getViolationDecorator(),
+                                                                  message, formatArgs);
 
-        final SuppressedViolation suppressed = suppressOrNull(node, violation, handler);
+        final SuppressedViolation suppressed = suppressOrNull(node, violation, handler, suppressors);
+        violation.releaseNode();
 
         if (suppressed != null) {
             listener.onSuppressedRuleViolation(suppressed);
@@ -153,10 +154,11 @@ public final class RuleContext {
         }
     }
 
-    private static @Nullable SuppressedViolation suppressOrNull(Node location, RuleViolation rv, LanguageVersionHandler handler) {
+    private static @Nullable SuppressedViolation suppressOrNull(Node location, RuleViolation rv, LanguageVersionHandler handler,
+                                                                List<ViolationSuppressor> suppressors) {
         SuppressedViolation suppressed = ViolationSuppressor.suppressOrNull(handler.getExtraViolationSuppressors(), rv, location);
         if (suppressed == null) {
-            suppressed = ViolationSuppressor.suppressOrNull(DEFAULT_SUPPRESSORS, rv, location);
+            suppressed = ViolationSuppressor.suppressOrNull(suppressors, rv, location);
         }
         return suppressed;
     }
@@ -172,46 +174,6 @@ public final class RuleContext {
         listener.onRuleViolation(rv);
     }
 
-    private String makeMessage(@NonNull String message, Object[] args, Map<String, String> extraVars) {
-        // Escape PMD specific variable message format, specifically the {
-        // in the ${, so MessageFormat doesn't bitch.
-        final String escapedMessage = StringUtils.replace(message, "${", "$'{'");
-        String formatted = MessageFormat.format(escapedMessage, args);
-        return expandVariables(formatted, extraVars);
-    }
-
-
-    private String expandVariables(String message, Map<String, String> extraVars) {
-
-        if (!message.contains("${")) {
-            return message;
-        }
-
-        StringBuilder buf = new StringBuilder(message);
-        int startIndex = -1;
-        while ((startIndex = buf.indexOf("${", startIndex + 1)) >= 0) {
-            final int endIndex = buf.indexOf("}", startIndex);
-            if (endIndex >= 0) {
-                final String name = buf.substring(startIndex + 2, endIndex);
-                String variableValue = getVariableValue(name, extraVars);
-                if (variableValue != null) {
-                    buf.replace(startIndex, endIndex + 1, variableValue);
-                }
-            }
-        }
-        return buf.toString();
-    }
-
-    private String getVariableValue(String name, Map<String, String> extraVars) {
-        String value = extraVars.get(name);
-        if (value != null) {
-            return value;
-        }
-        final PropertyDescriptor<?> propertyDescriptor = rule.getPropertyDescriptor(name);
-        return propertyDescriptor == null ? null : String.valueOf(rule.getProperty(propertyDescriptor));
-    }
-
-
     /**
      * Create a new RuleContext.
      *
@@ -219,7 +181,24 @@ public final class RuleContext {
      */
     @InternalApi
     public static RuleContext create(FileAnalysisListener listener, Rule rule) {
-        return new RuleContext(listener, rule);
+        return new RuleContext(listener, rule, DEFAULT_SUPPRESSORS);
+    }
+
+    /**
+     * Create a new RuleContext, which uses the given suppressor for the
+     * violationSuppressXPath property of the rule, instead of compiling
+     * the XPath expression for each violation.
+     *
+     * The listener must be closed by its creator.
+     */
+    @InternalApi
+    public static RuleContext create(FileAnalysisListener listener, Rule rule, @Nullable ViolationSuppressor xpathSuppressor) {
+        if (xpathSuppressor == null) {
+            return new RuleContext(listener, rule, NO_XPATH_SUPPRESSORS);
+        }
+        return new RuleContext(listener, rule, listOf(ViolationSuppressor.NOPMD_COMMENT_SUPPRESSOR,
+                                                      ViolationSuppressor.REGEX_SUPPRESSOR,
+                                                      xpathSuppressor));
     }
 
 }
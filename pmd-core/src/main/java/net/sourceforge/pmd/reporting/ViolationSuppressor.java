@@ -59,10 +59,9 @@ public interface ViolationSuppressor {
 
         @Override
         public @Nullable SuppressedViolation suppressOrNull(RuleViolation rv, @NonNull Node node) {
-            // todo this should not be implemented via a rule property
-            //  because the parsed xpath expression should be stored, not a random string
-            //  this needs to be checked to be a valid xpath expression in the ruleset,
-            //  not at the time it is evaluated, and also parsed by the XPath parser only once
+            // This compiles the expression for each violation. Rule contexts
+            // created by the RuleSets use a suppressor that is compiled once
+            // when the rules are initialized (XPathViolationSuppressor).
             Rule rule = rv.getRule();
             Optional<String> xpath = rule.getProperty(Rule.VIOLATION_SUPPRESS_XPATH_DESCRIPTOR);
             if (!xpath.isPresent()) {
@@ -4,7 +4,10 @@
 
 package net.sourceforge.pmd;
 
+import static java.util.Collections.emptyList;
+import static net.sourceforge.pmd.util.CollectionUtil.listOf;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
@@ -19,6 +22,7 @@ import java.io.IOException;
 import java.nio.file.Paths;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
@@ -32,6 +36,7 @@ import net.sourceforge.pmd.lang.document.SimpleTestTextFile;
 import net.sourceforge.pmd.lang.rule.AbstractRule;
 import net.sourceforge.pmd.lang.rule.MockRule;
 import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.internal.AnalysisBudget;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.reporting.Report;
 import net.sourceforge.pmd.reporting.ReportStats;
@@ -170,6 +175,91 @@ class PmdAnalysisTest {
         }
     }
 
+    @Test
+    void testFileTooLarge() {
+        PMDConfiguration config = new PMDConfiguration();
+        config.setThreads(1);
+        config.setMaxFileSize(5);
+        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+            pmd.addRuleSet(RuleSet.forSingleRule(new ViolationRule()));
+            pmd.files().addSourceFile(FileId.fromPathLikeString("fname1.dummy"), "some source");
+            pmd.files().addSourceFile(FileId.fromPathLikeString("fname2.dummy"), "small");
+
+            Report report = pmd.performAnalysisAndCollectReport();
+            assertEquals(1, report.getProcessingErrors().size());
+            assertThat(report.getProcessingErrors().get(0).getMsg(), containsString("more than the maximum of 5"));
+            assertEquals(1, report.getViolations().size());
+            assertEquals("fname2.dummy", report.getViolations().get(0).getFileId().getFileName());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testRuleTimeBudget() {
+        PMDConfiguration config = new PMDConfiguration();
+        config.setThreads(1);
+        config.setRuleTimeBudget(50);
+        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+            pmd.addRuleSet(RuleSet.create("budget", "budget", null, emptyList(), emptyList(),
+                                          listOf(new SpinningRule(), new ViolationRule())));
+            pmd.files().addSourceFile(FileId.fromPathLikeString("fname1.dummy"), "some source");
+
+            Report report = pmd.performAnalysisAndCollectReport();
+            assertEquals(1, report.getProcessingErrors().size());
+            assertThat(report.getProcessingErrors().get(0).getMsg(), containsString("for rule Spinning exceeded"));
+            // the next rule has its own budget
+            assertEquals(1, report.getViolations().size());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testFileTimeBudget() {
+        PMDConfiguration config = new PMDConfiguration();
+        config.setThreads(1);
+        config.setFileTimeBudget(50);
+        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+            pmd.addRuleSet(RuleSet.create("budget", "budget", null, emptyList(), emptyList(),
+                                          listOf(new SpinningRule(), new ViolationRule())));
+            pmd.files().addSourceFile(FileId.fromPathLikeString("fname1.dummy"), "some source");
+
+            Report report = pmd.performAnalysisAndCollectReport();
+            assertEquals(1, report.getProcessingErrors().size());
+            assertThat(report.getProcessingErrors().get(0).getMsg(), containsString("while applying rule Spinning"));
+            // the remaining rules were skipped
+            assertEquals(0, report.getViolations().size());
+        }
+    }
+
+    /** Spins until its time budget is exceeded, like a pathologically slow rule. */
+    private static class SpinningRule extends AbstractRule {
+        SpinningRule() {
+            setLanguage(DummyLanguageModule.getInstance());
+            setName("Spinning");
+            setMessage("spinning rule");
+        }
+
+        @Override
+        public void apply(Node node, RuleContext ctx) {
+            while (true) {
+                AnalysisBudget.checkpoint();
+            }
+        }
+    }
+
+    private static class ViolationRule extends AbstractRule {
+        ViolationRule() {
+            setLanguage(DummyLanguageModule.getInstance());
+            setName("Violation");
+            setMessage("violation");
+        }
+
+        @Override
+        public void apply(Node node, RuleContext ctx) {
+            ctx.addViolation(node);
+        }
+    }
+
     private static class TestRule extends AbstractRule {
         TestRule() {
             setLanguage(Dummy2LanguageModule.getInstance());
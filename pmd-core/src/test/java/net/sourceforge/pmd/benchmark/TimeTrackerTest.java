@@ -0,0 +1,131 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.benchmark.TimeTracker.TimedResult;
+import net.sourceforge.pmd.lang.document.FileId;
+
+class TimeTrackerTest {
+
+    @AfterEach
+    void stopTracking() {
+        TimeTracker.stopGlobalTracking();
+    }
+
+    @Test
+    void testNestedOperations() {
+        TimeTracker.startGlobalTracking();
+        try (TimedOperation outer = TimeTracker.startOperation(TimedOperationCategory.FILE_PROCESSING)) {
+            for (int i = 0; i < 3; i++) {
+                try (TimedOperation inner = TimeTracker.startOperation(TimedOperationCategory.RULE, "SomeRule")) {
+                    inner.close(2);
+                }
+            }
+        }
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        TimedResult outer = report.getUnlabeledMeasurements(TimedOperationCategory.FILE_PROCESSING);
+        TimedResult inner = report.getLabeledMeasurements(TimedOperationCategory.RULE).get("SomeRule");
+        assertEquals(1, outer.callCount.get());
+        assertEquals(3, inner.callCount.get());
+        // closing twice does not count twice
+        assertEquals(6, inner.extraDataCounter.get());
+        assertEquals(outer.totalTimeNanos.get(), outer.selfTimeNanos.get() + inner.totalTimeNanos.get());
+        assertEquals(inner.totalTimeNanos.get(), inner.selfTimeNanos.get());
+    }
+
+    @Test
+    void testMeasuresOfAllThreadsAreMerged() throws InterruptedException {
+        TimeTracker.startGlobalTracking();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    TimeTracker.initThread();
+                    TimeTracker.bench("pass", () -> { });
+                    TimeTracker.finishThread();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        TimedResult pass = report.getLabeledMeasurements(TimedOperationCategory.LANGUAGE_SPECIFIC_PROCESSING).get("pass");
+        assertEquals(400, pass.callCount.get());
+        assertEquals(0, report.getUnlabeledMeasurements(TimedOperationCategory.UNACCOUNTED).callCount.get());
+    }
+
+    @Test
+    void testSlowestFiles() {
+        TimeTracker.startGlobalTracking(1);
+        FileId fileId = FileId.fromPathLikeString("A.java");
+        TimeTracker.startFile(fileId);
+        TimeTracker.startOperation(TimedOperationCategory.PARSER).close();
+        TimeTracker.startOperation(TimedOperationCategory.RULE, "SomeRule").close();
+        TimeTracker.finishFile();
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        assertEquals(1, report.getSlowestFiles().size());
+        assertSame(fileId, report.getSlowestFiles().get(0).getFileId());
+        assertEquals("SomeRule", report.getSlowestRuleFilePairs().get(0).getRuleName());
+        assertTrue(report.getSlowestRuleFilePairs().get(0).getNanos() > 0);
+    }
+
+    @Test
+    void testResources() {
+        TimeTracker.startGlobalTracking(0, true);
+        long[] sink = null;
+        try (TimedOperation outer = TimeTracker.startOperation(TimedOperationCategory.FILE_PROCESSING)) {
+            try (TimedOperation inner = TimeTracker.startOperation(TimedOperationCategory.RULE, "Allocating")) {
+                sink = new long[1_000_000];
+            }
+        }
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        assertEquals(1_000_000, sink.length);
+        TimedResult inner = report.getLabeledMeasurements(TimedOperationCategory.RULE).get("Allocating");
+        TimedResult outer = report.getUnlabeledMeasurements(TimedOperationCategory.FILE_PROCESSING);
+        assumeTrue(report.isAllocationTracked());
+        assertTrue(inner.selfAllocatedBytes.get() >= 8_000_000, "allocated " + inner.selfAllocatedBytes.get());
+        // the allocations of the rule are not counted in the enclosing operation
+        assertTrue(outer.selfAllocatedBytes.get() < 8_000_000, "allocated " + outer.selfAllocatedBytes.get());
+    }
+
+    @Test
+    void testSnapshot() {
+        TimeTracker.startGlobalTracking();
+        TimeTracker.startOperation(TimedOperationCategory.RULE, "SomeRule").close();
+        TimingReport snapshot = TimeTracker.snapshot();
+        TimeTracker.startOperation(TimedOperationCategory.RULE, "SomeRule").close();
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        assertFalse(snapshot.isAllocationTracked());
+        assertEquals(1, snapshot.getLabeledMeasurements(TimedOperationCategory.RULE).get("SomeRule").callCount.get());
+        assertEquals(2, report.getLabeledMeasurements(TimedOperationCategory.RULE).get("SomeRule").callCount.get());
+    }
+
+    @Test
+    void testNoTrackingWhenStopped() {
+        TimeTracker.startOperation(TimedOperationCategory.RULE, "SomeRule").close();
+        assertNull(TimeTracker.stopGlobalTracking());
+    }
+}
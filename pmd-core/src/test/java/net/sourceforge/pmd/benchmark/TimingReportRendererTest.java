@@ -0,0 +1,154 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.benchmark.TimeTracker.TimedOperationKey;
+import net.sourceforge.pmd.benchmark.TimeTracker.TimedResult;
+import net.sourceforge.pmd.lang.document.FileId;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+class TimingReportRendererTest {
+
+    private static final FileId FILE_A = FileId.fromPathLikeString("src/A.java");
+    private static final FileId FILE_B = FileId.fromPathLikeString("src/with,comma/B.java");
+
+    @Test
+    void testSlowestEntriesAreBounded() {
+        SlowestEntries<Long> slowest = new SlowestEntries<>(3, Long::longValue);
+        for (long time : new long[] { 5, 1, 9, 3, 7, 2, 8 }) {
+            if (slowest.accepts(time)) {
+                slowest.offer(time);
+            }
+        }
+        assertEquals(Arrays.asList(9L, 8L, 7L), slowest.toList());
+        assertFalse(slowest.accepts(7));
+        assertTrue(slowest.accepts(10));
+    }
+
+    @Test
+    void testNoSlowestEntries() {
+        SlowestEntries<Long> slowest = new SlowestEntries<>(0, Long::longValue);
+        assertFalse(slowest.accepts(Long.MAX_VALUE));
+        slowest.offer(1L);
+        assertTrue(slowest.toList().isEmpty());
+    }
+
+    @Test
+    void testTextReport() throws IOException {
+        String text = render(new TextTimingReportRenderer(), createReport());
+        assertTrue(text.contains("Slowest Files"));
+        assertTrue(text.contains("Slowest Rules Per File"));
+        // slowest file first
+        assertTrue(text.indexOf("src/with,comma/B.java") < text.indexOf("src/A.java"));
+    }
+
+    @Test
+    void testTextReportWithoutSlowestFiles() throws IOException {
+        TimingReport report = new TimingReport(10, measurements(), Collections.emptyList(), Collections.emptyList(), false, false);
+        assertFalse(render(new TextTimingReportRenderer(), report).contains("Slowest Files"));
+    }
+
+    @Test
+    void testJsonReport() throws IOException {
+        JsonObject json = JsonParser.parseString(render(new JsonTimingReportRenderer(), createReport())).getAsJsonObject();
+        assertEquals(1234, json.get("wallClockMillis").getAsLong());
+        assertEquals(4096, json.getAsJsonArray("measurements").get(0).getAsJsonObject().get("selfAllocatedBytes").getAsLong());
+        assertEquals(2, json.getAsJsonArray("measurements").size());
+        JsonObject file = json.getAsJsonArray("slowestFiles").get(0).getAsJsonObject();
+        assertEquals("src/with,comma/B.java", file.get("file").getAsString());
+        assertEquals(600, file.get("totalNanos").getAsLong());
+        JsonObject rule = json.getAsJsonArray("slowestRuleFilePairs").get(0).getAsJsonObject();
+        assertEquals("SlowRule", rule.get("rule").getAsString());
+        assertEquals(300, rule.get("nanos").getAsLong());
+    }
+
+    @Test
+    void testCsvReport() throws IOException {
+        List<String> lines = Arrays.stream(render(new CsvTimingReportRenderer(), createReport()).split("\\R"))
+                                   .collect(Collectors.toList());
+        assertEquals("kind,category,label,rule,total_nanos,self_nanos,calls,counter,parse_nanos,processing_nanos,rule_nanos,"
+                     + "self_cpu_nanos,self_allocated_bytes",
+                     lines.get(0));
+        assertEquals("measurement,RULE,SlowRule,,500,400,2,0,,,,350,4096", lines.get(1));
+        assertEquals("measurement,COLLECT_FILES,,,50,50,1,0,,,,40,0", lines.get(2));
+        assertEquals("file,,\"src/with,comma/B.java\",,600,,,,100,200,300,,", lines.get(3));
+        assertEquals("rule-file,,\"src/with,comma/B.java\",SlowRule,300,,,,,,,,", lines.get(5));
+    }
+
+    @Test
+    void testTextReportWithResources() throws IOException {
+        String text = render(new TextTimingReportRenderer(), createReport());
+        assertTrue(text.contains("Resource Usage"));
+        assertTrue(text.contains("Rule: SlowRule"));
+    }
+
+    @Test
+    void testPrometheusReport() throws IOException {
+        String text = render(new PrometheusTimingReportRenderer(), createReport());
+        assertTrue(text.contains("# TYPE pmd_operation_self_allocated_bytes_total counter\n"), text);
+        assertTrue(text.contains("pmd_operation_self_allocated_bytes_total{category=\"RULE\",label=\"SlowRule\"} 4096\n"), text);
+        assertTrue(text.contains("pmd_operation_calls_total{category=\"COLLECT_FILES\",label=\"\"} 1\n"), text);
+        assertTrue(text.contains("pmd_operation_seconds_total{category=\"RULE\",label=\"SlowRule\"} 5.0E-7\n"), text);
+        assertTrue(text.contains("pmd_slowest_rule_file_seconds{file=\"src/with,comma/B.java\",rule=\"SlowRule\"} 3.0E-7\n"), text);
+    }
+
+    @Test
+    void testPrometheusReportWithoutResources() throws IOException {
+        TimingReport report = new TimingReport(10, measurements(), Collections.emptyList(), Collections.emptyList(), false, false);
+        String text = render(new PrometheusTimingReportRenderer(), report);
+        assertFalse(text.contains("pmd_operation_self_cpu_seconds_total"));
+        assertFalse(text.contains("pmd_slowest_file_seconds"));
+    }
+
+    private static TimingReport createReport() {
+        List<FileTiming> files = Arrays.asList(new FileTiming(FILE_B, 100, 200, 300),
+                                               new FileTiming(FILE_A, 10, 20, 30));
+        List<RuleFileTiming> rules = Arrays.asList(new RuleFileTiming(FILE_B, "SlowRule", 300),
+                                                   new RuleFileTiming(FILE_A, "SlowRule", 30));
+        return new TimingReport(1234, measurements(), files, rules, true, true);
+    }
+
+    private static Map<TimedOperationKey, TimedResult> measurements() {
+        Map<TimedOperationKey, TimedResult> results = new HashMap<>();
+        TimedResult rule = result(500, 400, 2);
+        rule.addResources(350, 4096);
+        TimedResult collect = result(50, 50, 1);
+        collect.addResources(40, 0);
+        results.put(new TimedOperationKey(TimedOperationCategory.RULE, "SlowRule"), rule);
+        results.put(new TimedOperationKey(TimedOperationCategory.COLLECT_FILES, null), collect);
+        return results;
+    }
+
+    private static TimedResult result(long total, long self, int calls) {
+        TimedResult result = new TimedResult();
+        result.totalTimeNanos.set(total);
+        result.selfTimeNanos.set(self);
+        result.callCount.set(calls);
+        return result;
+    }
+
+    private static String render(TimingReportRenderer renderer, TimingReport report) throws IOException {
+        StringWriter writer = new StringWriter();
+        renderer.render(report, writer);
+        return writer.toString();
+    }
+}
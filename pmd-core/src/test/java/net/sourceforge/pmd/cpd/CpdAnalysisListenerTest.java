@@ -0,0 +1,66 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.lang.document.FileCollector;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.rule.MockRule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+
+class CpdAnalysisListenerTest {
+
+    private static final String DUPLICATED = "a b c d e f g h i j k l m n o p\n";
+
+    @Test
+    void testSameReportAsCpdAnalysis() throws IOException {
+        CPDConfiguration cpdConfig = new CPDConfiguration();
+        cpdConfig.setMinimumTileSize(10);
+
+        AtomicReference<CPDReport> withPmd = new AtomicReference<>();
+        PMDConfiguration pmdConfig = new PMDConfiguration();
+        pmdConfig.setThreads(2);
+        try (PmdAnalysis pmd = PmdAnalysis.create(pmdConfig)) {
+            pmd.addRuleSet(RuleSet.forSingleRule(new MockRule()));
+            pmd.addListener(new CpdAnalysisListener(cpdConfig, withPmd::set));
+            addFiles(pmd.files());
+            pmd.performAnalysis();
+        }
+
+        AtomicReference<CPDReport> standalone = new AtomicReference<>();
+        try (CpdAnalysis cpd = CpdAnalysis.create(cpdConfig)) {
+            addFiles(cpd.files());
+            cpd.performAnalysis(standalone::set);
+        }
+
+        assertNotNull(withPmd.get());
+        assertEquals(2, withPmd.get().getMatches().size());
+        assertEquals(standalone.get().getNumberOfTokensPerFile(), withPmd.get().getNumberOfTokensPerFile());
+        assertEquals(render(standalone.get()), render(withPmd.get()));
+    }
+
+    private static void addFiles(FileCollector files) {
+        files.addSourceFile(FileId.fromPathLikeString("a.dummy"), "x y\n" + DUPLICATED + "z");
+        files.addSourceFile(FileId.fromPathLikeString("b.dummy"), DUPLICATED);
+        files.addSourceFile(FileId.fromPathLikeString("c.dummy"), "1 2 3\n" + DUPLICATED.toUpperCase());
+        files.addSourceFile(FileId.fromPathLikeString("d.dummy"), "1 2 3\n" + DUPLICATED.toUpperCase() + "4");
+    }
+
+    private static String render(CPDReport report) throws IOException {
+        StringWriter writer = new StringWriter();
+        new SimpleRenderer().render(report, writer);
+        return writer.toString();
+    }
+}
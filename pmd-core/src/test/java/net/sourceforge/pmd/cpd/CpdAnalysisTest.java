@@ -5,11 +5,13 @@
 package net.sourceforge.pmd.cpd;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.io.File;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.SystemUtils;
@@ -17,6 +19,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.document.FileId;
 
 /**
  * Unit test for {@link CpdAnalysis}
@@ -145,6 +148,57 @@ class CpdAnalysisTest {
 
     }
 
+    @Test
+    void testTokensSpilledToDiskGiveSameMatches() throws Exception {
+        List<String> inMemory = findMatches();
+        // a tiny budget spills the tokens and their hashes to disk
+        config.setTokenMemoryBudget(1);
+        List<String> spilled = findMatches();
+
+        assertFalse(inMemory.isEmpty());
+        assertEquals(inMemory, spilled);
+    }
+
+    @Test
+    void testNearDuplicates() throws Exception {
+        String code = "public class Foo { void bar() { int i = 1; foo(i, 2, 3); } void baz() { return x + y * z; } }\n";
+        String edited = code.replace("foo(i, 2, 3)", "foo(j, 2, 3)").replace("x + y", "x - y");
+        config.setMinimumTileSize(8);
+        config.setNearDuplicateThreshold(0.3);
+        try (CpdAnalysis cpd = CpdAnalysis.create(config)) {
+            cpd.files().addSourceFile(FileId.fromPathLikeString("Foo1.dummy"), code);
+            cpd.files().addSourceFile(FileId.fromPathLikeString("Foo2.dummy"), edited);
+            cpd.files().addSourceFile(FileId.fromPathLikeString("Other.dummy"), "interface Other { String name(); int size(); boolean isEmpty(); }\n");
+            cpd.performAnalysis(report -> {
+                assertEquals(1, report.getMatches().size());
+                Match match = report.getMatches().get(0);
+                assertEquals("Foo1.dummy", match.getFirstMark().getFileId().getFileName());
+                assertEquals("Foo2.dummy", match.getSecondMark().getFileId().getFileName());
+                // the marks end before the second edit, so only the first edited token is not duplicated
+                Mark mark = match.getFirstMark();
+                assertEquals(mark.getEndTokenIndex() - mark.getBeginTokenIndex(), match.getTokenCount());
+            });
+        }
+    }
+
+    private List<String> findMatches() throws Exception {
+        List<String> result = new ArrayList<>();
+        try (CpdAnalysis cpd = CpdAnalysis.create(config)) {
+            String code = "public class Foo { void bar() { int i = 1; foo(i, 2, 3); } }\n";
+            cpd.files().addSourceFile(FileId.fromPathLikeString("Foo1.dummy"), code + "int x;\n" + code);
+            cpd.files().addSourceFile(FileId.fromPathLikeString("Foo2.dummy"), "class Bar {}\n" + code);
+            cpd.performAnalysis(report -> {
+                for (Match match : report.getMatches()) {
+                    for (Mark mark : match) {
+                        result.add(match.getTokenCount() + " " + mark.getLocation().startPosToStringWithFile()
+                                       + " " + mark.getBeginTokenIndex() + "-" + mark.getEndTokenIndex());
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
     /**
      * Simple listener that fails, if too many files were added and not skipped.
      */
@@ -0,0 +1,84 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class SpilledTokensTest {
+
+    @Test
+    void testHashPartitionsWithTinyBudget() throws IOException {
+        int numHashes = 200_000;
+        int[] hashes = new int[numHashes];
+        Random random = new Random(42);
+        for (int i = 0; i < numHashes; i++) {
+            // few distinct hashes, some of which only differ in their high bits
+            int hash = random.nextInt(5000);
+            hashes[i] = i % 3 == 0 ? hash << 20 : hash;
+        }
+        // one big group that cannot be split by hash
+        for (int i = 0; i < numHashes; i += 7) {
+            hashes[i] = 0xCAFE;
+        }
+
+        Set<List<Integer>> expected = new HashSet<>();
+        Map<Integer, List<Integer>> byHash = new HashMap<>();
+        for (int i = 0; i < numHashes; i++) {
+            byHash.computeIfAbsent(hashes[i], h -> new ArrayList<>()).add(i);
+        }
+        for (List<Integer> group : byHash.values()) {
+            if (group.size() > 1) {
+                expected.add(group);
+            }
+        }
+
+        Set<List<Integer>> actual = new HashSet<>();
+        int[] maxFiles = new int[1];
+        try (SpilledTokens tokens = SpilledTokens.create();
+             SpilledTokens.HashPartitions partitions = tokens.newHashPartitions(numHashes, 1)) {
+            for (int i = numHashes - 1; i >= 0; i--) {
+                partitions.add(hashes[i], i);
+            }
+            maxFiles[0] = countFiles(partitions.getDirectory());
+            partitions.forEachGroup(group -> {
+                List<Integer> list = new ArrayList<>();
+                Arrays.stream(group).forEach(list::add);
+                assertTrue(actual.add(list));
+                maxFiles[0] = Math.max(maxFiles[0], countFiles(partitions.getDirectory()));
+            });
+            assertEquals(0, countFiles(partitions.getDirectory()));
+        }
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+        assertTrue(maxFiles[0] <= SpilledTokens.HashPartitions.MAX_OPEN_PARTITIONS * 6,
+            "Too many partition files: " + maxFiles[0]);
+    }
+
+    private static int countFiles(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.count();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.internal.util;
+
+import static net.sourceforge.pmd.PmdCoreTestUtils.dummyVersion;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.util.database.DBMSMetadata;
+import net.sourceforge.pmd.util.database.SourceObject;
+
+class DBSourceFetcherTest {
+
+    private final ConcurrentLinkedQueue<String> fetched = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger openedConnections = new AtomicInteger();
+
+    @Test
+    void testSourceIsFetchedWhenRead() throws Exception {
+        try (DBSourceFetcher fetcher = new DBSourceFetcher(newConnection(), this::newConnection, 1, 1)) {
+            TextFile file = newFile(fetcher, "PKG_A");
+
+            assertTrue(fetched.isEmpty());
+            assertEquals("source of PKG_A", file.readContents().getNormalizedText().toString());
+            assertThat(fetched, containsInAnyOrder("PKG_A"));
+        }
+    }
+
+    @Test
+    void testSourcesArePrefetched() throws Exception {
+        try (DBSourceFetcher fetcher = new DBSourceFetcher(newConnection(), this::newConnection, 2, 10)) {
+            List<TextFile> files = new ArrayList<>();
+            for (String name : new String[] {"PKG_A", "PKG_B", "PKG_C", "PKG_D"}) {
+                files.add(newFile(fetcher, name));
+            }
+            assertEquals("source of PKG_A", files.get(0).readContents().getNormalizedText().toString());
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (fetched.size() < 4 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(fetched, containsInAnyOrder("PKG_A", "PKG_B", "PKG_C", "PKG_D"));
+
+            for (TextFile file : files.subList(1, 4)) {
+                assertEquals("source of " + file.getFileId().getFileName(),
+                             file.readContents().getNormalizedText().toString());
+            }
+            // the prefetched sources were used
+            assertEquals(4, fetched.size());
+            assertThat(openedConnections.get(), lessThanOrEqualTo(2));
+        }
+    }
+
+    @Test
+    void testClosedFilesAreNotFetched() throws Exception {
+        try (DBSourceFetcher fetcher = new DBSourceFetcher(newConnection(), this::newConnection, 2, 10)) {
+            TextFile a = newFile(fetcher, "PKG_A");
+            TextFile b = newFile(fetcher, "PKG_B");
+            TextFile c = newFile(fetcher, "PKG_C");
+            b.close();
+
+            a.readContents();
+            c.readContents();
+            a.close();
+            c.close();
+            assertThat(fetched, containsInAnyOrder("PKG_A", "PKG_C"));
+        }
+    }
+
+    @Test
+    void testFetchErrorIsReportedWhenRead() throws Exception {
+        try (DBSourceFetcher fetcher = new DBSourceFetcher(newConnection(), this::newConnection, 2, 10)) {
+            TextFile file = newFile(fetcher, "BROKEN");
+
+            IOException e = assertThrows(IOException.class, file::readContents);
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+    }
+
+    private TextFile newFile(DBSourceFetcher fetcher, String name) {
+        SourceObject sourceObject = mock(SourceObject.class);
+        when(sourceObject.getName()).thenReturn(name);
+        when(sourceObject.getPseudoFileName()).thenReturn(name);
+        return fetcher.newTextFile(sourceObject, FileId.fromPathLikeString(name), dummyVersion());
+    }
+
+    private DBMSMetadata newConnection() throws SQLException {
+        openedConnections.incrementAndGet();
+        return new DBMSMetadata((Connection) null) {
+            @Override
+            public Reader getSourceCode(SourceObject sourceObject) throws SQLException {
+                String name = sourceObject.getName();
+                if ("BROKEN".equals(name)) {
+                    throw new SQLException("no such object");
+                }
+                fetched.add(name);
+                return new StringReader("source of " + name);
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.internal.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.PlainTextLanguage;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+
+class FileShardingTest {
+
+    @Test
+    void testEveryFileIsInOneShard() {
+        List<TextFile> files = files(100);
+        Set<TextFile> seen = new HashSet<>();
+        for (int shard = 0; shard < 7; shard++) {
+            List<TextFile> selected = FileSharding.selectShard(files, shard, 7, FileShardingTest::weight);
+            assertTrue(isOrderedLike(selected, files), "The order of the files should be kept");
+            for (TextFile file : selected) {
+                assertTrue(seen.add(file), "File in several shards: " + file.getFileId().getOriginalPath());
+            }
+        }
+        assertEquals(files.size(), seen.size());
+    }
+
+    @Test
+    void testShardsAreBalanced() {
+        List<TextFile> files = files(200);
+        long total = files.stream().mapToLong(FileShardingTest::weight).sum();
+        for (int shard = 0; shard < 4; shard++) {
+            long load = FileSharding.selectShard(files, shard, 4, FileShardingTest::weight)
+                                    .stream().mapToLong(FileShardingTest::weight).sum();
+            // the greedy assignment is within the weight of the heaviest file of the average
+            assertTrue(Math.abs(load - total / 4) <= 200, "Unbalanced shard " + shard + ": " + load);
+        }
+    }
+
+    @Test
+    void testPartitionIsDeterministic() {
+        List<TextFile> files = files(50);
+        List<TextFile> first = FileSharding.selectShard(files, 2, 3, FileShardingTest::weight);
+        List<TextFile> second = FileSharding.selectShard(new ArrayList<>(files), 2, 3, FileShardingTest::weight);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void testSingleShard() {
+        List<TextFile> files = files(3);
+        assertSame(files, FileSharding.selectShard(files, 0, 1));
+    }
+
+    @Test
+    void testInvalidShard() {
+        assertThrows(IllegalArgumentException.class, () -> FileSharding.selectShard(files(3), 3, 3));
+        assertThrows(IllegalArgumentException.class, () -> FileSharding.selectShard(files(3), 0, 0));
+    }
+
+    private static boolean isOrderedLike(List<TextFile> sublist, List<TextFile> list) {
+        int last = -1;
+        for (TextFile file : sublist) {
+            int index = list.indexOf(file);
+            if (index <= last) {
+                return false;
+            }
+            last = index;
+        }
+        return true;
+    }
+
+    private static List<TextFile> files(int count) {
+        List<TextFile> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(TextFile.forCharSeq("", FileId.fromPathLikeString("File" + i + ".txt"),
+                                          PlainTextLanguage.getInstance().getDefaultVersion()));
+        }
+        return files;
+    }
+
+    private static long weight(TextFile file) {
+        // deterministic, uneven weights between 1 and 200
+        return 1 + Math.floorMod(file.getFileId().getFileName().hashCode() * 31, 200);
+    }
+}
@@ -4,19 +4,26 @@
 
 package net.sourceforge.pmd.lang;
 
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Set;
 
 import net.sourceforge.pmd.cpd.CpdCapableLanguage;
 import net.sourceforge.pmd.cpd.CpdLanguageProperties;
 import net.sourceforge.pmd.lang.ast.DummyNode;
 import net.sourceforge.pmd.lang.ast.DummyNode.DummyRootNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.NodeStream;
 import net.sourceforge.pmd.lang.ast.ParseException;
 import net.sourceforge.pmd.lang.ast.Parser;
 import net.sourceforge.pmd.lang.ast.Parser.ParserTask;
+import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.document.Chars;
 import net.sourceforge.pmd.lang.document.TextDocument;
 import net.sourceforge.pmd.lang.document.TextRegion;
 import net.sourceforge.pmd.lang.impl.SimpleLanguageModuleBase;
+import net.sourceforge.pmd.lang.metrics.LanguageMetricsProvider;
+import net.sourceforge.pmd.lang.metrics.Metric;
 import net.sourceforge.pmd.reporting.RuleViolation;
 import net.sourceforge.pmd.reporting.ViolationDecorator;
 
@@ -75,6 +82,37 @@ public class DummyLanguageModule extends SimpleLanguageModuleBase implements Cpd
         public ViolationDecorator getViolationDecorator() {
             return (node, data) -> data.put(RuleViolation.PACKAGE_NAME, "foo");
         }
+
+        @Override
+        public LanguageMetricsProvider getLanguageMetricsProvider() {
+            return DummyMetricsProvider.INSTANCE;
+        }
+    }
+
+    /**
+     * Exports the number of children of every node.
+     */
+    private static final class DummyMetricsProvider implements LanguageMetricsProvider {
+
+        static final LanguageMetricsProvider INSTANCE = new DummyMetricsProvider();
+
+        private static final Metric<Node, Integer> NUM_CHILDREN =
+            Metric.of((node, options) -> node.getNumChildren(), node -> node, "Number of children", "children");
+
+        @Override
+        public Set<Metric<?, ?>> getMetrics() {
+            return Collections.singleton(NUM_CHILDREN);
+        }
+
+        @Override
+        public NodeStream<? extends Node> getExportedNodes(RootNode root) {
+            return root.descendants();
+        }
+
+        @Override
+        public String getExportedName(Node node) {
+            return node.getImage();
+        }
     }
 
     /**
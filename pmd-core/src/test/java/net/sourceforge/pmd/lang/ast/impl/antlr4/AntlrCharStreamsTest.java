@@ -0,0 +1,63 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast.impl.antlr4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.document.TextDocument;
+
+class AntlrCharStreamsTest {
+
+    private final LanguageVersion dummyVersion = DummyLanguageModule.getInstance().getDefaultVersion();
+
+    @Test
+    void testBehavesLikeCodePointStream() {
+        String text = "fun foo() = 1\n";
+        CharStream expected = CharStreams.fromString(text);
+        CharStream actual = AntlrCharStreams.fromDocument(TextDocument.readOnlyString(text, dummyVersion));
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i <= text.length(); i++) {
+            assertEquals(expected.index(), actual.index());
+            assertEquals(expected.LA(1), actual.LA(1));
+            assertEquals(expected.LA(2), actual.LA(2));
+            assertEquals(expected.LA(-1), actual.LA(-1));
+            if (i < text.length()) {
+                expected.consume();
+                actual.consume();
+            }
+        }
+        assertEquals(IntStream.EOF, actual.LA(1));
+        assertThrows(IllegalStateException.class, actual::consume);
+
+        assertEquals(expected.getText(Interval.of(4, 6)), actual.getText(Interval.of(4, 6)));
+        assertEquals(expected.getText(Interval.of(10, 100)), actual.getText(Interval.of(10, 100)));
+        assertEquals("", actual.getText(Interval.of(5, 4)));
+
+        actual.seek(4);
+        assertEquals(' ', actual.LA(-1));
+        assertEquals('f', actual.LA(1));
+    }
+
+    @Test
+    void testSupplementaryCharsAreCodePoints() {
+        String text = "a😀b";
+        CharStream stream = AntlrCharStreams.fromDocument(TextDocument.readOnlyString(text, dummyVersion));
+
+        assertEquals(3, stream.size());
+        assertEquals('a', stream.LA(1));
+        assertEquals(0x1F600, stream.LA(2));
+        assertEquals('b', stream.LA(3));
+    }
+}
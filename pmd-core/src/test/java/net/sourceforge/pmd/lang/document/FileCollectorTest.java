@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -90,6 +91,65 @@ class FileCollectorTest {
         assertCollected(collector, listOf(FileId.fromPath(foo), FileId.fromPath(bar)));
     }
 
+    @Test
+    void testAddDirectoryWithIgnoreFiles() throws IOException {
+        Path root = tempFolder;
+        writeFile(root, ".gitignore", "# generated\nbuild/\n*.gen.dummy\n!keep.gen.dummy\n");
+        writeFile(root, "src/.pmdignore", "/local.dummy\n");
+        Path foo = newFile(root, "src/foo.dummy");
+        newFile(root, "build/out.dummy");
+        newFile(root, "src/a.gen.dummy");
+        Path keep = newFile(root, "src/keep.gen.dummy");
+        newFile(root, "src/local.dummy");
+        Path subLocal = newFile(root, "src/sub/local.dummy");
+
+        FileCollector collector = newCollector();
+        collector.setUseIgnoreFiles(true);
+        collector.addDirectory(root);
+
+        assertCollected(collector, listOf(FileId.fromPath(foo), FileId.fromPath(keep), FileId.fromPath(subLocal)));
+        assertNoErrors(collector);
+    }
+
+    @Test
+    void testIgnoreFilesAreNotUsedByDefault() throws IOException {
+        Path root = tempFolder;
+        writeFile(root, ".gitignore", "*.dummy\n");
+        Path foo = newFile(root, "src/foo.dummy");
+
+        FileCollector collector = newCollector();
+        collector.addDirectory(root);
+
+        assertCollected(collector, listOf(FileId.fromPath(foo)));
+    }
+
+    @Test
+    void testExcludedPathsAreNotExplored() throws IOException {
+        Path root = tempFolder;
+        Path foo = newFile(root, "src/foo.dummy");
+        newFile(root, "src/x/bar.dummy");
+        newFile(root, "src/baz.dummy");
+
+        FileCollector collector = newCollector();
+        collector.setExcludedPaths(listOf(root.resolve("src/x"), root.resolve("src/./baz.dummy")));
+        collector.addDirectory(root.resolve("src"));
+
+        assertCollected(collector, listOf(FileId.fromPath(foo)));
+    }
+
+    @Test
+    void testExcludeDirectories() throws IOException {
+        Path root = tempFolder;
+        Path foo = newFile(root, "src/foo.dummy");
+        Path bar = newFile(root, "src/x/bar.dummy");
+
+        FileCollector collector = newCollector();
+        collector.addFile(foo);
+        collector.addFile(bar);
+        collector.excludeDirectories(listOf(root.resolve("src/x")));
+
+        assertCollected(collector, listOf(FileId.fromPath(foo)));
+    }
 
 
     private Path newFile(Path root, String path) throws IOException {
@@ -99,6 +159,12 @@ class FileCollectorTest {
         return resolved;
     }
 
+    private void writeFile(Path root, String path, String contents) throws IOException {
+        Path resolved = root.resolve(path);
+        Files.createDirectories(resolved.getParent());
+        Files.write(resolved, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
     private void assertCollected(FileCollector collector, List<FileId> expected) {
         List<FileId> actual = CollectionUtil.map(collector.getCollectedFiles(), TextFile::getFileId);
         assertEquals(expected, actual);
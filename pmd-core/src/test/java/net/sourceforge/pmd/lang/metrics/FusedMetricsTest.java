@@ -0,0 +1,93 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.metrics;
+
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.node;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.root;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.tree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.ast.DummyNode.DummyRootNode;
+import net.sourceforge.pmd.lang.ast.Node;
+
+class FusedMetricsTest {
+
+    private static final Metric<Node, Integer> NUM_CHILDREN = Metric.of((n, opts) -> n.getNumChildren(), n -> n, "children");
+    private static final Metric<Node, Integer> OTHER = Metric.of((n, opts) -> 0, n -> n, "other");
+
+    private final List<Set<MetricOptions>> traversals = new ArrayList<>();
+    private final FusedMetrics fusedMetrics = new FusedMetrics(Collections.singleton(NUM_CHILDREN), (root, requests) -> {
+        Set<MetricOptions> options = requests.get(NUM_CHILDREN);
+        traversals.add(new HashSet<>(options));
+        root.descendantsOrSelf().forEach(n -> {
+            for (MetricOptions opts : options) {
+                FusedMetrics.store(NUM_CHILDREN, n, opts, n.getNumChildren());
+            }
+        });
+    });
+
+    @Test
+    void testFileIsTraversedOnce() {
+        DummyRootNode file = tree(() -> root(node(node(), node()), node()));
+        Node first = file.getChild(0);
+
+        assertEquals(2, fusedMetrics.computeOnFile(NUM_CHILDREN, first, MetricOptions.emptyOptions()));
+        assertEquals(1, traversals.size());
+
+        // the values of the other nodes are cached
+        assertEquals(0, MetricsUtil.computeMetric(NUM_CHILDREN, file.getChild(1)));
+        assertEquals(2, (int) file.getUserMap().get(ParameterizedMetricKey.getInstance(NUM_CHILDREN, MetricOptions.emptyOptions())));
+
+        // the file is not traversed again
+        assertNull(fusedMetrics.computeOnFile(NUM_CHILDREN, file, MetricOptions.emptyOptions()));
+        assertEquals(1, traversals.size());
+
+        // another file is traversed
+        DummyRootNode other = tree(() -> root(node()));
+        assertEquals(1, fusedMetrics.computeOnFile(NUM_CHILDREN, other, MetricOptions.emptyOptions()));
+        assertEquals(2, traversals.size());
+    }
+
+    @Test
+    void testOptionsAreRecorded() {
+        MetricOptions options = MetricOptions.ofOptions(Options.DUMMY);
+        DummyRootNode file1 = tree(() -> root(node()));
+        DummyRootNode file2 = tree(() -> root(node()));
+
+        fusedMetrics.computeOnFile(NUM_CHILDREN, file1, MetricOptions.emptyOptions());
+        fusedMetrics.computeOnFile(NUM_CHILDREN, file1, options);
+        fusedMetrics.computeOnFile(NUM_CHILDREN, file2, MetricOptions.emptyOptions());
+
+        assertEquals(Collections.singleton(MetricOptions.emptyOptions()), traversals.get(0));
+        assertEquals(2, traversals.get(1).size());
+        assertEquals(1, (int) file2.getUserMap().get(ParameterizedMetricKey.getInstance(NUM_CHILDREN, options)));
+    }
+
+    @Test
+    void testUnsupportedMetric() {
+        DummyRootNode file = tree(() -> root(node()));
+
+        assertNull(fusedMetrics.computeOnFile(OTHER, file, MetricOptions.emptyOptions()));
+        assertEquals(0, traversals.size());
+    }
+
+    private enum Options implements MetricOption {
+        DUMMY;
+
+        @Override
+        public String valueName() {
+            return "dummy";
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.metrics.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.sourceforge.pmd.FooRule;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.cache.CachedRuleViolation;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.FileLocation;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.document.TextRange2d;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.ParametricRuleViolation;
+
+class MetricsCsvWriterTest {
+
+    private static final String HEADER = "File,Language,Line,Name,Metric,Value\n";
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testExportAllMetrics() throws Exception {
+        writeFiles();
+
+        assertEquals(HEADER
+                         + "a.dummy,dummy,1,a,Number of children,2\n"
+                         + "a.dummy,dummy,1,b,Number of children,0\n"
+                         + "a.dummy,dummy,2,c,Number of children,0\n"
+                         + "b.dummy,dummy,1,\"x,\"\"y\"\"\",Number of children,0\n",
+                     export(Collections.emptyList(), null, GlobalAnalysisListener.noop()));
+    }
+
+    @Test
+    void testSelectMetrics() throws Exception {
+        writeFiles();
+
+        assertEquals(HEADER, export(Collections.singletonList("unknown"), null, GlobalAnalysisListener.noop()));
+        assertEquals(5, export(Collections.singletonList("CHILDREN"), null, GlobalAnalysisListener.noop()).split("\n").length);
+    }
+
+    @Test
+    void testMetricsOfUnchangedFilesAreCached() throws Exception {
+        writeFiles();
+        Path cache = tempDir.resolve("cache/pmd.cache");
+        Files.createDirectories(cache.getParent());
+
+        String firstRun = export(Collections.emptyList(), cache, GlobalAnalysisListener.noop());
+
+        AtomicInteger numCached = new AtomicInteger();
+        AtomicInteger numComputed = new AtomicInteger();
+        String secondRun = export(Collections.emptyList(), cache, new GlobalAnalysisListener() {
+            @Override
+            public FileAnalysisListener startFileAnalysis(TextFile file) {
+                return violation -> (violation instanceof CachedRuleViolation ? numCached : numComputed).incrementAndGet();
+            }
+
+            @Override
+            public void close() {
+                // nothing to do
+            }
+        });
+
+        assertEquals(firstRun, secondRun);
+        assertEquals(4, numCached.get());
+        assertEquals(0, numComputed.get());
+    }
+
+    @Test
+    void testOtherViolationsAreIgnored() throws Exception {
+        StringWriter out = new StringWriter();
+        try (MetricsCsvWriter writer = new MetricsCsvWriter(out, new PMDConfiguration().getReporter())) {
+            FileId fileId = FileId.fromPathLikeString("a.dummy");
+            FileAnalysisListener listener = writer.startFileAnalysis(
+                TextFile.forCharSeq("(a)", fileId, DummyLanguageModule.getInstance().getDefaultVersion()));
+            listener.onRuleViolation(new ParametricRuleViolation(new FooRule(), FileLocation.range(fileId, TextRange2d.range2d(1, 1, 1, 4)), "foo"));
+            listener.close();
+            assertEquals(0, writer.getNumRows());
+        }
+        assertEquals(HEADER, out.toString());
+    }
+
+    private void writeFiles() throws IOException {
+        Files.write(tempDir.resolve("a.dummy"), Arrays.asList("(a(b)", "(c))"), StandardCharsets.UTF_8);
+        Files.write(tempDir.resolve("b.dummy"), Collections.singletonList("(x,\"y\")"), StandardCharsets.UTF_8);
+    }
+
+    private String export(List<String> metrics, Path cache, GlobalAnalysisListener listener) throws Exception {
+        PMDConfiguration config = new PMDConfiguration();
+        config.setThreads(0);
+        config.addInputPath(tempDir.resolve("a.dummy"));
+        config.addInputPath(tempDir.resolve("b.dummy"));
+        config.addRelativizeRoot(tempDir);
+        if (cache == null) {
+            config.setIgnoreIncrementalAnalysis(true);
+        } else {
+            config.setAnalysisCacheLocation(cache.toString());
+        }
+
+        StringWriter out = new StringWriter();
+        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+            pmd.addRuleSet(RuleSet.forSingleRule(MetricsExportRule.forLanguage(DummyLanguageModule.getInstance(), metrics)));
+            pmd.addListener(new MetricsCsvWriter(out, config.getReporter()));
+            pmd.addListener(listener);
+            pmd.performAnalysis();
+        }
+        return out.toString();
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -42,6 +43,7 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 
 import net.sourceforge.pmd.DummyParsingHelper;
 import net.sourceforge.pmd.FooRule;
+import net.sourceforge.pmd.lang.LanguageProcessorRegistry;
 import net.sourceforge.pmd.lang.ast.DummyNode.DummyRootNode;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.RootNode;
@@ -52,6 +54,7 @@ import net.sourceforge.pmd.reporting.Report;
 import net.sourceforge.pmd.reporting.Report.ProcessingError;
 import net.sourceforge.pmd.reporting.RuleContext;
 import net.sourceforge.pmd.reporting.RuleViolation;
+import net.sourceforge.pmd.util.log.MessageReporter;
 
 class RuleSetTest {
 
@@ -575,4 +578,56 @@ class RuleSetTest {
 
         assertThat(report.getViolations(), hasSize(1));
     }
+
+    @Test
+    void violationSuppressXPathShouldSuppress() throws Exception {
+        Rule rule = new FooRule();
+        rule.setProperty(Rule.VIOLATION_SUPPRESS_XPATH_DESCRIPTOR, Optional.of(".[@Image = 'Foo']"));
+        RuleSet ruleset = createRuleSetBuilder("violationSuppressXPathShouldSuppress").addRule(rule).build();
+
+        Report report = getReportForRuleSetApply(ruleset, makeCompilationUnits());
+
+        assertThat(report.getViolations(), hasSize(0));
+        assertThat(report.getSuppressedViolations(), hasSize(1));
+        assertEquals("XPath", report.getSuppressedViolations().get(0).getSuppressor().getId());
+    }
+
+    @Test
+    void violationSuppressXPathShouldBeEvaluatedPerFile() throws Exception {
+        Rule rule = new FooRule() {
+            @Override
+            public void apply(Node node, RuleContext ctx) {
+                addViolation(ctx, node);
+            }
+        };
+        rule.setProperty(Rule.VIOLATION_SUPPRESS_XPATH_DESCRIPTOR, Optional.of(".[@Image = 'Foo']"));
+        RuleSets ruleSets = new RuleSets(createRuleSetBuilder("violationSuppressXPathShouldBeEvaluatedPerFile").addRule(rule).build());
+        RootNode suppressed = makeCompilationUnits("suppressed.dummy");
+        DummyRootNode notSuppressed = helper.parse("dummyCode", "notSuppressed.dummy");
+        notSuppressed.setImage("Bar");
+
+        Report report = Report.buildReport(listener -> {
+            ruleSets.initializeRules(LanguageProcessorRegistry.singleton(suppressed.getAstInfo().getLanguageProcessor()),
+                                     MessageReporter.quiet());
+            ruleSets.apply(suppressed, listener);
+            ruleSets.apply(notSuppressed, listener);
+        });
+
+        assertThat(report.getSuppressedViolations(), hasSize(1));
+        assertThat(report.getViolations(), hasSize(1));
+        assertEquals("notSuppressed.dummy", report.getViolations().get(0).getFileId().getFileName());
+    }
+
+    @Test
+    void invalidViolationSuppressXPathShouldRemoveRule() throws Exception {
+        Rule rule = new FooRule();
+        rule.setProperty(Rule.VIOLATION_SUPPRESS_XPATH_DESCRIPTOR, Optional.of(".[@Image = "));
+        RuleSets ruleSets = new RuleSets(createRuleSetBuilder("invalidViolationSuppressXPathShouldRemoveRule").addRule(rule).build());
+        RootNode root = makeCompilationUnits();
+
+        ruleSets.initializeRules(LanguageProcessorRegistry.singleton(root.getAstInfo().getLanguageProcessor()),
+                                 MessageReporter.quiet());
+
+        assertEquals(0, ruleSets.ruleCount());
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.internal;
+
+import static java.util.Collections.emptyList;
+import static net.sourceforge.pmd.util.CollectionUtil.listOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+
+class RuleSetFileFilterTest {
+
+    @Test
+    void testSameResultAsRuleSets() {
+        List<RuleSet> ruleSets = listOf(
+            ruleSet(emptyList(), emptyList()),
+            ruleSet(listOf(".*/generated/.*", ".*Test\\.java"), emptyList()),
+            ruleSet(listOf(".*/generated/.*"), listOf(".*/generated/keep/.*")),
+            ruleSet(listOf(".*"), listOf(".*/src/main/.*|.*\\.dummy")),
+            ruleSet(listOf("(?i).*/TARGET/.*", "[a-z]:\\\\.*"), emptyList()),
+            ruleSet(listOf(".*"), listOf(".*/a{1,3}/.*")),
+            ruleSet(listOf(".*/(src){1}/.*"), emptyList()),
+            ruleSet(listOf(".*/\\x41bc/.*", ".*/\\u0066oo\\.dummy"), emptyList())
+        );
+        RuleSetFileFilter filter = RuleSetFileFilter.create(ruleSets);
+
+        List<String> paths = listOf(
+            "/home/me/project/src/main/Foo.java",
+            "/home/me/project/src/test/FooTest.java",
+            "/home/me/project/generated/Foo.java",
+            "/home/me/project/generated/keep/Foo.java",
+            "/home/me/project/target/Foo.java",
+            "/home/me/project/foo.dummy",
+            "/home/me/project/src/aa/Foo.java",
+            "/home/me/project/Abc/Foo.java",
+            "C:\\project\\generated\\Foo.java"
+        );
+        for (String path : paths) {
+            FileId fileId = FileId.fromPathLikeString(path);
+            boolean[] applicable = filter.applicableRuleSets(fileId);
+            for (int i = 0; i < ruleSets.size(); i++) {
+                assertEquals(ruleSets.get(i).applies(fileId), applicable[i], "ruleset " + i + " for " + path);
+            }
+        }
+    }
+
+    @Test
+    void testRequiredLiteral() {
+        assertEquals("/generated/", requiredLiteral(".*/generated/.*"));
+        assertEquals("Test.java", requiredLiteral(".*Test\\.java"));
+        assertEquals("/src/", requiredLiteral(".*/src/(main|test)/.*"));
+        assertEquals("abc", requiredLiteral(".*abc+d?.*"));
+        assertNull(requiredLiteral(".*/src/main/.*|.*\\.dummy"));
+        assertNull(requiredLiteral("(?i).*/target/.*"));
+        assertNull(requiredLiteral(".*"));
+        assertNull(requiredLiteral("a.b.c"));
+        assertEquals("/b", requiredLiteral(".*/a{1,3}/b.*"));
+        assertNull(requiredLiteral(".*/a{1,3}/.*"));
+        assertEquals("/sr", requiredLiteral(".*/src{2}/.*"));
+    }
+
+    @Test
+    void testEscapesWithArguments() {
+        // the arguments of these escapes are not literals
+        assertNull(requiredLiteral(".*/\\x41bc/.*"));
+        assertNull(requiredLiteral(".*/\\x{41}bc/.*"));
+        assertNull(requiredLiteral(".*/\\u0041bc/.*"));
+        assertNull(requiredLiteral(".*/\\0101bc/.*"));
+        assertNull(requiredLiteral(".*/\\cMab/.*"));
+        assertNull(requiredLiteral(".*/\\p{Alpha}bc/.*"));
+        assertNull(requiredLiteral(".*/\\P{Alpha}bc/.*"));
+        assertNull(requiredLiteral(".*/\\N{LATIN SMALL LETTER A}bc/.*"));
+        assertNull(requiredLiteral(".*/(a)\\1bc/.*"));
+        // other escapes only end the literal
+        assertEquals("ab/", requiredLiteral(".*/\\dab/.*"));
+    }
+
+    private static String requiredLiteral(String regex) {
+        return RuleSetFileFilter.findRequiredLiteral(Pattern.compile(regex));
+    }
+
+    private static RuleSet ruleSet(List<String> excludes, List<String> includes) {
+        return RuleSet.create("ruleset", "description", "ruleset.xml",
+                              excludes.stream().map(Pattern::compile).collect(Collectors.toList()),
+                              includes.stream().map(Pattern::compile).collect(Collectors.toList()),
+                              emptyList());
+    }
+}
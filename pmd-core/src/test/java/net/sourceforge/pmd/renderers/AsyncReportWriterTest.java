@@ -0,0 +1,117 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.sourceforge.pmd.reporting.Report;
+
+class AsyncReportWriterTest {
+
+    @Test
+    @Timeout(30)
+    void testReportsAreRenderedByOneThread() throws Exception {
+        RecordingRenderer renderer = new RecordingRenderer(false);
+        List<Report> submitted = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (AsyncReportWriter writer = new AsyncReportWriter(renderer)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        Report report = Report.buildReport(listener -> { });
+                        submitted.add(report);
+                        writer.submit(report);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertFalse(renderer.concurrentCall.get());
+        assertEquals(submitted.size(), renderer.rendered.size());
+        assertEquals(submitted.size(), renderer.rendered.stream().distinct().count());
+    }
+
+    @Test
+    @Timeout(30)
+    void testFailureIsRethrownOnClose() throws Exception {
+        RecordingRenderer renderer = new RecordingRenderer(true);
+        AsyncReportWriter writer = new AsyncReportWriter(renderer);
+        for (int i = 0; i < 1000; i++) {
+            writer.submit(Report.buildReport(listener -> { }));
+        }
+        IOException e = assertThrows(IOException.class, writer::close);
+        assertEquals("failed", e.getMessage());
+        assertEquals(1, renderer.rendered.size());
+    }
+
+    @Test
+    @Timeout(30)
+    void testSubmitDoesNotBlockIfWriterThreadDied() throws Exception {
+        AsyncReportWriter writer = new AsyncReportWriter(new EmptyRenderer() {
+            @Override
+            public void renderFileReport(Report report) throws IOException {
+                try {
+                    // give the test time to fill the queue
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                // the writer thread then dies in queue.take()
+                Thread.currentThread().interrupt();
+            }
+        });
+        // more reports than the queue can hold
+        for (int i = 0; i < 1000; i++) {
+            writer.submit(Report.buildReport(listener -> { }));
+        }
+        assertThrows(InterruptedException.class, writer::close);
+    }
+
+    private static final class RecordingRenderer extends EmptyRenderer {
+
+        private final boolean fail;
+        private final List<Report> rendered = new ArrayList<>();
+        private final AtomicBoolean rendering = new AtomicBoolean();
+        private final AtomicBoolean concurrentCall = new AtomicBoolean();
+
+        RecordingRenderer(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public void renderFileReport(Report report) throws IOException {
+            if (!rendering.compareAndSet(false, true)) {
+                concurrentCall.set(true);
+            }
+            rendered.add(report);
+            rendering.set(false);
+            if (fail) {
+                throw new IOException("failed");
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.sourceforge.pmd.FooRule;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.FileLocation;
+import net.sourceforge.pmd.lang.document.TextRange2d;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RulePriority;
+import net.sourceforge.pmd.renderers.internal.binary.BinaryReportReader;
+import net.sourceforge.pmd.renderers.internal.binary.ViolationBaseline;
+import net.sourceforge.pmd.reporting.ConfigurableFileNameRenderer;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.ParametricRuleViolation;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.Report.ConfigurationError;
+import net.sourceforge.pmd.reporting.Report.GlobalReportBuilderListener;
+import net.sourceforge.pmd.reporting.Report.ProcessingError;
+import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import net.sourceforge.pmd.reporting.ViolationSuppressor;
+
+class BinaryRendererTest {
+
+    private static final FileId FILE_A = FileId.fromPathLikeString("src/A.java");
+    private static final FileId FILE_B = FileId.fromPathLikeString("src/B.java");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testRoundTrip() throws Exception {
+        Rule boo = createRule("Boo", RulePriority.HIGH);
+        Rule foo = createRule("Foo", RulePriority.LOW);
+        Map<String, String> info = new LinkedHashMap<>();
+        info.put("className", "A");
+        info.put("methodName", "été");
+
+        Report fileA = Report.buildReport(it -> {
+            it.onRuleViolation(violation(boo, FILE_A, 3, "first – message", info));
+            it.onRuleViolation(violation(foo, FILE_A, 120000, "second message", Collections.emptyMap()));
+            it.onSuppressedRuleViolation(new SuppressedViolation(violation(foo, FILE_A, 7, "suppressed", Collections.emptyMap()),
+                                                                 ViolationSuppressor.NOPMD_COMMENT_SUPPRESSOR, "because"));
+        });
+        Report fileB = Report.buildReport(it -> {
+            it.onRuleViolation(violation(foo, FILE_B, 1, "second message", Collections.emptyMap()));
+            it.onError(new ProcessingError(new IllegalStateException("parse failed"), FILE_B));
+        });
+        Report configErrors = configErrors(new ConfigurationError(foo, "a configuration error"));
+
+        Path binary = tempDir.resolve("report.pmdr");
+        BinaryRenderer renderer = new BinaryRenderer();
+        renderer.setReportFile(binary.toString());
+        render(renderer, fileA, fileB, configErrors);
+
+        Report expected = fileA.union(fileB).union(configErrors);
+        Report actual;
+        try (InputStream in = Files.newInputStream(binary)) {
+            actual = BinaryReportReader.readReport(in);
+        }
+
+        assertEquals(expected.getViolations().size(), actual.getViolations().size());
+        for (int i = 0; i < expected.getViolations().size(); i++) {
+            assertSameViolation(expected.getViolations().get(i), actual.getViolations().get(i));
+        }
+        SuppressedViolation suppressed = actual.getSuppressedViolations().get(0);
+        assertSameViolation(expected.getSuppressedViolations().get(0).getRuleViolation(), suppressed.getRuleViolation());
+        assertEquals(ViolationSuppressor.NOPMD_COMMENT_SUPPRESSOR.getId(), suppressed.getSuppressor().getId());
+        assertEquals("because", suppressed.getUserMessage());
+
+        ProcessingError error = actual.getProcessingErrors().get(0);
+        assertEquals(FILE_B, error.getFileId());
+        assertEquals(expected.getProcessingErrors().get(0).getMsg(), error.getMsg());
+        assertEquals(expected.getProcessingErrors().get(0).getDetail(), error.getDetail());
+
+        ConfigurationError configError = actual.getConfigurationErrors().get(0);
+        assertEquals("Foo", configError.rule().getName());
+        assertEquals("a configuration error", configError.issue());
+
+        // converting the binary report gives the same output as rendering the analysis directly
+        assertEquals(renderText(expected), convertToText(binary));
+    }
+
+    @Test
+    void testMergeWithBaseline() throws Exception {
+        Rule foo = createRule("Foo", RulePriority.MEDIUM);
+        Path baseline = tempDir.resolve("baseline.pmdr");
+        Path shard1 = tempDir.resolve("shard1.pmdr");
+        Path shard2 = tempDir.resolve("shard2.pmdr");
+
+        writeBinary(baseline, Report.buildReport(it -> {
+            it.onRuleViolation(violation(foo, FILE_A, 10, "old", Collections.emptyMap()));
+            it.onRuleViolation(violation(foo, FILE_B, 10, "old", Collections.emptyMap()));
+        }));
+        // the violation moved from line 10 to line 12
+        writeBinary(shard1, Report.buildReport(it -> {
+            it.onRuleViolation(violation(foo, FILE_A, 12, "old", Collections.emptyMap()));
+            it.onRuleViolation(violation(foo, FILE_A, 14, "old", Collections.emptyMap()));
+        }));
+        writeBinary(shard2, Report.buildReport(it -> it.onRuleViolation(violation(foo, FILE_B, 20, "new", Collections.emptyMap()))));
+
+        ViolationBaseline known;
+        try (InputStream in = Files.newInputStream(baseline)) {
+            known = ViolationBaseline.read(in, FileId::getOriginalPath);
+        }
+        Report merged = read(shard1).union(read(shard2));
+        Report newViolations = merged.filterViolations(rv -> !known.consume(rv));
+
+        assertEquals(3, merged.getViolations().size());
+        assertEquals(2, newViolations.getViolations().size());
+        assertEquals(14, newViolations.getViolations().get(0).getBeginLine());
+        assertEquals("new", newViolations.getViolations().get(1).getDescription());
+    }
+
+    @Test
+    void testBaselineFromAnotherDirectory() throws Exception {
+        Rule foo = createRule("Foo", RulePriority.MEDIUM);
+        Path baseline = tempDir.resolve("baseline.pmdr");
+        writeBinary(baseline, Report.buildReport(
+            it -> it.onRuleViolation(violation(foo, FileId.fromPathLikeString("/workspace1/src/A.java"), 10, "old", Collections.emptyMap()))));
+        // the same violation, after the tree was moved
+        RuleViolation moved = violation(foo, FileId.fromPathLikeString("/workspace2/src/A.java"), 10, "old", Collections.emptyMap());
+
+        ConfigurableFileNameRenderer fileNameRenderer = new ConfigurableFileNameRenderer();
+        fileNameRenderer.relativizeWith(Paths.get("/workspace1"));
+        fileNameRenderer.relativizeWith(Paths.get("/workspace2"));
+        try (InputStream in = Files.newInputStream(baseline)) {
+            assertTrue(ViolationBaseline.read(in, fileNameRenderer).consume(moved));
+        }
+        try (InputStream in = Files.newInputStream(baseline)) {
+            assertFalse(ViolationBaseline.read(in, FileId::getOriginalPath).consume(moved));
+        }
+    }
+
+    @Test
+    void testWriterMustUseLatin1() throws Exception {
+        BinaryRenderer renderer = new BinaryRenderer();
+        assertThrows(IllegalArgumentException.class, () -> renderer.setWriter(new StringWriter()));
+        assertThrows(IllegalArgumentException.class,
+            () -> renderer.setWriter(new OutputStreamWriter(new ByteArrayOutputStream(), StandardCharsets.UTF_8)));
+
+        Rule foo = createRule("Foo", RulePriority.MEDIUM);
+        Report report = Report.buildReport(it -> it.onRuleViolation(violation(foo, FILE_A, 1, "été – ünïcode", Collections.emptyMap())));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        renderer.setWriter(new OutputStreamWriter(bytes, StandardCharsets.ISO_8859_1));
+        render(renderer, report);
+
+        Report actual = BinaryReportReader.readReport(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals("été – ünïcode", actual.getViolations().get(0).getDescription());
+    }
+
+    @Test
+    void testNotABinaryReport() {
+        IOException e = assertThrows(IOException.class,
+            () -> new BinaryReportReader(new ByteArrayInputStream("<?xml".getBytes(StandardCharsets.UTF_8))));
+        assertTrue(e.getMessage().contains("Not a binary PMD report"));
+    }
+
+    @Test
+    void testEmptyReport() throws Exception {
+        Path binary = tempDir.resolve("empty.pmdr");
+        writeBinary(binary, Report.buildReport(it -> { }));
+        Report report = read(binary);
+        assertTrue(report.getViolations().isEmpty());
+        assertTrue(report.getProcessingErrors().isEmpty());
+    }
+
+    private static void assertSameViolation(RuleViolation expected, RuleViolation actual) {
+        assertEquals(expected.getFileId(), actual.getFileId());
+        assertEquals(expected.getFileId().getOriginalPath(), actual.getFileId().getOriginalPath());
+        assertEquals(expected.getFileId().getAbsolutePath(), actual.getFileId().getAbsolutePath());
+        assertEquals(expected.getLocation().getStartPos(), actual.getLocation().getStartPos());
+        assertEquals(expected.getLocation().getEndPos(), actual.getLocation().getEndPos());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getAdditionalInfo(), actual.getAdditionalInfo());
+        assertEquals(expected.getRule().getName(), actual.getRule().getName());
+        assertEquals(expected.getRule().getRuleSetName(), actual.getRule().getRuleSetName());
+        assertEquals(expected.getRule().getPriority(), actual.getRule().getPriority());
+        assertEquals(expected.getRule().getDescription(), actual.getRule().getDescription());
+        assertEquals(expected.getRule().getExternalInfoUrl(), actual.getRule().getExternalInfoUrl());
+    }
+
+    private static Rule createRule(String name, RulePriority priority) {
+        Rule rule = new FooRule();
+        rule.setName(name);
+        rule.setPriority(priority);
+        rule.setExternalInfoUrl("https://example.com/" + name);
+        return rule;
+    }
+
+    private static RuleViolation violation(Rule rule, FileId file, int line, String message, Map<String, String> info) {
+        FileLocation location = FileLocation.range(file, TextRange2d.range2d(line, 5, line + 2, 1));
+        return new ParametricRuleViolation(rule, location, message, info);
+    }
+
+    private static Report configErrors(ConfigurationError error) {
+        GlobalReportBuilderListener listener = new GlobalReportBuilderListener();
+        listener.onConfigError(error);
+        listener.close();
+        return listener.getResult();
+    }
+
+    private static void render(Renderer renderer, Report... reports) throws IOException {
+        renderer.start();
+        for (Report report : reports) {
+            renderer.renderFileReport(report);
+        }
+        renderer.end();
+        renderer.flush();
+    }
+
+    private static void writeBinary(Path path, Report report) throws IOException {
+        BinaryRenderer renderer = new BinaryRenderer();
+        renderer.setReportFile(path.toString());
+        render(renderer, report);
+    }
+
+    private static Report read(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return BinaryReportReader.readReport(in);
+        }
+    }
+
+    private static String renderText(Report report) throws IOException {
+        StringWriter writer = new StringWriter();
+        Renderer renderer = new TextRenderer();
+        renderer.setWriter(writer);
+        render(renderer, report);
+        return writer.toString();
+    }
+
+    private static String convertToText(Path binary) throws Exception {
+        StringWriter writer = new StringWriter();
+        Renderer renderer = new TextRenderer();
+        renderer.setWriter(writer);
+        try (GlobalAnalysisListener listener = renderer.newListener();
+             InputStream in = Files.newInputStream(binary)) {
+            new BinaryReportReader(in).replay(listener);
+        }
+        return writer.toString();
+    }
+}
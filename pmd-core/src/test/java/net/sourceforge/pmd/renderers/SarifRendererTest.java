@@ -12,6 +12,7 @@ import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 
 import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLogBuilder;
 import net.sourceforge.pmd.reporting.FileAnalysisListener;
 import net.sourceforge.pmd.reporting.Report;
 
@@ -98,6 +99,21 @@ class SarifRendererTest extends AbstractRendererTest {
         assertEquals(filter(readFile("expected-multiple-locations.sarif.json")), filter(actual));
     }
 
+    /**
+     * The streamed log has the same content as the one built in memory.
+     */
+    @Test
+    void testSameLogAsBuilder() throws Exception {
+        Consumer<FileAnalysisListener> reportBuilder = reportThreeViolationsTwoRules();
+        String actual = renderReport(getRenderer(), reportBuilder);
+
+        SarifLogBuilder logBuilder = SarifLogBuilder.sarifLogBuilder();
+        Report.buildReport(reportBuilder).getViolations().forEach(logBuilder::add);
+
+        Gson gson = new Gson();
+        assertEquals(gson.toJsonTree(logBuilder.build()), gson.fromJson(actual, JsonObject.class));
+    }
+
     private Consumer<FileAnalysisListener> reportThreeViolationsTwoRules() {
         Rule fooRule = createFooRule();
         Rule booRule = createBooRule();
@@ -7,11 +7,24 @@ package net.sourceforge.pmd.reporting;
 import static net.sourceforge.pmd.reporting.ReportTestUtil.getReport;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Collections;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
 import org.junit.jupiter.api.Test;
 
 import net.sourceforge.pmd.FooRule;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageProcessor;
+import net.sourceforge.pmd.lang.LanguageProcessorRegistry;
+import net.sourceforge.pmd.lang.LanguagePropertyBundle;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.ast.DummyNode.DummyRootNode;
+import net.sourceforge.pmd.lang.ast.Parser.ParserTask;
+import net.sourceforge.pmd.lang.ast.SemanticErrorReporter;
 import net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.impl.BatchLanguageProcessor;
 
 class RuleContextTest {
 
@@ -37,6 +50,55 @@ class RuleContextTest {
         assertEquals("message with ${ohio}", violation.getDescription());
     }
 
+    @Test
+    void testMessageFormatArgs() throws Exception {
+        RuleViolation violation = makeViolation("message with {0} and {1}", "foo", 2);
+
+        assertEquals("message with foo and 2", violation.getDescription());
+    }
+
+    @Test
+    void testMutableFormatArgIsFormattedWhenReported() throws Exception {
+        StringBuilder arg = new StringBuilder("before");
+        Report report = getReport(new FooRule(), (r, ctx) -> {
+            ctx.addViolationWithMessage(DummyTreeUtil.tree(DummyTreeUtil::root), "message with {0}", arg);
+            arg.setLength(0);
+            arg.append("after");
+        });
+
+        assertEquals("message with before", report.getViolations().get(0).getDescription());
+    }
+
+    @Test
+    void testSuppressedViolationIsDecorated() throws Exception {
+        DummyLanguageModule.Handler handler = new DummyLanguageModule.Handler() {
+            @Override
+            public ViolationDecorator getViolationDecorator() {
+                return (node, info) -> info.put(RuleViolation.CLASS_NAME, "Foo");
+            }
+        };
+        LanguageProcessor processor = new BatchLanguageProcessor<LanguagePropertyBundle>(DummyLanguageModule.getInstance().newPropertyBundle()) {
+            @Override
+            public @NonNull LanguageVersionHandler services() {
+                return handler;
+            }
+        };
+        TextDocument document = TextDocument.readOnlyString("dummy text", FileId.UNKNOWN, DummyLanguageModule.getInstance().getDefaultVersion());
+        DummyRootNode root = DummyTreeUtil.tree(DummyTreeUtil::root)
+                                          .withTaskInfo(new ParserTask(document, SemanticErrorReporter.noop(), LanguageProcessorRegistry.singleton(processor)))
+                                          .withNoPmdComments(Collections.singletonMap(1, "suppressed"));
+
+        Report report = getReport(new FooRule(), (r, ctx) -> ctx.addViolationWithMessage(root, "message"));
+
+        assertEquals(1, report.getSuppressedViolations().size());
+        assertEquals("Foo", report.getSuppressedViolations().get(0).getRuleViolation().getAdditionalInfo().get(RuleViolation.CLASS_NAME));
+
+        report = getReport(new FooRule(), (r, ctx) -> ctx.addViolationWithPosition(root, 2, 2, "message"));
+
+        assertEquals(1, report.getViolations().size());
+        assertEquals("Foo", report.getViolations().get(0).getAdditionalInfo().get(RuleViolation.CLASS_NAME));
+    }
+
     private RuleViolation makeViolation(String unescapedMessage, Object... args) throws Exception {
         Report report = getReport(new FooRule(), (r, ctx) -> {
             DummyRootNode node = DummyTreeUtil.tree(DummyTreeUtil::root);
@@ -13,9 +13,11 @@ import net.sourceforge.pmd.cpd.TokenFactory;
 import net.sourceforge.pmd.cpd.impl.JavaCCTokenFilter;
 import net.sourceforge.pmd.cpd.impl.JavaccCpdLexer;
 import net.sourceforge.pmd.lang.TokenManager;
+import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.ast.impl.javacc.CharStream;
 import net.sourceforge.pmd.lang.ast.impl.javacc.JavaccToken;
 import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 import net.sourceforge.pmd.lang.java.ast.InternalApiBridge;
 import net.sourceforge.pmd.lang.java.ast.JavaTokenKinds;
 import net.sourceforge.pmd.lang.java.ast.SyntacticJavaTokenizerFactory;
@@ -47,6 +49,12 @@ public class JavaCpdLexer extends JavaccCpdLexer {
         return SyntacticJavaTokenizerFactory.createTokenizer(CharStream.create(doc, InternalApiBridge.javaTokenDoc()));
     }
 
+    @Override
+    protected TokenManager<JavaccToken> tokensOfParsedFile(RootNode root) {
+        // the tokenizer above runs the same parser, so the tokens are the same
+        return root instanceof ASTCompilationUnit ? replayTokens((ASTCompilationUnit) root) : null;
+    }
+
     @Override
     protected TokenManager<JavaccToken> filterTokenStream(TokenManager<JavaccToken> tokenManager) {
         return new JavaTokenFilter(tokenManager, ignoreAnnotations);
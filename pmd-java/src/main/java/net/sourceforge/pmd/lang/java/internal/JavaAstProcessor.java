@@ -24,6 +24,7 @@ import net.sourceforge.pmd.lang.java.symbols.table.internal.ReferenceCtx;
 import net.sourceforge.pmd.lang.java.symbols.table.internal.SymbolTableResolver;
 import net.sourceforge.pmd.lang.java.types.TypeSystem;
 import net.sourceforge.pmd.lang.java.types.internal.infer.TypeInferenceLogger;
+import net.sourceforge.pmd.lang.rule.internal.AnalysisBudget;
 
 /**
  * Processes the output of the parser before rules get access to the AST.
@@ -129,9 +130,15 @@ public final class JavaAstProcessor {
         // as scopes depend on type resolution in some cases.
         InternalApiBridge.initTypeResolver(acu, this, typeInferenceLogger);
 
+        // The time budget of the file is checked between passes. If it is
+        // exceeded the file is reported as a processing error.
+        AnalysisBudget.checkpoint();
         TimeTracker.bench("Symbol table resolution", () -> SymbolTableResolver.traverse(this, acu));
+        AnalysisBudget.checkpoint();
         TimeTracker.bench("AST disambiguation", () -> InternalApiBridge.disambigWithCtx(NodeStream.of(acu), ReferenceCtx.root(this, acu)));
+        AnalysisBudget.checkpoint();
         TimeTracker.bench("Force type resolution", () -> InternalApiBridge.forceTypeResolutionPhase(this, acu));
+        AnalysisBudget.checkpoint();
         TimeTracker.bench("Comment assignment", () -> InternalApiBridge.assignComments(acu));
         TimeTracker.bench("Usage resolution", () -> InternalApiBridge.usageResolution(this, acu));
         TimeTracker.bench("Override resolution", () -> InternalApiBridge.overrideResolution(this, acu));
@@ -16,6 +16,7 @@ import net.sourceforge.pmd.lang.ast.Parser;
 import net.sourceforge.pmd.lang.impl.BatchLanguageProcessor;
 import net.sourceforge.pmd.lang.java.ast.JavaParser;
 import net.sourceforge.pmd.lang.java.internal.JavaLanguageProperties.InferenceLoggingVerbosity;
+import net.sourceforge.pmd.lang.java.metrics.internal.FusedMetricsVisitor;
 import net.sourceforge.pmd.lang.java.rule.xpath.internal.BaseContextNodeTestFun;
 import net.sourceforge.pmd.lang.java.rule.xpath.internal.GetCommentOnFunction;
 import net.sourceforge.pmd.lang.java.rule.xpath.internal.GetModifiersFun;
@@ -26,6 +27,7 @@ import net.sourceforge.pmd.lang.java.types.TypeSystem;
 import net.sourceforge.pmd.lang.java.types.internal.infer.TypeInferenceLogger;
 import net.sourceforge.pmd.lang.java.types.internal.infer.TypeInferenceLogger.SimpleLogger;
 import net.sourceforge.pmd.lang.java.types.internal.infer.TypeInferenceLogger.VerboseLogger;
+import net.sourceforge.pmd.lang.metrics.FusedMetrics;
 import net.sourceforge.pmd.lang.metrics.LanguageMetricsProvider;
 import net.sourceforge.pmd.lang.rule.xpath.impl.XPathHandler;
 import net.sourceforge.pmd.reporting.ViolationDecorator;
@@ -41,6 +43,7 @@ public class JavaLanguageProcessor extends BatchLanguageProcessor<JavaLanguagePr
     private static final Logger LOG = LoggerFactory.getLogger(JavaLanguageProcessor.class);
 
     private final LanguageMetricsProvider myMetricsProvider = new JavaMetricsProvider();
+    private final FusedMetrics fusedMetrics = FusedMetricsVisitor.newFusedMetrics();
     private final JavaParser parser;
     private final JavaParser parserWithoutProcessing;
     private TypeSystem typeSystem;
@@ -113,6 +116,14 @@ public class JavaLanguageProcessor extends BatchLanguageProcessor<JavaLanguagePr
         return myMetricsProvider;
     }
 
+    /**
+     * Returns the object that computes the metrics of a whole file
+     * in a single traversal.
+     */
+    public FusedMetrics getFusedMetrics() {
+        return fusedMetrics;
+    }
+
     private static final XPathHandler XPATH_HANDLER =
         XPathHandler.getHandlerForFunctionDefs(
             BaseContextNodeTestFun.TYPE_IS_EXACTLY,
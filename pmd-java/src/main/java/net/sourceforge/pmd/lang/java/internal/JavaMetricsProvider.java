@@ -8,6 +8,12 @@ import static net.sourceforge.pmd.util.CollectionUtil.setOf;
 
 import java.util.Set;
 
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.NodeStream;
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.java.ast.ASTExecutableDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTTypeDeclaration;
+import net.sourceforge.pmd.lang.java.ast.internal.PrettyPrintingUtil;
 import net.sourceforge.pmd.lang.java.metrics.JavaMetrics;
 import net.sourceforge.pmd.lang.metrics.LanguageMetricsProvider;
 import net.sourceforge.pmd.lang.metrics.Metric;
@@ -20,6 +26,7 @@ class JavaMetricsProvider implements LanguageMetricsProvider {
     private final Set<Metric<?, ?>> metrics = setOf(
         JavaMetrics.ACCESS_TO_FOREIGN_DATA,
         JavaMetrics.CYCLO,
+        JavaMetrics.COGNITIVE_COMPLEXITY,
         JavaMetrics.NPATH,
         JavaMetrics.NCSS,
         JavaMetrics.LINES_OF_CODE,
@@ -35,4 +42,20 @@ class JavaMetricsProvider implements LanguageMetricsProvider {
     public Set<Metric<?, ?>> getMetrics() {
         return metrics;
     }
+
+    @Override
+    public NodeStream<? extends Node> getExportedNodes(RootNode root) {
+        return root.descendants()
+                   .crossFindBoundaries()
+                   .filter(it -> it instanceof ASTTypeDeclaration || it instanceof ASTExecutableDeclaration);
+    }
+
+    @Override
+    public String getExportedName(Node node) {
+        if (node instanceof ASTExecutableDeclaration) {
+            ASTExecutableDeclaration method = (ASTExecutableDeclaration) node;
+            return method.getEnclosingType().getBinaryName() + "#" + PrettyPrintingUtil.displaySignature(method);
+        }
+        return ((ASTTypeDeclaration) node).getBinaryName();
+    }
 }
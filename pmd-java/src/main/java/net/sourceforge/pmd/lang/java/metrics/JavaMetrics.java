@@ -18,6 +18,7 @@ import java.util.function.Predicate;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import net.sourceforge.pmd.lang.LanguageProcessor;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.NodeStream;
 import net.sourceforge.pmd.lang.document.FileLocation;
@@ -28,17 +29,19 @@ import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTTypeDeclaration;
 import net.sourceforge.pmd.lang.java.ast.JavaNode;
 import net.sourceforge.pmd.lang.java.ast.ModifierOwner;
+import net.sourceforge.pmd.lang.java.internal.JavaLanguageProcessor;
 import net.sourceforge.pmd.lang.java.metrics.internal.AtfdBaseVisitor;
 import net.sourceforge.pmd.lang.java.metrics.internal.ClassFanOutVisitor;
 import net.sourceforge.pmd.lang.java.metrics.internal.CognitiveComplexityVisitor;
 import net.sourceforge.pmd.lang.java.metrics.internal.CognitiveComplexityVisitor.State;
 import net.sourceforge.pmd.lang.java.metrics.internal.CycloVisitor;
+import net.sourceforge.pmd.lang.java.metrics.internal.FusedMetricsVisitor;
 import net.sourceforge.pmd.lang.java.metrics.internal.NcssVisitor;
-import net.sourceforge.pmd.lang.java.metrics.internal.NpathBaseVisitor;
 import net.sourceforge.pmd.lang.java.rule.internal.JavaRuleUtil;
 import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
 import net.sourceforge.pmd.lang.java.symbols.JFieldSymbol;
 import net.sourceforge.pmd.lang.java.symbols.JVariableSymbol;
+import net.sourceforge.pmd.lang.metrics.FusedMetrics;
 import net.sourceforge.pmd.lang.metrics.Metric;
 import net.sourceforge.pmd.lang.metrics.MetricOption;
 import net.sourceforge.pmd.lang.metrics.MetricOptions;
@@ -416,6 +419,20 @@ public final class JavaMetrics {
     }
 
 
+    /**
+     * Computes the metric on all the nodes of the file of the node in a
+     * single traversal, if the file was not traversed yet. Returns null
+     * if the value must be computed on the node alone. See {@link FusedMetrics}.
+     */
+    private static <N extends JavaNode, R extends Number> @Nullable R computeOnFile(Metric<? super N, R> metric, N node, MetricOptions options) {
+        LanguageProcessor processor = node.getAstInfo().getLanguageProcessor();
+        if (processor instanceof JavaLanguageProcessor) {
+            return ((JavaLanguageProcessor) processor).getFusedMetrics().computeOnFile(metric, node, options);
+        }
+        return null;
+    }
+
+
     private static <T extends Node> Function<Node, T> filterMapNode(Class<? extends T> klass, Predicate<? super T> pred) {
         return n -> n.asStream().filterIs(klass).filter(pred).first();
     }
@@ -442,6 +459,10 @@ public final class JavaMetrics {
     }
 
     private static int computeNcss(JavaNode node, MetricOptions options) {
+        Integer fused = computeOnFile(NCSS, node, options);
+        if (fused != null) {
+            return fused;
+        }
         MutableInt result = new MutableInt(0);
         node.acceptVisitor(new NcssVisitor(options, node), result);
         return result.getValue();
@@ -455,17 +476,29 @@ public final class JavaMetrics {
     }
 
 
-    private static int computeCyclo(JavaNode node, MetricOptions options) {
+    private static int computeCyclo(ASTExecutableDeclaration node, MetricOptions options) {
+        Integer fused = computeOnFile(CYCLO, node, options);
+        if (fused != null) {
+            return fused;
+        }
         MutableInt counter = new MutableInt(0);
         node.acceptVisitor(new CycloVisitor(options, node), counter);
         return counter.getValue();
     }
 
-    private static BigInteger computeNpath(JavaNode node, MetricOptions ignored) {
-        return node.acceptVisitor(NpathBaseVisitor.INSTANCE, null);
+    private static BigInteger computeNpath(ASTExecutableDeclaration node, MetricOptions options) {
+        BigInteger fused = computeOnFile(NPATH, node, options);
+        if (fused != null) {
+            return fused;
+        }
+        return FusedMetricsVisitor.computeNpath(node);
     }
 
-    private static int computeCognitive(JavaNode node, MetricOptions ignored) {
+    private static int computeCognitive(ASTExecutableDeclaration node, MetricOptions options) {
+        Integer fused = computeOnFile(COGNITIVE_COMPLEXITY, node, options);
+        if (fused != null) {
+            return fused;
+        }
         State state = new State(node);
         node.acceptVisitor(CognitiveComplexityVisitor.INSTANCE, state);
         return state.getComplexity();
@@ -596,7 +629,11 @@ public final class JavaMetrics {
         }
     }
 
-    private static int computeAtfd(JavaNode node, MetricOptions ignored) {
+    private static int computeAtfd(JavaNode node, MetricOptions options) {
+        Integer fused = computeOnFile(ACCESS_TO_FOREIGN_DATA, node, options);
+        if (fused != null) {
+            return fused;
+        }
         MutableInt result = new MutableInt(0);
         node.acceptVisitor(new AtfdBaseVisitor(), result);
         return result.getValue();
@@ -619,6 +656,10 @@ public final class JavaMetrics {
 
 
     private static int computeFanOut(JavaNode node, MetricOptions options) {
+        Integer fused = computeOnFile(FAN_OUT, node, options);
+        if (fused != null) {
+            return fused;
+        }
         Set<JClassSymbol> cfo = new HashSet<>();
         node.acceptVisitor(ClassFanOutVisitor.getInstance(options), cfo);
         return cfo.size();
@@ -40,7 +40,7 @@ public class AtfdBaseVisitor extends JavaVisitorBase<MutableInt, Void> {
         return visitChildren(node, data);
     }
 
-    private boolean isForeignField(ASTFieldAccess node) {
+    static boolean isForeignField(ASTFieldAccess node) {
         JFieldSymbol sym = node.getReferencedSym();
         if (sym == null || sym.isStatic()) {
             return false;
@@ -52,7 +52,7 @@ public class AtfdBaseVisitor extends JavaVisitorBase<MutableInt, Void> {
             );
     }
 
-    private boolean isForeignMethod(ASTMethodCall node) {
+    static boolean isForeignMethod(ASTMethodCall node) {
         return JavaRuleUtil.isGetterOrSetterCall(node)
                   && node.getQualifier() != null
                   && !(node.getQualifier() instanceof ASTThisExpression);
@@ -0,0 +1,975 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.metrics.internal;
+
+import static net.sourceforge.pmd.util.CollectionUtil.setOf;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.java.ast.ASTAnnotationTypeDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTAssertStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTBlock;
+import net.sourceforge.pmd.lang.java.ast.ASTBreakStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTCatchClause;
+import net.sourceforge.pmd.lang.java.ast.ASTClassBody;
+import net.sourceforge.pmd.lang.java.ast.ASTClassDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTClassType;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTConditionalExpression;
+import net.sourceforge.pmd.lang.java.ast.ASTContinueStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTDoStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTEnumDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTExecutableDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTExplicitConstructorInvocation;
+import net.sourceforge.pmd.lang.java.ast.ASTExpression;
+import net.sourceforge.pmd.lang.java.ast.ASTExpressionStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTFieldAccess;
+import net.sourceforge.pmd.lang.java.ast.ASTFieldDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTFinallyClause;
+import net.sourceforge.pmd.lang.java.ast.ASTForInit;
+import net.sourceforge.pmd.lang.java.ast.ASTForStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTForUpdate;
+import net.sourceforge.pmd.lang.java.ast.ASTForeachStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTIfStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTImportDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTInfixExpression;
+import net.sourceforge.pmd.lang.java.ast.ASTInitializer;
+import net.sourceforge.pmd.lang.java.ast.ASTLabeledStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTLambdaExpression;
+import net.sourceforge.pmd.lang.java.ast.ASTLocalVariableDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTMethodCall;
+import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTPackageDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTReturnStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTSwitchArrowBranch;
+import net.sourceforge.pmd.lang.java.ast.ASTSwitchBranch;
+import net.sourceforge.pmd.lang.java.ast.ASTSwitchExpression;
+import net.sourceforge.pmd.lang.java.ast.ASTSwitchFallthroughBranch;
+import net.sourceforge.pmd.lang.java.ast.ASTSwitchLabel;
+import net.sourceforge.pmd.lang.java.ast.ASTSwitchLike;
+import net.sourceforge.pmd.lang.java.ast.ASTSwitchStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTSynchronizedStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTThrowStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTTryStatement;
+import net.sourceforge.pmd.lang.java.ast.ASTTypeDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTUnaryExpression;
+import net.sourceforge.pmd.lang.java.ast.ASTWhileStatement;
+import net.sourceforge.pmd.lang.java.ast.BinaryOp;
+import net.sourceforge.pmd.lang.java.ast.JavaNode;
+import net.sourceforge.pmd.lang.java.ast.JavaVisitorBase;
+import net.sourceforge.pmd.lang.java.ast.TypeNode;
+import net.sourceforge.pmd.lang.java.ast.UnaryOp;
+import net.sourceforge.pmd.lang.java.ast.internal.JavaAstUtils;
+import net.sourceforge.pmd.lang.java.metrics.JavaMetrics;
+import net.sourceforge.pmd.lang.java.metrics.JavaMetrics.ClassFanOutOption;
+import net.sourceforge.pmd.lang.java.metrics.JavaMetrics.CycloOption;
+import net.sourceforge.pmd.lang.java.metrics.JavaMetrics.NcssOption;
+import net.sourceforge.pmd.lang.java.metrics.internal.CognitiveComplexityVisitor.BooleanOp;
+import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
+import net.sourceforge.pmd.lang.java.symbols.JExecutableSymbol;
+import net.sourceforge.pmd.lang.java.symbols.JMethodSymbol;
+import net.sourceforge.pmd.lang.java.types.JClassType;
+import net.sourceforge.pmd.lang.java.types.JTypeMirror;
+import net.sourceforge.pmd.lang.metrics.FusedMetrics;
+import net.sourceforge.pmd.lang.metrics.Metric;
+import net.sourceforge.pmd.lang.metrics.MetricOptions;
+
+
+/**
+ * Computes the Cyclo, NPath, Cognitive complexity, NCSS, ATFD and
+ * Fan-out metrics of all the operations and type declarations of a file
+ * in a single post-order traversal. Each metric is computed exactly like
+ * its own visitor would (see {@link CycloVisitor}, {@link NpathBaseVisitor},
+ * {@link CognitiveComplexityVisitor}, {@link NcssVisitor}, {@link AtfdBaseVisitor}
+ * and {@link ClassFanOutVisitor}), but the visitors walk the body of every
+ * operation again for each metric, and for each enclosing declaration.
+ *
+ * <p>An open operation or type declaration has a {@link Frame}, which
+ * accumulates the values of the metrics. The additive metrics (NCSS,
+ * ATFD and Fan-out) are only counted in the innermost frame, and added
+ * to the enclosing frame when the frame is closed. Cyclo does not cross
+ * lambdas and type declarations, so it is only counted in the innermost
+ * operation. Cognitive complexity depends on the nesting level, so it is
+ * counted in every open operation.
+ *
+ * <p>NPath is computed bottom-up: visiting a node leaves its NPath in
+ * {@link #npath}. Values are computed with saturating {@code long}
+ * arithmetic, and only operations whose NPath overflows are computed
+ * again with {@link BigInteger}s.
+ */
+public final class FusedMetricsVisitor extends JavaVisitorBase<Void, Void> {
+
+    /** NPath value of a node whose NPath does not fit in a long. */
+    static final long SATURATED = Long.MAX_VALUE;
+
+    private static final Set<Metric<?, ?>> SUPPORTED_METRICS = setOf(
+        JavaMetrics.CYCLO,
+        JavaMetrics.NPATH,
+        JavaMetrics.COGNITIVE_COMPLEXITY,
+        JavaMetrics.NCSS,
+        JavaMetrics.ACCESS_TO_FOREIGN_DATA,
+        JavaMetrics.FAN_OUT
+    );
+
+    private final List<MetricOptions> cycloOptions;
+    private final boolean[] considerBooleanPaths;
+    private final boolean[] considerAssert;
+    private final List<MetricOptions> ncssOptions;
+    private final boolean[] countImports;
+    private final List<MetricOptions> npathOptions;
+    private final List<MetricOptions> cognitiveOptions;
+    private final List<MetricOptions> atfdOptions;
+    private final List<MetricOptions> fanOutOptions;
+    private final boolean[] includeJavaLang;
+
+    private final boolean hasFrames;
+    private final boolean countPaths;
+    private final boolean needsBooleanComplexity;
+
+    private final List<Frame> frames = new ArrayList<>();
+    private final Deque<ASTMethodDeclaration> methodStack = new ArrayDeque<>();
+    private int openOperations;
+    /** Innermost operation, if it is not separated from the current node by a lambda or type declaration. */
+    private @Nullable Frame cycloFrame;
+    /** Whether a statement that NCSS does not descend into separates the current node from the innermost frame. */
+    private boolean ncssCut;
+    private int importsNcss = -1;
+
+    /** NPath of the last visited node. */
+    private long npath;
+    /** Product of the NPath of the children of the last visited node. */
+    private long childProduct;
+    /** NPath of the part of the last visited switch branch that is not its label. */
+    private long branchNpath;
+
+
+    private FusedMetricsVisitor(Map<Metric<?, ?>, Set<MetricOptions>> requests, JavaNode root) {
+        cycloOptions = optionsOf(requests, JavaMetrics.CYCLO);
+        considerBooleanPaths = new boolean[cycloOptions.size()];
+        considerAssert = new boolean[cycloOptions.size()];
+        for (int i = 0; i < cycloOptions.size(); i++) {
+            considerBooleanPaths[i] = !cycloOptions.get(i).contains(CycloOption.IGNORE_BOOLEAN_PATHS);
+            considerAssert[i] = cycloOptions.get(i).contains(CycloOption.CONSIDER_ASSERT);
+        }
+        ncssOptions = optionsOf(requests, JavaMetrics.NCSS);
+        countImports = new boolean[ncssOptions.size()];
+        for (int i = 0; i < ncssOptions.size(); i++) {
+            countImports[i] = ncssOptions.get(i).contains(NcssOption.COUNT_IMPORTS);
+        }
+        npathOptions = optionsOf(requests, JavaMetrics.NPATH);
+        cognitiveOptions = optionsOf(requests, JavaMetrics.COGNITIVE_COMPLEXITY);
+        atfdOptions = optionsOf(requests, JavaMetrics.ACCESS_TO_FOREIGN_DATA);
+        fanOutOptions = optionsOf(requests, JavaMetrics.FAN_OUT);
+        includeJavaLang = new boolean[fanOutOptions.size()];
+        for (int i = 0; i < fanOutOptions.size(); i++) {
+            includeJavaLang[i] = fanOutOptions.get(i).contains(ClassFanOutOption.INCLUDE_JAVA_LANG);
+        }
+
+        hasFrames = !requests.isEmpty();
+        countPaths = !hasFrames || !npathOptions.isEmpty();
+        boolean booleanPaths = false;
+        for (boolean b : considerBooleanPaths) {
+            booleanPaths |= b;
+        }
+        needsBooleanComplexity = countPaths || booleanPaths;
+
+        if (!cognitiveOptions.isEmpty()) {
+            root.ancestors().filterIs(ASTMethodDeclaration.class).forEach(methodStack::addLast);
+        }
+    }
+
+    private static List<MetricOptions> optionsOf(Map<Metric<?, ?>, Set<MetricOptions>> requests, Metric<?, ?> metric) {
+        Set<MetricOptions> options = requests.get(metric);
+        return options == null ? Collections.emptyList() : new ArrayList<>(options);
+    }
+
+    /**
+     * Returns a new {@link FusedMetrics} that computes the Java metrics
+     * with this visitor.
+     */
+    public static FusedMetrics newFusedMetrics() {
+        return new FusedMetrics(SUPPORTED_METRICS, (root, requests) -> {
+            JavaNode javaRoot = (ASTCompilationUnit) root;
+            javaRoot.acceptVisitor(new FusedMetricsVisitor(requests, javaRoot), null);
+        });
+    }
+
+    /**
+     * Computes the NPath of an operation, with saturating long arithmetic.
+     * The {@link BigInteger} visitor is only used if the value overflows.
+     */
+    public static BigInteger computeNpath(ASTExecutableDeclaration node) {
+        FusedMetricsVisitor visitor = new FusedMetricsVisitor(Collections.emptyMap(), node);
+        node.acceptVisitor(visitor, null);
+        return visitor.npathResult(node);
+    }
+
+    private BigInteger npathResult(ASTExecutableDeclaration node) {
+        return npath == SATURATED ? node.acceptVisitor(NpathBaseVisitor.INSTANCE, null) : BigInteger.valueOf(npath);
+    }
+
+
+    // <editor-fold defaultstate="collapsed" desc="Frames">
+
+    private @Nullable Frame openFrame(JavaNode node, boolean operation) {
+        if (!hasFrames) {
+            return null;
+        }
+        Frame frame = new Frame(node, operation, ncssCut);
+        frames.add(frame);
+        ncssCut = false;
+        if (operation) {
+            openOperations++;
+        }
+        return frame;
+    }
+
+    private void closeFrame(@Nullable Frame frame) {
+        if (frame == null) {
+            return;
+        }
+        frames.remove(frames.size() - 1);
+        ncssCut = frame.cutFromParent;
+        if (frame.operation) {
+            openOperations--;
+        }
+
+        Frame parent = frames.isEmpty() ? null : frames.get(frames.size() - 1);
+        if (parent != null) {
+            if (!frame.cutFromParent) {
+                for (int i = 0; i < ncssOptions.size(); i++) {
+                    parent.ncss[i] += frame.ncss[i];
+                }
+            }
+            parent.atfd += frame.atfd;
+            if (parent.fanOut != null) {
+                parent.fanOut.addAll(frame.fanOut);
+            }
+        }
+        store(frame);
+    }
+
+    private void store(Frame frame) {
+        JavaNode node = frame.node;
+        for (int i = 0; i < ncssOptions.size(); i++) {
+            FusedMetrics.store(JavaMetrics.NCSS, node, ncssOptions.get(i), frame.ncss[i]);
+        }
+        for (MetricOptions options : atfdOptions) {
+            FusedMetrics.store(JavaMetrics.ACCESS_TO_FOREIGN_DATA, node, options, frame.atfd);
+        }
+        for (int i = 0; i < fanOutOptions.size(); i++) {
+            FusedMetrics.store(JavaMetrics.FAN_OUT, node, fanOutOptions.get(i), fanOutCount(frame.fanOut, includeJavaLang[i]));
+        }
+
+        if (frame.operation) {
+            ASTExecutableDeclaration operation = (ASTExecutableDeclaration) node;
+            for (int i = 0; i < cycloOptions.size(); i++) {
+                FusedMetrics.store(JavaMetrics.CYCLO, operation, cycloOptions.get(i), frame.cyclo[i]);
+            }
+            for (MetricOptions options : cognitiveOptions) {
+                FusedMetrics.store(JavaMetrics.COGNITIVE_COMPLEXITY, operation, options, frame.cognitive);
+            }
+            if (!npathOptions.isEmpty()) {
+                BigInteger result = npathResult(operation);
+                for (MetricOptions options : npathOptions) {
+                    FusedMetrics.store(JavaMetrics.NPATH, operation, options, result);
+                }
+            }
+        }
+    }
+
+    private static int fanOutCount(Set<JClassSymbol> classes, boolean includeJavaLang) {
+        if (includeJavaLang) {
+            return classes.size();
+        }
+        int count = 0;
+        for (JClassSymbol symbol : classes) {
+            if (!JClassSymbol.PRIMITIVE_PACKAGE.equals(symbol.getPackageName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private @Nullable Frame innermostFrame() {
+        return frames.isEmpty() ? null : frames.get(frames.size() - 1);
+    }
+
+    private void ncss(int increment) {
+        Frame frame = innermostFrame();
+        if (frame != null && !ncssCut) {
+            for (int i = 0; i < ncssOptions.size(); i++) {
+                frame.ncss[i] += increment;
+            }
+        }
+    }
+
+    private void cyclo(int increment, int booleanComplexity) {
+        if (cycloFrame != null) {
+            for (int i = 0; i < cycloOptions.size(); i++) {
+                cycloFrame.cyclo[i] += increment + (considerBooleanPaths[i] ? booleanComplexity : 0);
+            }
+        }
+    }
+
+    private void checkFanOut(TypeNode node) {
+        Frame frame = innermostFrame();
+        if (frame == null || frame.fanOut == null) {
+            return;
+        }
+        JTypeMirror typeMirror = node.getTypeMirror();
+        if (typeMirror instanceof JClassType) {
+            frame.fanOut.add(((JClassType) typeMirror).getSymbol());
+        }
+    }
+
+    private int booleanComplexity(@Nullable ASTExpression condition) {
+        return needsBooleanComplexity ? CycloVisitor.booleanExpressionComplexity(condition) : 0;
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Cognitive complexity">
+
+    private boolean countsCognitive() {
+        return openOperations > 0 && !cognitiveOptions.isEmpty();
+    }
+
+    private void structural() {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                if (frame.operation) {
+                    frame.cognitive += 1 + frame.nesting;
+                    frame.nesting++;
+                }
+            }
+        }
+    }
+
+    private void hybrid() {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                if (frame.operation) {
+                    frame.cognitive++;
+                    frame.nesting++;
+                }
+            }
+        }
+    }
+
+    private void fundamental() {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                if (frame.operation) {
+                    frame.cognitive++;
+                }
+            }
+        }
+    }
+
+    private void nesting(int increment) {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                if (frame.operation) {
+                    frame.nesting += increment;
+                }
+            }
+        }
+    }
+
+    private void booleanOperation(@Nullable BooleanOp op) {
+        if (countsCognitive()) {
+            for (Frame frame : frames) {
+                if (frame.operation && frame.booleanOp != op) {
+                    if (op != null) {
+                        frame.cognitive++;
+                    }
+                    frame.booleanOp = op;
+                }
+            }
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Traversal">
+
+    /** Visits the child, and returns its NPath. */
+    private long visitChild(JavaNode child) {
+        child.acceptVisitor(this, null);
+        return npath;
+    }
+
+    /**
+     * Visits the children of the node, and sets {@link #childProduct}.
+     * Returns the NPath of the given child, or 1 if it is null.
+     */
+    private long visitChildPaths(JavaNode node, @Nullable JavaNode selected) {
+        long product = 1;
+        long selectedPaths = 1;
+        for (JavaNode child : node.children()) {
+            long paths = visitChild(child);
+            product = multiply(product, paths);
+            if (child == selected) {
+                selectedPaths = paths;
+            }
+        }
+        childProduct = product;
+        return selectedPaths;
+    }
+
+    private Void product(JavaNode node) {
+        visitChildPaths(node, null);
+        npath = childProduct;
+        return null;
+    }
+
+    @Override
+    public Void visitJavaNode(JavaNode node, Void data) {
+        return product(node);
+    }
+
+    @Override
+    public Void visitMethodOrCtor(ASTExecutableDeclaration node, Void data) {
+        Frame frame = openFrame(node, true);
+        Frame outerCyclo = cycloFrame;
+        cycloFrame = frame;
+        cyclo(1, 0);
+        ncss(1);
+        boolean isMethod = node instanceof ASTMethodDeclaration && !cognitiveOptions.isEmpty();
+        if (isMethod) {
+            methodStack.push((ASTMethodDeclaration) node);
+        }
+
+        product(node);
+
+        if (isMethod) {
+            methodStack.pop();
+        }
+        cycloFrame = outerCyclo;
+        closeFrame(frame);
+        return null;
+    }
+
+    @Override
+    public Void visitTypeDecl(ASTTypeDeclaration node, Void data) {
+        Frame frame = openFrame(node, false);
+        Frame outerCyclo = cycloFrame;
+        cycloFrame = null;
+        if (node instanceof ASTClassDeclaration) {
+            ncss(1);
+            for (int i = 0; i < ncssOptions.size(); i++) {
+                if (countImports[i] && frame != null) {
+                    frame.ncss[i] += importsNcss(node.getRoot());
+                }
+            }
+        } else if (node instanceof ASTEnumDeclaration || node instanceof ASTAnnotationTypeDeclaration) {
+            ncss(1);
+        }
+
+        product(node);
+
+        cycloFrame = outerCyclo;
+        closeFrame(frame);
+        return null;
+    }
+
+    private int importsNcss(ASTCompilationUnit root) {
+        if (importsNcss < 0) {
+            importsNcss = root.children(ASTImportDeclaration.class).count();
+            if (root.children(ASTPackageDeclaration.class).nonEmpty()) {
+                importsNcss++;
+            }
+        }
+        return importsNcss;
+    }
+
+    @Override
+    public Void visit(ASTClassBody node, Void data) {
+        nesting(1);
+        product(node);
+        nesting(-1);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTLambdaExpression node, Void data) {
+        checkFanOut(node);
+        Frame outerCyclo = cycloFrame;
+        cycloFrame = null;
+        nesting(1);
+        product(node);
+        nesting(-1);
+        cycloFrame = outerCyclo;
+        return null;
+    }
+
+    @Override
+    public Void visitExpression(ASTExpression node, Void data) {
+        checkFanOut(node);
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTClassType node, Void data) {
+        checkFanOut(node);
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTMethodCall node, Void data) {
+        checkFanOut(node);
+        Frame frame = innermostFrame();
+        if (frame != null && AtfdBaseVisitor.isForeignMethod(node)) {
+            frame.atfd++;
+        }
+        if (countsCognitive()) {
+            JExecutableSymbol calledSymbol = node.getOverloadSelectionInfo().getMethodType().getSymbol();
+            if (calledSymbol instanceof JMethodSymbol) {
+                ASTMethodDeclaration methodNode = ((JMethodSymbol) calledSymbol).tryGetNode();
+                if (methodNode != null && methodStack.contains(methodNode)) {
+                    // recursive call, see CognitiveComplexityVisitor
+                    fundamental();
+                }
+            }
+        }
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTFieldAccess node, Void data) {
+        checkFanOut(node);
+        Frame frame = innermostFrame();
+        if (frame != null && AtfdBaseVisitor.isForeignField(node)) {
+            frame.atfd++;
+        }
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTInfixExpression node, Void data) {
+        checkFanOut(node);
+        BinaryOp op = node.getOperator();
+        if (op == BinaryOp.CONDITIONAL_AND) {
+            booleanOperation(BooleanOp.AND);
+        } else if (op == BinaryOp.CONDITIONAL_OR) {
+            booleanOperation(BooleanOp.OR);
+        }
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTUnaryExpression node, Void data) {
+        checkFanOut(node);
+        if (node.getOperator() == UnaryOp.NEGATION) {
+            booleanOperation(null);
+        }
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTConditionalExpression node, Void data) {
+        checkFanOut(node);
+        int boolComp = booleanComplexity(node.getCondition());
+        cyclo(1, boolComp);
+        structural();
+
+        long sum = 0;
+        long product = 1;
+        for (JavaNode child : node.children()) {
+            long paths = visitChild(child);
+            sum = add(sum, paths);
+            product = multiply(product, paths);
+        }
+
+        nesting(-1);
+        childProduct = product;
+        npath = add(sum, boolComp - 1);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTSwitchExpression node, Void data) {
+        checkFanOut(node);
+        return handleSwitch(node);
+    }
+
+    @Override
+    public Void visit(ASTSwitchStatement node, Void data) {
+        ncss(1);
+        structural();
+        handleSwitch(node);
+        nesting(-1);
+        return null;
+    }
+
+    private Void handleSwitch(ASTSwitchLike node) {
+        int boolComp = booleanComplexity(node.getTestedExpression());
+        cyclo(0, boolComp);
+
+        long paths = 0;
+        long product = 1;
+        int caseRange = 0;
+        for (JavaNode child : node.children()) {
+            product = multiply(product, visitChild(child));
+            if (!(child instanceof ASTSwitchBranch)) {
+                continue;
+            }
+            ASTSwitchBranch branch = (ASTSwitchBranch) child;
+            int numAlts = JavaAstUtils.numAlternatives(branch);
+            boolean hasStatements = branch instanceof ASTSwitchFallthroughBranch
+                && ((ASTSwitchFallthroughBranch) branch).getStatements().nonEmpty();
+
+            if (!branch.getLabel().isDefault()) {
+                // like for "else", default is not a decision point
+                for (int i = 0; i < cycloOptions.size(); i++) {
+                    if (cycloFrame != null && (considerBooleanPaths[i] || hasStatements)) {
+                        cycloFrame.cyclo[i] += considerBooleanPaths[i] ? numAlts : 1;
+                    }
+                }
+            }
+
+            if (branch instanceof ASTSwitchFallthroughBranch) {
+                // fall-through labels count as 1 for complexity
+                caseRange += numAlts;
+                if (hasStatements) {
+                    paths = add(paths, multiply(branchNpath, caseRange));
+                    caseRange = 0;
+                }
+            } else {
+                paths = add(paths, multiply(branchNpath, numAlts));
+            }
+        }
+
+        childProduct = product;
+        npath = add(paths, boolComp);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTSwitchFallthroughBranch node, Void data) {
+        long statements = 1;
+        long product = 1;
+        for (JavaNode child : node.children()) {
+            long paths = visitChild(child);
+            product = multiply(product, paths);
+            if (!(child instanceof ASTSwitchLabel)) {
+                statements = multiply(statements, paths);
+            }
+        }
+        branchNpath = statements;
+        childProduct = product;
+        npath = product;
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTSwitchArrowBranch node, Void data) {
+        long rhs = visitChildPaths(node, node.getRightHandSide());
+        branchNpath = rhs;
+        npath = childProduct;
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTSwitchLabel node, Void data) {
+        ncss(1);
+        visitChildPaths(node, null);
+        npath = node.isDefault() ? 1 : node.children(ASTExpression.class).count();
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTIfStatement node, Void data) {
+        boolean isNotElseIf = !(node.getParent() instanceof ASTIfStatement);
+        int boolComp = booleanComplexity(node.getCondition());
+        cyclo(1, boolComp);
+        ncss(node.hasElse() ? 2 : 1);
+
+        long product = visitChild(node.getCondition());
+        if (isNotElseIf) {
+            structural();
+        }
+        long thenPaths = visitChild(node.getThenBranch());
+        product = multiply(product, thenPaths);
+        if (isNotElseIf) {
+            nesting(-1);
+        }
+        long elsePaths = 1;
+        if (node.hasElse()) {
+            hybrid();
+            elsePaths = visitChild(node.getElseBranch());
+            product = multiply(product, elsePaths);
+            nesting(-1);
+        }
+
+        childProduct = product;
+        npath = add(add(thenPaths, boolComp), elsePaths);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTWhileStatement node, Void data) {
+        int boolComp = booleanComplexity(node.getCondition());
+        cyclo(1, boolComp);
+        ncss(1);
+        structural();
+        long body = visitChildPaths(node, node.getBody());
+        nesting(-1);
+        npath = add(body, boolComp + 1);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTDoStatement node, Void data) {
+        int boolComp = booleanComplexity(node.getCondition());
+        cyclo(1, boolComp);
+        ncss(1);
+        structural();
+        long body = visitChildPaths(node, node.getBody());
+        nesting(-1);
+        npath = add(body, boolComp + 1);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTForStatement node, Void data) {
+        int boolComp = booleanComplexity(node.getCondition());
+        cyclo(1, boolComp);
+        ncss(1);
+        structural();
+        long body = visitChildPaths(node, node.getBody());
+        nesting(-1);
+        npath = add(body, boolComp + 1);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTForeachStatement node, Void data) {
+        cyclo(1, 0);
+        structural();
+        long body = visitChildPaths(node, node.getBody());
+        nesting(-1);
+        npath = add(body, 1);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTReturnStatement node, Void data) {
+        ncss(1);
+        boolean outerCut = ncssCut;
+        ncssCut = true;
+
+        ASTExpression expr = node.getExpr();
+        if (expr == null) {
+            visitChildPaths(node, null);
+            npath = 1;
+        } else {
+            int boolComp = booleanComplexity(expr);
+            long exprPaths = visitChild(expr);
+            npath = add(childProduct, boolComp);
+            childProduct = exprPaths;
+        }
+
+        ncssCut = outerCut;
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTTryStatement node, Void data) {
+        long sum = 0;
+        long product = 1;
+        for (JavaNode child : node.children()) {
+            long paths = visitChild(child);
+            sum = add(sum, paths);
+            product = multiply(product, paths);
+        }
+        childProduct = product;
+        npath = sum;
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTCatchClause node, Void data) {
+        cyclo(1, 0);
+        ncss(1);
+        structural();
+        product(node);
+        nesting(-1);
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTThrowStatement node, Void data) {
+        cyclo(1, 0);
+        ncss(1);
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTAssertStatement node, Void data) {
+        ncss(1);
+        if (cycloFrame != null) {
+            int boolComp = booleanComplexity(node.getCondition());
+            for (int i = 0; i < cycloOptions.size(); i++) {
+                if (considerAssert[i]) {
+                    // equivalent to if (condition) { throw .. }
+                    cycloFrame.cyclo[i] += 2 + (considerBooleanPaths[i] ? boolComp : 0);
+                }
+            }
+        }
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTBlock node, Void data) {
+        long product = 1;
+        for (JavaNode child : node.children()) {
+            // the current run of boolean operations is terminated by the end of a statement
+            booleanOperation(null);
+            product = multiply(product, visitChild(child));
+        }
+        childProduct = product;
+        npath = product;
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTBreakStatement node, Void data) {
+        if (node.getLabel() != null) {
+            fundamental();
+        }
+        return ncssLeaf(node, 1);
+    }
+
+    @Override
+    public Void visit(ASTContinueStatement node, Void data) {
+        if (node.getLabel() != null) {
+            fundamental();
+        }
+        return ncssLeaf(node, 1);
+    }
+
+    @Override
+    public Void visit(ASTExplicitConstructorInvocation node, Void data) {
+        return ncssLeaf(node, 1);
+    }
+
+    @Override
+    public Void visit(ASTExpressionStatement node, Void data) {
+        return ncssLeaf(node, node.getParent().getParent() instanceof ASTForUpdate ? 0 : 1);
+    }
+
+    /** Counts a statement, whose children are not counted by NCSS. */
+    private Void ncssLeaf(JavaNode node, int increment) {
+        ncss(increment);
+        boolean outerCut = ncssCut;
+        ncssCut = true;
+        product(node);
+        ncssCut = outerCut;
+        return null;
+    }
+
+    @Override
+    public Void visit(ASTLocalVariableDeclaration node, Void data) {
+        // doesn't count variable declared inside a for initializer
+        if (!(node.getParent() instanceof ASTForInit)) {
+            ncss(1);
+        }
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTFieldDeclaration node, Void data) {
+        ncss(1);
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTSynchronizedStatement node, Void data) {
+        ncss(1);
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTFinallyClause node, Void data) {
+        ncss(1);
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTLabeledStatement node, Void data) {
+        ncss(1);
+        return product(node);
+    }
+
+    @Override
+    public Void visit(ASTInitializer node, Void data) {
+        ncss(1);
+        return product(node);
+    }
+
+    // </editor-fold>
+
+    static long add(long a, long b) {
+        if (a == SATURATED || b == SATURATED) {
+            return SATURATED;
+        }
+        long r = a + b;
+        // overflow iff both arguments have the opposite sign of the result
+        return ((a ^ r) & (b ^ r)) < 0 ? SATURATED : r;
+    }
+
+    static long multiply(long a, long b) {
+        if (a == SATURATED || b == SATURATED) {
+            return SATURATED;
+        }
+        long r = a * b;
+        long ax = Math.abs(a);
+        long ay = Math.abs(b);
+        if ((ax | ay) >>> 31 != 0
+            && (b != 0 && r / b != a || a == Long.MIN_VALUE && b == -1)) {
+            return SATURATED;
+        }
+        return r;
+    }
+
+    /** Metrics of an open operation or type declaration. */
+    private final class Frame {
+
+        final JavaNode node;
+        final boolean operation;
+        /** Whether a statement that NCSS does not descend into separates this frame from the enclosing one. */
+        final boolean cutFromParent;
+
+        final int[] cyclo;
+        final int[] ncss;
+        int atfd;
+        final @Nullable Set<JClassSymbol> fanOut;
+
+        int cognitive;
+        int nesting;
+        @Nullable BooleanOp booleanOp;
+
+        Frame(JavaNode node, boolean operation, boolean cutFromParent) {
+            this.node = node;
+            this.operation = operation;
+            this.cutFromParent = cutFromParent;
+            this.cyclo = new int[operation ? cycloOptions.size() : 0];
+            this.ncss = new int[ncssOptions.size()];
+            this.fanOut = fanOutOptions.isEmpty() ? null : new HashSet<>();
+        }
+    }
+}
@@ -87,6 +87,7 @@ import net.sourceforge.pmd.lang.java.symbols.JFieldSymbol;
 import net.sourceforge.pmd.lang.java.symbols.JLocalVariableSymbol;
 import net.sourceforge.pmd.lang.java.symbols.JVariableSymbol;
 import net.sourceforge.pmd.lang.java.types.JTypeMirror;
+import net.sourceforge.pmd.lang.rule.internal.AnalysisBudget;
 import net.sourceforge.pmd.util.CollectionUtil;
 import net.sourceforge.pmd.util.DataMap;
 import net.sourceforge.pmd.util.DataMap.SimpleDataKey;
@@ -363,6 +364,9 @@ public final class DataflowPass {
             Set<ASTVariableId> localsToKill = new LinkedHashSet<>();
 
             for (JavaNode child : node.children()) {
+                // nested loops make this pass exponential, so this
+                // checks the time budget (this throws if it is exceeded)
+                AnalysisBudget.checkpoint();
                 // each output is passed as input to the next (most relevant for blocks)
                 state = acceptOpt(child, state);
                 if (child instanceof ASTLocalVariableDeclaration) {
@@ -6,10 +6,15 @@ package net.sourceforge.pmd.lang.java.rule.xpath.internal;
 
 import java.util.function.BiPredicate;
 
+import org.apache.commons.lang3.StringUtils;
+
+import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.java.ast.Annotatable;
 import net.sourceforge.pmd.lang.java.ast.JavaNode;
 import net.sourceforge.pmd.lang.java.ast.TypeNode;
 import net.sourceforge.pmd.lang.java.types.TypeTestUtil;
+import net.sourceforge.pmd.lang.rule.xpath.impl.XPathFunctionException;
+import net.sourceforge.pmd.util.AssertionUtil;
 
 /**
  * XPath function {@code pmd-java:typeIs(typeName as xs:string) as xs:boolean}
@@ -52,9 +57,25 @@ public class BaseContextNodeTestFun<T extends JavaNode> extends BaseJavaXPathFun
 
     @Override
     public FunctionCall makeCallExpression() {
-        return (contextNode, arguments) -> {
-            String fullTypeName = arguments[0].toString();
-            return klass.isInstance(contextNode) && checker.test(fullTypeName, (T) contextNode);
+        return new FunctionCall() {
+            @Override
+            public void staticInit(Object[] arguments) throws XPathFunctionException {
+                if (arguments[0] instanceof String) {
+                    // the name of a literal is checked once, when the query is built,
+                    // the type it names is then cached by the type system
+                    try {
+                        AssertionUtil.assertValidJavaBinaryName(StringUtils.deleteWhitespace((String) arguments[0]));
+                    } catch (IllegalArgumentException e) {
+                        throw new XPathFunctionException("Invalid type name " + arguments[0], e);
+                    }
+                }
+            }
+
+            @Override
+            public Object call(Node contextNode, Object[] arguments) {
+                String fullTypeName = arguments[0].toString();
+                return klass.isInstance(contextNode) && checker.test(fullTypeName, (T) contextNode);
+            }
         };
     }
 }
@@ -8,7 +8,9 @@ import static net.sourceforge.pmd.util.CollectionUtil.listOf;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -296,23 +298,37 @@ public final class InvocationMatcher {
      */
     public static final class CompoundInvocationMatcher {
 
-        private final List<InvocationMatcher> matchers;
+        /** Matchers that expect a method name, by name. */
+        private final Map<String, List<InvocationMatcher>> matchersByName;
+        /** Matchers that accept any method name. */
+        private final List<InvocationMatcher> anyNameMatchers;
 
         private CompoundInvocationMatcher(List<InvocationMatcher> matchers) {
-            this.matchers = matchers;
+            this.matchersByName = new HashMap<>();
+            List<InvocationMatcher> anyName = new ArrayList<>();
+            for (InvocationMatcher matcher : matchers) {
+                if (matcher.expectedName == null) {
+                    anyName.add(matcher);
+                } else {
+                    matchersByName.computeIfAbsent(matcher.expectedName, n -> new ArrayList<>()).add(matcher);
+                }
+            }
+            this.anyNameMatchers = anyName;
         }
 
-        // todo make this smarter. Like collecting all possible names
-        //  into a set to do a quick pre-screening before we test
-        //  everything linearly
-
         /**
          * Returns true if any of the matchers match the node.
          *
          * @see #matchesCall(JavaNode)
          */
         public boolean anyMatch(InvocationNode node) {
-            return CollectionUtil.any(matchers, it -> it.matchesCall(node));
+            if (node == null) {
+                return false;
+            }
+            // most calls are rejected here, before anything is resolved
+            List<InvocationMatcher> sameName = matchersByName.getOrDefault(node.getMethodName(), Collections.emptyList());
+            return CollectionUtil.any(sameName, it -> it.matchesCall(node))
+                || CollectionUtil.any(anyNameMatchers, it -> it.matchesCall(node));
         }
 
         /**
@@ -321,7 +337,7 @@ public final class InvocationMatcher {
          * @see #matchesCall(JavaNode)
          */
         public boolean anyMatch(JavaNode node) {
-            return CollectionUtil.any(matchers, it -> it.matchesCall(node));
+            return node instanceof InvocationNode && anyMatch((InvocationNode) node);
         }
     }
 }
@@ -15,7 +15,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -172,6 +175,14 @@ public final class TypeSystem {
 
     /** Contains special types, that must be shared to be comparable by reference. */
     private final Map<JTypeDeclSymbol, JTypeMirror> sharedTypes;
+
+    /**
+     * Types loaded by canonical name by {@link TypesFromReflection#loadType(TypeSystem, String, UnresolvedClassStore)}.
+     * Names that are not on the classpath map to an empty optional.
+     * Type tests of rules use few different names, but a lot of times.
+     */
+    private final ConcurrentMap<String, Optional<JTypeMirror>> typesByCanonicalName = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_NAMES = 10_000;
     // test only
     final SymbolResolver resolver;
 
@@ -397,6 +408,22 @@ public final class TypeSystem {
                            : resolver.resolveClassFromBinaryName(name);
     }
 
+    /**
+     * Returns the type with the given canonical name, loading it with
+     * the given function the first time it is requested.
+     */
+    Optional<JTypeMirror> getTypeFromCanonicalName(String canonicalName, Function<String, @Nullable JTypeMirror> loader) {
+        Optional<JTypeMirror> type = typesByCanonicalName.get(canonicalName);
+        if (type == null) {
+            // not computeIfAbsent, as loading may need to load other types
+            type = Optional.ofNullable(loader.apply(canonicalName));
+            if (typesByCanonicalName.size() < MAX_CACHED_NAMES) {
+                typesByCanonicalName.putIfAbsent(canonicalName, type);
+            }
+        }
+        return type;
+    }
+
     /**
      * Returns a type mirror for the given symbol. If the symbol declares
      * type parameters, then the resulting type is raw (differs from the
@@ -13,6 +13,8 @@ import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
@@ -202,7 +204,18 @@ public final class TypesFromReflection {
      * parameter is non-null.
      */
     public static @Nullable JTypeMirror loadType(TypeSystem ctr, String className, UnresolvedClassStore unresolvedStore) {
-        return loadClassMaybeArray(ctr, StringUtils.deleteWhitespace(className), unresolvedStore);
+        String name = StringUtils.deleteWhitespace(className);
+        // the classpath is only searched the first time, the result is
+        // cached in the type system, also when the name is absent.
+        Optional<JTypeMirror> loaded =
+            ctr.getTypeFromCanonicalName(name, n -> loadClassMaybeArray(ctr, n, ctr::getClassSymbolFromCanonicalName));
+        if (!loaded.isPresent() && unresolvedStore != null) {
+            // Unresolved types are not cached, as their symbol belongs to
+            // the unresolved store. The name is known to be absent, so the
+            // classpath is not searched again.
+            return loadClassMaybeArray(ctr, name, n -> unresolvedStore.makeUnresolvedReference(n, 0));
+        }
+        return loaded.orElse(null);
     }
 
     public static @Nullable JClassSymbol loadSymbol(TypeSystem ctr, String className) {
@@ -213,7 +226,7 @@ public final class TypesFromReflection {
 
     private static @Nullable JTypeMirror loadClassMaybeArray(TypeSystem ts,
                                                              String className,
-                                                             @Nullable UnresolvedClassStore unresolvedClassStore) {
+                                                             Function<String, @Nullable JClassSymbol> loadSymbol) {
         Validate.notNull(className, "className must not be null.");
         if (className.endsWith("[]")) {
             int dimension = 0;
@@ -226,7 +239,7 @@ public final class TypesFromReflection {
             checkJavaIdent(className, i);
             String elementName = className.substring(0, i);
 
-            JClassSymbol elementType = getClassOrDefault(ts, unresolvedClassStore, elementName);
+            JClassSymbol elementType = loadSymbol.apply(elementName);
             if (elementType == null) {
                 return null;
             }
@@ -234,16 +247,8 @@ public final class TypesFromReflection {
             return ts.arrayType(ts.rawType(elementType), dimension);
         } else {
             checkJavaIdent(className, className.length());
-            return ts.rawType(getClassOrDefault(ts, unresolvedClassStore, className));
-        }
-    }
-
-    private static JClassSymbol getClassOrDefault(TypeSystem ts, @Nullable UnresolvedClassStore unresolvedClassStore, String canonicalName) {
-        JClassSymbol loaded = ts.getClassSymbolFromCanonicalName(canonicalName);
-        if (loaded == null && unresolvedClassStore != null) {
-            loaded = unresolvedClassStore.makeUnresolvedReference(canonicalName, 0);
+            return ts.rawType(loadSymbol.apply(className));
         }
-        return loaded;
     }
 
     private static IllegalArgumentException invalidClassName(String className) {
@@ -6,7 +6,14 @@ package net.sourceforge.pmd.lang.java.cpd;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
@@ -19,6 +26,8 @@ import net.sourceforge.pmd.lang.ast.LexException;
 import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.document.TextDocument;
 import net.sourceforge.pmd.lang.java.JavaLanguageModule;
+import net.sourceforge.pmd.lang.java.JavaParsingHelper;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 
 class JavaCpdLexerTest extends CpdTextComparisonTest {
 
@@ -115,6 +124,44 @@ class JavaCpdLexerTest extends CpdTextComparisonTest {
         doTest("tabWidth");
     }
 
+    @Test
+    void testTokensOfParsedFileAreTheSame() throws IOException {
+        String source = "package foo.bar;\n"
+            + "import java.util.List;\n"
+            + "/** javadoc */\n"
+            + "@SuppressWarnings(\"unused\")\n"
+            + "public class Foo { // line comment\n"
+            + "    /* block comment */\n"
+            + "    Foo(int x) { this.x = x + 1; }\n"
+            + "    // CPD-OFF\n"
+            + "    String s = \"skipped\";\n"
+            + "    // CPD-ON\n"
+            + "    @SuppressWarnings(\"CPD-START\")\n"
+            + "    void skipped() { }\n"
+            + "    @SuppressWarnings(\"CPD-END\")\n"
+            + "    char c = 'c'; double d = 2.0;\n"
+            + "    enum E { A; E() { } }\n"
+            + "    Class<?> k = Foo.class;\n"
+            + "}\n";
+        ASTCompilationUnit root = JavaParsingHelper.DEFAULT.parse(source);
+        TextDocument document = root.getTextDocument();
+
+        for (LanguagePropertyConfig config : Arrays.asList(defaultProperties(), ignoreAnnotations(), ignoreLiterals(), ignoreIdents())) {
+            JavaCpdLexer cpdLexer = (JavaCpdLexer) newCpdLexer(config);
+            Tokens lexed = new Tokens();
+            CpdLexer.tokenize(cpdLexer, document, lexed);
+            Tokens replayed = new Tokens();
+            CpdLexer.tokenize((doc, tf) -> assertTrue(cpdLexer.tokenize(root, tf)), document, replayed);
+
+            assertEquals(describe(lexed), describe(replayed));
+        }
+    }
+
+    private static List<String> describe(Tokens tokens) {
+        return tokens.getTokens().stream()
+                     .map(t -> t.getImage(tokens) + "@" + t.getBeginLine() + ":" + t.getBeginColumn() + "-" + t.getEndLine() + ":" + t.getEndColumn())
+                     .collect(Collectors.toList());
+    }
 
     private static LanguagePropertyConfig ignoreAnnotations() {
         return properties(true, false, false);
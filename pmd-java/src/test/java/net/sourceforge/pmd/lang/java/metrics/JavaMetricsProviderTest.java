@@ -4,9 +4,11 @@
 
 package net.sourceforge.pmd.lang.java.metrics;
 
+import static net.sourceforge.pmd.util.CollectionUtil.listOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -59,5 +61,15 @@ class JavaMetricsProviderTest {
 
     }
 
+    @Test
+    void testExportedNodes() {
+        ASTCompilationUnit acu = java8.parse("package p; class Foo { Foo(int i) { } "
+                                                 + "void bar(String s, int... is) { new Runnable() { public void run() { } }; } "
+                                                 + "class Inner { } }");
+
+        LanguageMetricsProvider provider = acu.getAstInfo().getLanguageProcessor().services().getLanguageMetricsProvider();
+        List<String> names = provider.getExportedNodes(acu).toList(provider::getExportedName);
 
+        assertEquals(listOf("p.Foo", "p.Foo#Foo(int)", "p.Foo#bar(String, int[])", "p.Foo$1", "p.Foo$1#run()", "p.Foo$Inner"), names);
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.metrics.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.internal.util.IOUtil;
+import net.sourceforge.pmd.lang.java.BaseParserTest;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTExecutableDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTTypeDeclaration;
+import net.sourceforge.pmd.lang.java.ast.JavaNode;
+import net.sourceforge.pmd.lang.java.metrics.JavaMetrics;
+import net.sourceforge.pmd.lang.java.metrics.JavaMetrics.ClassFanOutOption;
+import net.sourceforge.pmd.lang.java.metrics.JavaMetrics.CycloOption;
+import net.sourceforge.pmd.lang.java.metrics.JavaMetrics.NcssOption;
+import net.sourceforge.pmd.lang.java.metrics.internal.CognitiveComplexityVisitor.State;
+import net.sourceforge.pmd.lang.java.metrics.testdata.MetricsVisitorTestData;
+import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
+import net.sourceforge.pmd.lang.metrics.FusedMetrics;
+import net.sourceforge.pmd.lang.metrics.Metric;
+import net.sourceforge.pmd.lang.metrics.MetricOptions;
+import net.sourceforge.pmd.lang.metrics.MetricsUtil;
+
+/**
+ * Checks that the metrics computed in a single traversal are the same
+ * as the ones computed by the visitors of each metric.
+ */
+class FusedMetricsVisitorTest extends BaseParserTest {
+
+    private static final Pattern CODE = Pattern.compile("<!\\[CDATA\\[(.*?)]]>", Pattern.DOTALL);
+
+    private static final List<String> TEST_FILES = Arrays.asList(
+        "CognitiveComplexityTest", "CycloTest", "NPathTest", "NcssTest", "AtfdTest", "CfoTest", "WmcTest"
+    );
+
+    private final List<Check<?, ?>> checks = Arrays.asList(
+        new Check<>(JavaMetrics.CYCLO, ASTExecutableDeclaration.class, FusedMetricsVisitorTest::cyclo,
+                    MetricOptions.emptyOptions(),
+                    MetricOptions.ofOptions(CycloOption.IGNORE_BOOLEAN_PATHS),
+                    MetricOptions.ofOptions(CycloOption.CONSIDER_ASSERT),
+                    MetricOptions.ofOptions(CycloOption.IGNORE_BOOLEAN_PATHS, CycloOption.CONSIDER_ASSERT)),
+        new Check<>(JavaMetrics.NPATH, ASTExecutableDeclaration.class,
+            (node, opts) -> node.acceptVisitor(NpathBaseVisitor.INSTANCE, null),
+                    MetricOptions.emptyOptions()),
+        new Check<>(JavaMetrics.COGNITIVE_COMPLEXITY, ASTExecutableDeclaration.class, FusedMetricsVisitorTest::cognitive,
+                    MetricOptions.emptyOptions()),
+        new Check<>(JavaMetrics.NCSS, JavaNode.class, FusedMetricsVisitorTest::ncss,
+                    MetricOptions.emptyOptions(),
+                    MetricOptions.ofOptions(NcssOption.COUNT_IMPORTS)),
+        new Check<>(JavaMetrics.ACCESS_TO_FOREIGN_DATA, JavaNode.class, FusedMetricsVisitorTest::atfd,
+                    MetricOptions.emptyOptions()),
+        new Check<>(JavaMetrics.FAN_OUT, JavaNode.class, FusedMetricsVisitorTest::fanOut,
+                    MetricOptions.emptyOptions(),
+                    MetricOptions.ofOptions(ClassFanOutOption.INCLUDE_JAVA_LANG))
+    );
+
+    @Test
+    void testSameValuesAsVisitors() throws IOException {
+        FusedMetrics fusedMetrics = FusedMetricsVisitor.newFusedMetrics();
+        // record all the requests before the files are traversed
+        ASTCompilationUnit dummy = java.parse("class Dummy { Dummy() { } }");
+        for (Check<?, ?> check : checks) {
+            check.request(fusedMetrics, dummy);
+        }
+
+        List<ASTCompilationUnit> files = new ArrayList<>();
+        files.add(java.parseClass(MetricsVisitorTestData.class));
+        for (String testFile : TEST_FILES) {
+            for (String code : codeSamples(testFile)) {
+                files.add(java.parse(code));
+            }
+        }
+
+        for (ASTCompilationUnit file : files) {
+            fusedMetrics.computeOnFile(JavaMetrics.NCSS, file, MetricOptions.emptyOptions());
+
+            file.descendants(ASTExecutableDeclaration.class).crossFindBoundaries().forEach(node -> checks.forEach(c -> c.check(node)));
+            file.descendants(ASTTypeDeclaration.class).crossFindBoundaries().forEach(node -> checks.forEach(c -> c.check(node)));
+        }
+    }
+
+    @Test
+    void testNpathOverflow() {
+        StringBuilder code = new StringBuilder("class Foo { void foo(boolean b) {");
+        for (int i = 0; i < 70; i++) {
+            code.append("if (b) { }");
+        }
+        code.append("} }");
+        ASTExecutableDeclaration method = java.parse(code.toString()).descendants(ASTExecutableDeclaration.class).firstOrThrow();
+
+        assertEquals(BigInteger.valueOf(2).pow(70), FusedMetricsVisitor.computeNpath(method));
+        assertEquals(BigInteger.valueOf(2).pow(70), MetricsUtil.computeMetric(JavaMetrics.NPATH, method));
+    }
+
+    @Test
+    void testSaturatingArithmetic() {
+        assertEquals(5, FusedMetricsVisitor.add(2, 3));
+        assertEquals(1, FusedMetricsVisitor.add(2, -1));
+        assertEquals(FusedMetricsVisitor.SATURATED, FusedMetricsVisitor.add(Long.MAX_VALUE - 1, 2));
+        assertEquals(FusedMetricsVisitor.SATURATED, FusedMetricsVisitor.add(FusedMetricsVisitor.SATURATED, -1));
+
+        assertEquals(6, FusedMetricsVisitor.multiply(2, 3));
+        assertEquals(0, FusedMetricsVisitor.multiply(0, 3));
+        assertEquals(1L << 62, FusedMetricsVisitor.multiply(1L << 31, 1L << 31));
+        assertEquals(FusedMetricsVisitor.SATURATED, FusedMetricsVisitor.multiply(1L << 32, 1L << 31));
+        assertEquals(FusedMetricsVisitor.SATURATED, FusedMetricsVisitor.multiply(FusedMetricsVisitor.SATURATED, 0));
+    }
+
+    private List<String> codeSamples(String testFile) throws IOException {
+        String resource = "/net/sourceforge/pmd/lang/java/metrics/impl/xml/" + testFile + ".xml";
+        String xml;
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            xml = IOUtil.readToString(in, StandardCharsets.UTF_8);
+        }
+        List<String> samples = new ArrayList<>();
+        Matcher matcher = CODE.matcher(xml);
+        while (matcher.find()) {
+            samples.add(matcher.group(1));
+        }
+        return samples;
+    }
+
+    private static int cyclo(ASTExecutableDeclaration node, MetricOptions options) {
+        MutableInt counter = new MutableInt(0);
+        node.acceptVisitor(new CycloVisitor(options, node), counter);
+        return counter.getValue();
+    }
+
+    private static int cognitive(ASTExecutableDeclaration node, MetricOptions options) {
+        State state = new State(node);
+        node.acceptVisitor(CognitiveComplexityVisitor.INSTANCE, state);
+        return state.getComplexity();
+    }
+
+    private static int ncss(JavaNode node, MetricOptions options) {
+        MutableInt result = new MutableInt(0);
+        node.acceptVisitor(new NcssVisitor(options, node), result);
+        return result.getValue();
+    }
+
+    private static int atfd(JavaNode node, MetricOptions options) {
+        MutableInt result = new MutableInt(0);
+        node.acceptVisitor(new AtfdBaseVisitor(), result);
+        return result.getValue();
+    }
+
+    private static int fanOut(JavaNode node, MetricOptions options) {
+        Set<JClassSymbol> classes = new HashSet<>();
+        node.acceptVisitor(ClassFanOutVisitor.getInstance(options), classes);
+        return classes.size();
+    }
+
+    private static final class Check<N extends JavaNode, R extends Number> {
+
+        private final Metric<N, R> metric;
+        private final Class<N> nodeType;
+        private final BiFunction<N, MetricOptions, R> visitor;
+        private final List<MetricOptions> options;
+
+        Check(Metric<N, R> metric, Class<N> nodeType, BiFunction<N, MetricOptions, R> visitor, MetricOptions... options) {
+            this.metric = metric;
+            this.nodeType = nodeType;
+            this.visitor = visitor;
+            this.options = Arrays.asList(options);
+        }
+
+        void request(FusedMetrics fusedMetrics, ASTCompilationUnit file) {
+            N node = file.descendants(nodeType).firstOrThrow();
+            for (MetricOptions opts : options) {
+                fusedMetrics.computeOnFile(metric, node, opts);
+            }
+        }
+
+        void check(JavaNode node) {
+            if (!nodeType.isInstance(node)) {
+                return;
+            }
+            N n = nodeType.cast(node);
+            for (MetricOptions opts : options) {
+                // the value of the fused traversal is cached on the node
+                assertEquals(visitor.apply(n, opts), MetricsUtil.computeMetric(metric, n, opts),
+                             () -> metric.displayName() + " " + opts + " of " + node.getText());
+            }
+        }
+    }
+}
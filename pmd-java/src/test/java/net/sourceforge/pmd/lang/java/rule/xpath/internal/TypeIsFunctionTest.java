@@ -4,6 +4,9 @@
 
 package net.sourceforge.pmd.lang.java.rule.xpath.internal;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+
 import org.junit.jupiter.api.Test;
 
 import net.sourceforge.pmd.lang.rule.Rule;
@@ -45,4 +48,11 @@ class TypeIsFunctionTest extends BaseXPathFunctionTest {
         assertFinds(rule, 0, "interface O { @Override void foo(); }");
     }
 
+    @Test
+    void testInvalidTypeNameIsStaticError() {
+        testWithExpectedStaticException(
+            "//ClassBody[pmd-java:typeIs('java.util.List<String>')]",
+            e -> assertThat(e.getMessage(), containsString("java.util.List<String>")));
+    }
+
 }
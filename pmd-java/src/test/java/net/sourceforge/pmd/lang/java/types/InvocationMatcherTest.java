@@ -76,6 +76,20 @@ class InvocationMatcherTest extends BaseParserTest {
         assertNoMatch(call, "_[]#toString()");
     }
 
+    @Test
+    void testCompoundMatcher() {
+
+        ASTMethodCall call =
+            java.parse("class Foo {{ Integer.valueOf('c'); }}")
+                .descendants(ASTMethodCall.class).firstOrThrow();
+
+        assertTrue(InvocationMatcher.parseAll("_#toString()", "java.lang.Integer#valueOf(int)").anyMatch(call));
+        assertTrue(InvocationMatcher.parseAll("_#toString()", "java.lang.Integer#_(int)").anyMatch(call));
+        assertTrue(InvocationMatcher.parseAll("_#valueOf(char)", "_#valueOf(int)").anyMatch(call));
+        assertFalse(InvocationMatcher.parseAll("_#toString()", "_#valueOf(char)", "_#_()").anyMatch(call));
+        assertFalse(InvocationMatcher.parseAll("_#valueOf(int)").anyMatch((InvocationNode) null));
+    }
+
     @Test
     void testWhitespaceErrorMessage() {
 
@@ -5,9 +5,16 @@ package net.sourceforge.pmd.lang.java.types
 
 import io.kotest.assertions.throwables.shouldThrow
 import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContain
 import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
 import net.sourceforge.pmd.lang.java.JavaParsingHelper
 import net.sourceforge.pmd.lang.java.symbols.JClassSymbol
+import net.sourceforge.pmd.lang.java.symbols.SymbolResolver
+import net.sourceforge.pmd.lang.java.symbols.internal.asm.AsmSymbolResolver
+import net.sourceforge.pmd.lang.java.symbols.internal.asm.Classpath
+import net.sourceforge.pmd.lang.java.symbols.internal.UnresolvedClassStore
 import org.apache.commons.lang3.reflect.TypeLiteral
 import org.junit.jupiter.api.Assertions.*
 import java.lang.NullPointerException
@@ -54,6 +61,42 @@ class TypesFromReflectionTest : FunSpec({
         }
     }
 
+    test("Loaded types are cached by the type system") {
+        val list = TypesFromReflection.loadType(LOADER, "java.util.List")
+        list shouldNotBe null
+        TypesFromReflection.loadType(LOADER, "java.util. List") shouldBeSameInstanceAs list
+    }
+
+    test("Types not on the classpath still use the unresolved store") {
+        TypesFromReflection.loadType(LOADER, "does.not.Exist") shouldBe null
+        val unresolved = TypesFromReflection.loadType(LOADER, "does.not.Exist", UnresolvedClassStore(LOADER))
+        unresolved!!.symbol!!.isUnresolved shouldBe true
+        TypesFromReflection.loadType(LOADER, "does.not.Exist") shouldBe null
+    }
+
+    test("Names not on the classpath are only looked up once") {
+        val lookups = mutableListOf<String>()
+        val ts = TypeSystem { ts ->
+            val asm = AsmSymbolResolver(ts, Classpath.forClassLoader(TypesFromReflectionTest::class.java.classLoader))
+            object : SymbolResolver {
+                override fun resolveClassFromBinaryName(binaryName: String): JClassSymbol? {
+                    lookups += binaryName
+                    return asm.resolveClassFromBinaryName(binaryName)
+                }
+
+                override fun logStats() = asm.logStats()
+            }
+        }
+        val store = UnresolvedClassStore(ts)
+        TypesFromReflection.loadType(ts, "does.not.Exist", store)!!.symbol!!.isUnresolved shouldBe true
+        lookups shouldContain "does.not.Exist"
+
+        lookups.clear()
+        TypesFromReflection.loadType(ts, "does.not.Exist", store)!!.symbol!!.isUnresolved shouldBe true
+        TypesFromReflection.loadType(ts, "does.not.Exist") shouldBe null
+        lookups shouldBe emptyList()
+    }
+
     test("testNullName") {
         shouldThrow<NullPointerException> {
             TypesFromReflection.loadSymbol(LOADER, null)
@@ -19,7 +19,7 @@ public final class PmdKotlinParser extends AntlrBaseParser<KotlinNode, KtKotlinF
     @Override
     protected KtKotlinFile parse(final Lexer lexer, ParserTask task) {
         KotlinParser parser = new KotlinParser(new CommonTokenStream(lexer));
-        return parser.kotlinFile().makeAstInfo(task);
+        return parseSllFirst(parser, KotlinParser::kotlinFile).makeAstInfo(task);
     }
 
     @Override
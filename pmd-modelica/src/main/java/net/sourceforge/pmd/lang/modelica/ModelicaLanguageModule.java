@@ -5,6 +5,7 @@
 package net.sourceforge.pmd.lang.modelica;
 
 import net.sourceforge.pmd.cpd.CpdLexer;
+import net.sourceforge.pmd.lang.LanguageProcessor;
 import net.sourceforge.pmd.lang.LanguagePropertyBundle;
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.impl.SimpleLanguageModuleBase;
@@ -25,6 +26,17 @@ public class ModelicaLanguageModule extends SimpleLanguageModuleBase {
         return (ModelicaLanguageModule) LanguageRegistry.PMD.getLanguageById(ID);
     }
 
+    @Override
+    public ModelicaLanguageProperties newPropertyBundle() {
+        return new ModelicaLanguageProperties();
+    }
+
+    @Override
+    public LanguageProcessor createProcessor(LanguagePropertyBundle bundle) {
+        // the processor holds the library index used for cross-file resolution
+        return new ModelicaLanguageProcessor((ModelicaLanguageProperties) bundle);
+    }
+
     @Override
     public CpdLexer createCpdLexer(LanguagePropertyBundle bundle) {
         return new ModelicaCpdLexer();
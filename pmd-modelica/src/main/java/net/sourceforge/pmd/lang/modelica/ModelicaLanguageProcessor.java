@@ -0,0 +1,69 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.modelica;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.ast.Parser.ParserTask;
+import net.sourceforge.pmd.lang.ast.SemanticErrorReporter;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.impl.BatchLanguageProcessor;
+import net.sourceforge.pmd.lang.modelica.ast.ASTStoredDefinition;
+import net.sourceforge.pmd.lang.modelica.resolver.ModelicaLibraryIndex;
+
+public class ModelicaLanguageProcessor extends BatchLanguageProcessor<ModelicaLanguageProperties> {
+
+    private final ModelicaHandler services = new ModelicaHandler();
+    private @Nullable ModelicaLibraryIndex libraryIndex;
+
+    ModelicaLanguageProcessor(ModelicaLanguageProperties bundle) {
+        super(bundle);
+    }
+
+    @Override
+    public @NonNull LanguageVersionHandler services() {
+        return services;
+    }
+
+    /**
+     * Returns the index of the classes of all analyzed files, or null
+     * if {@link ModelicaLanguageProperties#CROSS_FILE_RESOLUTION} is disabled.
+     */
+    public @Nullable ModelicaLibraryIndex getLibraryIndex() {
+        return libraryIndex;
+    }
+
+    @Override
+    public @NonNull AutoCloseable launchAnalysis(@NonNull AnalysisTask task) {
+        if (getProperties().getProperty(ModelicaLanguageProperties.CROSS_FILE_RESOLUTION)) {
+            // The index is complete before any file is analyzed. It is
+            // set first, so that the indexed files may also refer to each other.
+            // All files are indexed, also those of other shards, so that
+            // names resolve the same way as without sharding.
+            libraryIndex = new ModelicaLibraryIndex();
+            for (TextFile file : task.getAllFiles()) {
+                if (file.getLanguageVersion().getLanguage().equals(getLanguage())) {
+                    indexFile(task, file);
+                }
+            }
+        }
+        return super.launchAnalysis(task);
+    }
+
+    private void indexFile(AnalysisTask task, TextFile file) {
+        try (TextDocument document = TextDocument.create(file)) {
+            ParserTask parserTask = new ParserTask(document, SemanticErrorReporter.noop(), task.getLpRegistry());
+            ASTStoredDefinition root = (ASTStoredDefinition) services.getParser().parse(parserTask);
+            libraryIndex.addFile(root);
+        } catch (Exception e) {
+            // the file is still analyzed, but names declared in it are not visible to other files
+            task.getMessageReporter().warnEx("Could not index {0} for cross-file resolution",
+                                             new Object[] { file.getFileId().getOriginalPath() }, e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.modelica;
+
+import net.sourceforge.pmd.lang.LanguagePropertyBundle;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+import net.sourceforge.pmd.properties.PropertyFactory;
+
+public class ModelicaLanguageProperties extends LanguagePropertyBundle {
+
+    public static final PropertyDescriptor<Boolean> CROSS_FILE_RESOLUTION =
+        PropertyFactory.booleanProperty("crossFileResolution")
+                       .desc("Whether names may be resolved to classes declared in other analyzed files. "
+                                 + "All files are parsed once more before the analysis to index their classes.")
+                       .defaultValue(false)
+                       .build();
+
+    public ModelicaLanguageProperties() {
+        super(ModelicaLanguageModule.getInstance());
+        definePropertyDescriptor(CROSS_FILE_RESOLUTION);
+    }
+}
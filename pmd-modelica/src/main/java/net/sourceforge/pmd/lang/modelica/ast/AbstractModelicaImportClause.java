@@ -15,7 +15,7 @@ import net.sourceforge.pmd.lang.modelica.resolver.Watchdog;
  * Common internal machinery for various import clauses to describe themselves to resolver.
  */
 abstract class AbstractModelicaImportClause extends AbstractModelicaNode implements ModelicaImportClause {
-    private ResolutionResult<ModelicaDeclaration> importSourcesCache;
+    private volatile ResolutionResult<ModelicaDeclaration> importSourcesCache;
 
     AbstractModelicaImportClause(int id) {
         super(id);
@@ -9,6 +9,8 @@ import net.sourceforge.pmd.lang.ast.ParseException;
 import net.sourceforge.pmd.lang.ast.impl.javacc.CharStream;
 import net.sourceforge.pmd.lang.ast.impl.javacc.JavaccTokenDocument.TokenDocumentBehavior;
 import net.sourceforge.pmd.lang.ast.impl.javacc.JjtreeParserAdapter;
+import net.sourceforge.pmd.lang.modelica.ModelicaLanguageProcessor;
+import net.sourceforge.pmd.lang.modelica.resolver.ModelicaLibraryIndex;
 import net.sourceforge.pmd.lang.modelica.resolver.ModelicaSymbolFacade;
 
 
@@ -24,7 +26,8 @@ public class ModelicaParser extends JjtreeParserAdapter<ASTStoredDefinition> {
     @Override
     protected ASTStoredDefinition parseImpl(CharStream cs, ParserTask task) throws ParseException {
         ASTStoredDefinition root = new ModelicaParserImpl(cs).StoredDefinition().makeTaskInfo(task);
-        TimeTracker.bench("Modelica symbols", () -> ModelicaSymbolFacade.process(root));
+        ModelicaLibraryIndex libraryIndex = ((ModelicaLanguageProcessor) task.getLanguageProcessor()).getLibraryIndex();
+        TimeTracker.bench("Modelica symbols", () -> ModelicaSymbolFacade.process(root, libraryIndex));
         return root;
     }
 
@@ -24,7 +24,8 @@ class ModelicaClassDeclaration extends AbstractModelicaDeclaration implements Mo
     private String simpleName;
     private final List<ModelicaImportClause> imports = new ArrayList<>();
     private final List<CompositeName> extendedClasses = new ArrayList<>();
-    private List<ModelicaClassScope> resolvedExtends;
+    // classes of a library index are shared between threads
+    private volatile List<ModelicaClassScope> resolvedExtends;
 
     ModelicaClassDeclaration(ASTClassDefinition node) {
         encapsulated = node.isEncapsulated();
@@ -63,12 +64,13 @@ class ModelicaClassDeclaration extends AbstractModelicaDeclaration implements Mo
             } catch (Watchdog.CountdownException e) {
                 ctx.markTtlExceeded();
             }
-            resolvedExtends = new ArrayList<>();
+            List<ModelicaClassScope> extendedScopes = new ArrayList<>();
             for (ModelicaType decl: ctx.getTypes().getBestCandidates()) {
                 if (decl instanceof ModelicaClassDeclaration) {
-                    resolvedExtends.add(((ModelicaClassDeclaration) decl).getClassScope());
+                    extendedScopes.add(((ModelicaClassDeclaration) decl).getClassScope());
                 }
             }
+            resolvedExtends = extendedScopes;
         }
         return resolvedExtends;
     }
@@ -78,7 +78,7 @@ public class ModelicaComponentDeclaration extends AbstractModelicaDeclaration im
     private ComponentVariability variability;
     private ComponentCausality causality;
     private final ASTName typeName;
-    private ResolutionResult<ModelicaType> typeCandidates;
+    private volatile ResolutionResult<ModelicaType> typeCandidates;
     private final String declarationName;
     private final ASTConditionAttribute condition;
 
@@ -0,0 +1,79 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.modelica.resolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.modelica.ast.ASTStoredDefinition;
+
+/**
+ * Index of the top-level classes of all the files of an analysis, by
+ * fully qualified name. The {@link RootScope} of each file delegates
+ * to it to resolve names declared in other files, eg in a library.
+ *
+ * <p>The index is filled before the analysis starts, it is only read
+ * afterwards, possibly by several threads.
+ */
+@InternalApi
+public final class ModelicaLibraryIndex {
+    private final Map<String, List<IndexedClass>> classesByName = new HashMap<>();
+
+    /**
+     * Adds the top-level classes of a file, whose symbols have
+     * already been processed, to the index.
+     */
+    public void addFile(ASTStoredDefinition root) {
+        ModelicaSourceFileScope scope = (ModelicaSourceFileScope) root.getMostSpecificScope();
+        String prefix = scope.isInDefaultPackage() ? "" : scope.getFileFQCN() + CompositeName.NAME_COMPONENT_SEPARATOR;
+        for (ModelicaDeclaration declaration : scope.getContainedDeclarations()) {
+            if (declaration instanceof ModelicaClassDeclaration) {
+                classesByName.computeIfAbsent(prefix + declaration.getSimpleDeclarationName(), k -> new ArrayList<>())
+                             .add(new IndexedClass(scope.getFileId(), (ModelicaClassDeclaration) declaration));
+            }
+        }
+    }
+
+    /**
+     * Resolves a name relative to the unnamed enclosing class among the
+     * indexed classes, except those of the files of the given scope,
+     * which resolves them itself.
+     */
+    void resolve(ResolutionContext result, CompositeName name, RootScope except) throws Watchdog.CountdownException {
+        StringBuilder qualifiedName = new StringBuilder();
+        CompositeName remaining = name;
+        // any prefix of the name may be the name of a top-level class of a file
+        while (!remaining.isEmpty()) {
+            if (qualifiedName.length() > 0) {
+                qualifiedName.append(CompositeName.NAME_COMPONENT_SEPARATOR);
+            }
+            qualifiedName.append(remaining.getHead());
+            remaining = remaining.getTail();
+
+            for (IndexedClass indexed : classesByName.getOrDefault(qualifiedName.toString(), Collections.emptyList())) {
+                if (!except.containsFile(indexed.fileId)) {
+                    ResolutionContext tmpContext = result.getState().createContext();
+                    indexed.declaration.lookupInInstanceScope(tmpContext, remaining);
+                    result.accumulate(tmpContext.get(ResolvableEntity.class));
+                }
+            }
+        }
+    }
+
+    private static final class IndexedClass {
+        private final FileId fileId;
+        private final ModelicaClassDeclaration declaration;
+
+        IndexedClass(FileId fileId, ModelicaClassDeclaration declaration) {
+            this.fileId = fileId;
+            this.declaration = declaration;
+        }
+    }
+}
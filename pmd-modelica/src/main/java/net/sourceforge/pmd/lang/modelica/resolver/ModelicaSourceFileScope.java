@@ -4,6 +4,7 @@
 
 package net.sourceforge.pmd.lang.modelica.resolver;
 
+import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.modelica.ast.ASTStoredDefinition;
 
 /**
@@ -12,8 +13,10 @@ import net.sourceforge.pmd.lang.modelica.ast.ASTStoredDefinition;
 public final class ModelicaSourceFileScope extends AbstractModelicaScope {
     private final String fileFQCN;
     private final String[] packageComponents;
+    private final FileId fileId;
 
     ModelicaSourceFileScope(ASTStoredDefinition node) {
+        fileId = node.getTextDocument().getFileId();
         fileFQCN = node.getName();
         if (fileFQCN.isEmpty()) {
             packageComponents = new String[0];
@@ -76,4 +79,8 @@ public final class ModelicaSourceFileScope extends AbstractModelicaScope {
     public String getFileFQCN() {
         return fileFQCN;
     }
+
+    FileId getFileId() {
+        return fileId;
+    }
 }
@@ -4,6 +4,8 @@
 
 package net.sourceforge.pmd.lang.modelica.resolver;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.modelica.ast.ASTStoredDefinition;
 
@@ -15,7 +17,15 @@ public final class ModelicaSymbolFacade {
     }
 
     public static void process(ASTStoredDefinition node) {
-        ScopeAndDeclarationFinder sc = new ScopeAndDeclarationFinder();
+        process(node, null);
+    }
+
+    /**
+     * Processes the symbols of a file. Names that are not declared in the
+     * file are also resolved in the given index, if it is not null.
+     */
+    public static void process(ASTStoredDefinition node, @Nullable ModelicaLibraryIndex libraryIndex) {
+        ScopeAndDeclarationFinder sc = new ScopeAndDeclarationFinder(libraryIndex);
         node.acceptVisitor(sc, null);
     }
 }
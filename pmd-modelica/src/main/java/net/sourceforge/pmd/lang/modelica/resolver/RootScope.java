@@ -7,6 +7,10 @@ package net.sourceforge.pmd.lang.modelica.resolver;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.document.FileId;
+
 /**
  * A pseudo lexical scope corresponding to "unnamed enclosing class" for top-level entities.
  * See "5.2 Enclosing Classes" from MLS 3.4.
@@ -15,6 +19,11 @@ import java.util.List;
  */
 public final class RootScope extends AbstractModelicaScope {
     private final List<ModelicaSourceFileScope> sourceFiles = new ArrayList<>();
+    private final @Nullable ModelicaLibraryIndex libraryIndex;
+
+    RootScope(@Nullable ModelicaLibraryIndex libraryIndex) {
+        this.libraryIndex = libraryIndex;
+    }
 
     void addSourceFile(ModelicaSourceFileScope sourceFile) {
         sourceFiles.add(sourceFile);
@@ -42,6 +51,18 @@ public final class RootScope extends AbstractModelicaScope {
             // enclosing class is unspecified, so handle name hiding with care.
             result.accumulate(tmpContext.get(ResolvableEntity.class));
         }
+        if (libraryIndex != null) {
+            libraryIndex.resolve(result, nameToLookup, this);
+        }
+    }
+
+    boolean containsFile(FileId fileId) {
+        for (ModelicaSourceFileScope sourceFile : sourceFiles) {
+            if (sourceFile.getFileId().equals(fileId)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
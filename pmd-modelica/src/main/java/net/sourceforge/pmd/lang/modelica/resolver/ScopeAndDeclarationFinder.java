@@ -7,6 +7,8 @@ package net.sourceforge.pmd.lang.modelica.resolver;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import net.sourceforge.pmd.lang.modelica.ast.ASTClassDefinition;
 import net.sourceforge.pmd.lang.modelica.ast.ASTComponentDeclaration;
 import net.sourceforge.pmd.lang.modelica.ast.ASTStoredDefinition;
@@ -17,8 +19,8 @@ import net.sourceforge.pmd.lang.modelica.ast.ModelicaVisitorBase;
 class ScopeAndDeclarationFinder extends ModelicaVisitorBase<Object, Object> {
     private final Deque<AbstractModelicaScope> scopes = new ArrayDeque<>();
 
-    ScopeAndDeclarationFinder() {
-        scopes.push(new RootScope());
+    ScopeAndDeclarationFinder(@Nullable ModelicaLibraryIndex libraryIndex) {
+        scopes.push(new RootScope(libraryIndex));
     }
 
     private void pushScope(ModelicaNode node, AbstractModelicaScope ownScope) {
@@ -0,0 +1,105 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.modelica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.modelica.rule.bestpractices.ConnectUsingNonConnectorRule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.util.log.internal.MessageReporterBase;
+
+class ModelicaLanguageProcessorTest {
+
+    private static final String LIBRARY =
+          "within Lib;\n"
+        + "package Blocks\n"
+        + "  model NotAConnector\n"
+        + "  end NotAConnector;\n"
+        + "end Blocks;\n";
+
+    private static final String MODEL =
+          "model Test\n"
+        + "  Lib.Blocks.NotAConnector a;\n"
+        + "  Lib.Blocks.NotAConnector b;\n"
+        + "equation\n"
+        + "  connect(a, b);\n"
+        + "end Test;\n";
+
+    @Test
+    void testCrossFileResolution() {
+        // the types of a and b are only resolved with the library index
+        assertEquals(0, analyze(false, 0, 1).getViolations().size());
+        assertEquals(2, analyze(true, 0, 1).getViolations().size());
+    }
+
+    @Test
+    void testShardsResolveAcrossFiles() {
+        // each shard has one of the two files
+        Report first = analyze(true, 0, 2);
+        Report second = analyze(true, 1, 2);
+        assertEquals(2, first.getViolations().size() + second.getViolations().size());
+    }
+
+    @Test
+    void testIndexingErrorIsReported() {
+        List<String> warnings = new ArrayList<>();
+        PMDConfiguration config = new PMDConfiguration();
+        config.setThreads(0);
+        config.setIgnoreIncrementalAnalysis(true);
+        config.setReporter(new MessageReporterBase() {
+            @Override
+            protected void logImpl(Level level, String message) {
+                if (level == Level.WARN) {
+                    warnings.add(message);
+                }
+            }
+        });
+
+        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+            pmd.getLanguageProperties(ModelicaLanguageModule.getInstance())
+                .setProperty(ModelicaLanguageProperties.CROSS_FILE_RESOLUTION, true);
+            pmd.files().addSourceFile(FileId.fromPathLikeString("Broken.mo"), "model Broken\n");
+            pmd.addRuleSet(RuleSet.forSingleRule(newRule()));
+            pmd.performAnalysis();
+        }
+
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0).startsWith("Could not index Broken.mo"), warnings.get(0));
+    }
+
+    private static ConnectUsingNonConnectorRule newRule() {
+        ConnectUsingNonConnectorRule rule = new ConnectUsingNonConnectorRule();
+        rule.setLanguage(ModelicaLanguageModule.getInstance());
+        rule.setMessage("Connect using {0}");
+        return rule;
+    }
+
+    private static Report analyze(boolean crossFileResolution, int shardIndex, int shardCount) {
+        PMDConfiguration config = new PMDConfiguration();
+        config.setThreads(0);
+        config.setIgnoreIncrementalAnalysis(true);
+        config.setShard(shardIndex, shardCount);
+
+        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+            pmd.getLanguageProperties(ModelicaLanguageModule.getInstance())
+                .setProperty(ModelicaLanguageProperties.CROSS_FILE_RESOLUTION, crossFileResolution);
+            pmd.files().addSourceFile(FileId.fromPathLikeString("Lib/Blocks.mo"), LIBRARY);
+            pmd.files().addSourceFile(FileId.fromPathLikeString("Test.mo"), MODEL);
+            pmd.addRuleSet(RuleSet.forSingleRule(newRule()));
+            return pmd.performAnalysisAndCollectReport();
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.modelica.ModelicaParsingHelper;
 import net.sourceforge.pmd.lang.modelica.ast.ASTExtendsClause;
 import net.sourceforge.pmd.lang.modelica.ast.ASTStoredDefinition;
@@ -307,4 +308,32 @@ class ModelicaResolverTest {
         ModelicaComponentDeclaration mdl = (ModelicaComponentDeclaration) result.getBestCandidates().get(0);
         ensureCounts(mdl.getTypeCandidates(), 1, 0);
     }
+
+    @Test
+    void testLibraryIndexResolution() {
+        String library =
+                  "within Lib;"
+                + "package Blocks"
+                + "  connector RealInput"
+                + "  end RealInput;"
+                + "end Blocks;";
+        String user =
+                  "model Test"
+                + "  Lib.Blocks.RealInput u;"
+                + "end Test;";
+
+        ASTStoredDefinition libraryAst = modelica.parse(library, null, FileId.fromPathLikeString("Lib/Blocks.mo"));
+        ASTStoredDefinition userAst = modelica.parse(user, null, FileId.fromPathLikeString("Test.mo"));
+        testResolvedTypeCount(0, 0, userAst.getMostSpecificScope(), false, "Lib", "Blocks", "RealInput");
+
+        ModelicaLibraryIndex index = new ModelicaLibraryIndex();
+        index.addFile(libraryAst);
+        ModelicaSymbolFacade.process(userAst, index);
+        testResolvedTypeCount(1, 0, userAst.getMostSpecificScope(), false, "Lib", "Blocks", "RealInput");
+        testResolvedTypeCount(1, 0, userAst.getMostSpecificScope(), true, "Lib", "Blocks", "RealInput");
+
+        // the file itself is not looked up a second time in the index
+        ModelicaSymbolFacade.process(libraryAst, index);
+        testResolvedTypeCount(1, 0, libraryAst.getMostSpecificScope(), true, "Lib", "Blocks", "RealInput");
+    }
 }
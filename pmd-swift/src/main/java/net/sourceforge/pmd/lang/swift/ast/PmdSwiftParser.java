@@ -35,7 +35,7 @@ public final class PmdSwiftParser extends AntlrBaseParser<SwiftNode, SwTopLevel>
                 // throw new ParseException(msg).withLocation(FileLocation.caret(task.getFileId(), line, charPositionInLine));
             }
         });
-        return parser.topLevel().makeAstInfo(task);
+        return parseSllFirst(parser, SwiftParser::topLevel).makeAstInfo(task);
     }
 
     @Override
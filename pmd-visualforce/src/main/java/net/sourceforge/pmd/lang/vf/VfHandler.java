@@ -10,14 +10,16 @@ import net.sourceforge.pmd.lang.vf.ast.VfParser;
 
 public class VfHandler implements LanguageVersionHandler {
 
-    private final VfLanguageProperties properties;
+    private final VfParser parser;
 
     public VfHandler(VfLanguageProperties properties) {
-        this.properties = properties;
+        // The parser caches the Apex and object metadata referenced by
+        // pages, it is shared by all the files of the language processor.
+        this.parser = new VfParser(properties);
     }
 
     @Override
     public Parser getParser() {
-        return new VfParser(properties);
+        return parser;
     }
 }
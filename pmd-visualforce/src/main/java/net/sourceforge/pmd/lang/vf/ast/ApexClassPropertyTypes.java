@@ -8,7 +8,11 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.exception.ContextedRuntimeException;
 import org.apache.commons.lang3.tuple.Pair;
@@ -29,7 +33,8 @@ import net.sourceforge.pmd.lang.vf.DataType;
 
 /**
  * Responsible for storing a mapping of Apex Class properties that can be referenced from Visualforce to the type of the
- * property.
+ * property. Apex classes are parsed at most once, the properties they
+ * declare are memoized per class file.
  */
 class ApexClassPropertyTypes extends SalesforceFieldTypes {
 
@@ -37,17 +42,28 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
     private static final String APEX_CLASS_FILE_SUFFIX = ".cls";
     private final ApexLanguageProcessor apexProcessor;
     private final LanguageProcessorRegistry lpReg;
+    /**
+     * Types of the referenceable variables declared by each class file.
+     */
+    private final ConcurrentMap<Path, Map<String, DataType>> classFileTypes = new ConcurrentHashMap<>();
 
     ApexClassPropertyTypes(LanguageProcessorRegistry lpReg) {
         this.apexProcessor = (ApexLanguageProcessor) lpReg.getProcessor(ApexLanguageModule.getInstance());
         this.lpReg = lpReg;
     }
 
+    /**
+     * Returns true if this instance uses the Apex processor of the given registry.
+     */
+    boolean isForRegistry(LanguageProcessorRegistry lpReg) {
+        return this.lpReg == lpReg;
+    }
+
     /**
      * Looks in {@code apexDirectories} for an Apex property identified by {@code expression}.
      */
     @Override
-    public void findDataType(String expression, List<Path> apexDirectories) {
+    public void findDataType(String expression, List<Path> apexDirectories, Map<String, DataType> foundTypes) {
         String[] parts = expression.split("\\.");
         if (parts.length >= 2) {
             // Load the class and parse it
@@ -56,15 +72,10 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
             for (Path apexDirectory : apexDirectories) {
                 Path apexFilePath = apexDirectory.resolve(className + APEX_CLASS_FILE_SUFFIX);
                 if (Files.exists(apexFilePath) && Files.isRegularFile(apexFilePath)) {
-                    Node node = parseApex(expression, apexFilePath);
-                    ApexClassPropertyTypesVisitor visitor = new ApexClassPropertyTypesVisitor();
-                    node.acceptVisitor(visitor, null);
+                    foundTypes.putAll(classFileTypes.computeIfAbsent(apexFilePath.normalize(),
+                                                                     p -> findClassTypes(expression, p)));
 
-                    for (Pair<String, String> variable : visitor.getVariables()) {
-                        putDataType(variable.getKey(), DataType.fromTypeName(variable.getValue()));
-                    }
-
-                    if (containsExpression(expression)) {
+                    if (containsExpression(foundTypes, expression)) {
                         // Break out of the loop if a variable was found
                         break;
                     }
@@ -73,6 +84,18 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
         }
     }
 
+    private Map<String, DataType> findClassTypes(String contextExpr, Path apexFilePath) {
+        Node node = parseApex(contextExpr, apexFilePath);
+        ApexClassPropertyTypesVisitor visitor = new ApexClassPropertyTypesVisitor();
+        node.acceptVisitor(visitor, null);
+
+        Map<String, DataType> classTypes = new HashMap<>();
+        for (Pair<String, String> variable : visitor.getVariables()) {
+            putDataType(classTypes, variable.getKey(), DataType.fromTypeName(variable.getValue()));
+        }
+        return classTypes;
+    }
+
     Node parseApex(Path apexFilePath) {
         LanguageVersion languageVersion = apexProcessor.getLanguageVersion();
         try (TextFile file = TextFile.forPath(apexFilePath, StandardCharsets.UTF_8, languageVersion);
@@ -96,8 +119,8 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
     }
 
     @Override
-    protected DataType putDataType(String name, DataType dataType) {
-        DataType previousType = super.putDataType(name, dataType);
+    protected DataType putDataType(Map<String, DataType> foundTypes, String name, DataType dataType) {
+        DataType previousType = super.putDataType(foundTypes, name, dataType);
         if (previousType != null && !previousType.equals(dataType)) {
             // It is possible to have a property and method with different types that appear the same to this code. An
             // example is an Apex class with a property "public String Foo {get; set;}" and a method of
@@ -105,7 +128,7 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
             // is. This code could be more complex in an attempt to determine if all the types are safe from escaping,
             // but we will allow a false positive in order to let the user know that the code could be refactored to be
             // more clear.
-            super.putDataType(name, DataType.Unknown);
+            super.putDataType(foundTypes, name, DataType.Unknown);
             LOG.warn("Conflicting types for {}. CurrentType={}, PreviousType={}",
                     name, dataType, previousType);
         }
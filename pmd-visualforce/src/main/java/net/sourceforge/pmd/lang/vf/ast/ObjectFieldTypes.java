@@ -8,12 +8,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -59,55 +61,21 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
     }
 
     /**
-     * Keep track of which ".object" files have already been processed. All fields are processed at once. If an object
-     * file has been processed
+     * Custom field names to their type, for each ".object" or ".field-meta.xml" file that has been processed. All
+     * fields of an object file are processed at once.
      */
-    private final Set<String> objectFileProcessed;
+    private final ConcurrentMap<Path, Map<String, DataType>> metadataFileFields = new ConcurrentHashMap<>();
 
-    // XML Parsing objects
-    private final DocumentBuilder documentBuilder;
-    private final XPathExpression customObjectFieldsExpression;
-    private final XPathExpression customFieldFullNameExpression;
-    private final XPathExpression customFieldTypeExpression;
-    private final XPathExpression sfdxCustomFieldFullNameExpression;
-    private final XPathExpression sfdxCustomFieldTypeExpression;
-
-    ObjectFieldTypes() {
-        this.objectFileProcessed = new HashSet<>();
-
-        try {
-            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            documentBuilderFactory.setNamespaceAware(false);
-            documentBuilderFactory.setValidating(false);
-            documentBuilderFactory.setIgnoringComments(true);
-            documentBuilderFactory.setIgnoringElementContentWhitespace(true);
-            documentBuilderFactory.setExpandEntityReferences(false);
-            documentBuilderFactory.setCoalescing(false);
-            documentBuilderFactory.setXIncludeAware(false);
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new RuntimeException(e);
-        }
-
-        try {
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            this.customObjectFieldsExpression = xPath.compile("/CustomObject/fields");
-            this.customFieldFullNameExpression = xPath.compile("fullName/text()");
-            this.customFieldTypeExpression = xPath.compile("type/text()");
-            this.sfdxCustomFieldFullNameExpression = xPath.compile("/CustomField/fullName/text()");
-            this.sfdxCustomFieldTypeExpression = xPath.compile("/CustomField/type/text()");
-        } catch (XPathExpressionException e) {
-            throw new RuntimeException(e);
-        }
-    }
+    /**
+     * XML parsing objects are not thread-safe, each thread gets its own.
+     */
+    private final ThreadLocal<MetadataXmlParser> xmlParser = ThreadLocal.withInitial(MetadataXmlParser::new);
 
     /**
      * Looks in {@code objectsDirectories} for a custom field identified by {@code expression}.
      */
     @Override
-    protected void findDataType(String expression, List<Path> objectsDirectories) {
+    protected void findDataType(String expression, List<Path> objectsDirectories, Map<String, DataType> foundTypes) {
         // The expression should be in the form <objectName>.<fieldName>
         String[] parts = expression.split("\\.");
         if (parts.length == 1) {
@@ -116,7 +84,7 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
             String objectName = parts[0];
             String fieldName = parts[1];
 
-            addStandardFields(objectName);
+            addStandardFields(foundTypes, objectName);
 
             // Attempt to find a metadata file that contains the custom field. The information will be located in a
             // file located at <objectDirectory>/<objectName>.object or in an file located at
@@ -126,17 +94,17 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
                 Path sfdxCustomFieldPath = getSfdxCustomFieldPath(objectsDirectory, objectName, fieldName);
                 if (sfdxCustomFieldPath != null) {
                     // SFDX Format
-                    parseSfdxCustomField(objectName, sfdxCustomFieldPath);
+                    putCustomFields(foundTypes, objectName, sfdxCustomFieldPath, this::parseSfdxCustomField);
                 } else {
                     // MDAPI Format
                     String fileName = objectName + MDAPI_OBJECT_FILE_SUFFIX;
                     Path mdapiPath = objectsDirectory.resolve(fileName);
                     if (Files.exists(mdapiPath) && Files.isRegularFile(mdapiPath)) {
-                        parseMdapiCustomObject(mdapiPath);
+                        putCustomFields(foundTypes, objectName, mdapiPath, this::parseMdapiCustomObject);
                     }
                 }
 
-                if (containsExpression(expression)) {
+                if (containsExpression(foundTypes, expression)) {
                     // Break out of the loop if a variable was found
                     break;
                 }
@@ -164,19 +132,32 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
         return null;
     }
 
+    /**
+     * Store the custom fields declared in the given metadata file, parsing it if it's the first time it is requested.
+     * Field names are qualified with the object name as it is spelled in the expression.
+     */
+    private void putCustomFields(Map<String, DataType> foundTypes, String objectName, Path metadataFile,
+                                 BiFunction<String, Path, Map<String, DataType>> parser) {
+        Map<String, DataType> fields = metadataFileFields.computeIfAbsent(metadataFile.normalize(),
+                                                                          p -> parser.apply(objectName, p));
+        for (Map.Entry<String, DataType> field : fields.entrySet()) {
+            putDataType(foundTypes, objectName + "." + field.getKey(), field.getValue());
+        }
+    }
+
     /**
      * Determine the type of the custom field.
      */
-    private void parseSfdxCustomField(String customObjectName, Path sfdxCustomFieldPath) {
+    private Map<String, DataType> parseSfdxCustomField(String customObjectName, Path sfdxCustomFieldPath) {
+        MetadataXmlParser parser = xmlParser.get();
         try {
-            Document document = documentBuilder.parse(sfdxCustomFieldPath.toFile());
-            Node fullNameNode = (Node) sfdxCustomFieldFullNameExpression.evaluate(document, XPathConstants.NODE);
-            Node typeNode = (Node) sfdxCustomFieldTypeExpression.evaluate(document, XPathConstants.NODE);
+            Document document = parser.documentBuilder.parse(sfdxCustomFieldPath.toFile());
+            Node fullNameNode = (Node) parser.sfdxCustomFieldFullNameExpression.evaluate(document, XPathConstants.NODE);
+            Node typeNode = (Node) parser.sfdxCustomFieldTypeExpression.evaluate(document, XPathConstants.NODE);
             String type = typeNode.getNodeValue();
             DataType dataType = DataType.fromString(type);
 
-            String key = customObjectName + "." + fullNameNode.getNodeValue();
-            putDataType(key, dataType);
+            return Collections.singletonMap(fullNameNode.getNodeValue(), dataType);
         } catch (IOException | SAXException | XPathExpressionException e) {
             throw new ContextedRuntimeException(e)
                     .addContextValue("customObjectName", customObjectName)
@@ -187,48 +168,47 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
     /**
      * Parse the custom object path and determine the type of all of its custom fields.
      */
-    private void parseMdapiCustomObject(Path mdapiObjectFile) {
-        String fileName = mdapiObjectFile.getFileName().toString();
-
-        String customObjectName = fileName.substring(0, fileName.lastIndexOf(MDAPI_OBJECT_FILE_SUFFIX));
-        if (!objectFileProcessed.contains(customObjectName)) {
-            try {
-                Document document = documentBuilder.parse(mdapiObjectFile.toFile());
-                NodeList fieldsNodes = (NodeList) customObjectFieldsExpression.evaluate(document, XPathConstants.NODESET);
-                for (int i = 0; i < fieldsNodes.getLength(); i++) {
-                    Node fieldsNode = fieldsNodes.item(i);
-                    Node fullNameNode = (Node) customFieldFullNameExpression.evaluate(fieldsNode, XPathConstants.NODE);
-                    if (fullNameNode == null) {
-                        throw new RuntimeException("fullName evaluate failed for " + customObjectName + " " + fieldsNode.getTextContent());
+    private Map<String, DataType> parseMdapiCustomObject(String customObjectName, Path mdapiObjectFile) {
+        MetadataXmlParser parser = xmlParser.get();
+        Map<String, DataType> fields = new HashMap<>();
+        try {
+            Document document = parser.documentBuilder.parse(mdapiObjectFile.toFile());
+            NodeList fieldsNodes = (NodeList) parser.customObjectFieldsExpression.evaluate(document, XPathConstants.NODESET);
+            for (int i = 0; i < fieldsNodes.getLength(); i++) {
+                Node fieldsNode = fieldsNodes.item(i);
+                Node fullNameNode = (Node) parser.customFieldFullNameExpression.evaluate(fieldsNode, XPathConstants.NODE);
+                if (fullNameNode == null) {
+                    throw new RuntimeException("fullName evaluate failed for " + customObjectName + " " + fieldsNode.getTextContent());
+                }
+                String name = fullNameNode.getNodeValue();
+                if (endsWithIgnoreCase(name, CUSTOM_OBJECT_SUFFIX)) {
+                    Node typeNode = (Node) parser.customFieldTypeExpression.evaluate(fieldsNode, XPathConstants.NODE);
+                    if (typeNode == null) {
+                        throw new RuntimeException("type evaluate failed for object=" + customObjectName + ", field=" + name + " " + fieldsNode.getTextContent());
                     }
-                    String name = fullNameNode.getNodeValue();
-                    if (endsWithIgnoreCase(name, CUSTOM_OBJECT_SUFFIX)) {
-                        Node typeNode = (Node) customFieldTypeExpression.evaluate(fieldsNode, XPathConstants.NODE);
-                        if (typeNode == null) {
-                            throw new RuntimeException("type evaluate failed for object=" + customObjectName + ", field=" + name + " " + fieldsNode.getTextContent());
-                        }
-                        String type = typeNode.getNodeValue();
-                        DataType dataType = DataType.fromString(type);
-                        String key = customObjectName + "." + fullNameNode.getNodeValue();
-                        putDataType(key, dataType);
+                    String type = typeNode.getNodeValue();
+                    DataType dataType = DataType.fromString(type);
+                    DataType previousType = fields.put(name, dataType);
+                    if (previousType != null && !previousType.equals(dataType)) {
+                        throw conflictingTypes(customObjectName + "." + name, dataType, previousType);
                     }
                 }
-            } catch (IOException | SAXException | XPathExpressionException e) {
-                throw new ContextedRuntimeException(e)
-                        .addContextValue("customObjectName", customObjectName)
-                        .addContextValue("mdapiObjectFile", mdapiObjectFile);
             }
-            objectFileProcessed.add(customObjectName);
+        } catch (IOException | SAXException | XPathExpressionException e) {
+            throw new ContextedRuntimeException(e)
+                    .addContextValue("customObjectName", customObjectName)
+                    .addContextValue("mdapiObjectFile", mdapiObjectFile);
         }
+        return fields;
     }
 
     /**
      * Add the set of standard fields which aren't present in the metadata file, but may be refernced from the
      * visualforce page.
      */
-    private void addStandardFields(String customObjectName) {
+    private void addStandardFields(Map<String, DataType> foundTypes, String customObjectName) {
         for (Map.Entry<String, DataType> entry : STANDARD_FIELD_TYPES.entrySet()) {
-            putDataType(customObjectName + "." + entry.getKey(), entry.getValue());
+            putDataType(foundTypes, customObjectName + "." + entry.getKey(), entry.getValue());
         }
     }
 
@@ -240,17 +220,62 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
     }
 
     @Override
-    protected DataType putDataType(String name, DataType dataType) {
-        DataType previousType = super.putDataType(name, dataType);
+    protected DataType putDataType(Map<String, DataType> foundTypes, String name, DataType dataType) {
+        DataType previousType = super.putDataType(foundTypes, name, dataType);
         if (previousType != null && !previousType.equals(dataType)) {
             // It should not be possible to have conflicting types for CustomFields
-            throw new RuntimeException("Conflicting types for "
-                    + name
-                    + ". CurrentType="
-                    + dataType
-                    + ", PreviousType="
-                    + previousType);
+            throw conflictingTypes(name, dataType, previousType);
         }
         return previousType;
     }
+
+    private static RuntimeException conflictingTypes(String name, DataType dataType, DataType previousType) {
+        return new RuntimeException("Conflicting types for "
+                + name
+                + ". CurrentType="
+                + dataType
+                + ", PreviousType="
+                + previousType);
+    }
+
+    /**
+     * The XML parsing objects used to read metadata files.
+     */
+    private static final class MetadataXmlParser {
+        private final DocumentBuilder documentBuilder;
+        private final XPathExpression customObjectFieldsExpression;
+        private final XPathExpression customFieldFullNameExpression;
+        private final XPathExpression customFieldTypeExpression;
+        private final XPathExpression sfdxCustomFieldFullNameExpression;
+        private final XPathExpression sfdxCustomFieldTypeExpression;
+
+        MetadataXmlParser() {
+            try {
+                DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+                documentBuilderFactory.setNamespaceAware(false);
+                documentBuilderFactory.setValidating(false);
+                documentBuilderFactory.setIgnoringComments(true);
+                documentBuilderFactory.setIgnoringElementContentWhitespace(true);
+                documentBuilderFactory.setExpandEntityReferences(false);
+                documentBuilderFactory.setCoalescing(false);
+                documentBuilderFactory.setXIncludeAware(false);
+                documentBuilderFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+                documentBuilderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+                documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new RuntimeException(e);
+            }
+
+            try {
+                XPath xPath = XPathFactory.newInstance().newXPath();
+                this.customObjectFieldsExpression = xPath.compile("/CustomObject/fields");
+                this.customFieldFullNameExpression = xPath.compile("fullName/text()");
+                this.customFieldTypeExpression = xPath.compile("type/text()");
+                this.sfdxCustomFieldFullNameExpression = xPath.compile("/CustomField/fullName/text()");
+                this.sfdxCustomFieldTypeExpression = xPath.compile("/CustomField/type/text()");
+            } catch (XPathExpressionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
 }
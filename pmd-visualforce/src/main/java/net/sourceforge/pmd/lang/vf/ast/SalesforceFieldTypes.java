@@ -8,11 +8,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.vf.DataType;
@@ -20,22 +21,28 @@ import net.sourceforge.pmd.lang.vf.DataType;
 /**
  * Responsible for storing a mapping of Fields that can be referenced from Visualforce to the type of the field. The
  * fields are identified by in a case insensitive manner.
+ *
+ * <p>Instances are thread-safe and are meant to be shared by all the Visualforce files
+ * of an analysis. Since metadata directories may be relative to the Visualforce file,
+ * the cache is keyed by the list of resolved directories. Files that live in the same
+ * directory share their entries.
  */
 abstract class SalesforceFieldTypes {
     /**
-     * Cache of lowercase variable names to the variable type declared in the field's metadata file.
+     * Cache of lowercase variable names to the variable type declared in the field's metadata file,
+     * per list of resolved metadata directories.
      */
-    private final Map<String, DataType> variableNameToVariableType;
+    private final ConcurrentMap<List<Path>, Map<String, DataType>> variableNameToVariableType;
 
     /**
      * Keep track of which variables were already processed. Avoid processing if a page repeatedly asks for an entry
      * which we haven't previously found.
      */
-    private final Set<String> variableNameProcessed;
+    private final ConcurrentMap<List<Path>, Set<String>> variableNameProcessed;
 
     SalesforceFieldTypes() {
-        this.variableNameToVariableType = new HashMap<>();
-        this.variableNameProcessed = new HashSet<>();
+        this.variableNameToVariableType = new ConcurrentHashMap<>();
+        this.variableNameProcessed = new ConcurrentHashMap<>();
     }
 
     /**
@@ -48,56 +55,68 @@ abstract class SalesforceFieldTypes {
      * @return the DataType if it can be determined, else null
      */
     public DataType getDataType(String expression, FileId vfFileName, List<String> metadataDirectories) {
+        List<Path> resolvedPaths = resolvePaths(vfFileName, metadataDirectories);
+        Map<String, DataType> knownTypes = variableNameToVariableType.computeIfAbsent(resolvedPaths, k -> new ConcurrentHashMap<>());
+        Set<String> processed = variableNameProcessed.computeIfAbsent(resolvedPaths, k -> ConcurrentHashMap.newKeySet());
+
         String lowerExpression = expression.toLowerCase(Locale.ROOT);
-        if (variableNameToVariableType.containsKey(lowerExpression)) {
+        DataType knownType = knownTypes.get(lowerExpression);
+        if (knownType != null) {
             // The expression has been previously retrieved
-            return variableNameToVariableType.get(lowerExpression);
-        } else if (variableNameProcessed.contains(lowerExpression)) {
+            return knownType;
+        } else if (processed.contains(lowerExpression)) {
             // The expression has been previously requested, but was not found
             return null;
         } else {
-            // todo that could be done in the caller
-            Path vfFilePath = Paths.get(vfFileName.getAbsolutePath());
-            List<Path> resolvedPaths = new ArrayList<>();
-            for (String metadataDirectory : metadataDirectories) {
-                if (Paths.get(metadataDirectory).isAbsolute()) {
-                    resolvedPaths.add(Paths.get(metadataDirectory));
-                } else {
-                    resolvedPaths.add(vfFilePath.getParent().resolve(metadataDirectory));
-                }
-            }
+            // The lookup is done outside of any lock, concurrent lookups of
+            // the same expression find the same types.
+            Map<String, DataType> foundTypes = new HashMap<>();
+            findDataType(expression, resolvedPaths, foundTypes);
+            knownTypes.putAll(foundTypes);
+            processed.add(lowerExpression);
+            return foundTypes.get(lowerExpression);
+        }
+    }
 
-            findDataType(expression, resolvedPaths);
-            variableNameProcessed.add(lowerExpression);
-            return variableNameToVariableType.get(lowerExpression);
+    private static List<Path> resolvePaths(FileId vfFileName, List<String> metadataDirectories) {
+        Path vfFilePath = Paths.get(vfFileName.getAbsolutePath());
+        List<Path> resolvedPaths = new ArrayList<>(metadataDirectories.size());
+        for (String metadataDirectory : metadataDirectories) {
+            if (Paths.get(metadataDirectory).isAbsolute()) {
+                resolvedPaths.add(Paths.get(metadataDirectory));
+            } else {
+                resolvedPaths.add(vfFilePath.getParent().resolve(metadataDirectory).normalize());
+            }
         }
+        return resolvedPaths;
     }
 
     /**
      * Stores {@link DataType} in a map using lower cased {@code expression} as the key.
+     * @param foundTypes the types found by the current lookup
      * @param expression expression literal as declared in the Visualforce page
      * @param dataType identifier determined for
      * @return the previous value associated with {@code key}, or {@code null} if there was no mapping for {@code key}.
      */
-    protected DataType putDataType(String expression, DataType dataType) {
-        return variableNameToVariableType.put(expression.toLowerCase(Locale.ROOT), dataType);
+    protected DataType putDataType(Map<String, DataType> foundTypes, String expression, DataType dataType) {
+        return foundTypes.put(expression.toLowerCase(Locale.ROOT), dataType);
     }
 
     /**
-     * @return true if the expression has previously been stored via {@link #putDataType(String, DataType)}
+     * @return true if the expression has previously been stored via {@link #putDataType(Map, String, DataType)}
      */
-    protected boolean containsExpression(String expression) {
-        return variableNameToVariableType.containsKey(expression.toLowerCase(Locale.ROOT));
+    protected boolean containsExpression(Map<String, DataType> foundTypes, String expression) {
+        return foundTypes.containsKey(expression.toLowerCase(Locale.ROOT));
     }
 
     /**
      * Subclasses should attempt to find the {@code DataType} of {@code expression} within
      * {@code metadataDirectories}. The subclass should store the value by invoking
-     * {@link #putDataType(String, DataType)}.
+     * {@link #putDataType(Map, String, DataType)}.
      *
      * @param expression expression as defined in the Visualforce page, case is preserved
      * @param metadataDirectories list of directories that may contain the metadata corresponding to {@code expression}
+     * @param foundTypes the map into which found types are stored
      */
-    protected abstract void findDataType(String expression, List<Path> metadataDirectories);
+    protected abstract void findDataType(String expression, List<Path> metadataDirectories, Map<String, DataType> foundTypes);
 }
-
@@ -46,13 +46,17 @@ class VfExpressionTypeVisitor extends VfVisitorBase<Void, Void> {
     private final List<String> apexDirectories;
     private final List<String> objectsDirectories;
 
-    VfExpressionTypeVisitor(ParserTask task, VfLanguageProperties vfProperties) {
+    /**
+     * The field types may be shared with other files.
+     */
+    VfExpressionTypeVisitor(ParserTask task, VfLanguageProperties vfProperties,
+                            ApexClassPropertyTypes apexClassPropertyTypes, ObjectFieldTypes objectFieldTypes) {
         this.fileId = task.getFileId();
         this.apexDirectories = vfProperties.getProperty(VfLanguageProperties.APEX_DIRECTORIES_DESCRIPTOR);
         this.objectsDirectories = vfProperties.getProperty(VfLanguageProperties.OBJECTS_DIRECTORIES_DESCRIPTOR);
         this.apexClassNames = new ArrayList<>();
-        this.apexClassPropertyTypes = new ApexClassPropertyTypes(task.getLpRegistry());
-        this.objectFieldTypes = new ObjectFieldTypes();
+        this.apexClassPropertyTypes = apexClassPropertyTypes;
+        this.objectFieldTypes = objectFieldTypes;
     }
 
     @Override
@@ -4,6 +4,9 @@
 
 package net.sourceforge.pmd.lang.vf.ast;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.sourceforge.pmd.lang.LanguageProcessorRegistry;
 import net.sourceforge.pmd.lang.ast.ParseException;
 import net.sourceforge.pmd.lang.ast.impl.javacc.CharStream;
 import net.sourceforge.pmd.lang.ast.impl.javacc.JavaccTokenDocument.TokenDocumentBehavior;
@@ -15,7 +18,15 @@ import net.sourceforge.pmd.lang.vf.VfLanguageProperties;
  */
 public final class VfParser extends JjtreeParserAdapter<ASTCompilationUnit> {
 
-    private VfLanguageProperties vfProperties;
+    private final VfLanguageProperties vfProperties;
+
+    /**
+     * Metadata types resolved while parsing. Those are shared by all
+     * the files parsed by this instance, so that controllers and objects
+     * referenced by many pages are only read once.
+     */
+    private final ObjectFieldTypes objectFieldTypes = new ObjectFieldTypes();
+    private final AtomicReference<ApexClassPropertyTypes> apexClassPropertyTypes = new AtomicReference<>();
 
     public VfParser(VfLanguageProperties vfProperties) {
         this.vfProperties = vfProperties;
@@ -33,10 +44,23 @@ public final class VfParser extends JjtreeParserAdapter<ASTCompilationUnit> {
         ASTCompilationUnit root = new VfParserImpl(cs).CompilationUnit().makeTaskInfo(task);
 
         // Add type information to the AST
-        VfExpressionTypeVisitor visitor = new VfExpressionTypeVisitor(task, vfProperties);
+        VfExpressionTypeVisitor visitor = new VfExpressionTypeVisitor(task, vfProperties,
+                                                                      getApexClassPropertyTypes(task.getLpRegistry()),
+                                                                      objectFieldTypes);
         visitor.visit(root, null);
 
         return root;
     }
 
+    private ApexClassPropertyTypes getApexClassPropertyTypes(LanguageProcessorRegistry lpReg) {
+        // Apex classes are parsed with the Apex processor of the registry,
+        // which is the same for all files of an analysis.
+        ApexClassPropertyTypes current = apexClassPropertyTypes.get();
+        if (current == null || !current.isForRegistry(lpReg)) {
+            current = new ApexClassPropertyTypes(lpReg);
+            apexClassPropertyTypes.set(current);
+        }
+        return current;
+    }
+
 }
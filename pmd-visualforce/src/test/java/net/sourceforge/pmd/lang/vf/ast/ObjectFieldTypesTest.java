@@ -93,6 +93,26 @@ class ObjectFieldTypesTest {
         validateMDAPIAccount(objectFieldTypes, vfPagePath, paths);
     }
 
+    /**
+     * Verify that an instance shared by pages of different directories resolves relative paths per page
+     */
+    @Test
+    void testSharedInstanceResolvesRelativeDirectoriesPerPage() {
+        Path sfdxPagePath = VFTestUtils.getMetadataPath(this, VFTestUtils.MetadataFormat.SFDX, VFTestUtils.MetadataType.Vf).resolve("SomePage.page");
+        Path mdapiPagePath = VFTestUtils.getMetadataPath(this, VFTestUtils.MetadataFormat.MDAPI, VFTestUtils.MetadataType.Vf).resolve("SomePage.page");
+        List<String> paths = VfLanguageProperties.OBJECTS_DIRECTORIES_DESCRIPTOR.defaultValue();
+
+        ObjectFieldTypes objectFieldTypes = new ObjectFieldTypes();
+        validateSfdxAccount(objectFieldTypes, sfdxPagePath, paths);
+        validateMDAPIAccount(objectFieldTypes, mdapiPagePath, paths);
+        // the other format is not visible from each page
+        assertNull(objectFieldTypes.getDataType("Account.MDCheckbox__c", FileId.fromPath(sfdxPagePath), paths));
+        assertNull(objectFieldTypes.getDataType("Account.Checkbox__c", FileId.fromPath(mdapiPagePath), paths));
+        // cached entries are still correct
+        validateSfdxAccount(objectFieldTypes, sfdxPagePath, paths);
+        validateMDAPIAccount(objectFieldTypes, mdapiPagePath, paths);
+    }
+
     @Test
     void testInvalidDirectoryDoesNotCauseAnException() {
         Path vfPagePath = VFTestUtils.getMetadataPath(this, VFTestUtils.MetadataFormat.SFDX, VFTestUtils.MetadataType.Vf).resolve("SomePage.page");
@@ -8,6 +8,7 @@ package net.sourceforge.pmd.lang.xml.ast.internal;
 import static java.util.Collections.emptyIterator;
 
 import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -44,6 +45,14 @@ class XmlNodeWrapper implements XmlNode {
     int endOffset;
     TextDocument textDoc;
 
+    /**
+     * Tree links, set when the node is created by the {@link XmlTreeBuilder}.
+     * Nodes that are wrapped later on, like attributes, use the DOM instead.
+     */
+    private XmlNodeWrapper parent;
+    private List<XmlNodeWrapper> children;
+    private int indexInParent = -1;
+
 
     XmlNodeWrapper(XmlParserImpl parser, org.w3c.dom.Node domNode) {
         super();
@@ -57,6 +66,19 @@ class XmlNodeWrapper implements XmlNode {
         return parser.wrapDomNode(domNode);
     }
 
+    void addChild(XmlNodeWrapper child) {
+        if (children == null) {
+            children = new ArrayList<>();
+        }
+        child.parent = this;
+        child.indexInParent = children.size();
+        children.add(child);
+    }
+
+    private boolean isInTree() {
+        return parent != null || this instanceof XmlParserImpl.RootXmlNode;
+    }
+
     @Override
     public TextRegion getTextRegion() {
         return TextRegion.fromBothOffsets(startOffset, endOffset);
@@ -64,18 +86,24 @@ class XmlNodeWrapper implements XmlNode {
 
     @Override
     public XmlNode getParent() {
-        org.w3c.dom.Node parent = node.getParentNode();
-        return parent != null ? parser.wrapDomNode(parent) : null;
+        if (isInTree()) {
+            return parent;
+        }
+        org.w3c.dom.Node domParent = node.getParentNode();
+        return domParent != null ? parser.wrapDomNode(domParent) : null;
     }
 
 
     @Override
     public int getIndexInParent() {
-        org.w3c.dom.Node parent = node.getParentNode();
-        if (parent == null) {
+        if (isInTree()) {
+            return indexInParent;
+        }
+        org.w3c.dom.Node domParent = node.getParentNode();
+        if (domParent == null) {
             return -1;
         }
-        NodeList childNodes = parent.getChildNodes();
+        NodeList childNodes = domParent.getChildNodes();
         for (int i = 0; i < childNodes.getLength(); i++) {
             if (node == childNodes.item(i)) { // NOPMD CompareObjectsWithEquals
                 return i;
@@ -87,12 +115,21 @@ class XmlNodeWrapper implements XmlNode {
 
     @Override
     public XmlNode getChild(int index) {
+        if (isInTree()) {
+            if (children == null) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size 0");
+            }
+            return children.get(index);
+        }
         return parser.wrapDomNode(node.getChildNodes().item(index));
     }
 
 
     @Override
     public int getNumChildren() {
+        if (isInTree()) {
+            return children == null ? 0 : children.size();
+        }
         return node.hasChildNodes() ? node.getChildNodes().getLength() : 0;
     }
 
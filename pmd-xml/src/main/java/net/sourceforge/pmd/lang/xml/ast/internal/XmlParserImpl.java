@@ -6,65 +6,117 @@ package net.sourceforge.pmd.lang.xml.ast.internal;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.StringReader;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
-import javax.xml.parsers.DocumentBuilder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import net.sourceforge.pmd.lang.ast.AstInfo;
 import net.sourceforge.pmd.lang.ast.ParseException;
 import net.sourceforge.pmd.lang.ast.Parser.ParserTask;
 import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.document.Chars;
 import net.sourceforge.pmd.lang.rule.xpath.Attribute;
 import net.sourceforge.pmd.lang.rule.xpath.impl.AttributeAxisIterator;
+import net.sourceforge.pmd.lang.rule.xpath.internal.CoordinateXPathFunction;
 import net.sourceforge.pmd.lang.xml.ast.XmlNode;
 
+/**
+ * Parses XML into a DOM, and wraps the DOM nodes into {@link XmlNode}s.
+ * Both trees are built by {@link XmlTreeBuilder} in a single SAX pass, which
+ * also determines the position of the nodes.
+ */
 public final class XmlParserImpl {
     // never throws on unresolved resource
     private static final EntityResolver SILENT_ENTITY_RESOLVER = (publicId, systemId) -> new InputSource(new ByteArrayInputStream("".getBytes()));
 
-    private final Map<org.w3c.dom.Node, XmlNode> nodeCache = new HashMap<>();
+    private static final Pattern XML_DECLARATION =
+        Pattern.compile("<\\?xml\\s[^>]*?\\?>");
+    private static final Pattern PSEUDO_ATTRIBUTE =
+        Pattern.compile("(version|encoding|standalone)\\s*=\\s*(['\"])([^'\"]*)\\2");
 
 
-    private Document parseDocument(String xmlData) throws ParseException {
-        nodeCache.clear();
+    public RootXmlNode parse(ParserTask task) {
+        Document document = newDocument();
+        RootXmlNode root = new RootXmlNode(this, document, task);
+        XmlTreeBuilder builder = new XmlTreeBuilder(this, task.getTextDocument(), document, root);
+        try {
+            XMLReader reader = newXmlReader();
+            reader.setContentHandler(builder);
+            reader.setProperty("http://xml.org/sax/properties/lexical-handler", builder);
+            reader.setEntityResolver(SILENT_ENTITY_RESOLVER);
+            reader.setErrorHandler(builder);
+            reader.parse(new InputSource(task.getTextDocument().getText().newReader()));
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new ParseException(e);
+        }
+        readXmlDeclaration(root, task.getTextDocument().getText());
+        return root;
+    }
+
+    private static Document newDocument() {
         try {
             DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
             dbf.setNamespaceAware(true);
-            dbf.setValidating(false);
-            dbf.setIgnoringComments(false);
-            dbf.setIgnoringElementContentWhitespace(false);
-            dbf.setExpandEntityReferences(true);
-            dbf.setCoalescing(false);
-            dbf.setXIncludeAware(false);
-            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            DocumentBuilder documentBuilder = dbf.newDocumentBuilder();
-            documentBuilder.setEntityResolver(SILENT_ENTITY_RESOLVER);
-            return documentBuilder.parse(new InputSource(new StringReader(xmlData)));
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+            return dbf.newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException e) {
             throw new ParseException(e);
         }
     }
 
+    private static XMLReader newXmlReader() throws ParserConfigurationException, SAXException {
+        SAXParserFactory spf = SAXParserFactory.newInstance();
+        spf.setNamespaceAware(true);
+        spf.setValidating(false);
+        spf.setXIncludeAware(false);
+        spf.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        spf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        // report xmlns attributes, which are attributes in the DOM
+        spf.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        XMLReader reader = spf.newSAXParser().getXMLReader();
+        reader.setFeature("http://xml.org/sax/features/xmlns-uris", true);
+        return reader;
+    }
 
-    public RootXmlNode parse(ParserTask task) {
-        String xmlData = task.getSourceText();
-        Document document = parseDocument(xmlData);
-        RootXmlNode root = new RootXmlNode(this, document, task);
-        DOMLineNumbers lineNumbers = new DOMLineNumbers(root, task.getTextDocument());
-        lineNumbers.determine();
-        nodeCache.put(document, root);
-        return root;
+    /**
+     * The XML declaration is not reported by SAX, it is read from the source.
+     */
+    private static void readXmlDeclaration(RootXmlNode root, Chars text) {
+        if (!text.startsWith("<?xml")) {
+            return;
+        }
+        int end = text.indexOf("?>", 0);
+        if (end < 0) {
+            return;
+        }
+        Matcher declaration = XML_DECLARATION.matcher(text.subSequence(0, end + 2));
+        if (!declaration.lookingAt()) {
+            return;
+        }
+        Matcher attributes = PSEUDO_ATTRIBUTE.matcher(declaration.group());
+        while (attributes.find()) {
+            String value = attributes.group(3);
+            switch (attributes.group(1)) {
+            case "version":
+                root.xmlVersion = value;
+                break;
+            case "encoding":
+                root.xmlEncoding = value;
+                break;
+            default:
+                root.xmlStandalone = "yes".equals(value);
+                break;
+            }
+        }
     }
 
 
@@ -76,12 +128,12 @@ public final class XmlParserImpl {
      * @return The wrapper
      */
     XmlNode wrapDomNode(Node domNode) {
-        XmlNode wrapper = nodeCache.get(domNode);
+        // wrappers register themselves as user data of the DOM node
+        Object wrapper = domNode.getUserData(CoordinateXPathFunction.PMD_NODE_USER_DATA);
         if (wrapper == null) {
             wrapper = new XmlNodeWrapper(this, domNode);
-            nodeCache.put(domNode, wrapper);
         }
-        return wrapper;
+        return (XmlNode) wrapper;
     }
 
 
@@ -91,6 +143,9 @@ public final class XmlParserImpl {
     public static class RootXmlNode extends XmlNodeWrapper implements RootNode {
 
         private final AstInfo<RootXmlNode> astInfo;
+        private String xmlVersion = "1.0";
+        private String xmlEncoding;
+        private boolean xmlStandalone;
 
         RootXmlNode(XmlParserImpl parser, Document domNode, ParserTask task) {
             super(parser, domNode);
@@ -113,15 +168,15 @@ public final class XmlParserImpl {
         }
         
         public String getXmlEncoding() {
-            return getNode().getXmlEncoding();
+            return xmlEncoding;
         }
-        
+
         public boolean isXmlStandalone() {
-            return getNode().getXmlStandalone();
+            return xmlStandalone;
         }
-        
+
         public String getXmlVersion() {
-            return getNode().getXmlVersion();
+            return xmlVersion;
         }
 
         @Override
@@ -0,0 +1,392 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.xml.ast.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.ext.DefaultHandler2;
+
+import net.sourceforge.pmd.lang.document.Chars;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.xml.ast.internal.XmlParserImpl.RootXmlNode;
+
+/**
+ * Builds the DOM and its PMD wrappers from a single SAX pass. The
+ * position of each node is derived from the SAX {@link Locator}, which
+ * reports the end of each markup construct. The start of a construct
+ * is found by a short backward search from its end, and text nodes span
+ * the gaps between markup. The source is never re-scanned as a whole,
+ * so positions are computed in linear time.
+ *
+ * <p>Nodes that come from the expansion of an entity reference are given
+ * the region of the reference in the source.
+ */
+class XmlTreeBuilder extends DefaultHandler2 {
+
+    private static final String DOCTYPE_START = "<!DOCTYPE";
+    private static final String CDATA_START = "<![CDATA[";
+    private static final String CDATA_END = "]]>";
+
+    private final XmlParserImpl parser;
+    private final TextDocument textDocument;
+    private final Chars text;
+    private final Document document;
+    private final RootXmlNode root;
+    private final Deque<XmlNodeWrapper> stack = new ArrayDeque<>();
+
+    private Locator locator;
+
+    /** Offset of the end of the last markup construct, where the next text node starts. */
+    private int lastMarkupEnd;
+
+    private final StringBuilder textBuffer = new StringBuilder();
+    private int textStart;
+    /** Text that precedes a CDATA section, which ends where the section starts. */
+    private String textBeforeCdata;
+    private int textBeforeCdataStart;
+    private boolean inCdata;
+    private boolean inDtd;
+    private int doctypeStart;
+    private int doctypeEnd;
+    private String doctypeName;
+    private String doctypePublicId;
+    private String doctypeSystemId;
+
+    private int entityDepth;
+    private String entityName;
+    /** Region of the current top-level entity reference, computed lazily. */
+    private int entityRefStart = -1;
+    private int entityRefEnd;
+    private int entityRefSearchStart;
+    private boolean markupInEntity;
+
+    XmlTreeBuilder(XmlParserImpl parser, TextDocument textDocument, Document document, RootXmlNode root) {
+        this.parser = parser;
+        this.textDocument = textDocument;
+        this.text = textDocument.getText();
+        this.document = document;
+        this.root = root;
+        root.startOffset = 0;
+        root.textDoc = textDocument;
+        stack.push(root);
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+        this.locator = locator;
+    }
+
+    @Override
+    public void endDocument() {
+        root.endOffset = lastMarkupEnd - 1;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        Element element = document.createElementNS(uri.isEmpty() ? null : uri, qName);
+        for (int i = 0; i < attributes.getLength(); i++) {
+            String attrUri = attributes.getURI(i);
+            element.setAttributeNS(attrUri.isEmpty() ? null : attrUri, attributes.getQName(i), attributes.getValue(i));
+        }
+
+        int start;
+        if (entityDepth > 0) {
+            markupInEntity = true;
+            start = entityRefStart();
+        } else {
+            int end = currentOffset();
+            start = lastIndexOf("<", end - 1);
+            lastMarkupEnd = end;
+        }
+        flushText(start);
+        XmlNodeWrapper wrapper = appendChild(element, start);
+        stack.push(wrapper);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        int end;
+        if (entityDepth > 0) {
+            end = entityRefEnd;
+            flushText(end);
+        } else {
+            end = currentOffset();
+            if (textBuffer.length() > 0) {
+                flushText(lastIndexOf("<", end - 1));
+            }
+            lastMarkupEnd = end;
+        }
+        XmlNodeWrapper element = stack.pop();
+        element.endOffset = Math.max(element.startOffset, end - 1);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (textBuffer.length() == 0 && !inCdata) {
+            textStart = entityDepth > 0 && markupInEntity ? entityRefStart() : lastMarkupEnd;
+        }
+        textBuffer.append(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        // the DOM keeps element content whitespace as text nodes
+        characters(ch, start, length);
+    }
+
+    @Override
+    public void startCDATA() {
+        inCdata = true;
+        if (textBuffer.length() > 0) {
+            // the start of the section is only known at its end
+            textBeforeCdata = textBuffer.toString();
+            textBeforeCdataStart = textStart;
+            textBuffer.setLength(0);
+        }
+    }
+
+    @Override
+    public void endCDATA() {
+        inCdata = false;
+        String data = textBuffer.toString();
+        textBuffer.setLength(0);
+
+        int start;
+        int end;
+        if (entityDepth > 0) {
+            markupInEntity = true;
+            start = entityRefStart();
+            end = entityRefEnd;
+        } else {
+            end = currentOffset();
+            start = matchBackward(end - CDATA_END.length(), data) - CDATA_START.length();
+            if (start < 0 || !text.startsWith(CDATA_START, start)) {
+                start = lastIndexOf(CDATA_START, end - 1);
+            }
+            lastMarkupEnd = end;
+        }
+        if (textBeforeCdata != null) {
+            appendLeaf(document.createTextNode(textBeforeCdata), textBeforeCdataStart, start);
+            textBeforeCdata = null;
+        }
+        appendLeaf(document.createCDATASection(data), start, end);
+    }
+
+    @Override
+    public void comment(char[] ch, int start, int length) {
+        if (inDtd) {
+            // comments of the DTD are not part of the tree
+            return;
+        }
+        int nodeStart;
+        int end;
+        if (entityDepth > 0) {
+            markupInEntity = true;
+            nodeStart = entityRefStart();
+            end = entityRefEnd;
+        } else {
+            end = currentOffset();
+            nodeStart = lastIndexOf("<!--", end - 1);
+            lastMarkupEnd = end;
+        }
+        flushText(nodeStart);
+        appendLeaf(document.createComment(new String(ch, start, length)), nodeStart, end);
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) {
+        if (inDtd) {
+            return;
+        }
+        int start;
+        int end;
+        if (entityDepth > 0) {
+            markupInEntity = true;
+            start = entityRefStart();
+            end = entityRefEnd;
+        } else {
+            end = currentOffset();
+            // <?target data?>
+            start = matchBackward(end - 2, data);
+            while (start > 0 && Character.isWhitespace(text.charAt(start - 1))) {
+                start--;
+            }
+            start -= target.length() + 2;
+            if (start < 0 || !text.startsWith("<?" + target, start)) {
+                start = lastIndexOf("<?" + target, end - 1);
+            }
+            lastMarkupEnd = end;
+        }
+        flushText(start);
+        appendLeaf(document.createProcessingInstruction(target, data), start, end);
+    }
+
+    @Override
+    public void startDTD(String name, String publicId, String systemId) {
+        inDtd = true;
+        doctypeName = name;
+        doctypePublicId = publicId;
+        doctypeSystemId = systemId;
+        // The locator is on the '[' of the internal subset or on the closing '>'.
+        // The locator of endDTD is not reliable, as it may point into the external subset.
+        int offset = currentOffset();
+        doctypeStart = lastIndexOf(DOCTYPE_START, offset);
+        doctypeEnd = offset < text.length() && text.charAt(offset) == '['
+                     ? endOfInternalSubset(offset + 1)
+                     : text.indexOf('>', offset) + 1;
+    }
+
+    @Override
+    public void endDTD() {
+        inDtd = false;
+        DocumentType doctype = document.getImplementation().createDocumentType(doctypeName, doctypePublicId, doctypeSystemId);
+        appendLeaf(doctype, doctypeStart, doctypeEnd);
+        lastMarkupEnd = doctypeEnd;
+    }
+
+    @Override
+    public void startEntity(String name) {
+        if (inDtd || isNotGeneralEntity(name)) {
+            return;
+        }
+        if (entityDepth++ == 0) {
+            entityName = name;
+            entityRefStart = -1;
+            markupInEntity = false;
+        }
+    }
+
+    @Override
+    public void endEntity(String name) {
+        if (inDtd || isNotGeneralEntity(name)) {
+            return;
+        }
+        if (--entityDepth == 0 && markupInEntity) {
+            // the text that follows starts after the reference
+            lastMarkupEnd = entityRefEnd;
+            if (textBuffer.length() > 0) {
+                flushText(entityRefEnd);
+            }
+        }
+    }
+
+    @Override
+    public void skippedEntity(String name) {
+        if (inDtd || isNotGeneralEntity(name)) {
+            return;
+        }
+        int start = text.indexOf("&" + name + ";", Math.max(lastMarkupEnd, entityRefSearchStart));
+        int end = start + name.length() + 2;
+        entityRefSearchStart = end;
+        flushText(start);
+        appendLeaf(document.createEntityReference(name), start, end);
+        lastMarkupEnd = end;
+    }
+
+    private static boolean isNotGeneralEntity(String name) {
+        return name.startsWith("%") || "[dtd]".equals(name);
+    }
+
+    /**
+     * Returns the start of the current top-level entity reference. This is
+     * only needed if the entity contains markup, so is computed lazily.
+     */
+    private int entityRefStart() {
+        if (entityRefStart < 0) {
+            entityRefStart = text.indexOf("&" + entityName + ";", Math.max(lastMarkupEnd, entityRefSearchStart));
+            entityRefEnd = entityRefStart + entityName.length() + 2;
+            entityRefSearchStart = entityRefEnd;
+        }
+        return entityRefStart;
+    }
+
+    private void flushText(int end) {
+        if (textBuffer.length() > 0) {
+            appendLeaf(document.createTextNode(textBuffer.toString()), textStart, end);
+            textBuffer.setLength(0);
+        }
+    }
+
+    private void appendLeaf(Node domNode, int start, int end) {
+        // regions may only be empty for nodes that come from an entity
+        appendChild(domNode, start).endOffset = Math.max(start, end - 1);
+    }
+
+    private XmlNodeWrapper appendChild(Node domNode, int start) {
+        XmlNodeWrapper parent = stack.peek();
+        parent.getNode().appendChild(domNode);
+        XmlNodeWrapper wrapper = new XmlNodeWrapper(parser, domNode);
+        wrapper.startOffset = start;
+        wrapper.textDoc = textDocument;
+        parent.addChild(wrapper);
+        return wrapper;
+    }
+
+    /**
+     * Returns the offset corresponding to the current position of the locator.
+     */
+    private int currentOffset() {
+        int line = locator.getLineNumber();
+        int column = locator.getColumnNumber();
+        return textDocument.createLineRange(line, line).getStartOffset() + column - 1;
+    }
+
+    private int lastIndexOf(String searched, int fromIndex) {
+        int i = text.lastIndexOf(searched.charAt(0), fromIndex);
+        while (i >= 0 && !text.startsWith(searched, i)) {
+            i = text.lastIndexOf(searched.charAt(0), i - 1);
+        }
+        return i;
+    }
+
+    /**
+     * Returns the offset at which the given parsed text starts in the source,
+     * if it ends at the given offset. Line terminators in the parsed text are
+     * normalized to a single line feed, while the source may contain CRLF or CR.
+     */
+    private int matchBackward(int end, String parsed) {
+        int i = end;
+        for (int j = parsed.length() - 1; j >= 0 && i > 0; j--) {
+            char c = parsed.charAt(j);
+            if (c == '\n' && text.charAt(i - 1) == '\n' && i > 1 && text.charAt(i - 2) == '\r') {
+                i -= 2;
+            } else {
+                i--;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Returns the offset following the closing '>' of the doctype declaration,
+     * given the offset that follows the '[' that opens the internal subset.
+     * Quoted strings and comments may contain the delimiters.
+     */
+    private int endOfInternalSubset(int offset) {
+        int i = offset;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = text.indexOf(c, i + 1);
+            } else if (c == '<' && text.startsWith("<!--", i)) {
+                i = text.indexOf("-->", i + 4) + 2;
+            } else if (c == ']') {
+                return text.indexOf('>', i) + 1;
+            }
+            if (i < 0) {
+                break;
+            }
+            i++;
+        }
+        return text.length();
+    }
+}
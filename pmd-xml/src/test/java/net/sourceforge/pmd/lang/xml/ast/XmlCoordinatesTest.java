@@ -39,4 +39,21 @@ class XmlCoordinatesTest extends BaseTreeDumpTest {
         TestUtilsKt.assertPosition(XmlParsingHelper.XML.parse(xml), 1, 1, 1, xml.length());
     }
 
+    @Test
+    void testProcessingInstructionAndCdataWithCrLf() {
+        final String xml = "<a><?pi data?><![CDATA[x\r\ny]]></a>";
+        XmlNode a = XmlParsingHelper.XML.parse(xml).getChild(0);
+        TestUtilsKt.assertPosition(a.getChild(0), 1, 4, 1, 14);
+        TestUtilsKt.assertPosition(a.getChild(1), 1, 15, 2, 4);
+    }
+
+    @Test
+    void testDoctypeWithoutInternalSubset() {
+        final String xml = "<!DOCTYPE a SYSTEM \"foo.dtd\">\n<a>text</a>";
+        XmlNode root = XmlParsingHelper.XML.parse(xml);
+        TestUtilsKt.assertPosition(root.getChild(0), 1, 1, 1, 29);
+        TestUtilsKt.assertPosition(root.getChild(1), 2, 1, 2, 11);
+        TestUtilsKt.assertPosition(root.getChild(1).getChild(0), 2, 4, 2, 7);
+    }
+
 }